@@ -4,7 +4,7 @@ PROJECT_VERSION=2.1.34-SNAPSHOT
 # mvn clean might fail due to permission issue on Linux, so remove target with root.
 sudo rm -rf target;
 # Generate Jar file
-mvn clean install;
+mvn clean install -Pconfig-bundle;
 echo "Jar file generated successfully";
 echo $(pwd);
 
@@ -19,6 +19,7 @@ docker run --rm --name graal -v $(pwd):/${PROJECT_NAME} springci/graalvm-ce:mast
                     --trace-object-instantiation=ch.qos.logback.core.AsyncAppenderBase$Worker \
                     --initialize-at-build-time=org.slf4j.LoggerFactory,org.slf4j.MDC,ch.qos.logback \
                     --initialize-at-run-time=io.netty \
+                    --features=com.networknt.aws.lambda.app.LambdaNativeFeature \
                     --allow-incomplete-classpath \
                     --enable-all-security-services \
 		                -H:ReflectionConfigurationFiles=/${PROJECT_NAME}/reflect.json \
@@ -0,0 +1,94 @@
+package com.networknt.aws.lambda;
+
+import com.networknt.config.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records where the cold start time goes. The entry points, Handler and the handlers with expensive initialization record
+ * the nanoseconds spent in each phase and in each handler constructor, and the lazy work done by the first invocation. The
+ * profile is returned by the ServerInfoHandler and logged once as a single JSON line after the first invocation.
+ *
+ * @author Steve Hu
+ */
+public final class ColdStartProfile {
+    private static final Logger LOG = LoggerFactory.getLogger(ColdStartProfile.class);
+    public static final String PHASES = "phases";
+    public static final String HANDLERS = "handlers";
+    public static final String FIRST_INVOCATION = "firstInvocation";
+
+    private static final Map<String, Long> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, Long> handlers = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, Long> firstInvocation = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final AtomicBoolean invoked = new AtomicBoolean(false);
+
+    private ColdStartProfile() {
+    }
+
+    /**
+     * Record an initialization phase.
+     *
+     * @param phase the name of the phase.
+     * @param startNanos the System.nanoTime() when the phase started.
+     */
+    public static void phase(final String phase, final long startNanos) {
+        phases.merge(phase, System.nanoTime() - startNanos, Long::sum);
+    }
+
+    /**
+     * Record the construction of a handler.
+     *
+     * @param name the handler name in handler.yml.
+     * @param startNanos the System.nanoTime() when the construction started.
+     */
+    public static void handler(final String name, final long startNanos) {
+        handlers.merge(name, System.nanoTime() - startNanos, Long::sum);
+    }
+
+    /**
+     * Record lazy work done by the first invocation. It is ignored after the first invocation is complete.
+     *
+     * @param name the name of the lazy work.
+     * @param startNanos the System.nanoTime() when the work started.
+     */
+    public static void lazy(final String name, final long startNanos) {
+        if (!invoked.get())
+            firstInvocation.merge(name, System.nanoTime() - startNanos, Long::sum);
+    }
+
+    /**
+     * Called by the entry points at the end of each invocation. The first call records the invocation time and logs
+     * the profile, and the other calls return immediately.
+     *
+     * @param startNanos the System.nanoTime() when the invocation started.
+     */
+    public static void invocationComplete(final long startNanos) {
+        if (invoked.get())
+            return;
+        firstInvocation.merge("total", System.nanoTime() - startNanos, Long::sum);
+        if (invoked.compareAndSet(false, true) && LOG.isInfoEnabled())
+            LOG.info("Cold start profile in nanoseconds: {}", JsonMapper.toJson(snapshot()));
+    }
+
+    /**
+     * @return a copy of the profile with the phases, handlers and firstInvocation sections.
+     */
+    public static Map<String, Object> snapshot() {
+        final Map<String, Object> profile = new LinkedHashMap<>();
+        synchronized (phases) {
+            profile.put(PHASES, new LinkedHashMap<>(phases));
+        }
+        synchronized (handlers) {
+            profile.put(HANDLERS, new LinkedHashMap<>(handlers));
+        }
+        synchronized (firstInvocation) {
+            profile.put(FIRST_INVOCATION, new LinkedHashMap<>(firstInvocation));
+        }
+        return profile;
+    }
+}
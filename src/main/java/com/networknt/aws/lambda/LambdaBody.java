@@ -0,0 +1,65 @@
+package com.networknt.aws.lambda;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Holds a request or response body and converts it between text, UTF-8 bytes and Base64 lazily. Each representation
+ * is computed at most once and cached, so the handlers that read the body and the entry point that encodes it at the
+ * edge share the same conversions instead of making their own copies.
+ *
+ * The array returned by getBytes() is shared and must not be modified.
+ */
+public final class LambdaBody {
+    private String text;
+    private byte[] bytes;
+    private String base64;
+
+    private LambdaBody() {
+    }
+
+    public static LambdaBody ofText(final String text) {
+        final var body = new LambdaBody();
+        body.text = text;
+        return body;
+    }
+
+    public static LambdaBody ofBytes(final byte[] bytes) {
+        final var body = new LambdaBody();
+        body.bytes = bytes;
+        return body;
+    }
+
+    public static LambdaBody ofBase64(final String base64) {
+        final var body = new LambdaBody();
+        body.base64 = base64;
+        return body;
+    }
+
+    public String getText() {
+        if (this.text == null)
+            this.text = new String(this.getBytes(), StandardCharsets.UTF_8);
+        return this.text;
+    }
+
+    public byte[] getBytes() {
+        if (this.bytes == null)
+            this.bytes = this.text != null ? this.text.getBytes(StandardCharsets.UTF_8) : Base64.getDecoder().decode(this.base64);
+        return this.bytes;
+    }
+
+    public String getBase64() {
+        if (this.base64 == null)
+            this.base64 = Base64.getEncoder().encodeToString(this.getBytes());
+        return this.base64;
+    }
+
+    public boolean isEmpty() {
+        return this.text != null ? this.text.isEmpty() : this.getBytes().length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return this.getText();
+    }
+}
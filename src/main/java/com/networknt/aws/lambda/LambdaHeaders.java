@@ -0,0 +1,222 @@
+package com.networknt.aws.lambda;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A case-insensitive view of the headers of a request or response event. The index from the lowercase name to the
+ * name used in the event map is built when the map is wrapped, so each lookup is a hash lookup instead of a scan of
+ * the map with equalsIgnoreCase. The lowercase constants below are used as they are, so looking them up allocates
+ * nothing. Reads never change the view, so it can be read from several threads.
+ *
+ * Updates are written through to the event map under the name it already uses, so the handlers that still read the
+ * event map directly see them. The names of the event map must only be added or removed through the view; code that
+ * changes them directly, like a transformer rule, calls reindex afterwards. Changing the value of an existing name
+ * directly is fine. While the handlers of a parallel group run, the changes of each handler are kept on its own thread,
+ * where the handler reads them back, and the exchange applies them after the group.
+ */
+public final class LambdaHeaders {
+    public static final String AUTHORIZATION = "authorization";
+    public static final String CONTENT_TYPE = "content-type";
+    public static final String CORRELATION = "x-correlation-id";
+    public static final String TRACEABILITY = "x-traceability-id";
+    public static final String ORIGIN = "origin";
+    public static final String SERVICE_ID = "service_id";
+    public static final String SCOPE_TOKEN = "x-scope-token";
+
+    private Map<String, String> headers;
+    // lowercase name to the name in the event map.
+    private final Map<String, String> names = new HashMap<>();
+    // the event map has names that only differ in case.
+    private boolean duplicates;
+    // set by the exchange while a parallel group runs.
+    private boolean buffered;
+    // the changes of the handler of the group running on the thread, from the lowercase name to the name and the value.
+    private ThreadLocal<Map<String, String[]>> pending;
+
+    LambdaHeaders() {
+    }
+
+    /**
+     * Wraps the header map of a response event or any other header map for the time of a few updates.
+     *
+     * @param headers - the header map to update, not null.
+     * @return - a view of the header map.
+     */
+    public static LambdaHeaders of(final Map<String, String> headers) {
+        final var view = new LambdaHeaders();
+        view.wrap(headers);
+        return view;
+    }
+
+    void wrap(final Map<String, String> headers) {
+        this.headers = headers;
+        this.reindex();
+    }
+
+    /**
+     * Called by the exchange before the handlers of a parallel group start. Until endBuffering is called, the headers
+     * can only be changed on a thread that called bufferChanges.
+     */
+    void startBuffering() {
+        if (this.pending == null)
+            this.pending = new ThreadLocal<>();
+        this.buffered = true;
+    }
+
+    /**
+     * Keep the changes made on the current thread apart from the event map.
+     *
+     * @return - the changes from the lowercase name to the name and the value, which is null for a removed header.
+     */
+    Map<String, String[]> bufferChanges() {
+        final Map<String, String[]> changes = new LinkedHashMap<>();
+        this.pending.set(changes);
+        return changes;
+    }
+
+    void endBufferChanges() {
+        this.pending.remove();
+    }
+
+    void endBuffering() {
+        this.buffered = false;
+    }
+
+    /**
+     * Write the changes kept by bufferChanges to the event map.
+     *
+     * @param changes - the changes of a handler of a parallel group.
+     */
+    void apply(final Map<String, String[]> changes) {
+        for (String[] change : changes.values()) {
+            if (change[1] == null)
+                this.remove(change[0]);
+            else
+                this.put(change[0], change[1]);
+        }
+    }
+
+    private Map<String, String[]> changes() {
+        final Map<String, String[]> changes = this.pending.get();
+        if (changes == null)
+            throw new IllegalStateException("The request headers can only be changed by the handlers of a parallel group while it runs.");
+        return changes;
+    }
+
+    /**
+     * @return - the wrapped event map.
+     */
+    public Map<String, String> getMap() {
+        return this.headers;
+    }
+
+    private static String canonical(final String name) {
+        // returns the same instance when the name is already in lowercase.
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds the index again from the event map. It must be called after names are added to or removed from the event
+     * map without going through this view.
+     */
+    public void reindex() {
+        this.names.clear();
+        this.duplicates = false;
+        if (this.headers == null)
+            return;
+        for (String name : this.headers.keySet()) {
+            if (this.names.putIfAbsent(canonical(name), name) != null)
+                this.duplicates = true;
+        }
+    }
+
+    /**
+     * @param name - header name in any case.
+     * @return - the value or null if the header is not set.
+     */
+    public String get(final String name) {
+        if (this.buffered) {
+            final Map<String, String[]> changes = this.pending.get();
+            final String[] change = changes == null ? null : changes.get(canonical(name));
+            if (change != null)
+                return change[1];
+        }
+        if (this.headers == null)
+            return null;
+        final String key = this.names.get(canonical(name));
+        return key == null ? null : this.headers.get(key);
+    }
+
+    public boolean contains(final String name) {
+        return this.get(name) != null;
+    }
+
+    /**
+     * Sets a header. If the header is already set in another case, the existing name is kept.
+     *
+     * @param name  - header name in any case.
+     * @param value - header value.
+     */
+    public void put(final String name, final String value) {
+        if (this.buffered) {
+            this.changes().put(canonical(name), new String[]{name, value});
+            return;
+        }
+        final String lower = canonical(name);
+        final String key = this.names.get(lower);
+        if (key == null) {
+            this.headers.put(name, value);
+            this.names.put(lower, name);
+        } else {
+            this.headers.put(key, value);
+        }
+    }
+
+    /**
+     * Sets each header of the map. The headers that are already set keep their names.
+     *
+     * @param updates - the headers to set.
+     */
+    public void putAll(final Map<String, String> updates) {
+        for (Map.Entry<String, String> entry : updates.entrySet())
+            this.put(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Removes a header in any case.
+     *
+     * @param name - header name in any case.
+     * @return - the removed value or null if the header was not set.
+     */
+    public String remove(final String name) {
+        if (this.buffered) {
+            final String value = this.get(name);
+            this.changes().put(canonical(name), new String[]{name, null});
+            return value;
+        }
+        if (this.headers == null)
+            return null;
+        final String lower = canonical(name);
+        final String key = this.names.remove(lower);
+        if (key == null)
+            return null;
+        final String value = this.headers.remove(key);
+        if (this.duplicates)
+            this.headers.keySet().removeIf(n -> canonical(n).equals(lower));
+        return value;
+    }
+
+    public void removeAll(final Collection<String> names) {
+        for (String name : names)
+            this.remove(name);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.headers);
+    }
+}
@@ -3,7 +3,9 @@ package com.networknt.aws.lambda;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.event.ReadOnlyProxyRequestEvent;
 import com.networknt.aws.lambda.exception.LambdaExchangeStateException;
+import com.networknt.aws.lambda.handler.LambdaHandler;
 import com.networknt.aws.lambda.handler.chain.ChainExecutor;
 import com.networknt.aws.lambda.handler.chain.Chain;
 import com.networknt.aws.lambda.handler.middleware.ExceptionUtil;
@@ -14,22 +16,39 @@ import com.networknt.status.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 
 /**
- * Shared object among middleware threads containing information on the request/response event.
+ * Shared object among middleware handlers containing information on the request/response event. An exchange is used
+ * by one invocation at a time, so the attachments and the listeners are kept in plain arrays and lists without locks.
+ *
+ * The lists, the attachment array, the header view and the chain executor of a recycled exchange are reused by the
+ * next invocation, but every invocation gets its own exchange object around them. The generation of the buffers is
+ * increased on every reset, and the exchange checks it in the methods that touch the buffers, so a reference kept
+ * after the handler returns, like an async callback or a listener, gets a LambdaExchangeStateException instead of
+ * changing the next invocation. Code that only keeps the generation can still pass it to checkGeneration.
  */
 public final class LightLambdaExchange {
     private static final Logger LOG = LoggerFactory.getLogger(LightLambdaExchange.class);
     private APIGatewayProxyRequestEvent request;
+    // the snapshot of the finalized request shared by the handlers of the response phase.
+    private APIGatewayProxyRequestEvent readOnlyRequest;
     private APIGatewayProxyResponseEvent response;
-    private final Context context;
-    private final Map<Attachable<?>, Object> attachments = Collections.synchronizedMap(new HashMap<>());
+    private Context context;
+    // indexed by Attachable.index(), grown when an attachable is created after the exchange.
+    private Object[] attachments;
+    private final Buffers buffers;
     private final ChainExecutor executor;
-    private final List<LambdaResponseCompleteListener> responseCompleteListeners = Collections.synchronizedList(new ArrayList<>());
-    private final List<LambdaRequestCompleteListener> requestCompleteListeners = Collections.synchronizedList(new ArrayList<>());
-    private final List<LambdaExchangeFailureListener> exchangeFailedListeners = Collections.synchronizedList(new ArrayList<>());
+    private final LambdaHeaders requestHeaders;
+    private final List<LambdaResponseCompleteListener> responseCompleteListeners;
+    private final List<LambdaRequestCompleteListener> requestCompleteListeners;
+    private final List<LambdaExchangeFailureListener> exchangeFailedListeners;
+    private final List<Runnable> deferredTasks;
 
     // Initial state
     private static final int INITIAL_STATE = 0;
@@ -57,17 +76,146 @@ public final class LightLambdaExchange {
 
     // the exchange is complete
     private static final int FLAG_EXCHANGE_COMPLETE = 1 << 8;
+
+    // the exchange has been reset and is waiting to be reused by the next invocation.
+    private static final int FLAG_RECYCLED = 1 << 9;
+
+    // the handlers of a parallel group are running.
+    private static final int FLAG_PARALLEL_GROUP = 1 << 10;
+
+    // the buffers kept for the next invocation, an execution environment handles one invocation at a time.
+    private static final AtomicReference<Buffers> recycled = new AtomicReference<>();
+
     private int state = INITIAL_STATE;
+    // the generation of the buffers when the exchange was created.
+    private final int generation;
     private int statusCode = 200;
-    private final Chain chain;
+    private Chain chain;
+    private boolean responseStreaming;
+    private InputStream responseBodyStream;
+    private APIGatewayProxyResponseEvent streamedResponse;
+    private Integer streamedStatusCode;
+    private boolean encodeRequestBody;
+    private LambdaBody requestBody;
+    private String requestBodySource;
+    private LambdaBody responseBody;
+    private String responseBodySource;
+    // the changes of the handlers of the parallel group that is running, in the declared order.
+    private ParallelChanges[] parallelChanges;
+    private ThreadLocal<ParallelChanges> parallelMember;
 
     public LightLambdaExchange(Context context, Chain chain) {
+        this(context, chain, new Buffers());
+    }
+
+    private LightLambdaExchange(final Context context, final Chain chain, final Buffers buffers) {
         this.context = context;
         this.chain = chain;
-        this.executor = new ChainExecutor();
+        this.buffers = buffers;
+        this.generation = buffers.generation;
+        this.attachments = buffers.attachments;
+        this.executor = buffers.executor;
+        this.requestHeaders = buffers.requestHeaders;
+        this.responseCompleteListeners = buffers.responseCompleteListeners;
+        this.requestCompleteListeners = buffers.requestCompleteListeners;
+        this.exchangeFailedListeners = buffers.exchangeFailedListeners;
+        this.deferredTasks = buffers.deferredTasks;
+    }
+
+    /**
+     * Get an exchange for a new invocation. The buffers recycled by the previous invocation are reused if there are any,
+     * otherwise new buffers are created. The exchange must be given back with recycle() once the response is built.
+     *
+     * @param context - the Lambda context of the invocation.
+     * @param chain   - the chain to execute.
+     * @return - an exchange in the initial state.
+     */
+    public static LightLambdaExchange obtain(final Context context, final Chain chain) {
+        final Buffers buffers = recycled.getAndSet(null);
+        return new LightLambdaExchange(context, chain, buffers == null ? new Buffers() : buffers);
+    }
+
+    /**
+     * Reset the exchange and keep its buffers for the next invocation. The exchange must not be used after this call;
+     * the listeners and attachments that try to touch it get a LambdaExchangeStateException.
+     */
+    public void recycle() {
+        this.reset();
+        // the array may have been grown for an attachable created during the invocation.
+        this.buffers.attachments = this.attachments;
+        recycled.set(this.buffers);
+    }
+
+    /**
+     * Clear all the state of the invocation so that nothing of it can leak into the next one. The listeners and the
+     * deferred tasks that were added but never called are dropped with a warning, as they hold references from the
+     * previous invocation.
+     */
+    public void reset() {
+        this.checkActive();
+        // the stale references see the new generation before the buffers are cleared.
+        this.buffers.generation++;
+        final int pending = this.requestCompleteListeners.size() + this.responseCompleteListeners.size();
+        if (pending > 0)
+            LOG.warn("Dropping {} listeners that were not called before the exchange was reset.", pending);
+        if (!this.deferredTasks.isEmpty())
+            LOG.warn("Dropping {} deferred tasks that were not run before the exchange was reset.", this.deferredTasks.size());
+        this.requestCompleteListeners.clear();
+        this.responseCompleteListeners.clear();
+        this.exchangeFailedListeners.clear();
+        this.deferredTasks.clear();
+        Arrays.fill(this.attachments, null);
+        this.executor.reset();
+        this.request = null;
+        this.readOnlyRequest = null;
+        this.requestHeaders.wrap(null);
+        this.requestHeaders.endBuffering();
+        this.parallelChanges = null;
+        this.response = null;
+        this.context = null;
+        this.chain = null;
+        this.statusCode = 200;
+        this.responseStreaming = false;
+        this.responseBodyStream = null;
+        this.streamedResponse = null;
+        this.streamedStatusCode = null;
+        this.encodeRequestBody = false;
+        this.requestBody = null;
+        this.requestBodySource = null;
+        this.responseBody = null;
+        this.responseBodySource = null;
+        this.state = FLAG_RECYCLED;
+    }
+
+    /**
+     * @return - the generation of the exchange, which is different for every invocation that shares the buffers.
+     */
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Checks that the exchange still belongs to the invocation that captured the generation.
+     *
+     * @param generation - the generation captured with getGeneration().
+     * @throws LambdaExchangeStateException - if the exchange has been reset since the generation was captured.
+     */
+    public void checkGeneration(final int generation) {
+        final int current = this.buffers.generation;
+        if (generation != current)
+            throw LambdaExchangeStateException.staleGenerationException(generation, current);
+    }
+
+    /**
+     * Checks that the exchange has not been reset, so that a stale reference cannot touch the buffers that have been
+     * handed to the next invocation.
+     */
+    private void checkActive() {
+        this.checkGeneration(this.generation);
     }
 
     public void executeChain() {
+        this.checkActive();
 
         if (stateHasAnyFlags(FLAG_CHAIN_EXECUTED | FLAG_EXCHANGE_COMPLETE))
             throw LambdaExchangeStateException
@@ -87,11 +235,21 @@ public final class LightLambdaExchange {
      * @param response -
      */
     public void setInitialResponse(final APIGatewayProxyResponseEvent response) {
+        this.checkActive();
 
         if (stateHasAnyFlags(FLAG_RESPONSE_SET))
             throw LambdaExchangeStateException
                     .invalidStateException(this.state, FLAG_RESPONSE_SET);
 
+        if (stateHasAnyFlags(FLAG_PARALLEL_GROUP)) {
+            final ParallelChanges changes = this.memberChanges();
+            if (changes.response != null)
+                throw LambdaExchangeStateException
+                        .invalidStateException(this.state, FLAG_RESPONSE_SET);
+            changes.response = response;
+            return;
+        }
+
         this.response = response;
         this.statusCode = response.getStatusCode();
         this.state |= FLAG_RESPONSE_SET;
@@ -157,14 +315,260 @@ public final class LightLambdaExchange {
         return request;
     }
 
+    /**
+     * Returns the case-insensitive view of the request headers shared by all handlers. The event gets an empty header
+     * map if it has none, so the handlers can add headers without checking.
+     *
+     * @return - the request headers.
+     */
+    public LambdaHeaders getRequestHeaders() {
+        this.checkActive();
+        if (stateHasAnyFlagsClear(FLAG_REQUEST_SET))
+            throw LambdaExchangeStateException
+                    .missingStateException(this.state, FLAG_REQUEST_SET);
+
+        Map<String, String> headers = this.request.getHeaders();
+        if (headers == null) {
+            headers = new HashMap<>();
+            this.request.setHeaders(headers);
+        }
+        if (headers != this.requestHeaders.getMap())
+            this.requestHeaders.wrap(headers);
+        return this.requestHeaders;
+    }
+
+    /**
+     * Prepare the exchange for the handlers of a parallel group that run at the same time. The attachment array is
+     * grown to hold every attachable key and the view of the request headers and the holder of the request body are
+     * created, so that reading them from several threads doesn't change the exchange.
+     *
+     * Until endParallelAccess is called, the request header changes, the response and the listeners and deferred tasks
+     * of each handler are kept apart on the thread of the handler, and the handler reads its own header changes back.
+     * The attachments are written to the exchange directly, as each handler uses its own keys. The response body and
+     * the request body cannot be changed.
+     *
+     * @param members - the number of handlers in the group.
+     */
+    public void prepareParallelAccess(final int members) {
+        this.checkActive();
+        if (this.attachments.length < Attachable.count())
+            this.attachments = Arrays.copyOf(this.attachments, Attachable.count());
+        if (!stateHasAnyFlagsClear(FLAG_REQUEST_SET)) {
+            this.getRequestHeaders();
+            this.getRequestBody();
+            this.requestHeaders.startBuffering();
+        }
+        if (this.parallelMember == null)
+            this.parallelMember = new ThreadLocal<>();
+        this.parallelChanges = new ParallelChanges[members];
+        this.state |= FLAG_PARALLEL_GROUP;
+    }
+
+    /**
+     * Called on the thread of a handler of a parallel group before the handler is executed.
+     *
+     * @param member - the index of the handler in the declared order of the group.
+     */
+    public void beginParallelMember(final int member) {
+        final ParallelChanges changes = new ParallelChanges();
+        if (!stateHasAnyFlagsClear(FLAG_REQUEST_SET))
+            changes.headers = this.requestHeaders.bufferChanges();
+        this.parallelChanges[member] = changes;
+        this.parallelMember.set(changes);
+    }
+
+    /**
+     * Called on the thread of a handler of a parallel group after the handler returns.
+     */
+    public void endParallelMember() {
+        this.parallelMember.remove();
+        if (!stateHasAnyFlagsClear(FLAG_REQUEST_SET))
+            this.requestHeaders.endBufferChanges();
+    }
+
+    /**
+     * Called once all the handlers of a parallel group have returned. The changes of the first handlers are applied in
+     * the declared order, so the result doesn't depend on which handler finished first. The group passes the handlers
+     * up to the first failure; the changes of the handlers after it are dropped, like the chain would not have run them.
+     * If several handlers set the response, the first one in the declared order is kept.
+     *
+     * @param applied - the number of handlers whose changes are applied.
+     */
+    public void endParallelAccess(final int applied) {
+        this.checkActive();
+        this.requestHeaders.endBuffering();
+        this.state &= ~FLAG_PARALLEL_GROUP;
+        final ParallelChanges[] changes = this.parallelChanges;
+        this.parallelChanges = null;
+        for (int i = 0; i < changes.length; i++) {
+            if (changes[i] == null)
+                continue;
+            if (i < applied)
+                changes[i].apply(this);
+            else
+                LOG.debug("Dropping the changes of handler {} of the parallel group after the first failure.", i);
+        }
+    }
+
+    private ParallelChanges memberChanges() {
+        final ParallelChanges changes = this.parallelMember.get();
+        if (changes == null)
+            throw LambdaExchangeStateException
+                    .invalidStateException(this.state, FLAG_PARALLEL_GROUP);
+        return changes;
+    }
+
+    /**
+     * Returns the request body shared by all handlers. The holder is created from the request event once, and it is
+     * created again only if the body of the event is replaced directly.
+     *
+     * @return - returns the request body or null if there is no body.
+     */
+    public LambdaBody getRequestBody() {
+        final String body = this.request == null ? null : this.request.getBody();
+        if (body == null)
+            return null;
+
+        if (body != this.requestBodySource) {
+            this.requestBody = LambdaBody.ofText(body);
+            this.requestBodySource = body;
+        }
+        return this.requestBody;
+    }
+
+    /**
+     * Replaces the request body in both the request event and the shared holder.
+     *
+     * @param text - the new request body.
+     */
+    public void setRequestBody(final String text) {
+        if (stateHasAnyFlagsClear(FLAG_REQUEST_SET))
+            throw LambdaExchangeStateException
+                    .missingStateException(this.state, FLAG_REQUEST_SET);
+
+        this.request.setBody(text);
+        this.requestBody = text == null ? null : LambdaBody.ofText(text);
+        this.requestBodySource = text;
+    }
+
+    /**
+     * Returns the response body shared by all handlers and the entry point.
+     *
+     * @return - returns the response body or null if there is no response or body.
+     */
+    public LambdaBody getResponseBody() {
+        final String body = this.response == null ? null : this.response.getBody();
+        if (body == null)
+            return null;
+
+        if (body != this.responseBodySource) {
+            this.responseBody = LambdaBody.ofText(body);
+            this.responseBodySource = body;
+        }
+        return this.responseBody;
+    }
+
+    /**
+     * Replaces the response body in both the response event and the shared holder.
+     *
+     * @param text - the new response body.
+     */
+    public void setResponseBody(final String text) {
+        this.checkActive();
+        if (stateHasAnyFlagsClear(FLAG_RESPONSE_SET))
+            throw LambdaExchangeStateException
+                    .missingStateException(this.state, FLAG_RESPONSE_SET);
+
+        if (stateHasAnyFlags(FLAG_PARALLEL_GROUP))
+            throw LambdaExchangeStateException
+                    .invalidStateException(this.state, FLAG_PARALLEL_GROUP);
+
+        this.response.setBody(text);
+        this.responseBody = text == null ? null : LambdaBody.ofText(text);
+        this.responseBodySource = text;
+    }
+
+    /**
+     * The request body is encoded as Base64 once when the request is finalized for the backend instead of when it is
+     * received, so the handlers in the chain work on the plain body.
+     */
+    public void encodeRequestBodyOnFinalize() {
+        this.encodeRequestBody = true;
+    }
+
+    /**
+     * Returns a read-only snapshot of the request. Once the request is finalized, all callers get the same snapshot
+     * that shares the maps and the body of the finalized request. Before that, a new snapshot is returned each time
+     * because the request can still change.
+     *
+     * @return - the read-only request.
+     */
     public APIGatewayProxyRequestEvent getReadOnlyRequest() {
-        return request.clone();
+        if (this.readOnlyRequest != null)
+            return this.readOnlyRequest;
+
+        final var snapshot = new ReadOnlyProxyRequestEvent(this.request);
+        if (stateHasAnyFlags(FLAG_REQUEST_DONE))
+            this.readOnlyRequest = snapshot;
+        return snapshot;
     }
 
     public int getStatusCode() {
         return statusCode;
     }
 
+    /**
+     * Allows the handler that produces the response to stream the body to the caller instead of buffering it in the
+     * response event. It is enabled by the entry point when the invocation uses the streaming response mode.
+     */
+    public void enableResponseStreaming() {
+        this.responseStreaming = true;
+    }
+
+    /**
+     * Checks if the given handler can stream the response body. All enabled handlers after it in the chain must
+     * support streaming because they will see a response event without the body.
+     *
+     * @param producer - the handler that produces the response.
+     * @return - returns true if the body can be streamed.
+     */
+    public boolean canStreamResponse(final LambdaHandler producer) {
+        return this.responseStreaming && this.chain.isStreamingSupportedAfter(producer);
+    }
+
+    /**
+     * Sets the body of the response as a stream. The body of the response event is left empty and the entry point
+     * pipes the stream to the caller after the headers.
+     *
+     * @param responseBodyStream - backend response body.
+     * @param response           - the response event without the body that the stream belongs to.
+     */
+    public void setResponseBodyStream(final InputStream responseBodyStream, final APIGatewayProxyResponseEvent response) {
+        this.responseBodyStream = responseBodyStream;
+        this.streamedResponse = response;
+        this.streamedStatusCode = response.getStatusCode();
+    }
+
+    public InputStream getResponseBodyStream() {
+        return responseBodyStream;
+    }
+
+    /**
+     * Checks if the finalized response is still the one the stream belongs to. A handler after the producer can replace
+     * the response with an error by setting the status, the body or the base64 flag, and then the stream must not be
+     * piped to the caller.
+     *
+     * @param response - the finalized response.
+     * @return - returns true if the stream is the body of the response.
+     */
+    public boolean isStreamedResponse(final APIGatewayProxyResponseEvent response) {
+        return this.responseBodyStream != null
+                && response == this.streamedResponse
+                && response.getBody() == null
+                && !Boolean.TRUE.equals(response.getIsBase64Encoded())
+                && Objects.equals(response.getStatusCode(), this.streamedStatusCode);
+    }
+
     /**
      * Terminates the request portion of the exchange and invokes the exchangeRequestCompleteListeners.
      * You cannot finalize a request that has already been finalized.
@@ -173,6 +577,7 @@ public final class LightLambdaExchange {
      * @return - returns the complete and final request event.
      */
     public APIGatewayProxyRequestEvent getFinalizedRequest(boolean fromListener) {
+        this.checkActive();
         if (!fromListener) {
             // the call any listener should not invoke listener again to prevent deal loop.
             for (int i = requestCompleteListeners.size() - 1; i >= 0; --i) {
@@ -191,7 +596,16 @@ public final class LightLambdaExchange {
                     .missingStateException(this.state, FLAG_REQUEST_SET);
 
         if (!fromListener) {
+            if (this.encodeRequestBody && !Boolean.TRUE.equals(this.request.getIsBase64Encoded())) {
+                final LambdaBody body = this.getRequestBody();
+                if (body != null) {
+                    this.requestBodySource = body.getBase64();
+                    this.request.setBody(this.requestBodySource);
+                    this.request.setIsBase64Encoded(true);
+                }
+            }
             this.state |= FLAG_REQUEST_DONE;
+            this.readOnlyRequest = new ReadOnlyProxyRequestEvent(this.request);
         }
 
         return request;
@@ -205,6 +619,7 @@ public final class LightLambdaExchange {
      * @return - returns the complete and final response event.
      */
     public APIGatewayProxyResponseEvent getFinalizedResponse(boolean fromListener) {
+        this.checkActive();
         if (!fromListener) {
             // the call any listener should not invoke listener again to prevent deal loop.
             for (int i = responseCompleteListeners.size() - 1; i >= 0; --i) {
@@ -383,36 +798,100 @@ public final class LightLambdaExchange {
     }
 
     public LightLambdaExchange addExchangeFailedListener(final LambdaExchangeFailureListener listener) {
+        this.checkActive();
 
-        if (this.stateHasAnyFlags(FLAG_RESPONSE_DONE))
+        if (this.stateHasAnyFlags(FLAG_RESPONSE_DONE | FLAG_RECYCLED))
             throw LambdaExchangeStateException
-                    .invalidStateException(this.state, FLAG_RESPONSE_DONE);
+                    .invalidStateException(this.state, FLAG_RESPONSE_DONE | FLAG_RECYCLED);
 
+        if (this.stateHasAnyFlags(FLAG_PARALLEL_GROUP)) {
+            this.memberChanges().add(exchange -> exchange.addExchangeFailedListener(listener));
+            return this;
+        }
         this.exchangeFailedListeners.add(listener);
         return this;
     }
 
     public LightLambdaExchange addResponseCompleteListener(final LambdaResponseCompleteListener listener) {
+        this.checkActive();
 
-        if (this.stateHasAnyFlags(FLAG_RESPONSE_DONE))
+        if (this.stateHasAnyFlags(FLAG_RESPONSE_DONE | FLAG_RECYCLED))
             throw LambdaExchangeStateException
-                    .invalidStateException(this.state, FLAG_RESPONSE_DONE);
+                    .invalidStateException(this.state, FLAG_RESPONSE_DONE | FLAG_RECYCLED);
 
+        if (this.stateHasAnyFlags(FLAG_PARALLEL_GROUP)) {
+            this.memberChanges().add(exchange -> exchange.addResponseCompleteListener(listener));
+            return this;
+        }
         this.responseCompleteListeners.add(listener);
         return this;
     }
 
     public LightLambdaExchange addRequestCompleteListener(final LambdaRequestCompleteListener listener) {
+        this.checkActive();
 
-        if (this.stateHasAnyFlags(FLAG_REQUEST_DONE | FLAG_RESPONSE_DONE))
+        if (this.stateHasAnyFlags(FLAG_REQUEST_DONE | FLAG_RESPONSE_DONE | FLAG_RECYCLED))
             throw LambdaExchangeStateException
-                    .invalidStateException(this.state, FLAG_REQUEST_DONE | FLAG_RESPONSE_DONE);
+                    .invalidStateException(this.state, FLAG_REQUEST_DONE | FLAG_RESPONSE_DONE | FLAG_RECYCLED);
 
 
+        if (this.stateHasAnyFlags(FLAG_PARALLEL_GROUP)) {
+            this.memberChanges().add(exchange -> exchange.addRequestCompleteListener(listener));
+            return this;
+        }
         this.requestCompleteListeners.add(listener);
         return this;
     }
 
+    /**
+     * Adds a task that is run after the response has been returned to the caller, like the audit log and the metrics
+     * of the invocation. The entry point runs the deferred tasks in the order they are added before the exchange is
+     * recycled, so a task can still read the exchange. A task must not change the response as it has been sent.
+     *
+     * @param task - the work to do after the response.
+     * @return - the exchange.
+     */
+    public LightLambdaExchange defer(final Runnable task) {
+        this.checkActive();
+
+        if (this.stateHasAnyFlags(FLAG_RECYCLED))
+            throw LambdaExchangeStateException
+                    .invalidStateException(this.state, FLAG_RECYCLED);
+
+        if (this.stateHasAnyFlags(FLAG_PARALLEL_GROUP)) {
+            this.memberChanges().add(exchange -> exchange.defer(task));
+            return this;
+        }
+        final int owner = this.generation;
+        final Runnable checked = () -> {
+            // a task that outlived its invocation must not run against the exchange of the next one.
+            this.checkGeneration(owner);
+            task.run();
+        };
+        this.deferredTasks.add(checked);
+        return this;
+    }
+
+    public boolean hasDeferredTasks() {
+        return this.generation == this.buffers.generation && !this.deferredTasks.isEmpty();
+    }
+
+    /**
+     * Runs the deferred tasks in the order they were added, including the tasks added by a deferred task. A failed task
+     * is logged and does not stop the others.
+     */
+    public void runDeferredTasks() {
+        this.checkActive();
+        for (int i = 0; i < this.deferredTasks.size(); i++) {
+            try {
+                this.deferredTasks.get(i).run();
+            } catch (RuntimeException e) {
+                LOG.error("Deferred task failed.", e);
+            }
+        }
+        this.deferredTasks.clear();
+    }
+
     /**
      * Adds an attachment to the exchange.
      *
@@ -421,7 +900,19 @@ public final class LightLambdaExchange {
      * @param <T> - Middleware key type.
      */
     public <T> void addAttachment(final Attachable<T> key, final T o) {
-        this.attachments.put(key, o);
+        this.checkActive();
+        if (this.stateHasAnyFlags(FLAG_RECYCLED))
+            throw LambdaExchangeStateException
+                    .invalidStateException(this.state, FLAG_RECYCLED);
+        final int index = key.index();
+        if (index >= this.attachments.length && this.stateHasAnyFlags(FLAG_PARALLEL_GROUP)) {
+            // the key was created during the group, the array is not grown while other handlers read it.
+            this.memberChanges().add(exchange -> exchange.addAttachment(key, o));
+            return;
+        }
+        if (index >= this.attachments.length)
+            this.attachments = Arrays.copyOf(this.attachments, Math.max(index + 1, Attachable.count()));
+        this.attachments[index] = o;
     }
 
     /**
@@ -432,25 +923,102 @@ public final class LightLambdaExchange {
      */
     @SuppressWarnings("unchecked")
     public <T> T getAttachment(final Attachable<T> attachable) {
-        return (T) this.attachments.get(attachable);
+        this.checkActive();
+        final int index = attachable.index();
+        return index < this.attachments.length ? (T) this.attachments[index] : null;
     }
 
     /**
-     * Attachment key class to attach data to the exchange.
+     * The changes of a handler of a parallel group that are applied to the exchange after the group.
+     */
+    private static final class ParallelChanges {
+        private Map<String, String[]> headers;
+        private APIGatewayProxyResponseEvent response;
+        // the listeners and deferred tasks in the order they were added.
+        private List<Consumer<LightLambdaExchange>> updates;
+
+        private void add(final Consumer<LightLambdaExchange> update) {
+            if (this.updates == null)
+                this.updates = new ArrayList<>(2);
+            this.updates.add(update);
+        }
+
+        private void apply(final LightLambdaExchange exchange) {
+            if (this.headers != null)
+                exchange.requestHeaders.apply(this.headers);
+            if (this.response != null) {
+                if (exchange.stateHasAnyFlags(FLAG_RESPONSE_SET))
+                    LOG.warn("Dropping the response of a handler of the parallel group as an earlier handler has set it.");
+                else
+                    exchange.setInitialResponse(this.response);
+            }
+            if (this.updates != null) {
+                for (var update : this.updates)
+                    update.accept(exchange);
+            }
+        }
+    }
+
+    /**
+     * The parts of an exchange that are reused by the next invocation when the exchange is recycled.
+     */
+    private static final class Buffers {
+        private Object[] attachments = new Object[Attachable.count()];
+        private final ChainExecutor executor = new ChainExecutor();
+        private final LambdaHeaders requestHeaders = new LambdaHeaders();
+        private final List<LambdaResponseCompleteListener> responseCompleteListeners = new ArrayList<>(4);
+        private final List<LambdaRequestCompleteListener> requestCompleteListeners = new ArrayList<>(4);
+        private final List<LambdaExchangeFailureListener> exchangeFailedListeners = new ArrayList<>(2);
+        private final List<Runnable> deferredTasks = new ArrayList<>(2);
+        // increased on every reset, it tells the invocations that share the buffers apart.
+        private volatile int generation;
+    }
+
+    /**
+     * Attachment key class to attach data to the exchange. Each key gets a dense index when it is created, so two keys
+     * of the same class are different keys and the exchange can store the attachments in an array.
      *
      * @param <T> -
      */
-    public record Attachable<T>(Class<T> key) {
+    public static final class Attachable<T> {
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+        private final Class<T> key;
+        private final int index;
+
+        private Attachable(final Class<T> key, final int index) {
+            this.key = key;
+            this.index = index;
+        }
 
         /**
-         * Creates a new attachable key.
+         * Creates a new attachable key. The keys should be created once and kept in static fields.
          *
          * @param middleware - class to create a key for.
          * @param <T>        - given class has to implement the MiddlewareHandler interface.
          * @return - returns new attachable instance.
          */
         public static <T> Attachable<T> createAttachable(final Class<T> middleware) {
-            return new Attachable<>(middleware);
+            return new Attachable<>(middleware, COUNTER.getAndIncrement());
+        }
+
+        /**
+         * @return - the number of attachable keys created so far.
+         */
+        static int count() {
+            return COUNTER.get();
+        }
+
+        public Class<T> key() {
+            return key;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return "Attachable[key=" + key.getName() + ", index=" + index + "]";
         }
     }
 
@@ -460,7 +1028,7 @@ public final class LightLambdaExchange {
                 "request=" + request +
                 ", response=" + response +
                 ", context=" + context +
-                ", attachments=" + attachments +
+                ", attachments=" + Arrays.toString(attachments) +
                 ", executor=" + executor +
                 ", state=" + state +
                 ", statusCode=" + statusCode +
@@ -0,0 +1,208 @@
+package com.networknt.aws.lambda.app;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import com.networknt.config.CentralizedManagement;
+import com.networknt.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A precompiled bundle of all the configuration files used by the Lambda function. At build time, the main method parses
+ * each config file and writes the resulting maps into a single JSON document. The ${...} placeholders are kept as they
+ * are, because values.yml and the environment variables of the function are only known when it starts. At cold start,
+ * the entry points call preload to read the document in one pass, resolve the placeholders of every map like the normal
+ * loading does and put it into the Config cache, so that the *Config.load() calls in the handler constructors find their
+ * maps already there and no YAML file is parsed.
+ *
+ * The bundle is optional. If it is not on the classpath, the configs are loaded from the YAML files as before. A config file
+ * that contains an encrypted value is never written into the bundle and is decrypted by the normal loading.
+ *
+ * @author Steve Hu
+ */
+public class ConfigBundle {
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigBundle.class);
+    public static final String BUNDLE_RESOURCE = "config/config-bundle.json";
+    private static final String CRYPT_PREFIX = "CRYPT";
+    private static final String CONFIG_DIR = "config/";
+    private static final String[] CONFIG_EXTENSIONS = {".yml", ".yaml", ".json"};
+
+    /**
+     * The config files loaded by the handlers in this project that have their defaults in the dependency jars. The
+     * configs in the config directories of the project are added to them when the bundle is written. The list can be
+     * replaced by passing the config names after the output path to the main method.
+     */
+    static final List<String> DEFAULT_CONFIG_NAMES = Arrays.asList(
+            LambdaAppConfig.CONFIG_NAME, LambdaBatchConfig.CONFIG_NAME, "lambda-proxy", "handler", "service", "cache", "client",
+            "metrics", "limit", "correlation", "traceability", "header", "cors", "audit", "token", "router", "openapi-handler",
+            "openapi-validator", "security", "unified-security", "basic-auth", "apikey", "sanitizer", "request-transformer",
+            "response-transformer", "rule-loader", "health", "info", "logger");
+    // the files of the config directory that are not loaded as configs.
+    private static final Set<String> NOT_CONFIG_NAMES = Set.of("values", "openapi", "config-bundle");
+
+    private static final TypeReference<Map<String, Map<String, Object>>> BUNDLE_TYPE = new TypeReference<>() {};
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private ConfigBundle() {
+    }
+
+    /**
+     * Generate the bundle during the build.
+     *
+     * @param args the output file followed by optional config names.
+     * @throws IOException when the bundle cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ConfigBundle <output file> [config names...]");
+            System.exit(1);
+        }
+        final List<String> names = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : getConfigNames();
+        final Path output = Path.of(args[0]);
+        if (output.getParent() != null)
+            Files.createDirectories(output.getParent());
+        try (OutputStream out = Files.newOutputStream(output)) {
+            final int count = write(names, out);
+            LOG.info("Wrote {} configs into the bundle {}", count, output);
+        }
+    }
+
+    /**
+     * The default config names and the names of the config files in the config directories of the classpath, like
+     * target/classes/config, so that a config added to src/main/resources/config is bundled without changing the list.
+     * The config directories inside the jars are not listed, as most of their configs are not used by the function.
+     *
+     * @return the config names to bundle.
+     * @throws IOException when a config directory cannot be listed.
+     */
+    static List<String> getConfigNames() throws IOException {
+        final Set<String> names = new LinkedHashSet<>(DEFAULT_CONFIG_NAMES);
+        final Enumeration<URL> dirs = ConfigBundle.class.getClassLoader().getResources(CONFIG_DIR);
+        while (dirs.hasMoreElements()) {
+            final URL dir = dirs.nextElement();
+            if (!"file".equals(dir.getProtocol()))
+                continue;
+            try (Stream<Path> files = Files.list(Path.of(dir.toURI()))) {
+                files.map(file -> file.getFileName().toString()).sorted().forEach(file -> {
+                    for (String extension : CONFIG_EXTENSIONS) {
+                        if (file.endsWith(extension)) {
+                            final String name = file.substring(0, file.length() - extension.length());
+                            if (!NOT_CONFIG_NAMES.contains(name) && names.add(name))
+                                LOG.debug("Config {} is found in {}", name, dir);
+                        }
+                    }
+                });
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid config directory " + dir, e);
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Parse the named configs from the classpath and write them as one JSON object keyed by the config name. The
+     * placeholders are not resolved. The configs that don't exist or contain encrypted values are skipped.
+     *
+     * @param names the config names to include.
+     * @param out the stream the bundle is written to.
+     * @return the number of configs written.
+     * @throws IOException when a config cannot be parsed or the bundle cannot be written.
+     */
+    public static int write(final List<String> names, final OutputStream out) throws IOException {
+        final YAMLMapper yamlMapper = new YAMLMapper();
+        final Map<String, Map<String, Object>> bundle = new LinkedHashMap<>();
+        for (String name : names) {
+            final Map<String, Object> config = parse(yamlMapper, name);
+            if (config == null) {
+                LOG.debug("Config {} is not found and is not bundled", name);
+            } else if (isEncrypted(config)) {
+                LOG.info("Config {} contains encrypted values and is left to the normal loading", name);
+            } else {
+                bundle.put(name, config);
+            }
+        }
+        Config.getInstance().getMapper().writeValue(out, bundle);
+        return bundle.size();
+    }
+
+    private static Map<String, Object> parse(final YAMLMapper yamlMapper, final String name) throws IOException {
+        for (String extension : CONFIG_EXTENSIONS) {
+            try (InputStream in = ConfigBundle.class.getClassLoader().getResourceAsStream(CONFIG_DIR + name + extension)) {
+                if (in != null)
+                    return yamlMapper.readValue(in, MAP_TYPE);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Load the bundle from the classpath into the Config cache. It must be called before any *Config.load().
+     *
+     * @return the number of configs loaded, 0 if there is no bundle.
+     */
+    public static int preload() {
+        return preload(BUNDLE_RESOURCE);
+    }
+
+    static int preload(final String resource) {
+        try (InputStream in = ConfigBundle.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                LOG.debug("No config bundle on the classpath, the configs are loaded from the yml files.");
+                return 0;
+            }
+            return preload(in);
+        } catch (IOException e) {
+            // the yml files are still there, so a broken bundle must not prevent the function from starting.
+            LOG.error("Failed to read the config bundle {}, the configs are loaded from the yml files.", resource, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Load the bundle from the input stream into the Config cache. The placeholders are resolved with values.yml and
+     * the environment variables of the function.
+     *
+     * @param in the bundle stream.
+     * @return the number of configs loaded.
+     * @throws IOException when the stream is not a bundle.
+     */
+    public static int preload(final InputStream in) throws IOException {
+        final Map<String, Map<String, Object>> bundle = Config.getInstance().getMapper().readValue(in, BUNDLE_TYPE);
+        for (var entry : bundle.entrySet()) {
+            CentralizedManagement.mergeMap(true, entry.getValue());
+            Config.getInstance().putInConfigCache(entry.getKey(), entry.getValue());
+        }
+        LOG.info("Preloaded {} configs from the config bundle", bundle.size());
+        return bundle.size();
+    }
+
+    private static boolean isEncrypted(final Object value) {
+        if (value instanceof String s)
+            return s.startsWith(CRYPT_PREFIX);
+        if (value instanceof Map<?, ?> map) {
+            for (Object v : map.values())
+                if (isEncrypted(v)) return true;
+        } else if (value instanceof List<?> list) {
+            for (Object v : list)
+                if (isEncrypted(v)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,144 @@
+package com.networknt.aws.lambda.app;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+
+/**
+ * An internal Lambda extension that keeps the execution environment running until the deferred tasks of an invocation
+ * are done. Lambda completes an invocation and freezes the environment only after the runtime has posted the response
+ * and every extension has asked for the next event, so the extension asks for it when the tasks of the invocation are
+ * drained or the deadline of the invocation is reached.
+ *
+ * The extension is registered with the Extensions API at the address in AWS_LAMBDA_RUNTIME_API. It must be registered
+ * in the init phase, before the runtime asks for its first event, so it is done when the entry point is constructed.
+ *
+ * A failed call for the next event is retried with an exponential backoff. After MAX_FAILURES failures in a row the
+ * extension stops, and the deferred tasks are run before the response is returned from then on, as nothing keeps the
+ * environment running after the response any more.
+ *
+ * @author Steve Hu
+ */
+final class DeferredTaskExtension {
+    private static final Logger LOG = LoggerFactory.getLogger(DeferredTaskExtension.class);
+    static final String NAME = "light-deferred-tasks";
+    private static final String RUNTIME_API = "AWS_LAMBDA_RUNTIME_API";
+    private static final String EXTENSION_NAME = "Lambda-Extension-Name";
+    private static final String EXTENSION_IDENTIFIER = "Lambda-Extension-Identifier";
+    private static final String INVOKE = "INVOKE";
+    static final int MAX_FAILURES = 5;
+    private static final long INITIAL_BACKOFF = 100;
+    private static final long MAX_BACKOFF = 5000;
+
+    private final HttpClient client;
+    private final HttpRequest next;
+    private final long initialBackoff;
+
+    private DeferredTaskExtension(final HttpClient client, final String baseUri, final String identifier) {
+        this(client, baseUri, identifier, INITIAL_BACKOFF);
+    }
+
+    /**
+     * It is used by the constructor above and the tests.
+     *
+     * @param client         - the client of the Extensions API.
+     * @param baseUri        - the base URI of the Extensions API.
+     * @param identifier     - the identifier returned by the registration.
+     * @param initialBackoff - the time in milliseconds to wait after the first failure, doubled after each failure.
+     */
+    DeferredTaskExtension(final HttpClient client, final String baseUri, final String identifier, final long initialBackoff) {
+        this.client = client;
+        this.initialBackoff = initialBackoff;
+        this.next = HttpRequest.newBuilder(URI.create(baseUri + "/event/next"))
+                .header(EXTENSION_IDENTIFIER, identifier)
+                .GET()
+                .build();
+    }
+
+    /**
+     * Register the extension for the invoke events.
+     *
+     * @return - the extension or null if it is not running in Lambda or the registration fails.
+     */
+    static DeferredTaskExtension register() {
+        final String api = System.getenv(RUNTIME_API);
+        if (api == null) {
+            LOG.debug("{} is not set, the extension is not registered.", RUNTIME_API);
+            return null;
+        }
+        final String baseUri = "http://" + api + "/2020-01-01/extension";
+        final HttpClient client = HttpClient.newHttpClient();
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + "/register"))
+                .header(EXTENSION_NAME, NAME)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"events\":[\"" + INVOKE + "\"]}"))
+                .build();
+        try {
+            final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            final Optional<String> identifier = response.headers().firstValue(EXTENSION_IDENTIFIER);
+            if (response.statusCode() != 200 || identifier.isEmpty()) {
+                LOG.error("Failed to register the extension {}: {} {}", NAME, response.statusCode(), response.body());
+                return null;
+            }
+            LOG.info("The extension {} is registered.", NAME);
+            return new DeferredTaskExtension(client, baseUri, identifier.get());
+        } catch (IOException e) {
+            LOG.error("Failed to register the extension {}", NAME, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Start the event loop of the extension on a daemon thread.
+     *
+     * @param tasks - the deferred tasks to wait for.
+     */
+    void start(final DeferredTasks tasks) {
+        Thread.ofPlatform().name("deferred-tasks-extension").daemon().start(() -> this.run(tasks));
+    }
+
+    /**
+     * The event loop of the extension. It returns when the thread is interrupted or after MAX_FAILURES failed calls in
+     * a row, and then the deferred tasks are run before the response is returned.
+     *
+     * @param tasks - the deferred tasks to wait for.
+     */
+    void run(final DeferredTasks tasks) {
+        int failures = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    // the call returns when the next invocation starts, and the current one is held until it is made.
+                    final HttpResponse<byte[]> response = this.client.send(this.next, HttpResponse.BodyHandlers.ofByteArray());
+                    if (response.statusCode() != 200)
+                        throw new IOException("Unexpected status " + response.statusCode() + " of the next event");
+                    final JsonNode event = Config.getInstance().getMapper().readTree(response.body());
+                    failures = 0;
+                    if (INVOKE.equals(event.path("eventType").asText()))
+                        tasks.awaitDrained(event.path("requestId").asText(), event.path("deadlineMs").asLong());
+                } catch (IOException e) {
+                    if (++failures >= MAX_FAILURES) {
+                        LOG.error("Failed to get the next event of the extension {} {} times, the extension is stopped.", NAME, failures, e);
+                        return;
+                    }
+                    final long backoff = Math.min(this.initialBackoff << (failures - 1), MAX_BACKOFF);
+                    LOG.warn("Failed to get the next event of the extension {}, retrying in {} ms.", NAME, backoff, e);
+                    Thread.sleep(backoff);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            tasks.runInline();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.networknt.aws.lambda.app;
+
+import com.networknt.aws.lambda.LightLambdaExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the deferred tasks of an invocation after its response is returned to the runtime. With a budget of 0, which is
+ * the default, the tasks are run before the response is returned.
+ *
+ * Lambda freezes the execution environment once the response is posted, so a task that is still running on a
+ * background thread would be suspended until the next invocation. A budget above 0 is therefore only used together
+ * with the DeferredTaskExtension. The extension asks Lambda for the next event only when the tasks of the invocation
+ * are done, so the environment keeps running after the response until they finish. If the extension cannot be
+ * registered, or once it has stopped after repeated failures, the tasks are run before the response is returned.
+ *
+ * The next invocation waits for the tasks of the previous one at most the budget before it starts, so the invocations
+ * don't compete for the CPU and the tasks can't pile up. A shutdown hook waits for the pending tasks the same way
+ * before the execution environment is shut down.
+ *
+ * @author Steve Hu
+ */
+final class DeferredTasks implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(DeferredTasks.class);
+    private final long budget;
+    private final ExecutorService executor;
+    private final Thread shutdownHook;
+    private volatile Future<?> pending;
+    // set when the extension has stopped and nothing keeps the environment running after the response.
+    private volatile boolean inline;
+    // the request id of the last invocation whose tasks are done, guarded by this.
+    private String drained;
+
+    /**
+     * Create the deferred tasks of the entry point. A budget above 0 registers the DeferredTaskExtension.
+     *
+     * @param budget - the time in milliseconds to wait for the tasks of the previous invocation.
+     * @return - the deferred tasks.
+     */
+    static DeferredTasks create(final long budget) {
+        if (budget > 0) {
+            final DeferredTaskExtension extension = DeferredTaskExtension.register();
+            if (extension != null) {
+                final DeferredTasks tasks = new DeferredTasks(budget);
+                extension.start(tasks);
+                return tasks;
+            }
+            LOG.warn("The deferredTaskBudget is {} ms but the extension cannot be registered, the deferred tasks are run before the response is returned.", budget);
+        }
+        return new DeferredTasks(0);
+    }
+
+    /**
+     * The tasks are run in the background without the extension. It is used by create and the tests.
+     *
+     * @param budget - the time in milliseconds to wait for the tasks of the previous invocation.
+     */
+    DeferredTasks(final long budget) {
+        this.budget = budget;
+        if (budget > 0) {
+            this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("deferred-tasks").daemon().factory());
+            this.shutdownHook = Thread.ofPlatform().name("deferred-tasks-flush").unstarted(this::flush);
+            Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+        } else {
+            this.executor = null;
+            this.shutdownHook = null;
+        }
+    }
+
+    /**
+     * Waits for the tasks of the previous invocation at most the budget. It is called before the chain is executed.
+     */
+    void awaitPrevious() {
+        final Future<?> previous = this.pending;
+        if (previous == null || previous.isDone())
+            return;
+        try {
+            previous.get(this.budget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOG.warn("The deferred tasks of the previous invocation are still running after {} ms.", this.budget);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("The deferred tasks of the previous invocation failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Hands over the deferred tasks of the exchange after the response is built. The exchange must not be used by the
+     * caller after this call if it is recycled.
+     *
+     * @param exchange - the exchange of the invocation.
+     * @param recycle  - recycle the exchange after its tasks are done.
+     */
+    void complete(final LightLambdaExchange exchange, final boolean recycle) {
+        final String requestId = exchange.getContext() == null ? null : exchange.getContext().getAwsRequestId();
+        if (this.executor == null || this.inline || !exchange.hasDeferredTasks()) {
+            exchange.runDeferredTasks();
+            if (recycle)
+                exchange.recycle();
+            this.drained(requestId);
+            return;
+        }
+        this.pending = this.executor.submit(() -> {
+            try {
+                exchange.runDeferredTasks();
+                if (recycle)
+                    exchange.recycle();
+            } finally {
+                this.drained(requestId);
+            }
+        });
+    }
+
+    /**
+     * Called by the extension when it stops. The tasks of the next invocations are run before the response is returned.
+     */
+    void runInline() {
+        if (this.executor != null && !this.inline)
+            LOG.warn("The deferred task extension has stopped, the deferred tasks are run before the response is returned.");
+        this.inline = true;
+    }
+
+    /**
+     * @return - true if the tasks are run before the response is returned.
+     */
+    boolean isInline() {
+        return this.executor == null || this.inline;
+    }
+
+    private synchronized void drained(final String requestId) {
+        this.drained = requestId;
+        this.notifyAll();
+    }
+
+    /**
+     * Called by the extension to wait until the tasks of the invocation are done or its deadline is reached.
+     *
+     * @param requestId  - the request id of the invocation.
+     * @param deadlineMs - the deadline of the invocation in epoch milliseconds.
+     * @return - true if the tasks are done.
+     * @throws InterruptedException - if the extension thread is interrupted.
+     */
+    synchronized boolean awaitDrained(final String requestId, final long deadlineMs) throws InterruptedException {
+        long remaining;
+        while (!Objects.equals(requestId, this.drained)) {
+            remaining = deadlineMs - System.currentTimeMillis();
+            if (remaining <= 0) {
+                LOG.warn("The deferred tasks of the invocation {} are not done before its deadline.", requestId);
+                return false;
+            }
+            this.wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Called by the shutdown hook to give the pending tasks the budget to finish.
+     */
+    void flush() {
+        LOG.debug("Flushing the deferred tasks on shutdown.");
+        this.awaitPrevious();
+        this.executor.shutdown();
+    }
+
+    /**
+     * Stops the background thread and removes the shutdown hook.
+     */
+    @Override
+    public void close() {
+        if (this.executor == null)
+            return;
+        this.executor.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+        } catch (IllegalStateException e) {
+            // the shutdown has started and the hook is running.
+        }
+    }
+}
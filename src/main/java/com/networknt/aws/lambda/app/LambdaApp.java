@@ -5,17 +5,17 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.networknt.aws.lambda.handler.Handler;
+import com.networknt.aws.lambda.handler.RouteContext;
+import com.networknt.aws.lambda.LambdaBody;
+import com.networknt.aws.lambda.ColdStartProfile;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.handler.chain.Chain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-
 /**
  * This is the entry point for the middleware Lambda function that is responsible for cross-cutting concerns for the business Lambda
  * function which is called from the is Lambda function once all cross-cutting concerns are addressed. The middleware Lambda function
@@ -29,11 +29,18 @@ public class LambdaApp implements RequestHandler<APIGatewayProxyRequestEvent, AP
 
     public static final LightLambdaExchange.Attachable<String> APP_ID = LightLambdaExchange.Attachable.createAttachable(String.class);
     private static LambdaAppConfig config;
+    private static DeferredTasks deferredTasks;
     private static final AtomicBoolean appInitialized = new AtomicBoolean(false);
     public LambdaApp() {
         if (appInitialized.compareAndSet(false, true)) {
+            final long start = System.nanoTime();
+            ConfigBundle.preload();
+            ColdStartProfile.phase("configBundle", start);
             config = LambdaAppConfig.load();
+            deferredTasks = DeferredTasks.create(config.getDeferredTaskBudget());
             Handler.init();
+            SnapStartResource.register();
+            ColdStartProfile.phase("LambdaApp", start);
             LOG.info("LambdaApp is constructed");
         } else {
             LOG.info("LambdaApp was already initialized. Using cached configs.");
@@ -42,6 +49,7 @@ public class LambdaApp implements RequestHandler<APIGatewayProxyRequestEvent, AP
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(final APIGatewayProxyRequestEvent request, final Context context) {
+        final long start = System.nanoTime();
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("file.encoding: {}", Charset.defaultCharset().displayName());
@@ -52,41 +60,42 @@ public class LambdaApp implements RequestHandler<APIGatewayProxyRequestEvent, AP
         var requestPath = request.getPath();
         var requestMethod = request.getHttpMethod();
 
-        if (shouldBase64EncodeRequest(request)) {
-            byte[] bodyBytes = request.getBody().getBytes(StandardCharsets.UTF_8);
-            request.setBody(Base64.getEncoder().encodeToString(bodyBytes));
-            request.setIsBase64Encoded(true);
-        }
-
         LOG.debug("Request path: {} -- Request method: {}", requestPath, requestMethod);
 
-        Chain chain = Handler.getChain(request);
-        if (chain == null)
-            chain = Handler.getDefaultChain();
+        final RouteContext route = Handler.getRouteContext(request);
+        final Chain chain = route == null ? Handler.getDefaultChain() : route.getChain();
 
-        final var exchange = new LightLambdaExchange(context, chain);
+        deferredTasks.awaitPrevious();
+        final boolean recycle = config.isRecycleExchange();
+        final var exchange = recycle ? LightLambdaExchange.obtain(context, chain) : new LightLambdaExchange(context, chain);
         exchange.addAttachment(APP_ID, config.getLambdaAppId());
+        if (config.isEncodeBase64Request())
+            exchange.encodeRequestBodyOnFinalize();
 
         exchange.setInitialRequest(request);
+        if (route != null)
+            route.attach(exchange);
         exchange.executeChain();
 
         APIGatewayProxyResponseEvent response = exchange.getFinalizedResponse(false);
 
         if (shouldBase64EncodeResponse(response)) {
-            byte[] bodyBytes = response.getBody().getBytes(StandardCharsets.UTF_8);
-            response.setBody(Base64.getEncoder().encodeToString(bodyBytes));
+            // reuse the body holder of the exchange so that the conversions done by the handlers are not repeated.
+            LambdaBody body = exchange.getResponseBody();
+            if (body == null)
+                body = LambdaBody.ofText(response.getBody());
+            response.setBody(body.getBase64());
             response.setIsBase64Encoded(true);
         }
 
+        // the audit log and the metrics are done after the response is returned to the runtime.
+        deferredTasks.complete(exchange, recycle);
         LOG.debug("Lambda CCC --end with response: {}", response);
+        ColdStartProfile.invocationComplete(start);
         return response;
     }
 
     private boolean shouldBase64EncodeResponse(final APIGatewayProxyResponseEvent response) {
         return config.isEncodeBase64Response() && response.getBody() != null && !Boolean.TRUE.equals(response.getIsBase64Encoded());
     }
-
-    private boolean shouldBase64EncodeRequest(final APIGatewayProxyRequestEvent request) {
-        return config.isEncodeBase64Request() && request.getBody() != null && !Boolean.TRUE.equals(request.getIsBase64Encoded());
-    }
 }
@@ -1,13 +1,21 @@
 package com.networknt.aws.lambda.app;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.networknt.aws.lambda.event.EventFormat;
 import com.networknt.config.Config;
+import com.networknt.config.ConfigException;
+import com.networknt.config.schema.ArrayField;
 import com.networknt.config.schema.BooleanField;
 import com.networknt.config.schema.ConfigSchema;
+import com.networknt.config.schema.IntegerField;
 import com.networknt.config.schema.OutputFormat;
 import com.networknt.config.schema.StringField;
 import com.networknt.server.ModuleRegistry;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @ConfigSchema(configKey = "lambda-app", configName = "lambda-app", configDescription = "Configuration for Lambda native application.", outputFormats = {
@@ -17,6 +25,14 @@ public class LambdaAppConfig {
     public static final String LAMBDA_APP_ID = "lambdaAppId";
     public static final String ENCODE_BASE64_RESPONSE = "encodeBase64Response";
     public static final String ENCODE_BASE64_REQUEST = "encodeBase64Request";
+    public static final String EVENT_FORMAT = "eventFormat";
+    public static final String RESPONSE_STREAMING = "responseStreaming";
+    public static final String PARALLEL_HANDLER_INIT = "parallelHandlerInit";
+    public static final String LAZY_HANDLERS = "lazyHandlers";
+    public static final String INFER_LAZY_HANDLERS = "inferLazyHandlers";
+    public static final String PRIMING_ENDPOINTS = "primingEndpoints";
+    public static final String RECYCLE_EXCHANGE = "recycleExchange";
+    public static final String DEFERRED_TASK_BUDGET = "deferredTaskBudget";
 
     private final Map<String, Object> mappedConfig;
     private static LambdaAppConfig instance;
@@ -42,7 +58,87 @@ public class LambdaAppConfig {
     @JsonProperty(value = ENCODE_BASE64_RESPONSE, defaultValue = "false")
     private boolean encodeBase64Response;
 
+    @StringField(
+            configFieldName = EVENT_FORMAT,
+            externalizedKeyName = EVENT_FORMAT,
+            defaultValue = "V1",
+            description = "The native event format received by the stream entry point. V1 for REST API, V2 for HTTP API, ALB for\n" +
+                    "Application Load Balancer and FUNCTION_URL for Lambda Function URL. Default value is V1."
+    )
+    @JsonProperty(value = EVENT_FORMAT, defaultValue = "V1")
+    private String eventFormat = EventFormat.V1.name();
+
+    @BooleanField(
+            configFieldName = RESPONSE_STREAMING,
+            externalizedKeyName = RESPONSE_STREAMING,
+            defaultValue = "false",
+            description = "Stream the backend response body to the caller from the stream entry point. The function must be invoked\n" +
+                    "with the streaming response mode, and it only takes effect when all handlers after the router support\n" +
+                    "streaming. It is ignored when encodeBase64Response is true. Default value is false."
+    )
+    @JsonProperty(value = RESPONSE_STREAMING, defaultValue = "false")
+    private boolean responseStreaming;
+
+    @BooleanField(
+            configFieldName = PARALLEL_HANDLER_INIT,
+            externalizedKeyName = PARALLEL_HANDLER_INIT,
+            defaultValue = "true",
+            description = "Construct the handlers in handler.yml concurrently on virtual threads at cold start. The handlers that\n" +
+                    "depend on other handlers are constructed after them. Default value is true."
+    )
+    @JsonProperty(value = PARALLEL_HANDLER_INIT, defaultValue = "true")
+    private boolean parallelHandlerInit = true;
 
+    @ArrayField(
+            configFieldName = LAZY_HANDLERS,
+            externalizedKeyName = LAZY_HANDLERS,
+            description = "The names of the handlers in handler.yml that are constructed on their first execution instead of at cold\n" +
+                    "start. Use it for the handlers that are only used by rarely called paths like /adm/logger.",
+            items = String.class
+    )
+    private List<String> lazyHandlers = Collections.emptyList();
+
+    @BooleanField(
+            configFieldName = INFER_LAZY_HANDLERS,
+            externalizedKeyName = INFER_LAZY_HANDLERS,
+            defaultValue = "false",
+            description = "Construct all the handlers that are not in the defaultHandlers chain on their first execution. The handlers\n" +
+                    "that other handlers depend on are always constructed at cold start. Default value is false."
+    )
+    @JsonProperty(value = INFER_LAZY_HANDLERS, defaultValue = "false")
+    private boolean inferLazyHandlers;
+
+    @ArrayField(
+            configFieldName = PRIMING_ENDPOINTS,
+            externalizedKeyName = PRIMING_ENDPOINTS,
+            description = "The endpoints in the format of path@method that are executed once before a SnapStart checkpoint to warm up\n" +
+                    "their chains. Only list the endpoints that are safe to call without a real caller. Default value is [/health@get].",
+            items = String.class
+    )
+    private List<String> primingEndpoints = List.of("/health@get");
+
+    @BooleanField(
+            configFieldName = RECYCLE_EXCHANGE,
+            externalizedKeyName = RECYCLE_EXCHANGE,
+            defaultValue = "true",
+            description = "Reuse the exchange of the previous invocation instead of allocating a new one for each request. Set it to\n" +
+                    "false if a custom handler keeps a reference to the exchange after the response. Default value is true."
+    )
+    @JsonProperty(value = RECYCLE_EXCHANGE, defaultValue = "true")
+    private boolean recycleExchange = true;
+
+    @IntegerField(
+            configFieldName = DEFERRED_TASK_BUDGET,
+            externalizedKeyName = DEFERRED_TASK_BUDGET,
+            defaultValue = "0",
+            description = "The handlers defer the audit log and the metrics until the response is returned. With 0, they are run\n" +
+                    "before the response is returned. Above 0, an internal Lambda extension is registered that keeps the\n" +
+                    "execution environment running after the response until they are done, and this is the time in\n" +
+                    "milliseconds that the next invocation or the shutdown waits for them to finish. If the extension cannot\n" +
+                    "be registered, they are run before the response is returned. Default value is 0."
+    )
+    @JsonProperty(value = DEFERRED_TASK_BUDGET, defaultValue = "0")
+    private int deferredTaskBudget;
 
     private LambdaAppConfig() {
         this(CONFIG_NAME);
@@ -90,6 +186,59 @@ public class LambdaAppConfig {
         if (object != null) {
             encodeBase64Response = Config.loadBooleanValue(ENCODE_BASE64_RESPONSE, object);
         }
+        object = mappedConfig.get(RESPONSE_STREAMING);
+        if (object != null) {
+            responseStreaming = Config.loadBooleanValue(RESPONSE_STREAMING, object);
+        }
+        object = mappedConfig.get(PARALLEL_HANDLER_INIT);
+        if (object != null) {
+            parallelHandlerInit = Config.loadBooleanValue(PARALLEL_HANDLER_INIT, object);
+        }
+        object = mappedConfig.get(LAZY_HANDLERS);
+        if (object != null) {
+            lazyHandlers = loadStringList(LAZY_HANDLERS, object, lazyHandlers);
+        }
+        object = mappedConfig.get(INFER_LAZY_HANDLERS);
+        if (object != null) {
+            inferLazyHandlers = Config.loadBooleanValue(INFER_LAZY_HANDLERS, object);
+        }
+        object = mappedConfig.get(PRIMING_ENDPOINTS);
+        if (object != null) {
+            primingEndpoints = loadStringList(PRIMING_ENDPOINTS, object, primingEndpoints);
+        }
+        object = mappedConfig.get(RECYCLE_EXCHANGE);
+        if (object != null) {
+            recycleExchange = Config.loadBooleanValue(RECYCLE_EXCHANGE, object);
+        }
+        object = mappedConfig.get(DEFERRED_TASK_BUDGET);
+        if (object != null) {
+            deferredTaskBudget = Math.max(0, Config.loadIntegerValue(DEFERRED_TASK_BUDGET, object));
+        }
+        object = mappedConfig.get(EVENT_FORMAT);
+        if (object instanceof String val && !val.isBlank()) {
+            try {
+                eventFormat = EventFormat.valueOf(val.trim().toUpperCase()).name();
+            } catch (IllegalArgumentException e) {
+                throw new ConfigException(EVENT_FORMAT + " must be one of V1, V2, ALB or FUNCTION_URL but was " + val);
+            }
+        }
+    }
+
+    private static List<String> loadStringList(final String key, final Object object, final List<String> defaultValue) {
+        if (object instanceof List<?> list) {
+            return list.stream().map(String::valueOf).map(String::trim).toList();
+        } else if (object instanceof String val && !val.isBlank()) {
+            val = val.trim();
+            if (val.startsWith("[")) {
+                try {
+                    return Config.getInstance().getMapper().readValue(val, new TypeReference<List<String>>() {});
+                } catch (Exception e) {
+                    throw new ConfigException("could not parse the " + key + " json with a list of strings.");
+                }
+            }
+            return Arrays.stream(val.split(",")).map(String::trim).filter(v -> !v.isEmpty()).toList();
+        }
+        return defaultValue;
     }
 
     public String getLambdaAppId() {
@@ -104,6 +253,38 @@ public class LambdaAppConfig {
         return encodeBase64Response;
     }
 
+    public boolean isResponseStreaming() {
+        return responseStreaming;
+    }
+
+    public boolean isParallelHandlerInit() {
+        return parallelHandlerInit;
+    }
+
+    public List<String> getLazyHandlers() {
+        return lazyHandlers;
+    }
+
+    public boolean isInferLazyHandlers() {
+        return inferLazyHandlers;
+    }
+
+    public List<String> getPrimingEndpoints() {
+        return primingEndpoints;
+    }
+
+    public boolean isRecycleExchange() {
+        return recycleExchange;
+    }
+
+    public int getDeferredTaskBudget() {
+        return deferredTaskBudget;
+    }
+
+    public EventFormat getEventFormat() {
+        return EventFormat.valueOf(eventFormat);
+    }
+
     public Map<String, Object> getMappedConfig() {
         return mappedConfig;
     }
@@ -0,0 +1,285 @@
+package com.networknt.aws.lambda.app;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.aws.lambda.ColdStartProfile;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.Handler;
+import com.networknt.aws.lambda.handler.RouteContext;
+import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is the entry point for asynchronous event sources. It accepts an SQS, Kinesis or DynamoDB Streams batch, builds one
+ * LightLambdaExchange per record and runs the chain configured for lambda-batch path and method in handler.yml. The records
+ * are processed concurrently on virtual threads and the records that failed are returned in the batchItemFailures partial
+ * batch response, so the event source mapping must have ReportBatchItemFailures enabled.
+ *
+ * The handlers are shared by the records. The records of a chain with a handler that is not thread safe are processed
+ * one at a time whatever the concurrency in lambda-batch.yml, see LambdaHandler.isThreadSafe.
+ *
+ * Each record is exposed to the middleware handlers as a POST request with the record payload as the body. The raw record
+ * is available with the BATCH_RECORD attachment.
+ *
+ * @author Steve Hu
+ */
+public class LambdaBatchApp implements RequestStreamHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(LambdaBatchApp.class);
+    private static final String SQS = "aws:sqs";
+    private static final String KINESIS = "aws:kinesis";
+    private static final String DYNAMODB = "aws:dynamodb";
+
+    public static final LightLambdaExchange.Attachable<JsonNode> BATCH_RECORD = LightLambdaExchange.Attachable.createAttachable(JsonNode.class);
+    private static LambdaAppConfig config;
+    private static LambdaBatchConfig batchConfig;
+    private static final AtomicBoolean appInitialized = new AtomicBoolean(false);
+    // held while a record runs a chain that is not thread safe.
+    private static final ReentrantLock serial = new ReentrantLock();
+
+    public LambdaBatchApp() {
+        if (appInitialized.compareAndSet(false, true)) {
+            final long start = System.nanoTime();
+            ConfigBundle.preload();
+            ColdStartProfile.phase("configBundle", start);
+            config = LambdaAppConfig.load();
+            batchConfig = LambdaBatchConfig.load();
+            Handler.init();
+            SnapStartResource.register();
+            ColdStartProfile.phase("LambdaBatchApp", start);
+            LOG.info("LambdaBatchApp is constructed");
+        } else {
+            LOG.info("LambdaBatchApp was already initialized. Using cached configs.");
+        }
+    }
+
+    @Override
+    public void handleRequest(InputStream inputStream, OutputStream outputStream, Context context) throws IOException {
+        final long start = System.nanoTime();
+        final ObjectMapper mapper = Config.getInstance().getMapper();
+        final JsonNode records = mapper.readTree(inputStream).path("Records");
+        final List<BatchRecord> batch = new ArrayList<>(records.size());
+        for (JsonNode record : records) {
+            batch.add(toBatchRecord(mapper, record));
+        }
+        LOG.debug("Received a batch of {} records", batch.size());
+
+        final Set<String> failed = this.process(batch, context);
+
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("batchItemFailures");
+            // keep the order of the batch so that the stream sources resume from the lowest failed sequence number.
+            for (BatchRecord record : batch) {
+                if (failed.contains(record.itemIdentifier())) {
+                    generator.writeStartObject();
+                    generator.writeStringField("itemIdentifier", record.itemIdentifier());
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        ColdStartProfile.invocationComplete(start);
+    }
+
+    /**
+     * Run the chain for all records and return the identifiers of the failed records. In ordered mode, the records
+     * with the same key are handled one after the other on the same virtual thread.
+     */
+    private Set<String> process(final List<BatchRecord> batch, final Context context) {
+        final Set<String> failed = ConcurrentHashMap.newKeySet();
+        final Collection<List<BatchRecord>> groups;
+        if (batchConfig.isOrdered()) {
+            final Map<String, List<BatchRecord>> byKey = new LinkedHashMap<>();
+            for (BatchRecord record : batch)
+                byKey.computeIfAbsent(record.groupKey(), k -> new ArrayList<>()).add(record);
+            groups = byKey.values();
+        } else {
+            groups = new ArrayList<>(batch.size());
+            for (BatchRecord record : batch)
+                groups.add(List.of(record));
+        }
+
+        final Semaphore permits = new Semaphore(batchConfig.getConcurrency());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<BatchRecord> group : groups) {
+                executor.submit(() -> {
+                    boolean groupFailed = false;
+                    for (BatchRecord record : group) {
+                        if (groupFailed || !this.processRecord(record, context, permits)) {
+                            failed.add(record.itemIdentifier());
+                            groupFailed = true;
+                        }
+                    }
+                });
+            }
+        }
+        return failed;
+    }
+
+    private boolean processRecord(final BatchRecord record, final Context context, final Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            return this.execute(record, context);
+        } catch (Throwable e) {
+            LOG.error("Record {} failed with an exception", record.itemIdentifier(), e);
+            return false;
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Run the chain for a record.
+     *
+     * @param record  the record of the batch.
+     * @param context the Lambda context.
+     * @return true if the record is processed, false if it must be reported in batchItemFailures.
+     */
+    boolean execute(final BatchRecord record, final Context context) {
+        final APIGatewayProxyRequestEvent request = record.request();
+        if (request == null) {
+            LOG.error("Record {} has an unsupported event source", record.itemIdentifier());
+            return false;
+        }
+
+        final RouteContext route = Handler.getRouteContext(request);
+        final Chain chain = this.getChain(route);
+        if (chain.isThreadSafe())
+            return this.execute(record, context, route, chain);
+        // a lock instead of synchronized, so that the waiting virtual threads don't pin their carrier threads.
+        serial.lock();
+        try {
+            return this.execute(record, context, route, chain);
+        } finally {
+            serial.unlock();
+        }
+    }
+
+    /**
+     * @param route the route of the record or null if the path is not in handler.yml.
+     * @return the chain to run for the record.
+     */
+    Chain getChain(final RouteContext route) {
+        return route == null ? Handler.getDefaultChain() : route.getChain();
+    }
+
+    private boolean execute(final BatchRecord record, final Context context, final RouteContext route, final Chain chain) {
+        final APIGatewayProxyRequestEvent request = record.request();
+        final var exchange = new LightLambdaExchange(context, chain);
+        exchange.addAttachment(LambdaApp.APP_ID, config.getLambdaAppId());
+        exchange.addAttachment(BATCH_RECORD, record.raw());
+        exchange.setInitialRequest(request);
+        if (route != null)
+            route.attach(exchange);
+        exchange.executeChain();
+
+        final APIGatewayProxyResponseEvent response = exchange.getFinalizedResponse(false);
+        // the batch response is only returned after all records, so the deferred tasks are run right away.
+        exchange.runDeferredTasks();
+        if (response == null || response.getStatusCode() == null || response.getStatusCode() >= 400) {
+            LOG.error("Record {} failed with response {}", record.itemIdentifier(), response);
+            return false;
+        }
+        return true;
+    }
+
+    private static BatchRecord toBatchRecord(final ObjectMapper mapper, final JsonNode record) throws IOException {
+        final String source = record.path("eventSource").asText();
+        final var request = new APIGatewayProxyRequestEvent();
+        request.setPath(batchConfig.getPath());
+        request.setHttpMethod(batchConfig.getMethod().toUpperCase(Locale.ROOT));
+        request.setQueryStringParameters(new HashMap<>());
+        request.setPathParameters(new HashMap<>());
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("x-event-source", source);
+        request.setHeaders(headers);
+
+        final String itemIdentifier;
+        String groupKey = null;
+        switch (source) {
+            case SQS -> {
+                itemIdentifier = record.path("messageId").asText();
+                groupKey = record.path("attributes").path("MessageGroupId").asText(null);
+                request.setBody(record.path("body").asText(null));
+                for (var entry : record.path("messageAttributes").properties()) {
+                    final JsonNode value = entry.getValue().get("stringValue");
+                    if (value != null && !value.isNull())
+                        headers.put(entry.getKey(), value.asText());
+                }
+            }
+            case KINESIS -> {
+                final JsonNode kinesis = record.path("kinesis");
+                itemIdentifier = kinesis.path("sequenceNumber").asText();
+                groupKey = kinesis.path("partitionKey").asText(null);
+                request.setBody(kinesis.path("data").asText(null));
+                request.setIsBase64Encoded(true);
+            }
+            case DYNAMODB -> {
+                final JsonNode dynamodb = record.path("dynamodb");
+                itemIdentifier = dynamodb.path("SequenceNumber").asText();
+                groupKey = dynamodb.path("Keys").toString();
+                headers.put("x-event-name", record.path("eventName").asText());
+                request.setBody(mapper.writeValueAsString(dynamodb));
+            }
+            default -> {
+                // the record is reported as a failure instead of failing the whole batch.
+                LOG.error("Unsupported event source {} in the batch", source);
+                final String id = firstText(record.path("messageId"), record.path("kinesis").path("sequenceNumber"),
+                        record.path("dynamodb").path("SequenceNumber"), record.path("eventID"));
+                return new BatchRecord(id, id, null, record);
+            }
+        }
+        request.setIsBase64Encoded(Boolean.TRUE.equals(request.getIsBase64Encoded()));
+
+        final var requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setRequestId(itemIdentifier);
+        requestContext.setHttpMethod(request.getHttpMethod());
+        requestContext.setPath(request.getPath());
+        requestContext.setIdentity(new APIGatewayProxyRequestEvent.RequestIdentity());
+        request.setRequestContext(requestContext);
+
+        // without a key, a record doesn't need to wait for any other record in the ordered mode.
+        return new BatchRecord(itemIdentifier, groupKey == null ? itemIdentifier : groupKey, request, record);
+    }
+
+    private static String firstText(final JsonNode... nodes) {
+        for (JsonNode node : nodes) {
+            if (node.isTextual() && !node.asText().isEmpty())
+                return node.asText();
+        }
+        return "";
+    }
+
+    record BatchRecord(String itemIdentifier, String groupKey, APIGatewayProxyRequestEvent request, JsonNode raw) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.networknt.aws.lambda.app;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.networknt.config.Config;
+import com.networknt.config.schema.BooleanField;
+import com.networknt.config.schema.ConfigSchema;
+import com.networknt.config.schema.IntegerField;
+import com.networknt.config.schema.OutputFormat;
+import com.networknt.config.schema.StringField;
+import com.networknt.server.ModuleRegistry;
+
+import java.util.Map;
+
+@ConfigSchema(configKey = "lambda-batch", configName = "lambda-batch", configDescription = "Configuration for the Lambda batch event source application.", outputFormats = {
+        OutputFormat.JSON_SCHEMA, OutputFormat.YAML })
+public class LambdaBatchConfig {
+    public static final String CONFIG_NAME = "lambda-batch";
+    public static final String CONCURRENCY = "concurrency";
+    public static final String ORDERED = "ordered";
+    public static final String PATH = "path";
+    public static final String METHOD = "method";
+
+    private final Map<String, Object> mappedConfig;
+    private static LambdaBatchConfig instance;
+
+    @IntegerField(
+            configFieldName = CONCURRENCY,
+            externalizedKeyName = CONCURRENCY,
+            defaultValue = "1",
+            description = "The maximum number of records of one batch that are processed concurrently on virtual threads. The\n" +
+                    "handlers are shared by the records, so a higher value only applies to the chains whose handlers are all\n" +
+                    "thread safe; the records of the other chains are still processed one by one. Default value is 1."
+    )
+    @JsonProperty(value = CONCURRENCY, defaultValue = "1")
+    private int concurrency = 1;
+
+    @BooleanField(
+            configFieldName = ORDERED,
+            externalizedKeyName = ORDERED,
+            defaultValue = "false",
+            description = "Keep the order of the records that share the same SQS FIFO message group id, Kinesis partition key or\n" +
+                    "DynamoDB item key. Records of different keys are still processed concurrently. Once a record fails, the rest\n" +
+                    "of the records with the same key are reported as failures without being processed. Default value is false."
+    )
+    @JsonProperty(value = ORDERED, defaultValue = "false")
+    private boolean ordered;
+
+    @StringField(
+            configFieldName = PATH,
+            externalizedKeyName = PATH,
+            defaultValue = "/batch",
+            description = "The request path used to find the chain in handler.yml for each record. Default value is /batch."
+    )
+    @JsonProperty(value = PATH, defaultValue = "/batch")
+    private String path = "/batch";
+
+    @StringField(
+            configFieldName = METHOD,
+            externalizedKeyName = METHOD,
+            defaultValue = "post",
+            description = "The request method used to find the chain in handler.yml for each record. Default value is post."
+    )
+    @JsonProperty(value = METHOD, defaultValue = "post")
+    private String method = "post";
+
+    private LambdaBatchConfig() {
+        this(CONFIG_NAME);
+    }
+
+    private LambdaBatchConfig(String configName) {
+        mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+        setConfigData();
+    }
+
+    public static LambdaBatchConfig load() {
+        return load(CONFIG_NAME);
+    }
+
+    public static LambdaBatchConfig load(String configName) {
+        if (CONFIG_NAME.equals(configName)) {
+            Map<String, Object> mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+            if (instance != null && instance.getMappedConfig() == mappedConfig) {
+                return instance;
+            }
+            synchronized (LambdaBatchConfig.class) {
+                mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+                if (instance != null && instance.getMappedConfig() == mappedConfig) {
+                    return instance;
+                }
+                instance = new LambdaBatchConfig(configName);
+                ModuleRegistry.registerModule(CONFIG_NAME, LambdaBatchConfig.class.getName(),
+                        Config.getNoneDecryptedInstance().getJsonMapConfigNoCache(CONFIG_NAME), null);
+                return instance;
+            }
+        }
+        return new LambdaBatchConfig(configName);
+    }
+
+    private void setConfigData() {
+        if (mappedConfig == null) {
+            return;
+        }
+        Object object = mappedConfig.get(CONCURRENCY);
+        if (object != null) {
+            concurrency = Math.max(1, Config.loadIntegerValue(CONCURRENCY, object));
+        }
+        object = mappedConfig.get(ORDERED);
+        if (object != null) {
+            ordered = Config.loadBooleanValue(ORDERED, object);
+        }
+        object = mappedConfig.get(PATH);
+        if (object instanceof String val) {
+            path = val;
+        }
+        object = mappedConfig.get(METHOD);
+        if (object instanceof String val) {
+            method = val;
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public Map<String, Object> getMappedConfig() {
+        return mappedConfig;
+    }
+}
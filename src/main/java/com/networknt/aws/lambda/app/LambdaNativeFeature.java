@@ -0,0 +1,144 @@
+package com.networknt.aws.lambda.app;
+
+import com.networknt.aws.lambda.handler.Handler;
+import com.networknt.aws.lambda.handler.middleware.specification.OpenApiMiddleware;
+import com.networknt.handler.config.HandlerConfig;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeClassInitialization;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A native-image feature that builds the immutable routing tables and the OpenAPI model during the image build, so that
+ * they are stored in the image heap and the function doesn't parse handler.yml paths or openapi.yaml at cold start. The
+ * configs baked into the image are used, so the image must be rebuilt when the paths or the specification change. The
+ * OpenAPI model is only built when the OpenApiMiddleware is configured in handler.yml.
+ *
+ * It is enabled by adding --features=com.networknt.aws.lambda.app.LambdaNativeFeature to the native-image command. The
+ * handlers are still constructed at runtime because they hold clients, thread pools and other runtime resources.
+ *
+ * @author Steve Hu
+ */
+public class LambdaNativeFeature implements Feature {
+    private static final Logger LOG = LoggerFactory.getLogger(LambdaNativeFeature.class);
+
+    @Override
+    public String getDescription() {
+        return "Builds the handler routing tables and the OpenAPI model at image build time.";
+    }
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        RuntimeClassInitialization.initializeAtBuildTime(Handler.class, OpenApiMiddleware.class);
+        // the object graph of the routes referenced from the static fields of Handler.
+        RuntimeClassInitialization.initializeAtBuildTime(
+                "com.networknt.aws.lambda.handler.RouteTrie",
+                "com.networknt.aws.lambda.handler.RouteTrie$Route",
+                "com.networknt.aws.lambda.handler.RouteTrie$Node",
+                "com.networknt.utility.PathTemplateMatcher",
+                "com.networknt.utility.PathTemplate");
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        ConfigBundle.preload();
+        final HandlerConfig config = HandlerConfig.load();
+        Handler.initRoutes(config);
+        if (isConfigured(config, OpenApiMiddleware.class)) {
+            OpenApiMiddleware.prebuild();
+            // only the classes of the model objects are initialized at build time, not the whole packages of the parser.
+            final Set<Class<?>> classes = getReachableClasses(OpenApiMiddleware.helper);
+            LOG.info("Initializing {} classes of the OpenAPI model at build time", classes.size());
+            RuntimeClassInitialization.initializeAtBuildTime(classes.toArray(Class<?>[]::new));
+        } else {
+            LOG.info("OpenApiMiddleware is not configured, the OpenAPI model is not built into the image");
+        }
+    }
+
+    private static boolean isConfigured(final HandlerConfig config, final Class<?> handlerClass) {
+        if (config == null || config.getHandlers() == null)
+            return false;
+        for (String handler : config.getHandlers()) {
+            // the format is the class name with an optional @name.
+            final int at = handler.indexOf('@');
+            if (handlerClass.getName().equals(at < 0 ? handler.trim() : handler.substring(0, at).trim()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Walk the object graph from the root and collect the classes of the objects outside the JDK. The collections and
+     * maps of the JDK are walked through their elements instead of their fields.
+     *
+     * @param root the root of the object graph.
+     * @return the classes of the reachable objects that are not JDK classes.
+     */
+    static Set<Class<?>> getReachableClasses(final Object root) {
+        final Set<Class<?>> classes = new LinkedHashSet<>();
+        final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Deque<Object> pending = new ArrayDeque<>();
+        if (root != null)
+            pending.push(root);
+        while (!pending.isEmpty()) {
+            final Object object = pending.pop();
+            if (!visited.add(object))
+                continue;
+            final Class<?> type = object.getClass();
+            if (type.isArray()) {
+                if (!type.getComponentType().isPrimitive()) {
+                    for (Object element : (Object[]) object)
+                        push(pending, element);
+                }
+            } else if (isJdk(type)) {
+                if (object instanceof Map<?, ?> map) {
+                    for (var entry : map.entrySet()) {
+                        push(pending, entry.getKey());
+                        push(pending, entry.getValue());
+                    }
+                } else if (object instanceof Collection<?> collection) {
+                    for (Object element : collection)
+                        push(pending, element);
+                }
+            } else {
+                for (Class<?> c = type; c != null && !isJdk(c); c = c.getSuperclass()) {
+                    // the classes of lambdas cannot be named for the initialization.
+                    if (!c.isHidden())
+                        classes.add(c);
+                    for (Field field : c.getDeclaredFields()) {
+                        if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive())
+                            continue;
+                        try {
+                            field.setAccessible(true);
+                            push(pending, field.get(object));
+                        } catch (RuntimeException | IllegalAccessException e) {
+                            LOG.debug("Cannot read {} of the OpenAPI model", field, e);
+                        }
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static void push(final Deque<Object> pending, final Object object) {
+        if (object != null)
+            pending.push(object);
+    }
+
+    private static boolean isJdk(final Class<?> type) {
+        final String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+}
@@ -4,71 +4,122 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.event.LambdaEventAdapter;
 import com.networknt.aws.lambda.handler.Handler;
+import com.networknt.aws.lambda.handler.RouteContext;
 import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.aws.lambda.LambdaBody;
+import com.networknt.aws.lambda.ColdStartProfile;
 import com.networknt.aws.lambda.LightLambdaExchange;
-import com.networknt.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This is the entry point for the stream lambda function that is responsible for cross-cutting concerns for the business Lambda
  * function which is called from the is Lambda function once all cross-cutting concerns are addressed. The lambda function endpoint
  * receives the InputStream and the OutputStream.
  *
+ * The event bytes are read by the LambdaEventAdapter for the configured eventFormat, so REST API, HTTP API, ALB and Function
+ * URL payloads are handled in their native shape. The response is written by the same adapter directly to the OutputStream.
+ * The raw payload is never materialized as an intermediate String in either direction. When responseStreaming is enabled,
+ * the router can hand over the backend body as a stream and it is piped to the caller after the status and headers.
+ *
  * @author Steve Hu
  */
 public class LambdaStreamApp implements RequestStreamHandler {
     private static final Logger LOG = LoggerFactory.getLogger(LambdaStreamApp.class);
-    private static final String CONFIG_NAME = "lambda-proxy";
-    public static final LambdaAppConfig CONFIG = (LambdaAppConfig) Config.getInstance().getJsonObjectConfig(CONFIG_NAME, LambdaAppConfig.class);
+    private static LambdaAppConfig config;
+    private static DeferredTasks deferredTasks;
+    private static LambdaEventAdapter adapter;
+    private static final AtomicBoolean appInitialized = new AtomicBoolean(false);
 
     public LambdaStreamApp() {
-        if (LOG.isInfoEnabled()) LOG.info("LambdaStreamProxy is constructed");
-        // Call the config load to register it only. This appId change doesn't support config reload as it is
-        // called only once here in the constructor.
-        LambdaAppConfig.load();
-        Handler.init();
+        if (appInitialized.compareAndSet(false, true)) {
+            final long start = System.nanoTime();
+            ConfigBundle.preload();
+            ColdStartProfile.phase("configBundle", start);
+            config = LambdaAppConfig.load();
+            deferredTasks = DeferredTasks.create(config.getDeferredTaskBudget());
+            adapter = LambdaEventAdapter.of(config.getEventFormat());
+            Handler.init();
+            SnapStartResource.register();
+            ColdStartProfile.phase("LambdaStreamApp", start);
+            LOG.info("LambdaStreamApp is constructed");
+        } else {
+            LOG.info("LambdaStreamApp was already initialized. Using cached configs.");
+        }
     }
 
     @Override
     public void handleRequest(InputStream inputStream, OutputStream outputStream, Context context) throws IOException {
-        String text = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-        if(LOG.isDebugEnabled()) LOG.debug("Lambda CCC --start with request: {}", text);
-        // try to convert the input text into APIGatewayProxyRequestEvent
+        final long start = System.nanoTime();
+        final APIGatewayProxyRequestEvent request;
         try {
-            APIGatewayProxyRequestEvent apiGatewayProxyRequestEvent = Config.getInstance().getMapper().readValue(text, APIGatewayProxyRequestEvent.class);
-            var requestPath = apiGatewayProxyRequestEvent.getPath();
-            var requestMethod = apiGatewayProxyRequestEvent.getHttpMethod();
-            LOG.debug("Request path: {} -- Request method: {}", requestPath, requestMethod);
-            Chain chain = Handler.getChain(apiGatewayProxyRequestEvent);
-            if(chain == null) chain = Handler.getDefaultChain();
-            final var exchange = new LightLambdaExchange(context, chain);
-            exchange.setInitialRequest(apiGatewayProxyRequestEvent);
-            exchange.executeChain();
-            APIGatewayProxyResponseEvent response = exchange.getResponse();
-            LOG.debug("Lambda CCC --end with response: {}", response);
-            return;
+            request = adapter.readRequest(inputStream.readAllBytes());
+        } catch (IOException e) {
+            LOG.error("Failed to parse the input stream as a {} event", adapter.getFormat(), e);
+            throw e;
+        }
+
+        if (LOG.isDebugEnabled()) LOG.debug("Lambda CCC --start with request: {}", request);
+        LOG.debug("Request path: {} -- Request method: {}", request.getPath(), request.getHttpMethod());
+
+        final RouteContext route = Handler.getRouteContext(request);
+        final Chain chain = route == null ? Handler.getDefaultChain() : route.getChain();
 
-        } catch (Exception e) {
-            if(LOG.isDebugEnabled()) LOG.debug("Exception:", e);
-            // this is a real stream body, and we need to use the default chain.
-            Chain chain = Handler.getDefaultChain();
-            final var exchange = new LightLambdaExchange(context, chain);
+        deferredTasks.awaitPrevious();
+        final boolean recycle = config.isRecycleExchange();
+        final var exchange = recycle ? LightLambdaExchange.obtain(context, chain) : new LightLambdaExchange(context, chain);
+        exchange.addAttachment(LambdaApp.APP_ID, config.getLambdaAppId());
+        if (config.isEncodeBase64Request())
+            exchange.encodeRequestBodyOnFinalize();
+        // the stream is piped as it is, so it cannot be used when the response body must be base64 encoded.
+        if (config.isResponseStreaming() && !config.isEncodeBase64Response())
+            exchange.enableResponseStreaming();
+        exchange.setInitialRequest(request);
+        if (route != null)
+            route.attach(exchange);
+        exchange.executeChain();
 
-//            exchange.setRequest(apiGatewayProxyRequestEvent);
-//            exchange.executeChain();
-//            APIGatewayProxyResponseEvent response = exchange.getResponse();
-//            LOG.debug("Lambda CCC --end with response: {}", response);
-//            return response;
+        APIGatewayProxyResponseEvent response = exchange.getFinalizedResponse(false);
 
+        final InputStream bodyStream = exchange.getResponseBodyStream();
+        if (bodyStream != null) {
+            try (bodyStream) {
+                // a handler after the producer may have replaced the response, then the buffered response is written.
+                if (exchange.isStreamedResponse(response)) {
+                    LOG.debug("Lambda CCC --end with streaming response: {}", response);
+                    adapter.writeStreamingResponse(request, response, bodyStream, outputStream);
+                    deferredTasks.complete(exchange, recycle);
+                    ColdStartProfile.invocationComplete(start);
+                    return;
+                }
+                LOG.debug("The response was replaced after the producer and the body stream is discarded.");
+            }
         }
+
+        if (shouldBase64EncodeResponse(response)) {
+            // reuse the body holder of the exchange so that the conversions done by the handlers are not repeated.
+            LambdaBody body = exchange.getResponseBody();
+            if (body == null)
+                body = LambdaBody.ofText(response.getBody());
+            response.setBody(body.getBase64());
+            response.setIsBase64Encoded(true);
+        }
+
+        LOG.debug("Lambda CCC --end with response: {}", response);
+        adapter.writeResponse(request, response, outputStream);
+        // the audit log and the metrics are done after the response is written.
+        deferredTasks.complete(exchange, recycle);
+        ColdStartProfile.invocationComplete(start);
     }
 
+    private boolean shouldBase64EncodeResponse(final APIGatewayProxyResponseEvent response) {
+        return config.isEncodeBase64Response() && response.getBody() != null && !Boolean.TRUE.equals(response.getIsBase64Encoded());
+    }
 }
@@ -0,0 +1,135 @@
+package com.networknt.aws.lambda.app;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.cache.DynamoDbCacheManager;
+import com.networknt.aws.lambda.handler.Handler;
+import com.networknt.aws.lambda.handler.LambdaHandler;
+import com.networknt.aws.lambda.handler.RouteContext;
+import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.cache.CacheManager;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The CRaC resource that prepares the function for a Lambda SnapStart snapshot. Before the checkpoint, it executes the
+ * priming endpoints in lambda-app.yml so that the classes and the lazy state on their chains are in the snapshot, and
+ * then asks each handler to close the connections that cannot be restored. After the restore, each handler opens its
+ * connections again and refreshes the state that must not be shared by the restored instances.
+ *
+ * It is registered by the entry points after the handlers are initialized. When the function is not running with
+ * SnapStart or CRaC, the callbacks are never called.
+ *
+ * @author Steve Hu
+ */
+public class SnapStartResource implements Resource {
+    private static final Logger LOG = LoggerFactory.getLogger(SnapStartResource.class);
+    private static final String PRIMING_REQUEST_ID = "priming";
+    private static final AtomicBoolean registered = new AtomicBoolean(false);
+    // the global context only keeps a weak reference to the resource.
+    private static SnapStartResource instance;
+
+    SnapStartResource() {
+    }
+
+    /**
+     * Register the resource with the global CRaC context once.
+     */
+    public static void register() {
+        if (registered.compareAndSet(false, true)) {
+            instance = new SnapStartResource();
+            Core.getGlobalContext().register(instance);
+            LOG.debug("SnapStartResource is registered");
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        LOG.info("Preparing the function for the checkpoint");
+        prime(LambdaAppConfig.load());
+        for (LambdaHandler handler : Handler.getHandlers().values()) {
+            handler.beforeCheckpoint();
+        }
+        if (CacheManager.getInstance() instanceof DynamoDbCacheManager dynamoDbCacheManager)
+            dynamoDbCacheManager.beforeCheckpoint();
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        LOG.info("Restoring the function from the snapshot");
+        if (CacheManager.getInstance() instanceof DynamoDbCacheManager dynamoDbCacheManager)
+            dynamoDbCacheManager.afterRestore();
+        for (LambdaHandler handler : Handler.getHandlers().values()) {
+            handler.afterRestore();
+        }
+        // a handler may have changed its enabled state when it was restored.
+        Handler.refreshChains();
+    }
+
+    /**
+     * Execute each priming endpoint once. The exchanges bypass the entry points so that the priming requests are not
+     * counted as the first invocation in the ColdStartProfile, and a failed priming request never fails the checkpoint.
+     *
+     * @param config the LambdaAppConfig with the priming endpoints.
+     * @return the number of endpoints that returned a 2xx status.
+     */
+    static int prime(final LambdaAppConfig config) {
+        int count = 0;
+        for (var entry : prime(config.getPrimingEndpoints()).entrySet()) {
+            if (entry.getValue() >= 200 && entry.getValue() < 300)
+                count++;
+            else
+                LOG.warn("Priming {} returned status {}, the chain may not be fully warmed", entry.getKey(), entry.getValue());
+        }
+        return count;
+    }
+
+    /**
+     * @param endpoints the priming endpoints in the path@method format.
+     * @return the status of each endpoint whose chain was executed.
+     */
+    static Map<String, Integer> prime(final List<String> endpoints) {
+        final Map<String, Integer> statuses = new LinkedHashMap<>();
+        for (String endpoint : endpoints) {
+            final int index = endpoint.lastIndexOf('@');
+            if (index <= 0 || index == endpoint.length() - 1) {
+                LOG.warn("Invalid priming endpoint {}, the format is path@method", endpoint);
+                continue;
+            }
+            final var request = new APIGatewayProxyRequestEvent();
+            request.setPath(endpoint.substring(0, index));
+            request.setHttpMethod(endpoint.substring(index + 1).toUpperCase());
+            request.setHeaders(new HashMap<>());
+            request.setQueryStringParameters(new HashMap<>());
+            request.setPathParameters(new HashMap<>());
+            final var requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+            requestContext.setIdentity(new APIGatewayProxyRequestEvent.RequestIdentity());
+            request.setRequestContext(requestContext);
+            try {
+                final RouteContext route = Handler.getRouteContext(request);
+                final Chain chain = route == null ? Handler.getDefaultChain() : route.getChain();
+                // the handlers read the request id and the function name from the context like in an invocation.
+                final var exchange = new LightLambdaExchange(new LambdaContext(PRIMING_REQUEST_ID), chain);
+                exchange.setInitialRequest(request);
+                if (route != null)
+                    route.attach(exchange);
+                exchange.executeChain();
+                LOG.debug("Primed {} with status {}", endpoint, exchange.getStatusCode());
+                statuses.put(endpoint, exchange.getStatusCode());
+            } catch (Exception e) {
+                LOG.warn("Failed to prime {}", endpoint, e);
+            }
+        }
+        return statuses;
+    }
+}
@@ -1,5 +1,6 @@
 package com.networknt.aws.lambda.cache;
 
+import com.networknt.aws.lambda.ColdStartProfile;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
@@ -20,7 +21,8 @@ public class DynamoDbCacheManager implements CacheManager {
     private static final int TABLE_LIST_LIMIT = 100;
 
     private static final Map<String, String> tables = new HashMap<>();
-    private final DynamoDbClient dynamoClient;
+    // rebuilt after a SnapStart restore as the connections cannot be restored.
+    private volatile DynamoDbClient dynamoClient;
     boolean tableInitiated;
 
     @Override
@@ -155,11 +157,34 @@ public class DynamoDbCacheManager implements CacheManager {
             LOG.info("DynamoDbCacheManager is constructed.");
 
         this.tableInitiated = false;
-        this.dynamoClient = DynamoDbClient.builder()
+        final long start = System.nanoTime();
+        this.dynamoClient = createClient();
+        ColdStartProfile.phase("dynamoDbClient", start);
+    }
+
+    private static DynamoDbClient createClient() {
+        return DynamoDbClient.builder()
                 .region(Region.of(System.getenv(LambdaEnvVariables.AWS_REGION)))
                 .build();
     }
 
+    /**
+     * Close the client before a SnapStart or CRaC checkpoint.
+     */
+    public void beforeCheckpoint() {
+        if (this.dynamoClient != null) {
+            this.dynamoClient.close();
+            this.dynamoClient = null;
+        }
+    }
+
+    /**
+     * Create the client again after the function is restored from a snapshot.
+     */
+    public void afterRestore() {
+        this.dynamoClient = createClient();
+    }
+
     private void createCacheTable(String tableName) {
         LOG.debug("Attempting to create new cache table '{}'", tableName);
         CreateTableRequest createTableRequest = CreateTableRequest.builder()
@@ -0,0 +1,138 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.config.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared helpers for the adapters that map a native JSON tree onto the exchange request model.
+ *
+ * @author Steve Hu
+ */
+public abstract class AbstractEventAdapter implements LambdaEventAdapter {
+    protected static final String SET_COOKIE = "set-cookie";
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final byte[] PRELUDE_DELIMITER = new byte[8];
+
+    protected static String text(final JsonNode node, final String field) {
+        final JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * Middleware handlers update the header and parameter maps in place, so missing sections become empty mutable maps.
+     */
+    protected static Map<String, String> stringMap(final JsonNode node) {
+        final Map<String, String> map = new HashMap<>();
+        if (node != null && node.isObject()) {
+            for (var entry : node.properties()) {
+                if (!entry.getValue().isNull())
+                    map.put(entry.getKey(), entry.getValue().asText());
+            }
+        }
+        return map;
+    }
+
+    protected static Map<String, List<String>> stringListMap(final JsonNode node) {
+        if (node == null || !node.isObject())
+            return null;
+
+        final Map<String, List<String>> map = new HashMap<>();
+        for (var entry : node.properties()) {
+            final List<String> values = new ArrayList<>();
+            for (var value : entry.getValue())
+                values.add(value.asText());
+            map.put(entry.getKey(), values);
+        }
+        return map;
+    }
+
+    /**
+     * Collapse the single and multi value response headers into one map. Multiple values are joined with a comma as
+     * allowed by RFC 9110, except Set-Cookie which cannot be joined and is returned separately by the caller.
+     */
+    protected static Map<String, List<String>> mergeHeaders(final APIGatewayProxyResponseEvent response) {
+        final Map<String, List<String>> merged = new LinkedHashMap<>();
+        if (response.getHeaders() != null) {
+            for (var entry : response.getHeaders().entrySet())
+                merged.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+        }
+        if (response.getMultiValueHeaders() != null) {
+            for (var entry : response.getMultiValueHeaders().entrySet()) {
+                final List<String> values = merged.computeIfAbsent(entry.getKey(), k -> new ArrayList<>());
+                for (String value : entry.getValue()) {
+                    if (!values.contains(value))
+                        values.add(value);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Writes the headers as single value fields and the Set-Cookie values as a separate cookies array as expected by
+     * the 2.0 payload format and the streaming prelude.
+     */
+    protected static void writeHeadersAndCookies(final JsonGenerator generator, final APIGatewayProxyResponseEvent response) throws IOException {
+        List<String> cookies = null;
+        generator.writeObjectFieldStart("headers");
+        for (var entry : mergeHeaders(response).entrySet()) {
+            if (SET_COOKIE.equalsIgnoreCase(entry.getKey()))
+                cookies = entry.getValue();
+            else
+                generator.writeStringField(entry.getKey(), String.join(",", entry.getValue()));
+        }
+        generator.writeEndObject();
+        if (cookies != null) {
+            generator.writeArrayFieldStart("cookies");
+            for (String cookie : cookies)
+                generator.writeString(cookie);
+            generator.writeEndArray();
+        }
+    }
+
+    protected static void writeCommonFields(final JsonGenerator generator, final APIGatewayProxyResponseEvent response) throws IOException {
+        generator.writeNumberField("statusCode", response.getStatusCode() == null ? 200 : response.getStatusCode());
+        if (response.getBody() != null)
+            generator.writeStringField("body", response.getBody());
+        generator.writeBooleanField("isBase64Encoded", Boolean.TRUE.equals(response.getIsBase64Encoded()));
+    }
+
+    /**
+     * Uses the HTTP integration response format of Lambda response streaming. A JSON prelude with the status code,
+     * headers and cookies is followed by eight NUL bytes and the raw body.
+     */
+    @Override
+    public void writeStreamingResponse(final APIGatewayProxyRequestEvent request, final APIGatewayProxyResponseEvent response, final InputStream body, final OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = Config.getInstance().getMapper().getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeNumberField("statusCode", response.getStatusCode() == null ? 200 : response.getStatusCode());
+            writeHeadersAndCookies(generator, response);
+            generator.writeEndObject();
+        }
+        outputStream.write(PRELUDE_DELIMITER);
+        outputStream.flush();
+
+        try (body) {
+            final byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                outputStream.flush();
+            }
+        }
+        outputStream.flush();
+    }
+}
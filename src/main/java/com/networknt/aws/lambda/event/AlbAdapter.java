@@ -0,0 +1,136 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.config.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the Application Load Balancer target group event directly. When multi value headers are enabled on the target
+ * group, the load balancer only sends the multi value maps and expects multiValueHeaders in the response, so the
+ * single value maps are derived from them and the response shape follows the request. Query parameters are passed
+ * through percent-encoded by the load balancer and are decoded here.
+ *
+ * @author Steve Hu
+ */
+public class AlbAdapter extends AbstractEventAdapter {
+
+    @Override
+    public EventFormat getFormat() {
+        return EventFormat.ALB;
+    }
+
+    @Override
+    public APIGatewayProxyRequestEvent readRequest(final byte[] raw) throws IOException {
+        final JsonNode root = Config.getInstance().getMapper().readTree(raw);
+        final var request = new APIGatewayProxyRequestEvent();
+
+        request.setHttpMethod(text(root, "httpMethod"));
+        request.setPath(text(root, "path"));
+        request.setResource(request.getPath());
+        request.setBody(text(root, "body"));
+        request.setIsBase64Encoded(root.path("isBase64Encoded").asBoolean(false));
+
+        final Map<String, List<String>> multiValueHeaders = stringListMap(root.get("multiValueHeaders"));
+        request.setMultiValueHeaders(multiValueHeaders);
+        request.setHeaders(multiValueHeaders == null ? stringMap(root.get("headers")) : lastValues(multiValueHeaders, false));
+
+        final Map<String, List<String>> multiValueQuery = stringListMap(root.get("multiValueQueryStringParameters"));
+        if (multiValueQuery != null) {
+            for (var values : multiValueQuery.values())
+                values.replaceAll(AlbAdapter::decode);
+        }
+        request.setMultiValueQueryStringParameters(multiValueQuery);
+        if (multiValueQuery == null) {
+            final Map<String, String> query = stringMap(root.get("queryStringParameters"));
+            query.replaceAll((k, v) -> decode(v));
+            request.setQueryStringParameters(query);
+        } else {
+            request.setQueryStringParameters(lastValues(multiValueQuery, true));
+        }
+        request.setPathParameters(new HashMap<>());
+
+        final var requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setHttpMethod(request.getHttpMethod());
+        requestContext.setPath(request.getPath());
+        final var identity = new APIGatewayProxyRequestEvent.RequestIdentity();
+        identity.setSourceIp(sourceIp(request.getHeaders()));
+        identity.setUserAgent(request.getHeaders().get("user-agent"));
+        requestContext.setIdentity(identity);
+        request.setRequestContext(requestContext);
+        return request;
+    }
+
+    /**
+     * Same as API Gateway, the last value wins when a multi value map is flattened.
+     */
+    private static Map<String, String> lastValues(final Map<String, List<String>> multiValues, final boolean keepEmpty) {
+        final Map<String, String> map = new HashMap<>();
+        for (var entry : multiValues.entrySet()) {
+            if (!entry.getValue().isEmpty())
+                map.put(entry.getKey(), entry.getValue().get(entry.getValue().size() - 1));
+            else if (keepEmpty)
+                map.put(entry.getKey(), "");
+        }
+        return map;
+    }
+
+    /**
+     * The load balancer appends the client address to X-Forwarded-For, so the first entry is the original client.
+     */
+    private static String sourceIp(final Map<String, String> headers) {
+        final String forwardedFor = headers.get("x-forwarded-for");
+        if (forwardedFor == null)
+            return null;
+
+        final int comma = forwardedFor.indexOf(',');
+        return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+    }
+
+    private static String decode(final String value) {
+        return value == null ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeResponse(final APIGatewayProxyRequestEvent request, final APIGatewayProxyResponseEvent response, final OutputStream outputStream) throws IOException {
+        final boolean multiValue = request != null && request.getMultiValueHeaders() != null;
+        try (JsonGenerator generator = Config.getInstance().getMapper().getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            writeCommonFields(generator, response);
+            generator.writeObjectFieldStart(multiValue ? "multiValueHeaders" : "headers");
+            for (var entry : mergeHeaders(response).entrySet()) {
+                if (multiValue) {
+                    generator.writeArrayFieldStart(entry.getKey());
+                    for (String value : entry.getValue())
+                        generator.writeString(value);
+                    generator.writeEndArray();
+                } else {
+                    generator.writeStringField(entry.getKey(), String.join(",", entry.getValue()));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * The load balancer doesn't support response streaming, so the body is buffered and written as a normal response.
+     */
+    @Override
+    public void writeStreamingResponse(final APIGatewayProxyRequestEvent request, final APIGatewayProxyResponseEvent response, final InputStream body, final OutputStream outputStream) throws IOException {
+        try (body) {
+            response.setBody(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        this.writeResponse(request, response, outputStream);
+    }
+}
@@ -0,0 +1,32 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.config.Config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The REST API payload is already the exchange model, so the request is wrapped in a LazyProxyRequestEvent and the
+ * response is serialized as it is.
+ *
+ * @author Steve Hu
+ */
+public class ApiGatewayV1Adapter extends AbstractEventAdapter {
+
+    @Override
+    public EventFormat getFormat() {
+        return EventFormat.V1;
+    }
+
+    @Override
+    public APIGatewayProxyRequestEvent readRequest(final byte[] raw) throws IOException {
+        return LazyProxyRequestEvent.parse(raw);
+    }
+
+    @Override
+    public void writeResponse(final APIGatewayProxyRequestEvent request, final APIGatewayProxyResponseEvent response, final OutputStream outputStream) throws IOException {
+        Config.getInstance().getMapper().writeValue(outputStream, response);
+    }
+}
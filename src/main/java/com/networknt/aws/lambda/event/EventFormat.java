@@ -0,0 +1,26 @@
+package com.networknt.aws.lambda.event;
+
+/**
+ * The native payload formats that can invoke the stream entry point. Each format has a LambdaEventAdapter that reads
+ * the native shape directly and writes the response back in the shape the caller expects.
+ *
+ * @author Steve Hu
+ */
+public enum EventFormat {
+    /**
+     * API Gateway REST API, payload format version 1.0.
+     */
+    V1,
+    /**
+     * API Gateway HTTP API, payload format version 2.0.
+     */
+    V2,
+    /**
+     * Application Load Balancer target group.
+     */
+    ALB,
+    /**
+     * Lambda Function URL, which uses the 2.0 payload shape without a stage or route.
+     */
+    FUNCTION_URL
+}
@@ -0,0 +1,15 @@
+package com.networknt.aws.lambda.event;
+
+/**
+ * Function URLs send the 2.0 payload shape with the route key and stage both set to $default, and accept the same
+ * response shape as HTTP API.
+ *
+ * @author Steve Hu
+ */
+public class FunctionUrlAdapter extends HttpApiV2Adapter {
+
+    @Override
+    public EventFormat getFormat() {
+        return EventFormat.FUNCTION_URL;
+    }
+}
@@ -0,0 +1,98 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.config.Config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the HTTP API payload format 2.0 directly. The method and source address live under requestContext.http, the
+ * cookies are a separate array and multi value headers and query parameters are already joined with commas.
+ *
+ * @author Steve Hu
+ */
+public class HttpApiV2Adapter extends AbstractEventAdapter {
+    private static final String DEFAULT_ROUTE = "$default";
+
+    @Override
+    public EventFormat getFormat() {
+        return EventFormat.V2;
+    }
+
+    @Override
+    public APIGatewayProxyRequestEvent readRequest(final byte[] raw) throws IOException {
+        final ObjectMapper mapper = Config.getInstance().getMapper();
+        final JsonNode root = mapper.readTree(raw);
+        final JsonNode context = root.path("requestContext");
+        final JsonNode http = context.path("http");
+        final var request = new APIGatewayProxyRequestEvent();
+
+        request.setHttpMethod(text(http, "method"));
+        request.setPath(text(root, "rawPath"));
+        request.setResource(resource(text(root, "routeKey"), request.getPath()));
+
+        final Map<String, String> headers = stringMap(root.get("headers"));
+        final JsonNode cookies = root.get("cookies");
+        if (cookies != null && cookies.isArray() && !cookies.isEmpty()) {
+            final List<String> values = new ArrayList<>();
+            for (var cookie : cookies)
+                values.add(cookie.asText());
+            headers.put("cookie", String.join("; ", values));
+        }
+        request.setHeaders(headers);
+        request.setQueryStringParameters(stringMap(root.get("queryStringParameters")));
+        request.setPathParameters(stringMap(root.get("pathParameters")));
+        request.setStageVariables(stringMap(root.get("stageVariables")));
+        request.setBody(text(root, "body"));
+        request.setIsBase64Encoded(root.path("isBase64Encoded").asBoolean(false));
+
+        final var requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setRequestId(text(context, "requestId"));
+        requestContext.setAccountId(text(context, "accountId"));
+        requestContext.setApiId(text(context, "apiId"));
+        requestContext.setStage(text(context, "stage"));
+        requestContext.setHttpMethod(request.getHttpMethod());
+        requestContext.setPath(text(http, "path"));
+        requestContext.setResourcePath(request.getResource());
+
+        final var identity = new APIGatewayProxyRequestEvent.RequestIdentity();
+        identity.setSourceIp(text(http, "sourceIp"));
+        identity.setUserAgent(text(http, "userAgent"));
+        requestContext.setIdentity(identity);
+
+        final JsonNode authorizer = context.get("authorizer");
+        if (authorizer != null && authorizer.isObject())
+            requestContext.setAuthorizer(mapper.convertValue(authorizer, Map.class));
+        request.setRequestContext(requestContext);
+        return request;
+    }
+
+    /**
+     * The route key is the method and the path template separated by a space, or $default for the catch-all route.
+     */
+    private static String resource(final String routeKey, final String path) {
+        if (routeKey == null || DEFAULT_ROUTE.equals(routeKey))
+            return path;
+
+        final int space = routeKey.indexOf(' ');
+        return space < 0 ? routeKey : routeKey.substring(space + 1);
+    }
+
+    @Override
+    public void writeResponse(final APIGatewayProxyRequestEvent request, final APIGatewayProxyResponseEvent response, final OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = Config.getInstance().getMapper().getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            writeCommonFields(generator, response);
+            writeHeadersAndCookies(generator, response);
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads a native Lambda HTTP event into the request model used by the exchange and the middleware handlers, and writes
+ * the finalized response back in the native shape of the caller. The adapters map the fields directly, so there is no
+ * intermediate JSON translation between formats.
+ *
+ * @author Steve Hu
+ */
+public interface LambdaEventAdapter {
+
+    EventFormat getFormat();
+
+    APIGatewayProxyRequestEvent readRequest(byte[] raw) throws IOException;
+
+    void writeResponse(APIGatewayProxyRequestEvent request, APIGatewayProxyResponseEvent response, OutputStream outputStream) throws IOException;
+
+    /**
+     * Writes the status and headers of the response first and then pipes the body stream to the caller chunk by chunk.
+     * The runtime must post the output with the streaming response mode for the caller to receive the chunks as they
+     * are written.
+     */
+    void writeStreamingResponse(APIGatewayProxyRequestEvent request, APIGatewayProxyResponseEvent response, InputStream body, OutputStream outputStream) throws IOException;
+
+    static LambdaEventAdapter of(final EventFormat format) {
+        return switch (format) {
+            case V1 -> new ApiGatewayV1Adapter();
+            case V2 -> new HttpApiV2Adapter();
+            case ALB -> new AlbAdapter();
+            case FUNCTION_URL -> new FunctionUrlAdapter();
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.networknt.config.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An APIGatewayProxyRequestEvent view over the raw event bytes. A single streaming pass reads the scalar fields used
+ * for routing (path, httpMethod, resource and isBase64Encoded) and only records where the other sections start. The
+ * headers, query parameters, path parameters, stage variables, request context and body are decoded from the raw bytes
+ * the first time a middleware reads them, so requests that are short-circuited early pay almost nothing for decoding.
+ *
+ * A setter always wins over the raw section. An instance is only used by a single invocation, but the handlers of a
+ * parallel group may read it from several threads, so a section is decoded once under the lock of the event and
+ * published with the volatile decoded mask.
+ *
+ * @author Steve Hu
+ */
+public class LazyProxyRequestEvent extends APIGatewayProxyRequestEvent {
+    static final int HEADERS = 0;
+    static final int MULTI_VALUE_HEADERS = 1;
+    static final int QUERY_STRING_PARAMETERS = 2;
+    static final int MULTI_VALUE_QUERY_STRING_PARAMETERS = 3;
+    static final int PATH_PARAMETERS = 4;
+    static final int STAGE_VARIABLES = 5;
+    static final int REQUEST_CONTEXT = 6;
+    static final int BODY = 7;
+    private static final int SECTION_COUNT = 8;
+
+    private static final JavaType STRING_MAP = TypeFactory.defaultInstance().constructMapType(Map.class, String.class, String.class);
+    private static final JavaType STRING_LIST_MAP = TypeFactory.defaultInstance().constructMapType(Map.class,
+            TypeFactory.defaultInstance().constructType(String.class),
+            TypeFactory.defaultInstance().constructCollectionType(List.class, String.class));
+
+    private final byte[] raw;
+    private final int[] offsets = new int[SECTION_COUNT];
+    // the bit of a section is set after its field is written, so reading the mask publishes the field.
+    private volatile int decoded;
+
+    private LazyProxyRequestEvent(final byte[] raw) {
+        this.raw = raw;
+        Arrays.fill(this.offsets, -1);
+    }
+
+    /**
+     * Scan the raw API Gateway event and create the lazy view. Only the top level of the document is tokenized here.
+     *
+     * @param raw the raw event bytes received from the runtime.
+     * @return LazyProxyRequestEvent
+     * @throws IOException when the bytes are not a JSON object.
+     */
+    public static LazyProxyRequestEvent parse(final byte[] raw) throws IOException {
+        final var event = new LazyProxyRequestEvent(raw);
+        try (JsonParser parser = Config.getInstance().getMapper().getFactory().createParser(raw)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new JsonParseException(parser, "The API Gateway event must be a JSON object");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.currentName();
+                final JsonToken token = parser.nextToken();
+                switch (name) {
+                    case "resource" -> event.setResource(parser.getValueAsString());
+                    case "path" -> event.setPath(parser.getValueAsString());
+                    case "httpMethod" -> event.setHttpMethod(parser.getValueAsString());
+                    case "isBase64Encoded" -> event.setIsBase64Encoded(token == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean());
+                    case "headers" -> event.mark(HEADERS, parser, token);
+                    case "multiValueHeaders" -> event.mark(MULTI_VALUE_HEADERS, parser, token);
+                    case "queryStringParameters" -> event.mark(QUERY_STRING_PARAMETERS, parser, token);
+                    case "multiValueQueryStringParameters" -> event.mark(MULTI_VALUE_QUERY_STRING_PARAMETERS, parser, token);
+                    case "pathParameters" -> event.mark(PATH_PARAMETERS, parser, token);
+                    case "stageVariables" -> event.mark(STAGE_VARIABLES, parser, token);
+                    case "requestContext" -> event.mark(REQUEST_CONTEXT, parser, token);
+                    case "body" -> event.mark(BODY, parser, token);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Remember where the section value starts and skip over it. String values are not decoded by the parser until
+     * the text is requested, so skipping the body is cheap as well.
+     */
+    private void mark(final int section, final JsonParser parser, final JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_NULL)
+            this.offsets[section] = (int) parser.currentTokenLocation().getByteOffset();
+        parser.skipChildren();
+    }
+
+    /**
+     * Returns true if the section may still need to be decoded.
+     */
+    private boolean pending(final int section) {
+        return (this.decoded & (1 << section)) == 0;
+    }
+
+    /**
+     * Decode the section with the setter of the parent class unless another thread or a setter has resolved it.
+     */
+    private synchronized <T> void load(final int section, final JavaType type, final Consumer<T> setter) {
+        if (!this.pending(section))
+            return;
+        if (this.offsets[section] >= 0)
+            setter.accept(this.decode(section, type));
+        this.decoded |= 1 << section;
+    }
+
+    /**
+     * Set a section with the setter of the parent class and mark it as decoded, so the raw section is never read.
+     */
+    private synchronized <T> void resolve(final int section, final T value, final Consumer<T> setter) {
+        setter.accept(value);
+        this.decoded |= 1 << section;
+    }
+
+    boolean isDecoded(final int section) {
+        return (this.decoded & (1 << section)) != 0;
+    }
+
+    private <T> T decode(final int section, final JavaType type) {
+        final int offset = this.offsets[section];
+        final ObjectMapper mapper = Config.getInstance().getMapper();
+        try (JsonParser parser = mapper.getFactory().createParser(this.raw, offset, this.raw.length - offset)) {
+            return mapper.readValue(parser, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        if (this.pending(HEADERS))
+            this.load(HEADERS, STRING_MAP, super::setHeaders);
+        return super.getHeaders();
+    }
+
+    @Override
+    public void setHeaders(final Map<String, String> headers) {
+        this.resolve(HEADERS, headers, super::setHeaders);
+    }
+
+    @Override
+    public Map<String, List<String>> getMultiValueHeaders() {
+        if (this.pending(MULTI_VALUE_HEADERS))
+            this.load(MULTI_VALUE_HEADERS, STRING_LIST_MAP, super::setMultiValueHeaders);
+        return super.getMultiValueHeaders();
+    }
+
+    @Override
+    public void setMultiValueHeaders(final Map<String, List<String>> multiValueHeaders) {
+        this.resolve(MULTI_VALUE_HEADERS, multiValueHeaders, super::setMultiValueHeaders);
+    }
+
+    @Override
+    public Map<String, String> getQueryStringParameters() {
+        if (this.pending(QUERY_STRING_PARAMETERS))
+            this.load(QUERY_STRING_PARAMETERS, STRING_MAP, super::setQueryStringParameters);
+        return super.getQueryStringParameters();
+    }
+
+    @Override
+    public void setQueryStringParameters(final Map<String, String> queryStringParameters) {
+        this.resolve(QUERY_STRING_PARAMETERS, queryStringParameters, super::setQueryStringParameters);
+    }
+
+    @Override
+    public Map<String, List<String>> getMultiValueQueryStringParameters() {
+        if (this.pending(MULTI_VALUE_QUERY_STRING_PARAMETERS))
+            this.load(MULTI_VALUE_QUERY_STRING_PARAMETERS, STRING_LIST_MAP, super::setMultiValueQueryStringParameters);
+        return super.getMultiValueQueryStringParameters();
+    }
+
+    @Override
+    public void setMultiValueQueryStringParameters(final Map<String, List<String>> multiValueQueryStringParameters) {
+        this.resolve(MULTI_VALUE_QUERY_STRING_PARAMETERS, multiValueQueryStringParameters, super::setMultiValueQueryStringParameters);
+    }
+
+    @Override
+    public Map<String, String> getPathParameters() {
+        if (this.pending(PATH_PARAMETERS))
+            this.load(PATH_PARAMETERS, STRING_MAP, super::setPathParameters);
+        return super.getPathParameters();
+    }
+
+    @Override
+    public void setPathParameters(final Map<String, String> pathParameters) {
+        this.resolve(PATH_PARAMETERS, pathParameters, super::setPathParameters);
+    }
+
+    @Override
+    public Map<String, String> getStageVariables() {
+        if (this.pending(STAGE_VARIABLES))
+            this.load(STAGE_VARIABLES, STRING_MAP, super::setStageVariables);
+        return super.getStageVariables();
+    }
+
+    @Override
+    public void setStageVariables(final Map<String, String> stageVariables) {
+        this.resolve(STAGE_VARIABLES, stageVariables, super::setStageVariables);
+    }
+
+    @Override
+    public ProxyRequestContext getRequestContext() {
+        if (this.pending(REQUEST_CONTEXT))
+            this.load(REQUEST_CONTEXT, TypeFactory.defaultInstance().constructType(ProxyRequestContext.class), super::setRequestContext);
+        return super.getRequestContext();
+    }
+
+    @Override
+    public void setRequestContext(final ProxyRequestContext requestContext) {
+        this.resolve(REQUEST_CONTEXT, requestContext, super::setRequestContext);
+    }
+
+    @Override
+    public String getBody() {
+        if (this.pending(BODY))
+            this.load(BODY, TypeFactory.defaultInstance().constructType(String.class), super::setBody);
+        return super.getBody();
+    }
+
+    @Override
+    public void setBody(final String body) {
+        this.resolve(BODY, body, super::setBody);
+    }
+}
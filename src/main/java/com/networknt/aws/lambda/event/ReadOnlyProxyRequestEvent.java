@@ -0,0 +1,186 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only snapshot of a request event for the handlers of the response phase. Nothing is copied: the scalar
+ * fields are captured when the snapshot is created, and the maps and the body are read from the finalized event the
+ * first time they are requested and wrapped in unmodifiable views. A lazy event is therefore still only decoded for
+ * the sections that somebody reads, and it is decoded once for all readers of the snapshot.
+ *
+ * The setters throw UnsupportedOperationException. The lists of the multi-value maps and the request context are
+ * shared with the event and must not be modified.
+ *
+ * @author Steve Hu
+ */
+public final class ReadOnlyProxyRequestEvent extends APIGatewayProxyRequestEvent {
+    private final APIGatewayProxyRequestEvent source;
+    private final String resource;
+    private final String path;
+    private final String httpMethod;
+    private final Boolean isBase64Encoded;
+    private Map<String, String> headers;
+    private Map<String, List<String>> multiValueHeaders;
+    private Map<String, String> queryStringParameters;
+    private Map<String, List<String>> multiValueQueryStringParameters;
+    private Map<String, String> pathParameters;
+    private Map<String, String> stageVariables;
+
+    public ReadOnlyProxyRequestEvent(final APIGatewayProxyRequestEvent source) {
+        this.source = source;
+        this.resource = source.getResource();
+        this.path = source.getPath();
+        this.httpMethod = source.getHttpMethod();
+        this.isBase64Encoded = source.getIsBase64Encoded();
+    }
+
+    private static <V> Map<String, V> view(final Map<String, V> map) {
+        return map == null ? null : Collections.unmodifiableMap(map);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("The request is read-only in the response phase");
+    }
+
+    @Override
+    public String getResource() {
+        return this.resource;
+    }
+
+    @Override
+    public String getPath() {
+        return this.path;
+    }
+
+    @Override
+    public String getHttpMethod() {
+        return this.httpMethod;
+    }
+
+    @Override
+    public Boolean getIsBase64Encoded() {
+        return this.isBase64Encoded;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        if (this.headers == null)
+            this.headers = view(this.source.getHeaders());
+        return this.headers;
+    }
+
+    @Override
+    public Map<String, List<String>> getMultiValueHeaders() {
+        if (this.multiValueHeaders == null)
+            this.multiValueHeaders = view(this.source.getMultiValueHeaders());
+        return this.multiValueHeaders;
+    }
+
+    @Override
+    public Map<String, String> getQueryStringParameters() {
+        if (this.queryStringParameters == null)
+            this.queryStringParameters = view(this.source.getQueryStringParameters());
+        return this.queryStringParameters;
+    }
+
+    @Override
+    public Map<String, List<String>> getMultiValueQueryStringParameters() {
+        if (this.multiValueQueryStringParameters == null)
+            this.multiValueQueryStringParameters = view(this.source.getMultiValueQueryStringParameters());
+        return this.multiValueQueryStringParameters;
+    }
+
+    @Override
+    public Map<String, String> getPathParameters() {
+        if (this.pathParameters == null)
+            this.pathParameters = view(this.source.getPathParameters());
+        return this.pathParameters;
+    }
+
+    @Override
+    public Map<String, String> getStageVariables() {
+        if (this.stageVariables == null)
+            this.stageVariables = view(this.source.getStageVariables());
+        return this.stageVariables;
+    }
+
+    @Override
+    public ProxyRequestContext getRequestContext() {
+        return this.source.getRequestContext();
+    }
+
+    @Override
+    public String getBody() {
+        return this.source.getBody();
+    }
+
+    @Override
+    public void setResource(final String resource) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setPath(final String path) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setHttpMethod(final String httpMethod) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setIsBase64Encoded(final Boolean isBase64Encoded) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setHeaders(final Map<String, String> headers) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setMultiValueHeaders(final Map<String, List<String>> multiValueHeaders) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setQueryStringParameters(final Map<String, String> queryStringParameters) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setMultiValueQueryStringParameters(final Map<String, List<String>> multiValueQueryStringParameters) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setPathParameters(final Map<String, String> pathParameters) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setStageVariables(final Map<String, String> stageVariables) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setRequestContext(final ProxyRequestContext requestContext) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setBody(final String body) {
+        throw readOnly();
+    }
+
+    @Override
+    public APIGatewayProxyRequestEvent clone() {
+        // the snapshot cannot change, so it is its own copy.
+        return this;
+    }
+}
@@ -18,4 +18,9 @@ public class LambdaExchangeStateException extends RuntimeException {
         var missingStateString = Integer.toBinaryString(missing);
         return new LambdaExchangeStateException("Attempted to execute '" + stackTraceElements[2].getMethodName() + "' while missing a flag. Current state '" + stateString + "' is missing flag state '" + missingStateString + "'.");
     }
+
+    public static LambdaExchangeStateException staleGenerationException(int generation, int current) {
+        StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
+        return new LambdaExchangeStateException("Attempted to execute '" + stackTraceElements[2].getMethodName() + "' with a stale exchange. Captured generation '" + generation + "' is not the current generation '" + current + "'.");
+    }
 }
@@ -0,0 +1,21 @@
+package com.networknt.aws.lambda.handler;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the handlers that must be constructed before the annotated handler because its constructor uses their state.
+ * Handler.initHandlers constructs the handlers concurrently and waits for every configured handler that is an instance of
+ * one of the declared types. A declared type that is not configured in handler.yml is ignored.
+ *
+ * @author Steve Hu
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DependsOn {
+    Class<? extends LambdaHandler>[] value();
+}
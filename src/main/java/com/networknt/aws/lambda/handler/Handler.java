@@ -1,17 +1,23 @@
 package com.networknt.aws.lambda.handler;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.aws.lambda.ColdStartProfile;
+import com.networknt.aws.lambda.app.LambdaAppConfig;
 import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.aws.lambda.handler.chain.ParallelGroup;
 import com.networknt.handler.config.EndpointSource;
 import com.networknt.handler.config.HandlerConfig;
 import com.networknt.handler.config.PathChain;
-import com.networknt.utility.PathTemplateMatcher;
 import com.networknt.utility.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 
 public class Handler {
 
@@ -19,31 +25,201 @@ public class Handler {
     // Accessed directly.
     // public static HandlerConfig config = HandlerConfig.load();
     // handlers defined in the handlers section. each handler keyed by a name.
-    static final Map<String, LambdaHandler> handlers = new HashMap<>();
+    // it is concurrent as the handlers are constructed in parallel and some of them look up the others in their constructor.
+    static final Map<String, LambdaHandler> handlers = new ConcurrentHashMap<>();
     // chain name to list of handlers mapping
     static final Map<String, Chain> handlerListById = new HashMap<>();
-    static final Map<String, PathTemplateMatcher<String>> methodToMatcherMap = new HashMap<>();
+    // the paths of the config. it only holds config values until the chains are resolved, so that it can be built in the native image heap.
+    static final RouteTrie routes = new RouteTrie();
+    static boolean routesInitialized;
     static Chain defaultChain;
     public static void init() {
+        long start = System.nanoTime();
         HandlerConfig config = HandlerConfig.load();
+        ColdStartProfile.phase("handlerConfig", start);
+        start = System.nanoTime();
         initHandlers(config);
+        ColdStartProfile.phase("initHandlers", start);
+        start = System.nanoTime();
         initChains(config);
-        initPaths(config);
+        if (!routesInitialized)
+            initRoutes(config);
+        initPathChains();
+        initRouteContexts();
         initDefaultHandlers(config);
+        ColdStartProfile.phase("initChains", start);
+    }
+
+    /**
+     * Build the routing trie from the paths in the config. The routes don't reference any handler instance,
+     * so the LambdaNativeFeature calls this method during the native image build and init() skips it at runtime.
+     *
+     * @param config HandlerConfig
+     */
+    public static synchronized void initRoutes(HandlerConfig config) {
+        routes.clear();
+        initPaths(config);
+        routesInitialized = true;
     }
 
     /**
      * Construct the named map of handlers. Note: All handlers in use for this
-     * microservice should be listed in this handlers list.
+     * microservice should be listed in this handlers list. The lazy handlers are
+     * registered with a LazyLambdaHandler and constructed on their first use.
      */
     static void initHandlers(HandlerConfig config) {
         if (config != null && config.getHandlers() != null) {
-            // initialize handlers
+            final LambdaAppConfig appConfig = LambdaAppConfig.load();
+            // resolve all the classes first, so that a misconfigured class name fails before any handler is constructed.
+            final List<Tuple<String, Class>> namedClasses = new ArrayList<>(config.getHandlers().size());
             for (var handler : config.getHandlers()) {
                 // handler is a fully qualified class name with a default constructor.
-                initStringDefinedHandler(handler);
+                namedClasses.add(splitClassAndName(handler));
+            }
+            final Set<String> lazyNames = getLazyHandlerNames(config, appConfig, namedClasses);
+            if (appConfig.isParallelHandlerInit()) {
+                initHandlersConcurrently(namedClasses, lazyNames);
+                return;
+            }
+            // initialize handlers
+            for (var namedClass : namedClasses) {
+                handlers.put(namedClass.first, lazyNames.contains(namedClass.first)
+                        ? new LazyLambdaHandler(namedClass.first, namedClass.second, () -> createHandler(namedClass))
+                        : createHandler(namedClass));
+            }
+        }
+    }
+
+    /**
+     * Find the handlers to construct lazily. These are the handlers listed in lazyHandlers and, with inferLazyHandlers,
+     * the handlers that are not in the defaultHandlers chain. A handler that another handler depends on is always eager.
+     */
+    static Set<String> getLazyHandlerNames(HandlerConfig config, LambdaAppConfig appConfig, List<Tuple<String, Class>> namedClasses) {
+        final Set<String> lazyNames = new HashSet<>(appConfig.getLazyHandlers());
+        if (appConfig.isInferLazyHandlers()) {
+            final Set<String> defaultNames = new HashSet<>();
+            if (config.getDefaultHandlers() != null) {
+                for (var exec : config.getDefaultHandlers()) {
+                    final List<String> chain = config.getChains() == null ? null : config.getChains().get(exec);
+                    if (chain == null)
+                        defaultNames.add(exec);
+                    else
+                        defaultNames.addAll(chain);
+                }
             }
+            for (var namedClass : namedClasses) {
+                if (!defaultNames.contains(namedClass.first))
+                    lazyNames.add(namedClass.first);
+            }
+        }
+        for (int i = 0; i < namedClasses.size(); i++) {
+            for (int dependency : getDependencies(i, namedClasses))
+                lazyNames.remove(namedClasses.get(dependency).first);
         }
+        if (!lazyNames.isEmpty())
+            LOG.info("Handlers {} are constructed on their first use", lazyNames);
+        return lazyNames;
+    }
+
+    /**
+     * Construct the handlers on virtual threads. A handler waits for the handlers declared with DependsOn before its
+     * constructor is called. When more than one handler fails, the error of the first failed handler in the handler.yml
+     * order is thrown, so the startup error doesn't depend on the thread scheduling.
+     *
+     * @param definitions the handler definitions in the config.
+     */
+    static void initHandlersConcurrently(List<String> definitions) {
+        final List<Tuple<String, Class>> namedClasses = new ArrayList<>(definitions.size());
+        for (var definition : definitions)
+            namedClasses.add(splitClassAndName(definition));
+        initHandlersConcurrently(namedClasses, Collections.emptySet());
+    }
+
+    private static void initHandlersConcurrently(List<Tuple<String, Class>> namedClasses, Set<String> lazyNames) {
+        final int size = namedClasses.size();
+        final List<List<Integer>> dependencies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            dependencies.add(getDependencies(i, namedClasses));
+        checkCircularDependencies(namedClasses, dependencies);
+
+        final List<CompletableFuture<LambdaHandler>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            futures.add(new CompletableFuture<>());
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < size; i++) {
+                final Tuple<String, Class> namedClass = namedClasses.get(i);
+                final CompletableFuture<LambdaHandler> future = futures.get(i);
+                if (lazyNames.contains(namedClass.first)) {
+                    final LambdaHandler handler = new LazyLambdaHandler(namedClass.first, namedClass.second, () -> createHandler(namedClass));
+                    handlers.put(namedClass.first, handler);
+                    future.complete(handler);
+                    continue;
+                }
+                final CompletableFuture<?>[] waitFor = dependencies.get(i).stream().map(futures::get).toArray(CompletableFuture[]::new);
+                executor.execute(() -> {
+                    try {
+                        CompletableFuture.allOf(waitFor).join();
+                        final LambdaHandler handler = createHandler(namedClass);
+                        handlers.put(namedClass.first, handler);
+                        future.complete(handler);
+                    } catch (CompletionException e) {
+                        // a dependency has failed, report its error.
+                        future.completeExceptionally(e.getCause());
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            }
+        }
+
+        for (var future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re)
+                    throw re;
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Find the indexes of the configured handlers that are instances of the types declared with DependsOn on the
+     * handler class at the index.
+     */
+    private static List<Integer> getDependencies(int index, List<Tuple<String, Class>> namedClasses) {
+        final List<Integer> result = new ArrayList<>();
+        final DependsOn dependsOn = (DependsOn) namedClasses.get(index).second.getAnnotation(DependsOn.class);
+        if (dependsOn != null) {
+            for (var type : dependsOn.value()) {
+                for (int i = 0; i < namedClasses.size(); i++) {
+                    if (i != index && type.isAssignableFrom(namedClasses.get(i).second) && !result.contains(i))
+                        result.add(i);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void checkCircularDependencies(List<Tuple<String, Class>> namedClasses, List<List<Integer>> dependencies) {
+        final boolean[] visited = new boolean[namedClasses.size()];
+        for (int i = 0; i < namedClasses.size(); i++)
+            visitDependencies(i, namedClasses, dependencies, visited, new LinkedHashSet<>());
+    }
+
+    private static void visitDependencies(int index, List<Tuple<String, Class>> namedClasses, List<List<Integer>> dependencies,
+                                          boolean[] visited, Set<Integer> path) {
+        if (!path.add(index)) {
+            final List<String> names = path.stream().map(i -> namedClasses.get(i).first).toList();
+            throw new RuntimeException("Circular handler dependency: " + names + " -> " + namedClasses.get(index).first);
+        }
+        if (!visited[index]) {
+            visited[index] = true;
+            for (int dependency : dependencies.get(index))
+                visitDependencies(dependency, namedClasses, dependencies, visited, path);
+        }
+        path.remove(index);
     }
 
     /**
@@ -59,6 +235,10 @@ public class Handler {
                 var chain = config.getChains().get(chainName);
                 Chain handlerChain = new Chain();
                 for (var chainItemName : chain) {
+                    if (ParallelGroup.isGroup(chainItemName)) {
+                        handlerChain.addChainable(getParallelGroup(chainItemName));
+                        continue;
+                    }
                     var chainItem = handlers.get(chainItemName);
                     if (chainItem == null) {
                         throw new RuntimeException("Unknown handler in chain: " + chainItemName);
@@ -72,7 +252,7 @@ public class Handler {
     }
 
     /**
-     * Build "handlerListById" and "reqTypeMatcherMap" from the paths in the config.
+     * Build the routing trie from the paths in the config.
      */
     static void initPaths(HandlerConfig config) {
 
@@ -91,6 +271,34 @@ public class Handler {
         }
     }
 
+    /**
+     * Resolve the exec list of each path to a chain of the constructed handlers.
+     */
+    static void initPathChains() {
+        for (var route : routes.getRoutes()) {
+            route.setChain(getHandlersFromExecList(route.getExecs()));
+        }
+    }
+
+    /**
+     * Resolve the routing metadata of each path once with the RouteAware handlers, so that they don't match the
+     * request path against their config for every request.
+     */
+    static void initRouteContexts() {
+        final List<RouteAware> resolvers = new ArrayList<>();
+        for (var handler : handlers.values()) {
+            // a lazy handler is not constructed here and matches the request path itself.
+            if (handler instanceof RouteAware resolver)
+                resolvers.add(resolver);
+        }
+        for (var route : routes.getRoutes()) {
+            final RouteContext context = new RouteContext(route);
+            for (var resolver : resolvers)
+                resolver.resolveRoute(context);
+            route.setContext(context);
+        }
+    }
+
     /**
      * Build "defaultHandlers" from the defaultHandlers in the config.
      */
@@ -135,27 +343,12 @@ public class Handler {
     }
 
     /**
-     * Add a PathChain (having a non-null path) to the handler data structures.
+     * Add a PathChain (having a non-null path) to the routing trie. The exec list is flattened out to the handlers later
+     * in initPathChains.
      */
     private static void addPathChain(PathChain pathChain) {
-        var method = pathChain.getMethod();
-        // Use a random integer as the id for a given path.
-        int randInt = new Random().nextInt();
-
-        while (handlerListById.containsKey(Integer.toString(randInt)))
-            randInt = new Random().nextInt();
-
-        // Flatten out the execution list from a mix of middleware chains and handlers.
-        var handlers = getHandlersFromExecList(pathChain.getExec());
-
-        PathTemplateMatcher<String> pathTemplateMatcher = methodToMatcherMap.containsKey(method)
-                ? methodToMatcherMap.get(method)
-                : new PathTemplateMatcher<>();
-        if (pathTemplateMatcher.get(pathChain.getPath()) == null)
-            pathTemplateMatcher.add(pathChain.getPath(), Integer.toString(randInt));
-
-        methodToMatcherMap.put(method, pathTemplateMatcher);
-        handlerListById.put(Integer.toString(randInt), handlers);
+        if (routes.add(pathChain.getMethod(), pathChain.getPath(), pathChain.getExec()) == null)
+            LOG.warn("Ignoring the path {}@{} as an equivalent path is already defined", pathChain.getPath(), pathChain.getMethod());
     }
 
     /**
@@ -173,17 +366,21 @@ public class Handler {
             for (var exec : execs) {
                 var handlerChain = handlerListById.get(exec);
 
-                if (handlerChain == null) {
+                if (handlerChain == null && ParallelGroup.isGroup(exec)) {
+                    var group = getParallelGroup(exec);
+                    if (isEnabledAtInit(group))
+                        handlersFromExecList.addChainable(group);
+                } else if (handlerChain == null) {
                     // not a chain, try to resolve it as a handler
                     LambdaHandler handler = handlers.get(exec);
                     if (handler != null) {
-                        if(handler.isEnabled()) handlersFromExecList.addChainable(handler);
+                        if(isEnabledAtInit(handler)) handlersFromExecList.addChainable(handler);
                     } else {
                         throw new RuntimeException("Unknown handler or chain: " + exec);
                     }
                 } else {
                     for (LambdaHandler handler : handlerChain.getChain()) {
-                        if (handler.isEnabled())
+                        if (isEnabledAtInit(handler))
                             handlersFromExecList.addChainable(handler);
                     }
                 }
@@ -194,22 +391,51 @@ public class Handler {
     }
 
     /**
-     * Helper method for generating the instance of a handler from its string
-     * definition in config. Ie. No mapped values for setters, or list of
-     * constructor fields. To note: It could either implement HttpHandler, or
-     * HandlerProvider.
+     * Resolve the handlers of a parallel group declared with the handler names joined by '|'. Only the handlers that
+     * implement ParallelSafe can be in a group; a lazy handler is checked by its class and is not constructed.
      *
-     * @param handler handler string
+     * @param exec the declaration of the group.
+     * @return the group of the handlers in the declared order.
      */
-    private static void initStringDefinedHandler(String handler) {
+    static ParallelGroup getParallelGroup(String exec) {
+        final List<LambdaHandler> members = new ArrayList<>();
+        for (var name : ParallelGroup.getHandlerNames(exec)) {
+            var handler = handlers.get(name);
+            if (handler == null) {
+                throw new RuntimeException("Unknown handler in parallel group " + exec + ": " + name);
+            }
+            final Class<?> handlerClass = handler instanceof LazyLambdaHandler lazy ? lazy.getHandlerClass() : handler.getClass();
+            if (!ParallelSafe.class.isAssignableFrom(handlerClass)) {
+                throw new RuntimeException("Handler " + name + " in parallel group " + exec + " is not ParallelSafe: " + handlerClass.getName());
+            }
+            members.add(handler);
+        }
+        return new ParallelGroup(exec, members);
+    }
 
-        // split the class name and its label, if defined
-        Tuple<String, Class> namedClass = splitClassAndName(handler);
+    /**
+     * A lazy handler that is not constructed yet is kept in the chain. The ChainExecutor checks isEnabled again when
+     * the chain is executed.
+     */
+    private static boolean isEnabledAtInit(LambdaHandler handler) {
+        if (handler instanceof LazyLambdaHandler lazy && !lazy.isConstructed())
+            return true;
+        return handler.isEnabled();
+    }
 
+    /**
+     * Create an instance of the handler class with its default constructor.
+     *
+     * @param namedClass the name and the class of the handler.
+     * @return LambdaHandler
+     */
+    private static LambdaHandler createHandler(Tuple<String, Class> namedClass) {
         // create an instance of the handler
         Object handlerOrProviderObject = null;
+        final long start = System.nanoTime();
         try {
             handlerOrProviderObject = namedClass.second.getDeclaredConstructor().newInstance();
+            ColdStartProfile.handler(namedClass.first, start);
         } catch (InstantiationException | IllegalAccessException | NoSuchMethodException |
                  InvocationTargetException e) {
             LOG.error("Could not instantiate handler class " + namedClass.second, e);
@@ -223,7 +449,7 @@ public class Handler {
 
         else throw new RuntimeException("Unsupported type of handler provided: " + handlerOrProviderObject);
 
-        handlers.put(namedClass.first, resolvedHandler);
+        return resolvedHandler;
     }
 
 
@@ -259,30 +485,73 @@ public class Handler {
         return handlers;
     }
 
+    /**
+     * Get the handler by its name in handler.yml. A lazy handler is constructed if needed, so the result can be cast to
+     * the handler class.
+     *
+     * @param name the handler name.
+     * @return LambdaHandler or null if there is no handler with the name.
+     */
+    public static LambdaHandler getHandler(String name) {
+        LambdaHandler handler = handlers.get(name);
+        if (handler instanceof LazyLambdaHandler lazy)
+            return lazy.getDelegate();
+        return handler;
+    }
+
     public static Chain getChain(APIGatewayProxyRequestEvent apiGatewayProxyRequestEvent) {
+        var route = getRoute(apiGatewayProxyRequestEvent);
+        return route == null ? null : route.getChain();
+    }
+
+    /**
+     * Route the request once for the whole chain. The path parameters are injected into the request and the returned
+     * context should be attached to the exchange, so that the handlers read the routing metadata from it.
+     *
+     * @param apiGatewayProxyRequestEvent the request.
+     * @return the context of the route or null if no path matches the request.
+     */
+    public static RouteContext getRouteContext(APIGatewayProxyRequestEvent apiGatewayProxyRequestEvent) {
+        var route = getRoute(apiGatewayProxyRequestEvent);
+        return route == null ? null : route.getContext();
+    }
+
+    private static RouteTrie.Route getRoute(APIGatewayProxyRequestEvent apiGatewayProxyRequestEvent) {
         var requestPath = apiGatewayProxyRequestEvent.getPath();
         var requestMethod = apiGatewayProxyRequestEvent.getHttpMethod();
-        // Get the matcher corresponding to the current request type.
-        var pathTemplateMatcher = methodToMatcherMap.get(requestMethod.toLowerCase());
-        if (pathTemplateMatcher != null) {
-            // Match the current request path to the configured paths.
-            var result = pathTemplateMatcher.match(requestPath);
-            if (result != null) {
-                // inject the path and query parameters into the request.
-                for (var entry : result.getParameters().entrySet()) {
-                    // the values shouldn't be added to query param. but this is left as it was to keep backward compatability
-                    apiGatewayProxyRequestEvent.getQueryStringParameters().put(entry.getKey(), entry.getValue());
-                    // put values in path param map
-                    apiGatewayProxyRequestEvent.getPathParameters().put(entry.getKey(), entry.getValue());
-                }
-                var id = result.getValue();
-                return handlerListById.get(id);
+        // Match the current request to the configured paths with the slots for the path parameters.
+        final String[] values = new String[routes.getMaxParameters()];
+        var route = routes.match(requestMethod, requestPath, values);
+        if (route != null) {
+            // inject the path and query parameters into the request.
+            final String[] names = route.getParameterNames();
+            for (int i = 0; i < names.length; i++) {
+                // the values shouldn't be added to query param. but this is left as it was to keep backward compatability
+                apiGatewayProxyRequestEvent.getQueryStringParameters().put(names[i], values[i]);
+                // put values in path param map
+                apiGatewayProxyRequestEvent.getPathParameters().put(names[i], values[i]);
             }
         }
-        return null;
+        return route;
     }
 
     public static Chain getDefaultChain() {
         return defaultChain;
     }
+
+    /**
+     * Compile the enabled handlers of every chain again. It must be called after the config of a handler is reloaded,
+     * as the chains only read the enabled state of the handlers when they are finalized.
+     */
+    public static void refreshChains() {
+        for (var chain : handlerListById.values()) {
+            chain.refresh();
+        }
+        for (var route : routes.getRoutes()) {
+            if (route.getChain() != null)
+                route.getChain().refresh();
+        }
+        if (defaultChain != null)
+            defaultChain.refresh();
+    }
 }
@@ -0,0 +1,124 @@
+package com.networknt.aws.lambda.handler;
+
+import com.networknt.status.Status;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A status that cannot be changed after it is created, so one instance can be returned by all handlers and all
+ * invocations. The JSON body of the status is built once on the first toString() call and reused for every error
+ * response with the same status.
+ *
+ * Use it for the statuses that don't take arguments. A status with arguments has a different description each time
+ * and must still be created with new Status(code, args).
+ *
+ * Every setter throws UnsupportedOperationException, and the metadata is a copy that cannot be changed.
+ *
+ * @author Steve Hu
+ */
+public final class ImmutableStatus extends Status {
+    public static final Status SUCCESS = new ImmutableStatus(200, LambdaHandler.SUCCESS_LAMBDA_HANDLER_RETURN, "OK", "SUCCESS", "SUCCESS");
+    public static final Status DISABLED = new ImmutableStatus(409, LambdaHandler.DISABLED_LAMBDA_HANDLER_RETURN, "Middleware handler is disabled", "CONFLICT", "ERROR");
+
+    private static final Map<String, Status> STATUSES = new ConcurrentHashMap<>();
+    private final boolean frozen;
+    private String body;
+
+    private ImmutableStatus(final int statusCode, final String code, final String message, final String description, final String severity) {
+        this(statusCode, code, message, description, severity, null);
+    }
+
+    private ImmutableStatus(final int statusCode, final String code, final String message, final String description, final String severity,
+                            final Map<String, Object> metadata) {
+        super(statusCode, code, message, description, severity);
+        if (metadata != null)
+            super.setMetadata(Collections.unmodifiableMap(new LinkedHashMap<>(metadata)));
+        this.frozen = true;
+    }
+
+    /**
+     * Get the shared status of a code defined in status.yml. The status is loaded from the config on the first call.
+     *
+     * @param code - the status code without arguments, like ERR10002.
+     * @return - the shared status.
+     */
+    public static Status of(final String code) {
+        return STATUSES.computeIfAbsent(code, ImmutableStatus::load);
+    }
+
+    private static Status load(final String code) {
+        return copyOf(new Status(code));
+    }
+
+    /**
+     * Create an immutable copy of a status. The copy is not shared through of().
+     *
+     * @param status - the status to copy.
+     * @return - the immutable copy.
+     */
+    static Status copyOf(final Status status) {
+        return new ImmutableStatus(status.getStatusCode(), status.getCode(), status.getMessage(), status.getDescription(),
+                status.getSeverity(), status.getMetadata());
+    }
+
+    private void checkFrozen() {
+        // the super constructor may use the setters before the status is frozen.
+        if (this.frozen)
+            throw new UnsupportedOperationException("The status " + this.getCode() + " is shared and cannot be changed");
+    }
+
+    @Override
+    public void setStatusCode(final int statusCode) {
+        this.checkFrozen();
+        super.setStatusCode(statusCode);
+    }
+
+    @Override
+    public void setCode(final String code) {
+        this.checkFrozen();
+        super.setCode(code);
+    }
+
+    @Override
+    public void setSeverity(final String severity) {
+        this.checkFrozen();
+        super.setSeverity(severity);
+    }
+
+    @Override
+    public void setMessage(final String message) {
+        this.checkFrozen();
+        super.setMessage(message);
+    }
+
+    @Override
+    public void setDescription(final String description) {
+        this.checkFrozen();
+        super.setDescription(description);
+    }
+
+    @Override
+    public void setMetadata(final Map<String, Object> metadata) {
+        this.checkFrozen();
+        super.setMetadata(metadata);
+    }
+
+    /**
+     * @return - the metadata that cannot be changed, or null if there is none.
+     */
+    @Override
+    public Map<String, Object> getMetadata() {
+        final Map<String, Object> metadata = super.getMetadata();
+        return metadata == null ? null : Collections.unmodifiableMap(metadata);
+    }
+
+    @Override
+    public String toString() {
+        if (this.body == null)
+            this.body = super.toString();
+        return this.body;
+    }
+}
@@ -18,12 +18,60 @@ public interface LambdaHandler {
      */
     boolean isEnabled();
 
+    /**
+     *
+     * Indicate if this handler can run after the response body has been handed over as a stream. Such a handler
+     * must not read or update the response body. Handlers that only work on the request or the response headers
+     * can return true.
+     *
+     * @return boolean true if streaming is supported
+     */
+    default boolean isStreamingSupported() {
+        return false;
+    }
+
+    /**
+     *
+     * Indicate if this handler can execute several exchanges at the same time. The batch entry point only processes
+     * the records of a chain concurrently when all of its handlers are thread safe. A handler that keeps state between
+     * invocations without synchronizing it, like a counter or a cache of the first request, must return false.
+     *
+     * @return boolean true if the handler is thread safe
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     *
+     * Called before a SnapStart or CRaC checkpoint is taken. A handler that holds network connections or thread pools
+     * must close them here, as they cannot be restored.
+     *
+     */
+    default void beforeCheckpoint() {
+    }
+
+    /**
+     *
+     * Called after the function is restored from a snapshot. A handler must rebuild what it closed in beforeCheckpoint
+     * and refresh any state that must be unique or fresh per restored instance.
+     *
+     */
+    default void afterRestore() {
+    }
+
+    /**
+     * @return the shared status of a disabled handler. It must not be changed.
+     */
     default Status disabledMiddlewareStatus() {
-        return new Status(409, DISABLED_LAMBDA_HANDLER_RETURN, "Middleware handler is disabled", "CONFLICT", "ERROR");
+        return ImmutableStatus.DISABLED;
     }
 
+    /**
+     * @return the shared success status, so the success path of a chain allocates no status. It must not be changed.
+     */
     default Status successMiddlewareStatus() {
-        return new Status(200, SUCCESS_LAMBDA_HANDLER_RETURN, "OK", "SUCCESS", "SUCCESS");
+        return ImmutableStatus.SUCCESS;
     }
 
 }
@@ -0,0 +1,117 @@
+package com.networknt.aws.lambda.handler;
+
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.status.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * A proxy for a handler that is constructed on its first use instead of at cold start. It is registered by Handler for
+ * the handlers listed in lazyHandlers of lambda-app.yml, so the handlers that are only reached from rarely used paths
+ * don't add to the cold start time and memory.
+ *
+ * The handler is constructed once by the first thread that needs it. Code that needs the concrete handler class should
+ * use Handler.getHandler(name) that unwraps the proxy.
+ *
+ * @author Steve Hu
+ */
+public class LazyLambdaHandler implements LambdaHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(LazyLambdaHandler.class);
+
+    private final String name;
+    private final Class<?> handlerClass;
+    private final Supplier<LambdaHandler> factory;
+    private volatile LambdaHandler delegate;
+
+    public LazyLambdaHandler(final String name, final Supplier<LambdaHandler> factory) {
+        this(name, null, factory);
+    }
+
+    /**
+     * @param name         - the name of the handler in handler.yml.
+     * @param handlerClass - the class the factory constructs, so it can be checked without constructing the handler.
+     * @param factory      - constructs the handler on its first use.
+     */
+    public LazyLambdaHandler(final String name, final Class<?> handlerClass, final Supplier<LambdaHandler> factory) {
+        this.name = name;
+        this.handlerClass = handlerClass;
+        this.factory = factory;
+    }
+
+    /**
+     * @return the handler, constructing it if this is the first call.
+     */
+    public LambdaHandler getDelegate() {
+        LambdaHandler handler = this.delegate;
+        if (handler == null) {
+            synchronized (this) {
+                handler = this.delegate;
+                if (handler == null) {
+                    LOG.debug("Constructing lazy handler {} on first use", this.name);
+                    handler = this.factory.get();
+                    this.delegate = handler;
+                }
+            }
+        }
+        return handler;
+    }
+
+    public boolean isConstructed() {
+        return this.delegate != null;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return - the class of the handler, constructing it if the class was not given.
+     */
+    public Class<?> getHandlerClass() {
+        return this.handlerClass != null ? this.handlerClass : this.getDelegate().getClass();
+    }
+
+    @Override
+    public Status execute(final LightLambdaExchange exchange) {
+        return this.getDelegate().execute(exchange);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.getDelegate().isEnabled();
+    }
+
+    /**
+     * A handler that is not constructed yet is not constructed to find out, so the response of the invocation that
+     * reaches it first is buffered.
+     */
+    @Override
+    public boolean isStreamingSupported() {
+        return this.isConstructed() && this.delegate.isStreamingSupported();
+    }
+
+    /**
+     * A handler that is not constructed yet is not known to be thread safe, and it is not constructed to find out.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return this.isConstructed() && this.delegate.isThreadSafe();
+    }
+
+    /**
+     * A handler that is not constructed yet has nothing to close, so it is not constructed for the checkpoint.
+     */
+    @Override
+    public void beforeCheckpoint() {
+        if (this.isConstructed())
+            this.delegate.beforeCheckpoint();
+    }
+
+    @Override
+    public void afterRestore() {
+        if (this.isConstructed())
+            this.delegate.afterRestore();
+    }
+}
@@ -0,0 +1,13 @@
+package com.networknt.aws.lambda.handler;
+
+/**
+ * Implemented by a handler that can run in a parallel group of handler.yml. The handler may change the request headers
+ * through exchange.getRequestHeaders(), set the initial response, add listeners, deferred tasks and its own attachments;
+ * the exchange keeps these changes per handler and applies them after the group. It must not change the request event
+ * directly, the request or response body, or the logging context of its thread. Handler.init rejects a group with a
+ * handler that doesn't implement it, and the exchange rejects the body changes while the group runs.
+ *
+ * @author Steve Hu
+ */
+public interface ParallelSafe {
+}
@@ -0,0 +1,189 @@
+package com.networknt.aws.lambda.handler;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The path prefixes of a handler config compiled into a character trie. A request path is checked by walking its
+ * characters once, so the cost depends on the length of the path and not on the number of prefixes, and the longest
+ * prefix that the path starts with is found whatever the order of the prefixes in the config.
+ *
+ * The trie is built when the config is loaded and is only read afterward. If the same prefix is configured more than
+ * once, the first value is kept.
+ *
+ * @param <T> the rule of a prefix.
+ * @author Steve Hu
+ */
+public final class PathPrefixTrie<T> {
+    private static final char[] NO_CHARS = new char[0];
+    private final Node<T> root = new Node<>();
+    private int size;
+
+    private static final class Node<T> {
+        // the children are kept in small arrays as most nodes have a single child.
+        private char[] chars = NO_CHARS;
+        private Node<T>[] children;
+        private T value;
+        private boolean terminal;
+
+        private Node<T> child(final char c) {
+            for (int i = 0; i < this.chars.length; i++) {
+                if (this.chars[i] == c)
+                    return this.children[i];
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<T> addChild(final char c) {
+            final int length = this.chars.length;
+            this.chars = Arrays.copyOf(this.chars, length + 1);
+            this.children = length == 0 ? new Node[1] : Arrays.copyOf(this.children, length + 1);
+            this.chars[length] = c;
+            return this.children[length] = new Node<>();
+        }
+    }
+
+    /**
+     * @param prefixes - the prefixes of a config. It can be null.
+     * @return - the trie with each prefix as its own value.
+     */
+    public static PathPrefixTrie<String> of(final Collection<String> prefixes) {
+        return of(prefixes, Function.identity());
+    }
+
+    /**
+     * @param rules  - the rules of a config. It can be null.
+     * @param prefix - the function that returns the path prefix of a rule.
+     * @param <T>    - the rule type.
+     * @return - the trie of the rules.
+     */
+    public static <T> PathPrefixTrie<T> of(final Collection<T> rules, final Function<T, String> prefix) {
+        final PathPrefixTrie<T> trie = new PathPrefixTrie<>();
+        if (rules != null) {
+            for (T rule : rules)
+                trie.put(prefix.apply(rule), rule);
+        }
+        return trie;
+    }
+
+    /**
+     * @param rules - the rules of a config keyed by the path prefix. It can be null.
+     * @param <T>   - the rule type.
+     * @return - the trie of the rules.
+     */
+    public static <T> PathPrefixTrie<T> of(final Map<String, T> rules) {
+        final PathPrefixTrie<T> trie = new PathPrefixTrie<>();
+        if (rules != null) {
+            for (Map.Entry<String, T> entry : rules.entrySet())
+                trie.put(entry.getKey(), entry.getValue());
+        }
+        return trie;
+    }
+
+    /**
+     * Add a prefix. A null prefix is ignored and a prefix that is already added keeps its first value.
+     *
+     * @param prefix - the path prefix.
+     * @param value  - the rule of the prefix.
+     */
+    public void put(final String prefix, final T value) {
+        if (prefix == null)
+            return;
+        Node<T> node = this.root;
+        for (int i = 0; i < prefix.length(); i++) {
+            final char c = prefix.charAt(i);
+            final Node<T> child = node.child(c);
+            node = child == null ? node.addChild(c) : child;
+        }
+        if (!node.terminal) {
+            node.terminal = true;
+            node.value = value;
+            this.size++;
+        }
+    }
+
+    /**
+     * @param path - the request path. It can be null.
+     * @return - the value of the longest prefix of the path or null if no prefix matches.
+     */
+    public T match(final String path) {
+        if (this.size == 0 || path == null)
+            return null;
+        Node<T> node = this.root;
+        T value = node.terminal ? node.value : null;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.child(path.charAt(i));
+            if (node == null)
+                break;
+            if (node.terminal)
+                value = node.value;
+        }
+        return value;
+    }
+
+    /**
+     * Pass the value of every prefix of the path to the action, from the shortest prefix to the longest, for the rules
+     * that are applied on top of each other.
+     *
+     * @param path   - the request path. It can be null.
+     * @param action - the action called with the value of each matching prefix.
+     */
+    public void forEachMatch(final String path, final Consumer<T> action) {
+        if (this.size == 0 || path == null)
+            return;
+        Node<T> node = this.root;
+        if (node.terminal)
+            action.accept(node.value);
+        for (int i = 0; i < path.length(); i++) {
+            node = node.child(path.charAt(i));
+            if (node == null)
+                return;
+            if (node.terminal)
+                action.accept(node.value);
+        }
+    }
+
+    /**
+     * @param path - the request path. It can be null.
+     * @return - true if the path starts with any of the prefixes.
+     */
+    public boolean matches(final String path) {
+        if (this.size == 0 || path == null)
+            return false;
+        Node<T> node = this.root;
+        if (node.terminal)
+            return true;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.child(path.charAt(i));
+            if (node == null)
+                return false;
+            if (node.terminal)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param start - the start of a path.
+     * @return - true if a prefix starts with the given string and is longer than it.
+     */
+    public boolean hasLongerPrefix(final String start) {
+        Node<T> node = this.root;
+        for (int i = 0; i < start.length() && node != null; i++)
+            node = node.child(start.charAt(i));
+        // a node without a terminal below it is never created, so any child means a longer prefix.
+        return node != null && node.chars.length > 0;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+}
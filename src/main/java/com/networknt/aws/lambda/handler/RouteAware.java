@@ -0,0 +1,20 @@
+package com.networknt.aws.lambda.handler;
+
+/**
+ * Implemented by a handler that matches the request path against its own config. Handler.init calls it once for each
+ * route of handler.yml, so the handler can store the result of its matching in the RouteContext of the route and read
+ * it for every request of the route instead of matching the path again.
+ *
+ * A lazy handler that is not constructed at startup is not called and always matches the path itself.
+ *
+ * @author Steve Hu
+ */
+public interface RouteAware {
+    /**
+     * Resolve the config of the handler for the route. Nothing should be set when the result depends on the values of
+     * the path parameters; the handler then matches the request path as before.
+     *
+     * @param context - the context of a route.
+     */
+    void resolveRoute(RouteContext context);
+}
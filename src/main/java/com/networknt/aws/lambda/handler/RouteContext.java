@@ -0,0 +1,275 @@
+package com.networknt.aws.lambda.handler;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.limit.LimitQuota;
+import com.networknt.openapi.OpenApiOperation;
+import com.networknt.security.UnifiedPathPrefixAuth;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The routing metadata of an endpoint in handler.yml. It is resolved once in Handler.init for each route with the
+ * RouteAware handlers and shared by all the requests of the route, so the handlers don't match the request path again
+ * against their own config.
+ *
+ * Each value is only set when it is the same for every request path of the route. A value that depends on the values
+ * of the path parameters, or that is not resolved because the handler is lazy, is null and the handler matches the
+ * request path as before. A value set by a handler is returned only to the same handler instance, so two instances of
+ * a handler class with different configs don't read each other's value.
+ *
+ * The context is attached to the exchange only when the request path is in the canonical form of the template, without
+ * empty segments or a trailing slash, and it is ignored once a handler has changed the request path.
+ *
+ * @author Steve Hu
+ */
+public final class RouteContext {
+    public static final LightLambdaExchange.Attachable<RouteContext> ROUTE_CONTEXT_ATTACHMENT_KEY = LightLambdaExchange.Attachable.createAttachable(RouteContext.class);
+    private static final LightLambdaExchange.Attachable<String> ROUTED_PATH_ATTACHMENT_KEY = LightLambdaExchange.Attachable.createAttachable(String.class);
+
+    // results of compareTemplates.
+    public static final int DISJOINT = 0;
+    public static final int SAME = 1;
+    public static final int OVERLAP = 2;
+
+    private final RouteTrie.Route route;
+    private final String template;
+    private final String head;
+
+    private OpenApiOperation openApiOperation;
+    private String[] openApiParameterNames;
+    private Object functionOwner;
+    private String functionName;
+    private Object limitOwner;
+    private String limitPrefix;
+    private LimitQuota limitQuota;
+    private Object securityOwner;
+    private boolean anonymous;
+    private UnifiedPathPrefixAuth pathPrefixAuth;
+
+    RouteContext(final RouteTrie.Route route) {
+        this.route = route;
+        this.template = canonical(route.getTemplate());
+        final int param = this.template.indexOf('{');
+        this.head = param < 0 ? this.template : this.template.substring(0, param);
+    }
+
+    /**
+     * Attach the context to the exchange of the request that was routed with it. It must be called after the initial
+     * request is set.
+     *
+     * @param exchange - the exchange of the request.
+     */
+    public void attach(final LightLambdaExchange exchange) {
+        final String path = exchange.getRequest().getPath();
+        if (isCanonical(path)) {
+            exchange.addAttachment(ROUTE_CONTEXT_ATTACHMENT_KEY, this);
+            exchange.addAttachment(ROUTED_PATH_ATTACHMENT_KEY, path);
+        }
+    }
+
+    /**
+     * @param exchange - the exchange.
+     * @return - the context of the route of the request or null if the request path cannot use it.
+     */
+    public static RouteContext of(final LightLambdaExchange exchange) {
+        final RouteContext context = exchange.getAttachment(ROUTE_CONTEXT_ATTACHMENT_KEY);
+        if (context == null)
+            return null;
+        // a handler like the request transformer may have changed the path after the request was routed.
+        final APIGatewayProxyRequestEvent request = exchange.getRequest();
+        return request.getPath().equals(exchange.getAttachment(ROUTED_PATH_ATTACHMENT_KEY)) ? context : null;
+    }
+
+    public RouteTrie.Route getRoute() {
+        return route;
+    }
+
+    public Chain getChain() {
+        return route.getChain();
+    }
+
+    public String getMethod() {
+        return route.getMethod();
+    }
+
+    /**
+     * @return - the template of the route without empty segments or a trailing slash.
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Compare the template of the route with a path template of a handler config.
+     *
+     * @param other      - a path template.
+     * @param ignoreCase - true if the literal segments are compared ignoring the case.
+     * @return - SAME if both match the same paths, DISJOINT if no path matches both and OVERLAP otherwise.
+     */
+    public int compareTemplate(final String other, final boolean ignoreCase) {
+        return compareTemplates(this.template, other, ignoreCase);
+    }
+
+    /**
+     * Compare two path templates. A template that is not in the canonical form or that has a segment the RouteTrie
+     * doesn't support, like a wildcard, is reported as OVERLAP so that the caller doesn't resolve anything with it.
+     *
+     * @param template   - a path template in the canonical form.
+     * @param other      - a path template.
+     * @param ignoreCase - true if the literal segments are compared ignoring the case.
+     * @return - SAME, DISJOINT or OVERLAP.
+     */
+    public static int compareTemplates(final String template, final String other, final boolean ignoreCase) {
+        if (!isCanonical(other) || other.indexOf('*') >= 0)
+            return OVERLAP;
+        final String[] segments = segments(template);
+        final String[] others = segments(other);
+        if (segments.length != others.length)
+            return DISJOINT;
+        int result = SAME;
+        for (int i = 0; i < segments.length; i++) {
+            final boolean param = isParameter(segments[i]);
+            final boolean otherParam = isParameter(others[i]);
+            if (!otherParam && others[i].indexOf('{') >= 0)
+                return OVERLAP;
+            if (param != otherParam)
+                result = OVERLAP;
+            else if (!param && !(ignoreCase ? segments[i].equalsIgnoreCase(others[i]) : segments[i].equals(others[i])))
+                return DISJOINT;
+        }
+        return result;
+    }
+
+    /**
+     * @param prefixes - the path prefixes of a handler config.
+     * @return - true if the longest prefix is the same for every request path of the route, false if it depends on
+     * the values of the path parameters.
+     */
+    public boolean isResolved(final PathPrefixTrie<?> prefixes) {
+        return this.head.length() == this.template.length() || !prefixes.hasLongerPrefix(this.head);
+    }
+
+    /**
+     * Find the longest prefix that the request paths of the route start with. It must only be used if the prefixes
+     * are resolved for the route.
+     *
+     * @param prefixes - the path prefixes of a handler config.
+     * @param <T>      - the rule type.
+     * @return - the rule of the longest prefix or null if no prefix matches.
+     */
+    public <T> T longestPrefix(final PathPrefixTrie<T> prefixes) {
+        return prefixes.match(this.head);
+    }
+
+    /**
+     * @return - the operation of the OpenAPI specification or null if it is not resolved.
+     */
+    public OpenApiOperation getOpenApiOperation() {
+        return openApiOperation;
+    }
+
+    /**
+     * @return - the names of the path parameters in the specification in the order of the route parameters.
+     */
+    public String[] getOpenApiParameterNames() {
+        return openApiParameterNames;
+    }
+
+    public void setOpenApiOperation(final OpenApiOperation openApiOperation, final String[] openApiParameterNames) {
+        this.openApiOperation = openApiOperation;
+        this.openApiParameterNames = openApiParameterNames;
+    }
+
+    /**
+     * @param owner - the handler that resolved the function.
+     * @return - the name of the backend Lambda function or null if it is not resolved by the handler.
+     */
+    public String getFunctionName(final Object owner) {
+        return owner == this.functionOwner ? this.functionName : null;
+    }
+
+    public void setFunctionName(final Object owner, final String functionName) {
+        this.functionOwner = owner;
+        this.functionName = functionName;
+    }
+
+    /**
+     * @param owner - the handler that resolved the quota.
+     * @return - the server prefix of the rate limit or null if it is not resolved by the handler.
+     */
+    public String getLimitPrefix(final Object owner) {
+        return owner == this.limitOwner ? this.limitPrefix : null;
+    }
+
+    /**
+     * @param owner - the handler that resolved the quota.
+     * @return - the rate limit quota of the server prefix or null if it is not resolved by the handler.
+     */
+    public LimitQuota getLimitQuota(final Object owner) {
+        return owner == this.limitOwner ? this.limitQuota : null;
+    }
+
+    public void setLimitQuota(final Object owner, final String limitPrefix, final LimitQuota limitQuota) {
+        this.limitOwner = owner;
+        this.limitPrefix = limitPrefix;
+        this.limitQuota = limitQuota;
+    }
+
+    /**
+     * @param owner - the handler that resolved the security rule.
+     * @return - true if the route matches an anonymous prefix of the handler.
+     */
+    public boolean isAnonymous(final Object owner) {
+        return owner == this.securityOwner && this.anonymous;
+    }
+
+    /**
+     * @param owner - the handler that resolved the security rule.
+     * @return - the path prefix rule of the route or null if it is not resolved by the handler.
+     */
+    public UnifiedPathPrefixAuth getPathPrefixAuth(final Object owner) {
+        return owner == this.securityOwner ? this.pathPrefixAuth : null;
+    }
+
+    public void setSecurityRule(final Object owner, final boolean anonymous, final UnifiedPathPrefixAuth pathPrefixAuth) {
+        this.securityOwner = owner;
+        this.anonymous = anonymous;
+        this.pathPrefixAuth = pathPrefixAuth;
+    }
+
+    /**
+     * @param path - a request path.
+     * @return - true if the path starts with a slash and has no empty segment or trailing slash.
+     */
+    static boolean isCanonical(final String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/')
+            return false;
+        return path.length() == 1 || (path.indexOf("//") < 0 && path.charAt(path.length() - 1) != '/');
+    }
+
+    private static String canonical(final String template) {
+        final String[] segments = segments(template);
+        return segments.length == 0 ? "/" : "/" + String.join("/", segments);
+    }
+
+    private static String[] segments(final String path) {
+        final List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty())
+                segments.add(segment);
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    private static boolean isParameter(final String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    @Override
+    public String toString() {
+        return route.toString();
+    }
+}
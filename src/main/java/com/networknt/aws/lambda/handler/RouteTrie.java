@@ -0,0 +1,198 @@
+package com.networknt.aws.lambda.handler;
+
+import com.networknt.aws.lambda.handler.chain.Chain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The paths of handler.yml compiled into a trie of path segments for each method. A request is routed by walking
+ * its path segments once, so the cost depends on the length of the path and not on the number of endpoints, and the
+ * route found holds its chain directly.
+ *
+ * A segment of a template in the form {name} matches any segment of the request and its value is returned in the slot
+ * of the parameter. A literal segment is tried before a parameter at the same position, so /v1/pets/count wins over
+ * /v1/pets/{petId} for the path /v1/pets/count. Empty segments are ignored, so a trailing slash makes no difference.
+ *
+ * The trie is built once at startup, or during the native image build, and is only read afterward.
+ *
+ * @author Steve Hu
+ */
+public final class RouteTrie {
+    private static final String[] NO_PARAMETERS = new String[0];
+    private final Map<String, Node> methods = new HashMap<>();
+    private final List<Route> routes = new ArrayList<>();
+    private int maxParameters;
+
+    /**
+     * An endpoint of handler.yml. The exec list is kept from the config so that the trie doesn't reference any handler
+     * instance until the chain is resolved at runtime.
+     */
+    public static final class Route {
+        private final String method;
+        private final String template;
+        private final String[] parameterNames;
+        private final List<String> execs;
+        private Chain chain;
+        private RouteContext context;
+
+        private Route(final String method, final String template, final String[] parameterNames, final List<String> execs) {
+            this.method = method;
+            this.template = template;
+            this.parameterNames = parameterNames;
+            this.execs = execs;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        /**
+         * @return the names of the path parameters in the order of their slots. The array must not be modified.
+         */
+        public String[] getParameterNames() {
+            return parameterNames;
+        }
+
+        public List<String> getExecs() {
+            return execs;
+        }
+
+        public Chain getChain() {
+            return chain;
+        }
+
+        void setChain(final Chain chain) {
+            this.chain = chain;
+        }
+
+        /**
+         * @return the routing metadata resolved for the route in Handler.init.
+         */
+        public RouteContext getContext() {
+            return context;
+        }
+
+        void setContext(final RouteContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + template;
+        }
+    }
+
+    private static final class Node {
+        private Map<String, Node> literals;
+        private Node parameter;
+        private Route route;
+    }
+
+    /**
+     * Add an endpoint. If the same method and template shape is already added, the first one is kept.
+     *
+     * @param method   - the method in handler.yml.
+     * @param template - the path template like /v1/pets/{petId}.
+     * @param execs    - the exec list of the path.
+     * @return - the route of the endpoint or null if an equivalent route was already added.
+     */
+    public Route add(final String method, final String template, final List<String> execs) {
+        final String key = method.toLowerCase(Locale.ROOT);
+        Node node = this.methods.computeIfAbsent(key, k -> new Node());
+        final List<String> names = new ArrayList<>();
+        for (String segment : template.split("/")) {
+            if (segment.isEmpty())
+                continue;
+            if (segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}') {
+                names.add(segment.substring(1, segment.length() - 1));
+                if (node.parameter == null)
+                    node.parameter = new Node();
+                node = node.parameter;
+            } else {
+                if (node.literals == null)
+                    node.literals = new HashMap<>();
+                node = node.literals.computeIfAbsent(segment, k -> new Node());
+            }
+        }
+        if (node.route != null)
+            return null;
+        node.route = new Route(key, template, names.isEmpty() ? NO_PARAMETERS : names.toArray(new String[0]), execs);
+        this.routes.add(node.route);
+        this.maxParameters = Math.max(this.maxParameters, names.size());
+        return node.route;
+    }
+
+    /**
+     * Find the route of a request.
+     *
+     * @param method - the request method in any case.
+     * @param path   - the request path.
+     * @param values - the slots for the values of the path parameters, at least getMaxParameters() long. The first
+     *               route.getParameterNames().length slots are set when a route is found.
+     * @return - the route or null if no route matches.
+     */
+    public Route match(final String method, final String path, final String[] values) {
+        Node root = this.methods.get(method);
+        if (root == null)
+            root = this.methods.get(method.toLowerCase(Locale.ROOT));
+        return root == null ? null : find(root, path, 0, values, 0);
+    }
+
+    private static Route find(final Node node, final String path, final int from, final String[] values, final int slot) {
+        int begin = from;
+        while (begin < path.length() && path.charAt(begin) == '/')
+            begin++;
+        if (begin == path.length())
+            return node.route;
+        int end = path.indexOf('/', begin);
+        if (end < 0)
+            end = path.length();
+
+        if (node.literals != null) {
+            final Node child = node.literals.get(path.substring(begin, end));
+            if (child != null) {
+                final Route route = find(child, path, end, values, slot);
+                if (route != null)
+                    return route;
+            }
+        }
+        if (node.parameter != null) {
+            final Route route = find(node.parameter, path, end, values, slot + 1);
+            if (route != null) {
+                // the value is only set on the way back from a match, so a dead end leaves no stale value.
+                values[slot] = path.substring(begin, end);
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return - the largest number of path parameters of a route, the size of the slots for match.
+     */
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    /**
+     * @return - all routes in the order they were added.
+     */
+    public List<Route> getRoutes() {
+        return Collections.unmodifiableList(routes);
+    }
+
+    public void clear() {
+        this.methods.clear();
+        this.routes.clear();
+        this.maxParameters = 0;
+    }
+}
@@ -1,15 +1,21 @@
 package com.networknt.aws.lambda.handler.chain;
 
 import com.networknt.aws.lambda.handler.LambdaHandler;
+import com.networknt.aws.lambda.handler.LazyLambdaHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
 public class Chain {
     private static final Logger LOG = LoggerFactory.getLogger(Chain.class);
+    private static final LambdaHandler[] NO_HANDLERS = new LambdaHandler[0];
     private final LinkedList<LambdaHandler> chainedHandlers = new LinkedList<>();
+    // the enabled handlers compiled when the chain is finalized. It is the only list read for each request.
+    private volatile LambdaHandler[] enabledHandlers = NO_HANDLERS;
     private boolean isFinalized;
     public Chain() {
         this.isFinalized = false;
@@ -29,12 +35,114 @@ public class Chain {
 
     public void setFinalized(boolean finalized) {
         this.isFinalized = finalized;
+        if (finalized)
+            this.refresh();
+    }
+
+    /**
+     * Compile the enabled handlers of the chain into the array that the ChainExecutor runs. The enabled state of the
+     * handlers is only read here, so this must be called again after the config of a handler is reloaded.
+     *
+     * A lazy handler that is not constructed yet is kept, as reading its enabled state would construct it. The
+     * ChainExecutor checks it when it is reached. A parallel group with a single enabled handler is replaced by it.
+     */
+    public void refresh() {
+        final List<LambdaHandler> enabled = new ArrayList<>(this.chainedHandlers.size());
+        for (var handler : this.chainedHandlers) {
+            if (handler instanceof ParallelGroup group) {
+                group.refresh();
+                final LambdaHandler[] members = group.getEnabledHandlers();
+                if (members.length > 1)
+                    enabled.add(group);
+                else if (members.length == 1)
+                    enabled.add(members[0]);
+                else
+                    LOG.debug("Removing disabled parallel group from the chain: {}", group.getName());
+            } else if (isUnresolved(handler) || handler.isEnabled())
+                enabled.add(handler);
+            else
+                LOG.debug("Removing disabled handler from the chain: {}", handler.getClass().getName());
+        }
+        this.enabledHandlers = enabled.toArray(NO_HANDLERS);
+    }
+
+    /**
+     * @return - the enabled handlers in the order of the chain. The array is shared and must not be changed.
+     */
+    public LambdaHandler[] getEnabledHandlers() {
+        return this.enabledHandlers;
+    }
+
+    /**
+     * @param handler - a handler of the chain.
+     * @return - true if the handler is lazy and its enabled state is not known before it is constructed.
+     */
+    static boolean isUnresolved(final LambdaHandler handler) {
+        return handler instanceof LazyLambdaHandler lazy && !lazy.isConstructed();
+    }
+
+    /**
+     * @param handler - an enabled handler of the chain.
+     * @return - true if the handler is lazy and turns out to be disabled once it is constructed.
+     */
+    static boolean isSkipped(final LambdaHandler handler) {
+        return handler instanceof LazyLambdaHandler && !handler.isEnabled();
     }
 
     public int getChainSize() {
         return this.chainedHandlers.size();
     }
 
+    /**
+     * Checks if all enabled handlers after the producer in this chain support a streamed response body. A lazy handler
+     * after the producer that is not constructed yet is not constructed by the check and doesn't support streaming.
+     *
+     * @param producer - the handler that produces the response.
+     * @return - returns false if the producer is not in the chain or any handler after it doesn't support streaming.
+     */
+    public boolean isStreamingSupportedAfter(LambdaHandler producer) {
+        boolean after = false;
+        for (var handler : this.enabledHandlers) {
+            if (after && (isUnresolved(handler) || !isSkipped(handler) && !handler.isStreamingSupported()))
+                return false;
+
+            if (isProducer(handler, producer))
+                after = true;
+        }
+        return after;
+    }
+
+    /**
+     * @return - true if all enabled handlers of the chain can execute several exchanges at the same time.
+     */
+    public boolean isThreadSafe() {
+        for (var handler : this.enabledHandlers) {
+            if (!handler.isThreadSafe())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param handler  - an enabled handler of the chain.
+     * @param producer - the handler that produces the response.
+     * @return - true if the handler is the producer or a lazy handler or a parallel group that runs it.
+     */
+    private static boolean isProducer(final LambdaHandler handler, final LambdaHandler producer) {
+        if (handler == producer)
+            return true;
+        // the producer is running, so a lazy handler that is not constructed yet cannot be it.
+        if (handler instanceof LazyLambdaHandler lazy)
+            return lazy.isConstructed() && lazy.getDelegate() == producer;
+        if (handler instanceof ParallelGroup group) {
+            for (var member : group.getEnabledHandlers()) {
+                if (isProducer(member, producer))
+                    return true;
+            }
+        }
+        return false;
+    }
+
 
     /**
      * Add to chain from class parameter
@@ -47,6 +155,8 @@ public class Chain {
             var newClazz = middleware.getConstructor()
                     .newInstance();
             this.chainedHandlers.add(newClazz);
+            if (this.isFinalized)
+                this.refresh();
             int linkNumber = this.chainedHandlers.size();
             LOG.debug("Created new middleware instance: {}[{}]", middleware.getName(), linkNumber);
 
@@ -58,6 +168,9 @@ public class Chain {
         return this;
     }
 
+    /**
+     * @return - all the handlers added to the chain, including the disabled ones.
+     */
     public LinkedList<LambdaHandler> getChain() {
         return chainedHandlers;
     }
@@ -1,17 +1,20 @@
 package com.networknt.aws.lambda.handler.chain;
 
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
+import com.networknt.aws.lambda.handler.LambdaHandler;
 import com.networknt.status.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ChainExecutor {
     private static final Logger LOG = LoggerFactory.getLogger(ChainExecutor.class);
-    private final LinkedList<Status> chainResults = new LinkedList<>();
-    private static final String MIDDLEWARE_UNHANDLED_EXCEPTION = "ERR14004";
+    // only the failures are kept as they are all that is needed to build the error response.
+    private final List<Status> chainResults = new ArrayList<>();
+    static final String MIDDLEWARE_UNHANDLED_EXCEPTION = "ERR14004";
 
     public void executeChain(final LightLambdaExchange exchange, final Chain chain) {
 
@@ -20,8 +23,11 @@ public class ChainExecutor {
             return;
         }
 
-        for (var handler : chain.getChain()) {
-            if (!handler.isEnabled()) {
+        // the disabled handlers are removed when the chain is finalized.
+        final LambdaHandler[] handlers = chain.getEnabledHandlers();
+        for (int i = 0; i < handlers.length; i++) {
+            final LambdaHandler handler = handlers[i];
+            if (Chain.isSkipped(handler)) {
                 LOG.debug("Skipping disabled handler: {}", handler.getClass().getName());
                 continue;
             }
@@ -32,7 +38,7 @@ public class ChainExecutor {
                 addChainableResult(status);
             } catch (Exception e) {
                 LOG.error("Exception in handler: {}", handler.getClass().getName(), e);
-                addChainableResult(new Status(MIDDLEWARE_UNHANDLED_EXCEPTION));
+                addChainableResult(ImmutableStatus.of(MIDDLEWARE_UNHANDLED_EXCEPTION));
             }
             if (exchange.hasFailedState()) {
                 break;
@@ -40,12 +46,28 @@ public class ChainExecutor {
         }
     }
 
+    /**
+     * Keep the result if it is a failure. The success results are dropped, so a successful chain adds nothing.
+     *
+     * @param result - the status returned by a handler.
+     */
     protected void addChainableResult(Status result) {
-        this.chainResults.add(result);
+        if (result != null && result.getCode().startsWith("ERR"))
+            this.chainResults.add(result);
     }
 
+    /**
+     * @return - the failures of the chain in the order of the handlers, empty if the chain succeeded.
+     */
     public List<Status> getChainResults() {
         return chainResults;
     }
 
+    /**
+     * Clear the results so that the executor can be reused by a recycled exchange.
+     */
+    public void reset() {
+        this.chainResults.clear();
+    }
+
 }
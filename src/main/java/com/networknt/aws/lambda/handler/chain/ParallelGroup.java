@@ -0,0 +1,204 @@
+package com.networknt.aws.lambda.handler.chain;
+
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
+import com.networknt.aws.lambda.handler.LambdaHandler;
+import com.networknt.status.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Handlers of a chain that don't depend on each other and are executed at the same time. A group is declared in a
+ * chain or in the exec list of a path in handler.yml by joining the handler names with '|', for example
+ * "limit|jwt". The handlers run on virtual threads and the group waits for all of them, so a group that calls
+ * several remote services takes as long as the slowest call instead of the sum of them.
+ *
+ * The first failure in the declared order of the handlers is returned, whichever handler finishes first, so the error
+ * response doesn't depend on the thread scheduling. All the handlers of the group run even if one of them fails.
+ *
+ * Handler.init only accepts the handlers that implement ParallelSafe in a group. While the group runs, the exchange
+ * keeps the request header changes, the response, the listeners and the deferred tasks of each handler apart. They are
+ * applied after the join in the declared order, up to the handler of the first failure, so the exchange ends up as if
+ * the handlers had run one after the other in the chain.
+ *
+ * @author Steve Hu
+ */
+public final class ParallelGroup implements LambdaHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelGroup.class);
+    public static final String SEPARATOR = "|";
+    private static final LambdaHandler[] NO_HANDLERS = new LambdaHandler[0];
+
+    private final String name;
+    private final List<LambdaHandler> handlers;
+    // the enabled handlers compiled by refresh.
+    private volatile LambdaHandler[] enabledHandlers = NO_HANDLERS;
+
+    /**
+     * @param name     - the declaration of the group in handler.yml.
+     * @param handlers - the handlers of the group in the declared order.
+     */
+    public ParallelGroup(final String name, final List<LambdaHandler> handlers) {
+        this.name = name;
+        this.handlers = List.copyOf(handlers);
+        this.refresh();
+    }
+
+    /**
+     * @param exec - an item of a chain or of the exec list of a path.
+     * @return - true if the item declares a parallel group.
+     */
+    public static boolean isGroup(final String exec) {
+        return exec.contains(SEPARATOR);
+    }
+
+    /**
+     * @param exec - the declaration of a group.
+     * @return - the names of the handlers of the group.
+     */
+    public static List<String> getHandlerNames(final String exec) {
+        final List<String> names = new ArrayList<>();
+        for (String name : exec.split("\\|")) {
+            if (!name.isBlank())
+                names.add(name.trim());
+        }
+        return names;
+    }
+
+    /**
+     * Compile the enabled handlers of the group, like Chain.refresh does for the chain.
+     */
+    void refresh() {
+        final List<LambdaHandler> enabled = new ArrayList<>(this.handlers.size());
+        for (var handler : this.handlers) {
+            if (Chain.isUnresolved(handler) || handler.isEnabled())
+                enabled.add(handler);
+        }
+        this.enabledHandlers = enabled.toArray(NO_HANDLERS);
+    }
+
+    /**
+     * @return - the enabled handlers of the group. The array is shared and must not be changed.
+     */
+    public LambdaHandler[] getEnabledHandlers() {
+        return this.enabledHandlers;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Status execute(final LightLambdaExchange exchange) {
+        final LambdaHandler[] handlers = this.enabledHandlers;
+        if (LOG.isTraceEnabled()) LOG.trace("ParallelGroup {} starts with {} handlers.", this.name, handlers.length);
+        exchange.prepareParallelAccess(handlers.length);
+        // the virtual threads don't inherit the logging context like the correlation id.
+        final Map<String, String> mdc = MDC.getCopyOfContextMap();
+        final List<Future<Status>> futures = new ArrayList<>(handlers.length);
+        final Status[] results = new Status[handlers.length];
+        int applied = 0;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 1; i < handlers.length; i++) {
+                final LambdaHandler handler = handlers[i];
+                final int member = i;
+                futures.add(executor.submit(() -> {
+                    if (mdc != null)
+                        MDC.setContextMap(mdc);
+                    return executeMember(handler, exchange, member);
+                }));
+            }
+            // the first handler runs on the calling thread.
+            if (handlers.length > 0)
+                results[0] = executeMember(handlers[0], exchange, 0);
+            for (int i = 1; i < handlers.length; i++)
+                results[i] = join(futures.get(i - 1), handlers[i]);
+            final int failure = firstFailure(results);
+            applied = failure < 0 ? handlers.length : failure + 1;
+        } finally {
+            exchange.endParallelAccess(applied);
+        }
+        final int failure = firstFailure(results);
+        return failure < 0 ? this.successMiddlewareStatus() : results[failure];
+    }
+
+    private static int firstFailure(final Status[] results) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null && results[i].getCode().startsWith("ERR"))
+                return i;
+        }
+        return -1;
+    }
+
+    private static Status executeMember(final LambdaHandler handler, final LightLambdaExchange exchange, final int member) {
+        exchange.beginParallelMember(member);
+        try {
+            return executeHandler(handler, exchange);
+        } finally {
+            exchange.endParallelMember();
+        }
+    }
+
+    private static Status executeHandler(final LambdaHandler handler, final LightLambdaExchange exchange) {
+        if (Chain.isSkipped(handler)) {
+            LOG.debug("Skipping disabled handler: {}", handler.getClass().getName());
+            return null;
+        }
+        try {
+            return handler.execute(exchange);
+        } catch (Exception e) {
+            LOG.error("Exception in handler: {}", handler.getClass().getName(), e);
+            return ImmutableStatus.of(ChainExecutor.MIDDLEWARE_UNHANDLED_EXCEPTION);
+        }
+    }
+
+    private static Status join(final Future<Status> future, final LambdaHandler handler) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted while waiting for handler: {}", handler.getClass().getName());
+        } catch (ExecutionException e) {
+            LOG.error("Exception in handler: {}", handler.getClass().getName(), e.getCause());
+        }
+        return ImmutableStatus.of(ChainExecutor.MIDDLEWARE_UNHANDLED_EXCEPTION);
+    }
+
+    /**
+     * @return - true if the group has an enabled handler.
+     */
+    @Override
+    public boolean isEnabled() {
+        return this.enabledHandlers.length > 0;
+    }
+
+    @Override
+    public boolean isStreamingSupported() {
+        for (var handler : this.enabledHandlers) {
+            if (!handler.isStreamingSupported())
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        for (var handler : this.enabledHandlers) {
+            if (!handler.isThreadSafe())
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelGroup[" + this.name + "]";
+    }
+}
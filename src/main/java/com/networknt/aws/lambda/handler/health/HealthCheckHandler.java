@@ -71,4 +71,12 @@ public class HealthCheckHandler implements LambdaHandler {
     public boolean isEnabled() {
         return config.isEnabled();
     }
+
+    /**
+     * Only the config is shared between invocations.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
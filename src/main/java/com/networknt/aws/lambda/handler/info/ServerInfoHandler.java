@@ -1,6 +1,8 @@
 package com.networknt.aws.lambda.handler.info;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.ColdStartProfile;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.LambdaHandler;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.config.Config;
@@ -11,23 +13,27 @@ import com.networknt.status.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class ServerInfoHandler implements LambdaHandler {
     static final String STATUS_SERVER_INFO_DISABLED = "ERR10013";
+    static final String COLD_START = "coldStart";
     static final Logger logger = LoggerFactory.getLogger(ServerInfoHandler.class);
+    private final ServerInfoConfig config;
 
     public ServerInfoHandler() {
+        this.config = ServerInfoConfig.load();
         logger.info("ServerInfoHandler is constructed");
     }
 
     @Override
     public Status execute(LightLambdaExchange exchange) {
         if (logger.isTraceEnabled()) logger.trace("ServerInfoHandler.handleRequest starts.");
-        ServerInfoConfig config = ServerInfoConfig.load();
         Map<String, String> headers = Map.of("Content-Type", "application/json");
         if (config.isEnableServerInfo()) {
-            Map<String, Object> infoMap = ServerInfoUtil.getServerInfo(config);
+            Map<String, Object> infoMap = new LinkedHashMap<>(ServerInfoUtil.getServerInfo(config));
+            infoMap.put(COLD_START, ColdStartProfile.snapshot());
             // TODO access the downstream to get the server info from the downstream
             var res = new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
@@ -39,7 +45,7 @@ public class ServerInfoHandler implements LambdaHandler {
 
         } else {
 
-            var status = new Status(STATUS_SERVER_INFO_DISABLED);
+            var status = ImmutableStatus.of(STATUS_SERVER_INFO_DISABLED);
             var res = new APIGatewayProxyResponseEvent()
                     .withStatusCode(status.getStatusCode())
                     .withHeaders(headers)
@@ -54,6 +60,6 @@ public class ServerInfoHandler implements LambdaHandler {
 
     @Override
     public boolean isEnabled() {
-        return ServerInfoConfig.load().isEnableServerInfo();
+        return config.isEnableServerInfo();
     }
 }
@@ -28,7 +28,7 @@ public class LoggerGetHandler implements LambdaHandler {
 
     @Override
     public boolean isEnabled() {
-        return LoggerConfig.load().isEnabled();
+        return config.isEnabled();
     }
 
 
@@ -2,6 +2,7 @@ package com.networknt.aws.lambda.handler.logger;
 
 import ch.qos.logback.classic.Level;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.LambdaHandler;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.config.JsonMapper;
@@ -32,7 +33,7 @@ public class LoggerSetHandler implements LambdaHandler {
             // get the body from the request event
             String body = exchange.getRequest().getBody();
             if(body.isEmpty()) {
-                return new Status(REQUEST_BODY_MISSING);
+                return ImmutableStatus.of(REQUEST_BODY_MISSING);
             } else {
                 // parse the body to get the loggers
                 List<Map<String, Object>> loggers = JsonMapper.string2List(body);
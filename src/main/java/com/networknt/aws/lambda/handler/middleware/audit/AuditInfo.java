@@ -0,0 +1,303 @@
+package com.networknt.aws.lambda.handler.middleware.audit;
+
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.openapi.OpenApiOperation;
+import com.networknt.utility.Constants;
+import org.jose4j.jwt.JwtClaims;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The audit information of a request collected by the middleware handlers and attached to the exchange with the
+ * AUDIT_ATTACHMENT_KEY. The values set by this project are kept in typed fields, so they are read and written without
+ * hashing or casting. Any other value put by a custom handler goes to an overflow map that is only created when needed.
+ *
+ * The get and put methods accept the same names that are used in the auditList of audit.yml, so the AuditMiddleware
+ * only reads the fields it logs. The asMap method returns the live map view used by the rule engine of the transformers.
+ *
+ * @author Steve Hu
+ */
+public final class AuditInfo {
+    private String endpoint;
+    private String clientId;
+    private String userId;
+    private String issuer;
+    private String callerId;
+    private String scopeClientId;
+    private OpenApiOperation openApiOperation;
+    private JwtClaims subjectClaims;
+    private JwtClaims accessClaims;
+    private Map<String, Object> extra;
+
+    /**
+     * Get the audit info of the exchange, attaching a new one if the exchange doesn't have it yet.
+     *
+     * @param exchange the exchange.
+     * @return the audit info attached to the exchange.
+     */
+    public static AuditInfo attach(final LightLambdaExchange exchange) {
+        // the handlers of a parallel group may attach it at the same time.
+        synchronized (exchange) {
+            AuditInfo auditInfo = exchange.getAttachment(AuditMiddleware.AUDIT_ATTACHMENT_KEY);
+            if (auditInfo == null) {
+                auditInfo = new AuditInfo();
+                exchange.addAttachment(AuditMiddleware.AUDIT_ATTACHMENT_KEY, auditInfo);
+            }
+            return auditInfo;
+        }
+    }
+
+    /**
+     * Get a value by its audit name.
+     *
+     * @param name the name used in the auditList of audit.yml.
+     * @return the value or null if it is not set.
+     */
+    public Object get(final String name) {
+        if (Constants.ENDPOINT_STRING.equals(name)) return endpoint;
+        if (Constants.CLIENT_ID_STRING.equals(name)) return clientId;
+        if (Constants.USER_ID_STRING.equals(name)) return userId;
+        if (Constants.ISSUER_CLAIMS.equals(name)) return issuer;
+        if (Constants.CALLER_ID_STRING.equals(name)) return callerId;
+        if (Constants.SCOPE_CLIENT_ID_STRING.equals(name)) return scopeClientId;
+        if (Constants.OPENAPI_OPERATION_STRING.equals(name)) return openApiOperation;
+        if (Constants.SUBJECT_CLAIMS.equals(name)) return subjectClaims;
+        if (Constants.ACCESS_CLAIMS.equals(name)) return accessClaims;
+        return extra == null ? null : extra.get(name);
+    }
+
+    /**
+     * Set a value by its audit name. A known name with a value of the wrong type goes to the overflow map.
+     *
+     * @param name the name used in the auditList of audit.yml.
+     * @param value the value.
+     */
+    public void put(final String name, final Object value) {
+        if (Constants.ENDPOINT_STRING.equals(name) && (value == null || value instanceof String)) endpoint = (String) value;
+        else if (Constants.CLIENT_ID_STRING.equals(name) && (value == null || value instanceof String)) clientId = (String) value;
+        else if (Constants.USER_ID_STRING.equals(name) && (value == null || value instanceof String)) userId = (String) value;
+        else if (Constants.ISSUER_CLAIMS.equals(name) && (value == null || value instanceof String)) issuer = (String) value;
+        else if (Constants.CALLER_ID_STRING.equals(name) && (value == null || value instanceof String)) callerId = (String) value;
+        else if (Constants.SCOPE_CLIENT_ID_STRING.equals(name) && (value == null || value instanceof String)) scopeClientId = (String) value;
+        else if (Constants.OPENAPI_OPERATION_STRING.equals(name) && (value == null || value instanceof OpenApiOperation)) openApiOperation = (OpenApiOperation) value;
+        else if (Constants.SUBJECT_CLAIMS.equals(name) && (value == null || value instanceof JwtClaims)) subjectClaims = (JwtClaims) value;
+        else if (Constants.ACCESS_CLAIMS.equals(name) && (value == null || value instanceof JwtClaims)) accessClaims = (JwtClaims) value;
+        else {
+            if (extra == null)
+                extra = new LinkedHashMap<>();
+            extra.put(name, value);
+        }
+    }
+
+    /**
+     * @return true if no value is set.
+     */
+    public boolean isEmpty() {
+        return endpoint == null && clientId == null && userId == null && issuer == null && callerId == null
+                && scopeClientId == null && openApiOperation == null && subjectClaims == null && accessClaims == null
+                && (extra == null || extra.isEmpty());
+    }
+
+    /**
+     * Build a map with the values that are set, keyed by their audit names. It is created on each call and is only
+     * meant for the rule engine and logging.
+     *
+     * @return a new map of the values.
+     */
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        putIfNotNull(map, Constants.ENDPOINT_STRING, endpoint);
+        putIfNotNull(map, Constants.CLIENT_ID_STRING, clientId);
+        putIfNotNull(map, Constants.USER_ID_STRING, userId);
+        putIfNotNull(map, Constants.ISSUER_CLAIMS, issuer);
+        putIfNotNull(map, Constants.CALLER_ID_STRING, callerId);
+        putIfNotNull(map, Constants.SCOPE_CLIENT_ID_STRING, scopeClientId);
+        putIfNotNull(map, Constants.OPENAPI_OPERATION_STRING, openApiOperation);
+        putIfNotNull(map, Constants.SUBJECT_CLAIMS, subjectClaims);
+        putIfNotNull(map, Constants.ACCESS_CLAIMS, accessClaims);
+        if (extra != null)
+            map.putAll(extra);
+        return map;
+    }
+
+    /**
+     * Get a map view backed by the audit info. The values put or removed through the view are written into the audit
+     * info, so a rule of the transformers can update it like the map of the exchange attachment it replaces.
+     *
+     * @return a live map view of the values.
+     */
+    public Map<String, Object> asMap() {
+        return new MapView();
+    }
+
+    private static void putIfNotNull(final Map<String, Object> map, final String name, final Object value) {
+        if (value != null)
+            map.put(name, value);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+
+    public String getCallerId() {
+        return callerId;
+    }
+
+    public void setCallerId(String callerId) {
+        this.callerId = callerId;
+    }
+
+    public String getScopeClientId() {
+        return scopeClientId;
+    }
+
+    public void setScopeClientId(String scopeClientId) {
+        this.scopeClientId = scopeClientId;
+    }
+
+    public OpenApiOperation getOpenApiOperation() {
+        return openApiOperation;
+    }
+
+    public void setOpenApiOperation(OpenApiOperation openApiOperation) {
+        this.openApiOperation = openApiOperation;
+    }
+
+    public JwtClaims getSubjectClaims() {
+        return subjectClaims;
+    }
+
+    public void setSubjectClaims(JwtClaims subjectClaims) {
+        this.subjectClaims = subjectClaims;
+    }
+
+    public JwtClaims getAccessClaims() {
+        return accessClaims;
+    }
+
+    public void setAccessClaims(JwtClaims accessClaims) {
+        this.accessClaims = accessClaims;
+    }
+
+    /**
+     * @return the values put by custom handlers, never null.
+     */
+    public Map<String, Object> getExtra() {
+        return extra == null ? Collections.emptyMap() : extra;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditInfo" + toMap();
+    }
+
+    private final class MapView extends AbstractMap<String, Object> {
+        @Override
+        public Object get(Object key) {
+            return key instanceof String name ? AuditInfo.this.get(name) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.get(key) != null || (extra != null && extra.containsKey(key));
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            final Object previous = AuditInfo.this.get(key);
+            AuditInfo.this.put(key, value);
+            return previous;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (!(key instanceof String name))
+                return null;
+            final Object previous = AuditInfo.this.get(name);
+            if (extra != null && extra.containsKey(name))
+                extra.remove(name);
+            else
+                AuditInfo.this.put(name, null);
+            return previous;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    // iterate over a snapshot, the changes are written through to the audit info.
+                    final Iterator<Entry<String, Object>> snapshot = toMap().entrySet().iterator();
+                    return new Iterator<>() {
+                        private Entry<String, Object> current;
+
+                        @Override
+                        public boolean hasNext() {
+                            return snapshot.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            final Entry<String, Object> entry = snapshot.next();
+                            current = new SimpleEntry<>(entry) {
+                                @Override
+                                public Object setValue(Object value) {
+                                    MapView.this.put(getKey(), value);
+                                    return super.setValue(value);
+                                }
+                            };
+                            return current;
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (current == null)
+                                throw new IllegalStateException();
+                            MapView.this.remove(current.getKey());
+                            current = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return toMap().size();
+                }
+            };
+        }
+    }
+}
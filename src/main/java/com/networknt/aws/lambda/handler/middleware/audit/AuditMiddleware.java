@@ -1,15 +1,16 @@
 package com.networknt.aws.lambda.handler.middleware.audit;
 
 import com.networknt.audit.AuditConfig;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.LambdaBody;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.app.LambdaAppConfig;
-import com.networknt.aws.lambda.utility.HeaderKey;
 import com.networknt.config.Config;
 import com.networknt.config.JsonMapper;
 import com.networknt.mask.Mask;
 import com.networknt.status.Status;
-import com.networknt.utility.MapUtil;
 import com.networknt.utility.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,9 +26,9 @@ import java.util.*;
  * responsible to update the attachment in the exchange.
  *
  */
-public class AuditMiddleware implements MiddlewareHandler {
+public class AuditMiddleware implements MiddlewareHandler, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(AuditMiddleware.class);
-    public static final LightLambdaExchange.Attachable<Map> AUDIT_ATTACHMENT_KEY = LightLambdaExchange.Attachable.createAttachable(Map.class);
+    public static final LightLambdaExchange.Attachable<AuditInfo> AUDIT_ATTACHMENT_KEY = LightLambdaExchange.Attachable.createAttachable(AuditInfo.class);
     static final String STATUS_CODE = "statusCode";
     static final String RESPONSE_TIME = "responseTime";
     static final String TIMESTAMP = "timestamp";
@@ -65,7 +66,6 @@ public class AuditMiddleware implements MiddlewareHandler {
     public Status execute(LightLambdaExchange exchange) {
         LOG.debug("AuditMiddleware.execute starts.");
         // as there is no way to write a separate audit log file in Lambda, we will skip this handler.
-        Map<String, Object> auditInfo = (Map<String, Object>)exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
         Map<String, Object> auditMap = new LinkedHashMap<>();
         final long start = System.currentTimeMillis();
         // add audit timestamp
@@ -76,12 +76,6 @@ public class AuditMiddleware implements MiddlewareHandler {
         }
 
 
-        // dump audit info fields according to config
-        boolean needAuditData = auditInfo != null && config.hasAuditList();
-        if (needAuditData) {
-            auditFields(auditInfo, auditMap);
-        }
-
         // dump request header, request body, path parameters, query parameters and request cookies according to config
         auditRequest(exchange, auditMap, config);
 
@@ -91,6 +85,9 @@ public class AuditMiddleware implements MiddlewareHandler {
         }
         if(config.isStatusCode() || config.isResponseTime()) {
             exchange.addResponseCompleteListener(finalExchange -> {
+                // nothing is collected or serialized for a successful response when only the errors are audited.
+                if (config.isAuditOnError() && finalExchange.getStatusCode() < 400)
+                    return;
                 if (config.isStatusCode()) {
                     auditMap.put(STATUS_CODE, finalExchange.getStatusCode());
                 }
@@ -98,30 +95,39 @@ public class AuditMiddleware implements MiddlewareHandler {
                     auditMap.put(RESPONSE_TIME, System.currentTimeMillis() - start);
                 }
 
-                Map<String, Object> auditInfo1 = (Map<String, Object>)exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
-
-                if (auditInfo1 != null && config.getAuditList() != null) {
-                    for (String name : config.getAuditList()) {
-                        Object object = auditInfo1.get(name);
-                        if(object != null) {
-                            auditMap.put(name, object);
-                        }
-                    }
-                }
-                // audit the response body.
+                // the response body is taken now as the entry point may encode it after the response is complete.
+                String responseBody = null;
+                String responseContentType = null;
                 if(config.getAuditList() != null && config.getAuditList().contains(RESPONSE_BODY_KEY)) {
-                    auditResponseBody(exchange, auditMap);
+                    LambdaBody body = finalExchange.getResponseBody();
+                    if(body != null) {
+                        responseBody = body.getText();
+                        responseContentType = LambdaHeaders.of(finalExchange.getFinalizedResponse(true).getHeaders()).get(LambdaHeaders.CONTENT_TYPE);
+                    }
                 }
-
-                if (config.isAuditOnError()) {
-                    if (finalExchange.getStatusCode() >= 400)
-                        logAuditMsg(JsonMapper.toJson(auditMap));
-                } else {
+                final String bodyText = responseBody;
+                final String bodyContentType = responseContentType;
+                // masking, serializing and logging are deferred until the response is returned.
+                finalExchange.defer(() -> {
+                    // the audit info is read at the end as the handlers after this one can still update it.
+                    AuditInfo auditInfo = finalExchange.getAttachment(AUDIT_ATTACHMENT_KEY);
+                    if (auditInfo != null && config.hasAuditList()) {
+                        auditFields(auditInfo, auditMap);
+                    }
+                    // audit the response body.
+                    if(bodyText != null) {
+                        auditResponseBody(bodyText, bodyContentType, auditMap);
+                    }
                     logAuditMsg(JsonMapper.toJson(auditMap));
-                }
+                });
             });
         } else {
-            logAuditMsg(JsonMapper.toJson(auditMap));
+            // dump audit info fields according to config
+            AuditInfo auditInfo = exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
+            if (auditInfo != null && config.hasAuditList()) {
+                auditFields(auditInfo, auditMap);
+            }
+            exchange.defer(() -> logAuditMsg(JsonMapper.toJson(auditMap)));
         }
         if(LOG.isDebugEnabled()) LOG.debug("AuditMiddleware.execute ends.");
         return successMiddlewareStatus();
@@ -131,9 +137,11 @@ public class AuditMiddleware implements MiddlewareHandler {
         config.getAuditFunc().accept(auditMsg);
     }
 
-    private void auditFields(Map<String, Object> auditInfo, Map<String, Object> auditMap) {
+    private void auditFields(AuditInfo auditInfo, Map<String, Object> auditMap) {
         for (String name : config.getAuditList()) {
             Object value = auditInfo.get(name);
+            if (value == null)
+                continue;
             boolean needApplyMask = config.isMask() && value instanceof String;
             auditMap.put(name, needApplyMask ? Mask.maskRegex((String) value, MASK_KEY, name) : value);
         }
@@ -162,25 +170,26 @@ public class AuditMiddleware implements MiddlewareHandler {
     }
 
     private void auditHeader(LightLambdaExchange exchange, Map<String, Object> auditMap) {
+        final LambdaHeaders headers = exchange.getRequestHeaders();
         for (String name : config.getHeaderList()) {
-            Optional<String> optionalValue = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), name);
-            if(optionalValue.isEmpty()) {
+            String value = headers.get(name);
+            if(value == null) {
                 if(LOG.isTraceEnabled()) LOG.trace("header name = {} header value is null", name);
                 continue;
             }
-            if(LOG.isTraceEnabled()) LOG.trace("header name = {} header value = {}", name, optionalValue.get());
-            auditMap.put(name, config.isMask() ? Mask.maskRegex(optionalValue.get(), "requestHeader", name) : optionalValue.get());
+            if(LOG.isTraceEnabled()) LOG.trace("header name = {} header value = {}", name, value);
+            auditMap.put(name, config.isMask() ? Mask.maskRegex(value, "requestHeader", name) : value);
         }
     }
 
     // Audit request body automatically if body handler enabled
     private void auditRequestBody(LightLambdaExchange exchange, Map<String, Object> auditMap) {
-        String requestBodyString = exchange.getRequest().getBody();
+        LambdaBody requestBody = exchange.getRequestBody();
+        String requestBodyString = requestBody == null ? null : requestBody.getText();
         // Mask requestBody json string if mask enabled
         if (requestBodyString != null && !requestBodyString.isEmpty()) {
-            Optional<String> optionalContentType = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.CONTENT_TYPE);
-            if(optionalContentType.isPresent()) {
-                String contentType = optionalContentType.get();
+            String contentType = exchange.getRequestHeaders().get(LambdaHeaders.CONTENT_TYPE);
+            if(contentType != null) {
                 if(contentType.startsWith("application/json")) {
                     if(config.isMask()) requestBodyString = Mask.maskJson(requestBodyString, REQUEST_BODY_KEY);
                 } else if(contentType.startsWith("text") || contentType.startsWith("application/xml")) {
@@ -197,13 +206,10 @@ public class AuditMiddleware implements MiddlewareHandler {
     }
 
     // Audit response body
-    private void auditResponseBody(LightLambdaExchange exchange, Map<String, Object> auditMap) {
-        String responseBodyString = exchange.getResponse().getBody();
+    private void auditResponseBody(String responseBodyString, String contentType, Map<String, Object> auditMap) {
         // mask the response body json string if mask is enabled.
-        if(responseBodyString != null && !responseBodyString.isEmpty()) {
-            Optional<String> optionalContentType = MapUtil.getValueIgnoreCase(exchange.getResponse().getHeaders(), HeaderKey.CONTENT_TYPE);
-            if(optionalContentType.isPresent()) {
-                String contentType = optionalContentType.orElse(null);
+        if(!responseBodyString.isEmpty()) {
+            if(contentType != null) {
                 if(contentType.startsWith("application/json")) {
                     if(config.isMask()) responseBodyString =Mask.maskJson(responseBodyString, RESPONSE_BODY_KEY);
                 } else if(contentType.startsWith("text") || contentType.startsWith("application/xml")) {
@@ -1,20 +1,17 @@
 package com.networknt.aws.lambda.handler.middleware.correlation;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.utility.HeaderKey;
 import com.networknt.aws.lambda.utility.LoggerKey;
 import com.networknt.correlation.CorrelationConfig;
 import com.networknt.status.Status;
-import com.networknt.utility.MapUtil;
 import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
-import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.Optional;
-import java.util.UUID;
+import java.security.SecureRandom;
 
 
 public class CorrelationMiddleware implements MiddlewareHandler {
@@ -23,6 +20,8 @@ public class CorrelationMiddleware implements MiddlewareHandler {
     private static final LightLambdaExchange.Attachable<String> CORRELATION_ATTACHMENT_KEY = LightLambdaExchange.Attachable.createAttachable(String.class);
 
     private final CorrelationConfig config;
+    // the instances restored from the same snapshot would share the state of the random, so it is replaced after restore.
+    private volatile SecureRandom random = new SecureRandom();
 
     public CorrelationMiddleware() {
         config = CorrelationConfig.load();
@@ -34,19 +33,13 @@ public class CorrelationMiddleware implements MiddlewareHandler {
         LOG.debug("CorrelationHandler.handleRequest starts.");
 
         // check if the cid is in the request header
-        String cid = null;
-        if(exchange.getRequest().getHeaders() != null) {
-            Optional<String> optionalCid = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.CORRELATION);
-            cid = optionalCid.orElse(null);
-        } else {
-            exchange.getRequest().setHeaders(new HashMap<>());
-        }
+        final LambdaHeaders headers = exchange.getRequestHeaders();
+        String cid = headers.get(LambdaHeaders.CORRELATION);
         if (cid == null && config.isAutogenCorrelationID()) {
             cid = this.getUUID();
-            exchange.getRequest().getHeaders().put(HeaderKey.CORRELATION, cid);
+            headers.put(HeaderKey.CORRELATION, cid);
             exchange.addAttachment(CORRELATION_ATTACHMENT_KEY, cid);
-            Optional<String> optionalTid = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.TRACEABILITY);
-            String tid = optionalTid.orElse(null);
+            String tid = headers.get(LambdaHeaders.TRACEABILITY);
             if (tid != null && LOG.isInfoEnabled())
                 LOG.info("Associate traceability Id {} with correlation Id {}", tid, cid);
         }
@@ -59,11 +52,17 @@ public class CorrelationMiddleware implements MiddlewareHandler {
     }
 
     private String getUUID() {
-        UUID id = UUID.randomUUID();
-        ByteBuffer bb = ByteBuffer.wrap(new byte[16]);
-        bb.putLong(id.getMostSignificantBits());
-        bb.putLong(id.getLeastSignificantBits());
-        return Base64.encodeBase64URLSafeString(bb.array());
+        // a random version 4 UUID, the same as UUID.randomUUID() but with the random of this handler.
+        byte[] bytes = new byte[16];
+        this.random.nextBytes(bytes);
+        bytes[6] = (byte) ((bytes[6] & 0x0f) | 0x40);
+        bytes[8] = (byte) ((bytes[8] & 0x3f) | 0x80);
+        return Base64.encodeBase64URLSafeString(bytes);
+    }
+
+    @Override
+    public void afterRestore() {
+        this.random = new SecureRandom();
     }
 
     @Override
@@ -71,5 +70,11 @@ public class CorrelationMiddleware implements MiddlewareHandler {
         return config.isEnabled();
     }
 
-
+    /**
+     * SecureRandom can be shared by the threads.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -2,12 +2,15 @@ package com.networknt.aws.lambda.handler.middleware.cors;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
 import com.networknt.config.Config;
 import com.networknt.cors.CorsConfig;
 import com.networknt.status.Status;
-import com.networknt.utility.MapUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,7 +29,7 @@ import static com.networknt.cors.CorsUtil.sanitizeDefaultPort;
  * @author Steve Hu
  *
  */
-public class RequestCorsMiddleware implements MiddlewareHandler {
+public class RequestCorsMiddleware implements MiddlewareHandler, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(RequestCorsMiddleware.class);
     private static final String SUC10200 = "SUC10200";
     private static final String CORS_PREFLIGHT_REQUEST_FAILED = "ERR10092";
@@ -34,8 +37,11 @@ public class RequestCorsMiddleware implements MiddlewareHandler {
     private static final String ONE_HOUR_IN_SECONDS = "3600";
 
     private final CorsConfig config;
+    // the longest prefix of the request path selects the allowed origins and methods.
+    private final PathPrefixTrie<Object> pathPrefixAllowed;
     public RequestCorsMiddleware() {
         this.config = CorsConfig.load();
+        this.pathPrefixAllowed = PathPrefixTrie.of(config.getPathPrefixAllowed());
         LOG.info("RequestCorsMiddleware is constructed");
     }
 
@@ -50,19 +56,13 @@ public class RequestCorsMiddleware implements MiddlewareHandler {
             List<String> allowedOrigins = config.getAllowedOrigins();
             List<String> allowedMethods = config.getAllowedMethods();
 
-            Map<String, String> requestHeaders = requestEvent.getHeaders();
+            LambdaHeaders requestHeaders = exchange.getRequestHeaders();
             if(isCorsRequest(requestHeaders)) {
                 // set the allowed origins and methods based on the path prefix.
-                if (config.getPathPrefixAllowed() != null) {
-                    String requestPath = requestEvent.getPath();
-                    for(Map.Entry<String, Object> entry: config.getPathPrefixAllowed().entrySet()) {
-                        if (requestPath.startsWith(entry.getKey())) {
-                            Map endpointCorsMap = (Map) entry.getValue();
-                            allowedOrigins = (List<String>) endpointCorsMap.get(CorsConfig.ALLOWED_ORIGINS);
-                            allowedMethods = (List<String>) endpointCorsMap.get(CorsConfig.ALLOWED_METHODS);
-                            break;
-                        }
-                    }
+                Map endpointCorsMap = (Map) pathPrefixAllowed.match(requestEvent.getPath());
+                if (endpointCorsMap != null) {
+                    allowedOrigins = (List<String>) endpointCorsMap.get(CorsConfig.ALLOWED_ORIGINS);
+                    allowedMethods = (List<String>) endpointCorsMap.get(CorsConfig.ALLOWED_METHODS);
                 }
                 // if it is a preflight request, then handle it and return.
                 if (isPreflightedRequest(requestEvent.getHttpMethod())) {
@@ -70,9 +70,9 @@ public class RequestCorsMiddleware implements MiddlewareHandler {
                     return handlePreflightRequest(exchange, allowedOrigins, allowedMethods);
                 } else {
                     // normal request with origin header. check the origin and reject if it is not matched.
-                    String origin = matchOrigin(requestEvent, allowedOrigins);
+                    String origin = matchOrigin(requestHeaders, allowedOrigins);
                     if(origin == null) {
-                        return new Status(CORS_PREFLIGHT_REQUEST_FAILED);
+                        return ImmutableStatus.of(CORS_PREFLIGHT_REQUEST_FAILED);
                     }
                 }
             }
@@ -86,29 +86,30 @@ public class RequestCorsMiddleware implements MiddlewareHandler {
 
     @Override
     public boolean isEnabled() {
-        return CorsConfig.load().isEnabled();
+        return config.isEnabled();
     }
 
     private Status handlePreflightRequest(LightLambdaExchange exchange, List<String> allowedOrigins, List<String> allowedMethods) {
         APIGatewayProxyResponseEvent responseEvent = new APIGatewayProxyResponseEvent();
         responseEvent.setIsBase64Encoded(false);
-        Map<String, String> requestHeaders = exchange.getRequest().getHeaders();
+        LambdaHeaders requestHeaders = exchange.getRequestHeaders();
         Map<String, String> responseHeaders = new HashMap<>();
-        if (MapUtil.getValueIgnoreCase(requestHeaders, ORIGIN).isPresent()) {
-            if(matchOrigin(exchange.getRequest(), allowedOrigins) != null) {
-                responseHeaders.put(ACCESS_CONTROL_ALLOW_ORIGIN, MapUtil.getValueIgnoreCase(requestHeaders, ORIGIN).get());
+        String origin = requestHeaders.get(LambdaHeaders.ORIGIN);
+        if (origin != null) {
+            if(matchOrigin(requestHeaders, allowedOrigins) != null) {
+                responseHeaders.put(ACCESS_CONTROL_ALLOW_ORIGIN, origin);
                 responseHeaders.put("Vary", "Origin");
             } else {
                 responseEvent.setHeaders(responseHeaders);
                 responseEvent.setStatusCode(403);
                 exchange.setInitialResponse(responseEvent);
-                return new Status(CORS_PREFLIGHT_REQUEST_FAILED);
+                return ImmutableStatus.of(CORS_PREFLIGHT_REQUEST_FAILED);
             }
         }
         responseHeaders.put(ACCESS_CONTROL_ALLOW_METHODS, convertToString(allowedMethods));
-        Optional<String> acRequestHeaders = MapUtil.getValueIgnoreCase(requestHeaders, ACCESS_CONTROL_REQUEST_HEADERS);
-        if (acRequestHeaders.isPresent()) {
-            responseHeaders.put(ACCESS_CONTROL_ALLOW_HEADERS, acRequestHeaders.get());
+        String acRequestHeaders = requestHeaders.get(ACCESS_CONTROL_REQUEST_HEADERS);
+        if (acRequestHeaders != null) {
+            responseHeaders.put(ACCESS_CONTROL_ALLOW_HEADERS, acRequestHeaders);
         } else {
             responseHeaders.put(ACCESS_CONTROL_ALLOW_HEADERS, "Content-Type, WWW-Authenticate, Authorization");
         }
@@ -117,20 +118,18 @@ public class RequestCorsMiddleware implements MiddlewareHandler {
         responseEvent.setHeaders(responseHeaders);
         responseEvent.setStatusCode(200);
         exchange.setInitialResponse(responseEvent);
-        return new Status(SUC10200);
+        return ImmutableStatus.of(SUC10200);
     }
 
     /**
      * Match the Origin header with the allowed origins.
      * If it doesn't match then a 403 response code is set on the response and it returns null.
-     * @param requestEvent the current request event.
+     * @param requestHeaders the headers of the current request.
      * @param allowedOrigins list of sanitized allowed origins.
      * @return the first matching origin, null otherwise.
      */
-    static String matchOrigin(APIGatewayProxyRequestEvent requestEvent, Collection<String> allowedOrigins) {
-        Map<String, String> requestHeaders = requestEvent.getHeaders();
-        Optional<String> optionalOrigin = MapUtil.getValueIgnoreCase(requestHeaders, ORIGIN);
-        String origin = optionalOrigin.orElse(null);
+    static String matchOrigin(LambdaHeaders requestHeaders, Collection<String> allowedOrigins) {
+        String origin = requestHeaders.get(LambdaHeaders.ORIGIN);
         LOG.trace("origin from the request header = {} allowedOrigins = {}", origin, allowedOrigins);
         if (origin != null && allowedOrigins != null && !allowedOrigins.isEmpty()) {
             for (String allowedOrigin : allowedOrigins) {
@@ -143,10 +142,10 @@ public class RequestCorsMiddleware implements MiddlewareHandler {
         return null;
     }
 
-    static boolean isCorsRequest(Map<String, String> requestHeaders) {
+    static boolean isCorsRequest(LambdaHeaders requestHeaders) {
         // all cors request will have origin header regardless it is a preflight request
         // or normal request with method other than OPTIONS.
-        return MapUtil.getValueIgnoreCase(requestHeaders, ORIGIN).isPresent();
+        return requestHeaders.contains(LambdaHeaders.ORIGIN);
     }
 
     static boolean isPreflightedRequest(String requestMethod) {
@@ -1,12 +1,12 @@
 package com.networknt.aws.lambda.handler.middleware.cors;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
 import com.networknt.config.Config;
 import com.networknt.cors.CorsConfig;
 import com.networknt.status.Status;
-import com.networknt.utility.MapUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,8 +21,10 @@ import org.slf4j.LoggerFactory;
 public class ResponseCorsMiddleware implements MiddlewareHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(ResponseCorsMiddleware.class);
+    private final CorsConfig config;
 
     public ResponseCorsMiddleware() {
+        this.config = CorsConfig.load();
         LOG.info("ResponseCorsMiddleware is constructed");
     }
 
@@ -30,7 +32,6 @@ public class ResponseCorsMiddleware implements MiddlewareHandler {
     @Override
     public Status execute(LightLambdaExchange exchange) {
         if(LOG.isTraceEnabled()) LOG.trace("RequestCorsMiddleware.executeMiddleware starts.");
-        CorsConfig config = CorsConfig.load();
         if (!config.isEnabled()) {
             if(LOG.isTraceEnabled()) LOG.trace("RequestCorsMiddleware is not enabled.");
             return disabledMiddlewareStatus();
@@ -41,9 +42,10 @@ public class ResponseCorsMiddleware implements MiddlewareHandler {
             var responseHeaders = responseEvent.getHeaders();
             if (responseHeaders != null) {
                 if (LOG.isTraceEnabled()) LOG.trace("Response headers is not null.");
-                if (MapUtil.getValueIgnoreCase(exchange.getReadOnlyRequest().getHeaders(), "Origin").isPresent()) {
+                String origin = exchange.getRequestHeaders().get(LambdaHeaders.ORIGIN);
+                if (origin != null) {
                     // this is a CORS request, and it is passed the CORS check in the RequestCorsMiddleware.
-                    responseHeaders.put("Access-Control-Allow-Origin", exchange.getReadOnlyRequest().getHeaders().get("Origin"));
+                    responseHeaders.put("Access-Control-Allow-Origin", origin);
                 }
             }
         }
@@ -53,7 +55,14 @@ public class ResponseCorsMiddleware implements MiddlewareHandler {
 
     @Override
     public boolean isEnabled() {
-        return CorsConfig.load().isEnabled();
+        return config.isEnabled();
     }
 
+    /**
+     * Only the response headers are updated.
+     */
+    @Override
+    public boolean isStreamingSupported() {
+        return true;
+    }
 }
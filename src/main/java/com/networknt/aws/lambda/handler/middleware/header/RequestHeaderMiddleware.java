@@ -4,7 +4,6 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.header.HeaderConfig;
-import com.networknt.header.HeaderPathPrefixConfig;
 import com.networknt.header.HeaderRequestConfig;
 import com.networknt.status.Status;
 import org.slf4j.Logger;
@@ -37,8 +36,8 @@ public class RequestHeaderMiddleware extends HeaderMiddleware implements Middlew
         APIGatewayProxyRequestEvent requestEvent = exchange.getRequest();
         if (requestEvent != null) {
             LOG.trace("Request event is not null.");
-            var requestHeaders = requestEvent.getHeaders();
-            if (requestHeaders != null) {
+            if (requestEvent.getHeaders() != null) {
+                var requestHeaders = exchange.getRequestHeaders();
                 LOG.trace("Request headers is not null.");
                 // handle all request header
                 List<String> removeList = config.getRequestRemoveList();
@@ -52,30 +51,24 @@ public class RequestHeaderMiddleware extends HeaderMiddleware implements Middlew
                     updateHeaders(updateMap, requestHeaders);
                 }
 
-                // handle per path prefix header if configured
-                Map<String, HeaderPathPrefixConfig> pathPrefixHeader = config.getPathPrefixHeader();
-                if (pathPrefixHeader != null) {
-                    String path = exchange.getRequest().getPath();
-                    for (Map.Entry<String, HeaderPathPrefixConfig> entry : pathPrefixHeader.entrySet()) {
-                        if (path.startsWith(entry.getKey())) {
-                            LOG.trace("Found path {} with prefix {}", path, entry.getKey());
-                            HeaderPathPrefixConfig headerPathPrefixConfig = entry.getValue();
-                            HeaderRequestConfig headerRequestConfig = headerPathPrefixConfig.getRequest();
-                            if (headerRequestConfig != null) {
-                                List<String> requestHeaderRemoveList = headerRequestConfig.getRemove();
-                                if (requestHeaderRemoveList != null) {
-                                    LOG.trace("Request header path prefix removeList found.");
-                                    removeHeaders(requestHeaderRemoveList, requestHeaders);
-                                }
-                                Map<String, String> requestHeaderUpdateMap = headerRequestConfig.getUpdate();
-                                if (requestHeaderUpdateMap != null) {
-                                    LOG.trace("Request header path prefix updateMap found.");
-                                    updateHeaders(requestHeaderUpdateMap, requestHeaders);
-                                }
-                            }
+                // apply the header config of every matching path prefix, the longer prefixes after the shorter ones.
+                String path = requestEvent.getPath();
+                pathPrefixHeader.forEachMatch(path, headerPathPrefixConfig -> {
+                    LOG.trace("Found path prefix config for path {}", path);
+                    HeaderRequestConfig headerRequestConfig = headerPathPrefixConfig.getRequest();
+                    if (headerRequestConfig != null) {
+                        List<String> requestHeaderRemoveList = headerRequestConfig.getRemove();
+                        if (requestHeaderRemoveList != null) {
+                            LOG.trace("Request header path prefix removeList found.");
+                            removeHeaders(requestHeaderRemoveList, requestHeaders);
+                        }
+                        Map<String, String> requestHeaderUpdateMap = headerRequestConfig.getUpdate();
+                        if (requestHeaderUpdateMap != null) {
+                            LOG.trace("Request header path prefix updateMap found.");
+                            updateHeaders(requestHeaderUpdateMap, requestHeaders);
                         }
                     }
-                }
+                });
             }
         }
         LOG.trace("RequestHeaderMiddleware.executeMiddleware ends.");
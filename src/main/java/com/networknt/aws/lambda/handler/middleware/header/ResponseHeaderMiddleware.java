@@ -1,9 +1,9 @@
 package com.networknt.aws.lambda.handler.middleware.header;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.header.HeaderConfig;
-import com.networknt.header.HeaderPathPrefixConfig;
 import com.networknt.header.HeaderResponseConfig;
 import com.networknt.status.Status;
 import org.slf4j.Logger;
@@ -36,8 +36,8 @@ public class ResponseHeaderMiddleware extends HeaderMiddleware {
         APIGatewayProxyResponseEvent responseEvent = exchange.getResponse();
         if (responseEvent != null) {
             LOG.trace("Response event is not null.");
-            var responseHeaders = responseEvent.getHeaders();
-            if (responseHeaders != null) {
+            if (responseEvent.getHeaders() != null) {
+                var responseHeaders = LambdaHeaders.of(responseEvent.getHeaders());
                 LOG.trace("Response headers is not null.");
                 // handler all response header
                 List<String> removeList = config.getResponseRemoveList();
@@ -50,33 +50,35 @@ public class ResponseHeaderMiddleware extends HeaderMiddleware {
                     LOG.trace("Response header updateMap found.");
                     updateHeaders(updateMap, responseHeaders);
                 }
-                // handle per path prefix header if configured
-                Map<String, HeaderPathPrefixConfig> pathPrefixHeader = config.getPathPrefixHeader();
-                if (pathPrefixHeader != null) {
-                    String path = exchange.getReadOnlyRequest().getPath();
-                    for (Map.Entry<String, HeaderPathPrefixConfig> entry : pathPrefixHeader.entrySet()) {
-                        if (path.startsWith(entry.getKey())) {
-                            LOG.trace("Found path {} with prefix {}", path, entry.getKey());
-                            HeaderPathPrefixConfig headerPathPrefixConfig = entry.getValue();
-                            HeaderResponseConfig headerResponseConfig = headerPathPrefixConfig.getResponse();
-                            if (headerResponseConfig != null) {
-                                List<String> responseHeaderRemoveList = headerResponseConfig.getRemove();
-                                if (responseHeaderRemoveList != null) {
-                                    LOG.trace("Response header path prefix removeList found.");
-                                    removeHeaders(responseHeaderRemoveList, responseHeaders);
-                                }
-                                Map<String, String> responseHeaderUpdateMap = headerResponseConfig.getUpdate();
-                                if (responseHeaderUpdateMap != null) {
-                                    LOG.trace("Response header path prefix updateMap found.");
-                                    updateHeaders(responseHeaderUpdateMap, responseHeaders);
-                                }
-                            }
+                // apply the header config of every matching path prefix, the longer prefixes after the shorter ones.
+                String path = exchange.getReadOnlyRequest().getPath();
+                pathPrefixHeader.forEachMatch(path, headerPathPrefixConfig -> {
+                    LOG.trace("Found path prefix config for path {}", path);
+                    HeaderResponseConfig headerResponseConfig = headerPathPrefixConfig.getResponse();
+                    if (headerResponseConfig != null) {
+                        List<String> responseHeaderRemoveList = headerResponseConfig.getRemove();
+                        if (responseHeaderRemoveList != null) {
+                            LOG.trace("Response header path prefix removeList found.");
+                            removeHeaders(responseHeaderRemoveList, responseHeaders);
+                        }
+                        Map<String, String> responseHeaderUpdateMap = headerResponseConfig.getUpdate();
+                        if (responseHeaderUpdateMap != null) {
+                            LOG.trace("Response header path prefix updateMap found.");
+                            updateHeaders(responseHeaderUpdateMap, responseHeaders);
                         }
                     }
-                }
+                });
             }
         }
         LOG.trace("ResponseHeaderMiddleware.executeMiddleware ends.");
         return successMiddlewareStatus();
     }
+
+    /**
+     * Only the response headers are updated.
+     */
+    @Override
+    public boolean isStreamingSupported() {
+        return true;
+    }
 }
@@ -3,7 +3,11 @@ package com.networknt.aws.lambda.handler.middleware.limit;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.RouteAware;
+import com.networknt.aws.lambda.handler.RouteContext;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.utility.HeaderKey;
 import com.networknt.aws.lambda.utility.HeaderValue;
@@ -17,7 +21,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 
-public class LimitMiddleware implements MiddlewareHandler {
+public class LimitMiddleware implements MiddlewareHandler, RouteAware, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(LimitMiddleware.class);
     public static final String RATE_LIMIT_EXCEEDED = "ERR10088";
     private volatile String configName = LimitConfig.CONFIG_NAME;
@@ -57,7 +61,7 @@ public class LimitMiddleware implements MiddlewareHandler {
             LOG.debug("LimitHandler.handleRequest ends.");
             return successMiddlewareStatus();
         } else {
-            Status status = new Status(RATE_LIMIT_EXCEEDED);
+            Status status = ImmutableStatus.of(RATE_LIMIT_EXCEEDED);
             var responseEvent = new APIGatewayProxyResponseEvent();
             var headers = new HashMap<String, String>();
             headers.put(HeaderKey.CONTENT_TYPE, HeaderValue.APPLICATION_JSON);
@@ -75,6 +79,12 @@ public class LimitMiddleware implements MiddlewareHandler {
         }
     }
 
+    @Override
+    public void resolveRoute(final RouteContext context) {
+        if (rateLimiter != null)
+            rateLimiter.resolveRoute(context);
+    }
+
     @Override
     public boolean isEnabled() {
         return config.isEnabled();
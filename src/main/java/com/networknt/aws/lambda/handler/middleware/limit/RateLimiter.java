@@ -1,6 +1,8 @@
 package com.networknt.aws.lambda.handler.middleware.limit;
 
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
+import com.networknt.aws.lambda.handler.RouteContext;
 import com.networknt.aws.lambda.handler.middleware.limit.key.KeyResolver;
 import com.networknt.exception.FrameworkException;
 import com.networknt.limit.LimitConfig;
@@ -31,6 +33,8 @@ public class RateLimiter {
     protected LimitConfig config;
 
     private Map<String, Map<Long, AtomicLong>> serverTimeMap = new ConcurrentHashMap<>();
+    // the server prefixes of the config, matched with the longest prefix.
+    private PathPrefixTrie<String> serverPrefixes = new PathPrefixTrie<>();
 
     private Map<String, Map<TimeUnit, Map<Long, AtomicLong>>> directTimeMap = new ConcurrentHashMap<>();
     private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
@@ -53,6 +57,7 @@ public class RateLimiter {
         if (LimitKey.SERVER.equals(config.getKey())) {
             if (this.config.getServer()!=null && !this.config.getServer().isEmpty()) {
                 this.config.getServer().forEach((k,v)->serverTimeMap.put(k, new ConcurrentHashMap<>()));
+                serverPrefixes = PathPrefixTrie.of(this.config.getServer().keySet());
             }
         } else if (LimitKey.ADDRESS.equals(config.getKey())) {
             if (this.config.getAddress()!=null) {
@@ -129,11 +134,28 @@ public class RateLimiter {
             return isAllowDirect(userId, path, USER_TYPE);
         } else  {
             //By default, the key is server
+            final RouteContext route = RouteContext.of(exchange);
+            final String prefix = route == null ? null : route.getLimitPrefix(this);
+            if (prefix != null)
+                return isAllowByServer(serverTimeMap.get(prefix), route.getLimitQuota(this));
             String path = exchange.getRequest().getPath();
             return isAllowByServer(path);
         }
     }
 
+    /**
+     * Resolve the server prefix of a route in handler.yml, so that the quota is not looked up for each request.
+     *
+     * @param context the context of the route.
+     */
+    public void resolveRoute(final RouteContext context) {
+        if (serverPrefixes.isEmpty() || !context.isResolved(serverPrefixes))
+            return;
+        final String prefix = context.longestPrefix(serverPrefixes);
+        if (prefix != null)
+            context.setLimitQuota(this, prefix, config.getServer().get(prefix));
+    }
+
     /**
      * Handle logic for direct rate limit setting for address, client and user.
      * Use the type for differential the address/client/user
@@ -228,7 +250,6 @@ public class RateLimiter {
      * @return RateLimitResponse rate limit response
      */
     public RateLimitResponse isAllowByServer(String path) {
-        long currentTimeWindow = Instant.now().getEpochSecond();
         Map<Long, AtomicLong> timeMap = lookupServerTimeMap(path);
         if(timeMap == null) {
             timeMap = new ConcurrentHashMap<>();
@@ -237,6 +258,11 @@ public class RateLimiter {
             }
         }
         LimitQuota limitQuota = config.getServer() != null ? lookupLimitQuota(path) : null;
+        return isAllowByServer(timeMap, limitQuota);
+    }
+
+    private RateLimitResponse isAllowByServer(Map<Long, AtomicLong> timeMap, LimitQuota limitQuota) {
+        long currentTimeWindow = Instant.now().getEpochSecond();
         if(limitQuota == null) {
             limitQuota = this.config.getRateLimit().get(0);
         }
@@ -261,29 +287,13 @@ public class RateLimiter {
     }
 
     private Map<Long, AtomicLong> lookupServerTimeMap(String path) {
-        String prefix = null;
-        for(String s: serverTimeMap.keySet()) {
-            if(path.startsWith(s)) {
-                prefix = s;
-                break;
-            }
-        }
-        if(prefix == null) {
-            return null;
-        } else {
-            return serverTimeMap.get(prefix);
-        }
-
+        // a path without a server prefix has its own time map keyed by the path.
+        String prefix = serverPrefixes.match(path);
+        return serverTimeMap.get(prefix == null ? path : prefix);
     }
 
     private LimitQuota lookupLimitQuota(String path) {
-        String prefix = null;
-        for(String s: this.config.getServer().keySet()) {
-            if(path.startsWith(s)) {
-                prefix = s;
-                break;
-            }
-        }
+        String prefix = serverPrefixes.match(path);
         if(prefix == null) {
             return null;
         } else {
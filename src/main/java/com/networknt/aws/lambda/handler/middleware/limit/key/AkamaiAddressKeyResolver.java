@@ -1,10 +1,6 @@
 package com.networknt.aws.lambda.handler.middleware.limit.key;
 
 import com.networknt.aws.lambda.LightLambdaExchange;
-import com.networknt.utility.MapUtil;
-
-import java.util.Map;
-import java.util.Optional;
 
 /**
  * When native-lambda is used for external clients and all external requests go through the
@@ -17,9 +13,8 @@ public class AkamaiAddressKeyResolver implements KeyResolver {
     @Override
     public String resolve(LightLambdaExchange exchange) {
         String key = "127.0.0.1";
-        Map<String, String> headerMap = exchange.getResponse().getHeaders();
-        Optional<String> valueString = MapUtil.getValueIgnoreCase(headerMap, "True-Client-IP");
-        if(valueString.isPresent()) key = valueString.get();
+        String value = exchange.getRequestHeaders().get("true-client-ip");
+        if(value != null) key = value;
         return key;
     }
 }
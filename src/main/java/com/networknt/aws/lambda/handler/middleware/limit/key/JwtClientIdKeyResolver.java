@@ -1,10 +1,9 @@
 package com.networknt.aws.lambda.handler.middleware.limit.key;
 
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware;
-import com.networknt.utility.Constants;
 
-import java.util.Map;
 
 /**
  * When the rate limit handler is located after the JwtVerifierHandler in the request/response chain, we can
@@ -18,9 +17,9 @@ public class JwtClientIdKeyResolver implements KeyResolver {
     @Override
     public String resolve(LightLambdaExchange exchange) {
         String key = null;
-        Map<String, Object> auditInfo = (Map<String, Object>)exchange.getAttachment(AuditMiddleware.AUDIT_ATTACHMENT_KEY);
+        AuditInfo auditInfo = exchange.getAttachment(AuditMiddleware.AUDIT_ATTACHMENT_KEY);
         if(auditInfo != null) {
-            key = (String)auditInfo.get(Constants.CLIENT_ID_STRING);
+            key = auditInfo.getClientId();
         }
         return key;
     }
@@ -1,12 +1,8 @@
 package com.networknt.aws.lambda.handler.middleware.limit.key;
 
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware;
-import com.networknt.utility.Constants;
-import com.networknt.utility.MapUtil;
-
-import java.util.Map;
-import java.util.Optional;
 
 /**
  * This is a customized KeyResolver for one of our customers on the external gateway in the DMZ.
@@ -22,15 +18,13 @@ public class JwtHeaderClientIdKeyResolver implements KeyResolver {
     @Override
     public String resolve(LightLambdaExchange exchange) {
         String key = null;
-        Map<String, Object> auditInfo = (Map<String, Object>)exchange.getAttachment(AuditMiddleware.AUDIT_ATTACHMENT_KEY);
+        AuditInfo auditInfo = exchange.getAttachment(AuditMiddleware.AUDIT_ATTACHMENT_KEY);
         if(auditInfo != null) {
-            key = (String)auditInfo.get(Constants.CLIENT_ID_STRING);
+            key = auditInfo.getClientId();
         }
         if(key == null) {
             // try to get the key from the header
-            Map<String, String> headerMap = exchange.getRequest().getHeaders();
-            Optional<String> optionalValue = MapUtil.getValueIgnoreCase(headerMap, "Client-Id");
-            if(optionalValue.isPresent()) key = optionalValue.get();
+            key = exchange.getRequestHeaders().get("client-id");
         }
         return key;
     }
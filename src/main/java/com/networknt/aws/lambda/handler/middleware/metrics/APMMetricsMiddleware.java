@@ -1,12 +1,13 @@
 package com.networknt.aws.lambda.handler.middleware.metrics;
 
+import com.networknt.aws.lambda.ColdStartProfile;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.aws.lambda.app.LambdaApp;
 import com.networknt.config.JsonMapper;
 import com.networknt.metrics.APMAgentReporter;
 import com.networknt.metrics.TimeSeriesDbSender;
 import com.networknt.status.Status;
-import com.networknt.utility.Constants;
 import io.dropwizard.metrics.Clock;
 import io.dropwizard.metrics.MetricFilter;
 import io.dropwizard.metrics.MetricName;
@@ -40,6 +41,7 @@ public class APMMetricsMiddleware extends AbstractMetricsMiddleware {
     public Status execute(LightLambdaExchange exchange) {
 
         if (firstTime.compareAndExchange(true, false)) {
+            final long start = System.nanoTime();
             String appId = exchange.getAttachment(LambdaApp.APP_ID);
             commonTags.put("api", appId);
             if (LOG.isDebugEnabled()) {
@@ -61,6 +63,7 @@ public class APMMetricsMiddleware extends AbstractMetricsMiddleware {
             } catch (MalformedURLException e) {
                 LOG.error("apmmetrics has failed to initialize APMEPAgentSender", e);
             }
+            ColdStartProfile.lazy("apmMetricsReporter", start);
         }
 
         if (exchange.isRequestInProgress()) {
@@ -68,53 +71,59 @@ public class APMMetricsMiddleware extends AbstractMetricsMiddleware {
         }
 
         exchange.addResponseCompleteListener(finalExchange -> {
-            Map<String, Object> auditInfo = (Map<String, Object>) finalExchange.getAttachment(AUDIT_ATTACHMENT_KEY);
-            LOG.trace("auditInfo = {}", auditInfo);
-            if (auditInfo != null && !auditInfo.isEmpty()) {
-                Map<String, String> tags = new HashMap<>();
-                tags.put("endpoint", (String) auditInfo.get(Constants.ENDPOINT_STRING));
-                String clientId = auditInfo.get(Constants.CLIENT_ID_STRING) != null ? (String) auditInfo.get(Constants.CLIENT_ID_STRING) : "unknown";
-                LOG.trace("clientId = {}", clientId);
-                tags.put("clientId", clientId);
-                // scope client id will only be available if two token is used. For example, authorization code flow.
-                if (config.isSendScopeClientId()) {
-                    tags.put("scopeClientId", auditInfo.get(Constants.SCOPE_CLIENT_ID_STRING) != null ? (String) auditInfo.get(Constants.SCOPE_CLIENT_ID_STRING) : "unknown");
-                }
-                // caller id is the calling serviceId that is passed from the caller. It is not always available but some organizations enforce it.
-                if (config.isSendCallerId()) {
-                    tags.put("callerId", auditInfo.get(Constants.CALLER_ID_STRING) != null ? (String) auditInfo.get(Constants.CALLER_ID_STRING) : "unknown");
-                }
-                if (config.isSendIssuer()) {
-                    String issuer = (String) auditInfo.get(Constants.ISSUER_CLAIMS);
-                    if (issuer != null) {
-                        // we need to send issuer as a tag. Do we need to apply regex to extract only a part of the issuer?
-                        if (config.getIssuerRegex() != null) {
-                            Matcher matcher = pattern.matcher(issuer);
-                            if (matcher.find()) {
-                                String iss = matcher.group(1);
-                                LOG.trace("Extracted issuer {} from Original issuer {] is sent.", iss, issuer);
-                                tags.put("issuer", iss != null ? iss : "unknown");
-                            }
-                        } else {
-                            LOG.trace("Original issuer {} is sent.", issuer);
-                            tags.put("issuer", issuer);
+            // the time and the status are taken now, the metrics are updated after the response is returned.
+            final long time = Clock.defaultClock().getTick() - startTime;
+            final int statusCode = finalExchange.getFinalizedResponse(true).getStatusCode();
+            finalExchange.defer(() -> updateMetrics(finalExchange, time, statusCode));
+        });
+        return successMiddlewareStatus();
+    }
+
+    private void updateMetrics(final LightLambdaExchange exchange, final long time, final int statusCode) {
+        AuditInfo auditInfo = exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
+        LOG.trace("auditInfo = {}", auditInfo);
+        if (auditInfo != null && !auditInfo.isEmpty()) {
+            Map<String, String> tags = new HashMap<>();
+            tags.put("endpoint", auditInfo.getEndpoint());
+            String clientId = auditInfo.getClientId() != null ? auditInfo.getClientId() : "unknown";
+            LOG.trace("clientId = {}", clientId);
+            tags.put("clientId", clientId);
+            // scope client id will only be available if two token is used. For example, authorization code flow.
+            if (config.isSendScopeClientId()) {
+                tags.put("scopeClientId", auditInfo.getScopeClientId() != null ? auditInfo.getScopeClientId() : "unknown");
+            }
+            // caller id is the calling serviceId that is passed from the caller. It is not always available but some organizations enforce it.
+            if (config.isSendCallerId()) {
+                tags.put("callerId", auditInfo.getCallerId() != null ? auditInfo.getCallerId() : "unknown");
+            }
+            if (config.isSendIssuer()) {
+                String issuer = auditInfo.getIssuer();
+                if (issuer != null) {
+                    // we need to send issuer as a tag. Do we need to apply regex to extract only a part of the issuer?
+                    if (config.getIssuerRegex() != null) {
+                        Matcher matcher = pattern.matcher(issuer);
+                        if (matcher.find()) {
+                            String iss = matcher.group(1);
+                            LOG.trace("Extracted issuer {} from Original issuer {] is sent.", iss, issuer);
+                            tags.put("issuer", iss != null ? iss : "unknown");
                         }
+                    } else {
+                        LOG.trace("Original issuer {} is sent.", issuer);
+                        tags.put("issuer", issuer);
                     }
                 }
-                MetricName metricName = new MetricName("response_time");
-                metricName = metricName.tagged(commonTags);
-                metricName = metricName.tagged(tags);
-                long time = Clock.defaultClock().getTick() - startTime;
-                registry.getOrAdd(metricName, MetricRegistry.MetricBuilder.TIMERS).update(time, TimeUnit.NANOSECONDS);
-                if (LOG.isTraceEnabled())
-                    LOG.trace("metricName = {} commonTags = {} tags = {}", metricName, JsonMapper.toJson(commonTags), JsonMapper.toJson(tags));
-                incCounterForStatusCode(finalExchange.getFinalizedResponse(true).getStatusCode(), commonTags, tags);
-            } else {
-                // when we reach here, it will be in light-gateway so no specification is loaded on the server and also the security verification is failed.
-                // we need to come up with the endpoint at last to ensure we have some meaningful metrics info populated.
-                LOG.error("auditInfo is null or empty. Please move the path prefix handler to the top of the handler chain after metrics.");
             }
-        });
-        return successMiddlewareStatus();
+            MetricName metricName = new MetricName("response_time");
+            metricName = metricName.tagged(commonTags);
+            metricName = metricName.tagged(tags);
+            registry.getOrAdd(metricName, MetricRegistry.MetricBuilder.TIMERS).update(time, TimeUnit.NANOSECONDS);
+            if (LOG.isTraceEnabled())
+                LOG.trace("metricName = {} commonTags = {} tags = {}", metricName, JsonMapper.toJson(commonTags), JsonMapper.toJson(tags));
+            incCounterForStatusCode(statusCode, commonTags, tags);
+        } else {
+            // when we reach here, it will be in light-gateway so no specification is loaded on the server and also the security verification is failed.
+            // we need to come up with the endpoint at last to ensure we have some meaningful metrics info populated.
+            LOG.error("auditInfo is null or empty. Please move the path prefix handler to the top of the handler chain after metrics.");
+        }
     }
 }
@@ -1,7 +1,9 @@
 package com.networknt.aws.lambda.handler.middleware.metrics;
 
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.config.JsonMapper;
 import com.networknt.metrics.JVMMetricsDbReporter;
 import com.networknt.metrics.MetricsConfig;
@@ -21,7 +23,7 @@ import java.util.regex.Pattern;
 
 import static com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware.AUDIT_ATTACHMENT_KEY;
 
-public abstract class AbstractMetricsMiddleware implements MiddlewareHandler {
+public abstract class AbstractMetricsMiddleware implements MiddlewareHandler, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractMetricsMiddleware.class);
     // The metrics.yml configuration that supports reload.
     protected Pattern pattern;
@@ -76,7 +78,13 @@ public abstract class AbstractMetricsMiddleware implements MiddlewareHandler {
      * @param endpoint           the endpoint that is used to collect the metrics. It is optional and only provided by the external handlers.
      */
     public void injectMetrics(LightLambdaExchange exchange, long startTime, String metricsName, String endpoint) {
-        Map<String, Object> auditInfo = (Map<String, Object>)exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
+        // the time is taken now, the metric is updated after the response is returned.
+        final long time = System.nanoTime() - startTime;
+        exchange.defer(() -> updateInjectedMetrics(exchange, time, metricsName, endpoint));
+    }
+
+    private void updateInjectedMetrics(LightLambdaExchange exchange, long time, String metricsName, String endpoint) {
+        AuditInfo auditInfo = exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
         LOG.trace("auditInfo = {}", auditInfo);
 
         Map<String, String> tags = new HashMap<>();
@@ -85,21 +93,21 @@ public abstract class AbstractMetricsMiddleware implements MiddlewareHandler {
             if (endpoint != null) {
                 tags.put(Constants.ENDPOINT_STRING, endpoint);
             } else {
-                tags.put(Constants.ENDPOINT_STRING, (String) auditInfo.get(Constants.ENDPOINT_STRING));
+                tags.put(Constants.ENDPOINT_STRING, auditInfo.getEndpoint());
             }
-            String clientId = auditInfo.get(Constants.CLIENT_ID_STRING) != null ? (String) auditInfo.get(Constants.CLIENT_ID_STRING) : "unknown";
+            String clientId = auditInfo.getClientId() != null ? auditInfo.getClientId() : "unknown";
             LOG.trace("clientId = {}", clientId);
             tags.put("clientId", clientId);
             // scope client id will only be available if two token is used. For example, authorization code flow.
             if (config.isSendScopeClientId()) {
-                tags.put("scopeClientId", auditInfo.get(Constants.SCOPE_CLIENT_ID_STRING) != null ? (String) auditInfo.get(Constants.SCOPE_CLIENT_ID_STRING) : "unknown");
+                tags.put("scopeClientId", auditInfo.getScopeClientId() != null ? auditInfo.getScopeClientId() : "unknown");
             }
             // caller id is the calling serviceId that is passed from the caller. It is not always available but some organizations enforce it.
             if (config.isSendCallerId()) {
-                tags.put("callerId", auditInfo.get(Constants.CALLER_ID_STRING) != null ? (String) auditInfo.get(Constants.CALLER_ID_STRING) : "unknown");
+                tags.put("callerId", auditInfo.getCallerId() != null ? auditInfo.getCallerId() : "unknown");
             }
             if (config.isSendIssuer()) {
-                String issuer = (String) auditInfo.get(Constants.ISSUER_CLAIMS);
+                String issuer = auditInfo.getIssuer();
                 if (issuer != null) {
                     // we need to send issuer as a tag. Do we need to apply regex to extract only a part of the issuer?
                     if(config.getIssuerRegex() != null) {
@@ -132,7 +140,6 @@ public abstract class AbstractMetricsMiddleware implements MiddlewareHandler {
         MetricName metricName = new MetricName(metricsName);
         metricName = metricName.tagged(commonTags);
         metricName = metricName.tagged(tags);
-        long time = System.nanoTime() - startTime;
         registry.getOrAdd(metricName, MetricRegistry.MetricBuilder.TIMERS).update(time, TimeUnit.NANOSECONDS);
         if(LOG.isTraceEnabled())
             LOG.trace("metricName = {} commonTags = {} tags = {}", metricName, JsonMapper.toJson(commonTags), JsonMapper.toJson(tags));
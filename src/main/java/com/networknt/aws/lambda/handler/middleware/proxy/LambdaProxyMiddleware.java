@@ -1,10 +1,13 @@
 package com.networknt.aws.lambda.handler.middleware.proxy;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.ColdStartProfile;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.handler.Handler;
-import com.networknt.aws.lambda.handler.LambdaHandler;
+import com.networknt.aws.lambda.handler.DependsOn;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.RouteAware;
+import com.networknt.aws.lambda.handler.RouteContext;
 import com.networknt.aws.lambda.handler.middleware.metrics.AbstractMetricsMiddleware;
 import com.networknt.config.JsonMapper;
 import com.networknt.metrics.MetricsConfig;
@@ -30,23 +33,29 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
-public class LambdaProxyMiddleware implements MiddlewareHandler {
+@DependsOn(AbstractMetricsMiddleware.class)
+public class LambdaProxyMiddleware implements MiddlewareHandler, RouteAware {
     private static final Logger LOG = LoggerFactory.getLogger(LambdaProxyMiddleware.class);
     private AbstractMetricsMiddleware metricsMiddleware;
 
     public static final String FAILED_TO_INVOKE_LAMBDA = "ERR10086";
     public static final String EXCHANGE_HAS_FAILED_STATE = "ERR10087";
 
-    private final LambdaAsyncClient client;
+    // rebuilt after a SnapStart restore as the netty connections cannot be restored.
+    private volatile LambdaAsyncClient client;
     private final LambdaProxyConfig config;
+    private final Map<String, String> functions;
     private final Map<String, PathTemplateMatcher<String>> methodToMatcherMap = new HashMap<>();
 
     public LambdaProxyMiddleware() {
         this.config = LambdaProxyConfig.load();
+        final long start = System.nanoTime();
         this.client = initClient(config);
+        ColdStartProfile.phase("lambdaProxyClient", start);
         if (config.isMetricsInjection())
             lookupMetricsMiddleware();
-        populateMethodToMatcherMap(config.getFunctions());
+        this.functions = config.getFunctions();
+        populateMethodToMatcherMap(this.functions);
         LOG.info("LambdaProxyMiddleware is constructed");
     }
 
@@ -59,6 +68,7 @@ public class LambdaProxyMiddleware implements MiddlewareHandler {
     LambdaProxyMiddleware(final Map<String, String> functions) {
         this.config = null;
         this.client = null;
+        this.functions = functions;
         populateMethodToMatcherMap(functions);
     }
 
@@ -98,6 +108,23 @@ public class LambdaProxyMiddleware implements MiddlewareHandler {
         return builder.build();
     }
 
+    @Override
+    public void beforeCheckpoint() {
+        if (this.client != null) {
+            LOG.info("Closing the Lambda client before checkpoint");
+            this.client.close();
+            this.client = null;
+        }
+    }
+
+    @Override
+    public void afterRestore() {
+        if (this.config != null) {
+            LOG.info("Rebuilding the Lambda client after restore");
+            this.client = initClient(this.config);
+        }
+    }
+
     @Override
     public Status execute(LightLambdaExchange exchange) {
         LOG.trace("LambdaProxyMiddleware.execute starts.");
@@ -107,7 +134,11 @@ public class LambdaProxyMiddleware implements MiddlewareHandler {
             var path = exchange.getRequest().getPath();
             var method = normalizeMethod(exchange.getRequest().getHttpMethod());
             LOG.debug("Request path: {} -- Request method: {} -- Start time: {}", path, method, System.currentTimeMillis());
-            var functionName = resolveFunctionName(path, method);
+            // the function is resolved in Handler.init for the routes that map to a single function template.
+            final RouteContext route = RouteContext.of(exchange);
+            var functionName = route == null ? null : route.getFunctionName(this);
+            if (functionName == null)
+                functionName = resolveFunctionName(path, method);
             if (functionName == null) {
                 LOG.error("No lambda function found for path: {} and method: {}", path, method);
                 return new Status(FAILED_TO_INVOKE_LAMBDA, path + "@" + method);
@@ -152,6 +183,29 @@ public class LambdaProxyMiddleware implements MiddlewareHandler {
         return result == null ? null : result.getValue();
     }
 
+    /**
+     * Resolve the function of a route of handler.yml when the route has the same template as a single function of the
+     * config, and no other function template of the method can match a request path of the route.
+     */
+    @Override
+    public void resolveRoute(final RouteContext context) {
+        String functionName = null;
+        for (var entry : this.functions.entrySet()) {
+            var endpoint = entry.getKey();
+            var separatorIndex = endpoint.lastIndexOf('@');
+            if (separatorIndex < 1 || !normalizeMethod(endpoint.substring(separatorIndex + 1)).equals(context.getMethod()))
+                continue;
+            final int result = context.compareTemplate(endpoint.substring(0, separatorIndex), false);
+            if (result == RouteContext.DISJOINT)
+                continue;
+            if (result == RouteContext.OVERLAP || functionName != null)
+                return;
+            functionName = entry.getValue();
+        }
+        if (functionName != null)
+            context.setFunctionName(this, functionName);
+    }
+
     private void populateMethodToMatcherMap(final Map<String, String> functions) {
         this.methodToMatcherMap.clear();
         for (var entry : functions.entrySet()) {
@@ -195,8 +249,11 @@ public class LambdaProxyMiddleware implements MiddlewareHandler {
                     .payload(payload)
                     .build();
             long startTime = System.nanoTime();
+            // the callback can still run after an interrupted wait, when the exchange may serve the next invocation.
+            final int generation = exchange.getGeneration();
             CompletableFuture<String> futureResponse = client.invoke(request)
                     .thenApply(res -> {
+                        exchange.checkGeneration(generation);
                         this.optionalMetricsInject(startTime, exchange);
                         var responseString = res.payload().asUtf8String();
                         if (LOG.isTraceEnabled()) {
@@ -239,8 +296,7 @@ public class LambdaProxyMiddleware implements MiddlewareHandler {
 
     private void lookupMetricsMiddleware() {
         // get the metrics middleware instance from the chain.
-        Map<String, LambdaHandler> handlers = Handler.getHandlers();
-        this.metricsMiddleware = (AbstractMetricsMiddleware) handlers.get(MetricsConfig.CONFIG_NAME);
+        this.metricsMiddleware = (AbstractMetricsMiddleware) Handler.getHandler(MetricsConfig.CONFIG_NAME);
         if (metricsMiddleware == null) {
             LOG.error("An instance of MetricsMiddleware is not configured in the handler.yml file.");
         }
@@ -2,12 +2,12 @@ package com.networknt.aws.lambda.handler.middleware.router;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.handler.Handler;
-import com.networknt.aws.lambda.handler.LambdaHandler;
+import com.networknt.aws.lambda.handler.DependsOn;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
 import com.networknt.aws.lambda.handler.middleware.metrics.AbstractMetricsMiddleware;
-import com.networknt.utility.MapUtil;
 import com.networknt.cluster.Cluster;
 import com.networknt.config.Config;
 import com.networknt.config.JsonMapper;
@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.lambda.LambdaClient;
 
+import java.io.InputStream;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
@@ -31,13 +32,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import static com.networknt.aws.lambda.utility.HeaderKey.SERVICE_ID;
-
 /**
  * This middleware is responsible for routing the incoming request to the
  * external microservices.
  *
  */
+@DependsOn(AbstractMetricsMiddleware.class)
 public class LambdaRouterMiddleware implements MiddlewareHandler {
     private static final Logger LOG = LoggerFactory.getLogger(LambdaRouterMiddleware.class);
     private static AbstractMetricsMiddleware metricsMiddleware;
@@ -63,8 +63,8 @@ public class LambdaRouterMiddleware implements MiddlewareHandler {
 
         // check if the Function-Name is in the header. If it is, we will continue.
         // Otherwise, return immediately.
-        Optional<String> serviceIdOptional = MapUtil.delValueIgnoreCase(exchange.getRequest().getHeaders(), SERVICE_ID);
-        if (serviceIdOptional.isEmpty()) {
+        String serviceId = exchange.getRequestHeaders().remove(LambdaHeaders.SERVICE_ID);
+        if (serviceId == null) {
             LOG.error("service_id is not in the header. Skip LambdaRouterMiddleware.");
             return this.successMiddlewareStatus();
         } else {
@@ -73,7 +73,6 @@ public class LambdaRouterMiddleware implements MiddlewareHandler {
                 // complete.
                 APIGatewayProxyRequestEvent requestEvent = exchange.getFinalizedRequest(false);
                 /* invoke http service */
-                String serviceId = serviceIdOptional.get();
                 var originalPath = requestEvent.getPath();
                 var targetPath = originalPath;
                 var method = requestEvent.getHttpMethod().toLowerCase();
@@ -104,13 +103,7 @@ public class LambdaRouterMiddleware implements MiddlewareHandler {
                                 HttpMethod.valueOf(requestEvent.getHttpMethod()));
                         requestEvent.getHeaders().forEach(builder::header);
                         builder.timeout(Duration.ofMillis(config.getMaxRequestTime()));
-                        HttpResponse<String> response = (HttpResponse<String>) request.send(builder,
-                                HttpResponse.BodyHandlers.ofString());
-                        APIGatewayProxyResponseEvent res = new APIGatewayProxyResponseEvent()
-                                .withStatusCode(response.statusCode())
-                                .withHeaders(convertJdkHeaderToMap(response.headers().map()))
-                                .withIsBase64Encoded(false)
-                                .withBody(response.body());
+                        APIGatewayProxyResponseEvent res = send(exchange, request, builder);
                         if (config.isMetricsInjection()) {
                             if (metricsMiddleware == null)
                                 lookupMetricsMiddleware();
@@ -134,13 +127,7 @@ public class LambdaRouterMiddleware implements MiddlewareHandler {
                                 HttpMethod.valueOf(requestEvent.getHttpMethod()), Optional.of(requestEvent.getBody()));
                         requestEvent.getHeaders().forEach(builder::header);
                         builder.timeout(Duration.ofMillis(config.getMaxRequestTime()));
-                        HttpResponse<String> response = (HttpResponse<String>) request.send(builder,
-                                HttpResponse.BodyHandlers.ofString());
-                        APIGatewayProxyResponseEvent res = new APIGatewayProxyResponseEvent()
-                                .withStatusCode(response.statusCode())
-                                .withHeaders(convertJdkHeaderToMap(response.headers().map()))
-                                .withIsBase64Encoded(false)
-                                .withBody(response.body());
+                        APIGatewayProxyResponseEvent res = send(exchange, request, builder);
                         if (config.isMetricsInjection()) {
                             if (metricsMiddleware == null)
                                 lookupMetricsMiddleware();
@@ -170,6 +157,37 @@ public class LambdaRouterMiddleware implements MiddlewareHandler {
         }
     }
 
+    /**
+     * Sends the request to the backend service. When the exchange allows streaming, the body is handed over as a stream
+     * so that it can be piped to the caller chunk by chunk instead of being buffered as a String.
+     *
+     * @param exchange - the exchange
+     * @param request  - the http client request
+     * @param builder  - the request builder with the url, method, headers and body
+     * @return - the response event without the body if it is streamed
+     * @throws Exception - if the request cannot be sent
+     */
+    @SuppressWarnings("unchecked")
+    private APIGatewayProxyResponseEvent send(final LightLambdaExchange exchange, final HttpClientRequest request, final HttpRequest.Builder builder) throws Exception {
+        if (exchange.canStreamResponse(this)) {
+            HttpResponse<InputStream> response = (HttpResponse<InputStream>) request.send(builder,
+                    HttpResponse.BodyHandlers.ofInputStream());
+            APIGatewayProxyResponseEvent res = new APIGatewayProxyResponseEvent()
+                    .withStatusCode(response.statusCode())
+                    .withHeaders(convertJdkHeaderToMap(response.headers().map()))
+                    .withIsBase64Encoded(false);
+            exchange.setResponseBodyStream(response.body(), res);
+            return res;
+        }
+        HttpResponse<String> response = (HttpResponse<String>) request.send(builder,
+                HttpResponse.BodyHandlers.ofString());
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(response.statusCode())
+                .withHeaders(convertJdkHeaderToMap(response.headers().map()))
+                .withIsBase64Encoded(false)
+                .withBody(response.body());
+    }
+
     private Map<String, String> convertJdkHeaderToMap(final Map<String, List<String>> headers) {
         Map<String, String> map = new HashMap<>();
         for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
@@ -227,8 +245,7 @@ public class LambdaRouterMiddleware implements MiddlewareHandler {
 
     private void lookupMetricsMiddleware() {
         // get the metrics middleware instance from the chain.
-        Map<String, LambdaHandler> handlers = Handler.getHandlers();
-        metricsMiddleware = (AbstractMetricsMiddleware) handlers.get(MetricsConfig.CONFIG_NAME);
+        metricsMiddleware = (AbstractMetricsMiddleware) Handler.getHandler(MetricsConfig.CONFIG_NAME);
         if (metricsMiddleware == null) {
             LOG.error("An instance of MetricsMiddleware is not configured in the handler.yml file.");
         }
@@ -1,12 +1,13 @@
 package com.networknt.aws.lambda.handler.middleware.sanitizer;
 
+import com.networknt.aws.lambda.LambdaHeaders;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.LambdaBody;
 import com.networknt.aws.lambda.LightLambdaExchange;
-import com.networknt.aws.lambda.utility.HeaderKey;
 import com.networknt.config.JsonMapper;
 import com.networknt.sanitizer.SanitizerConfig;
 import com.networknt.status.Status;
-import com.networknt.utility.MapUtil;
 import org.owasp.encoder.EncoderWrapper;
 import org.owasp.encoder.Encoders;
 import org.slf4j.Logger;
@@ -51,9 +52,9 @@ public class SanitizerMiddleware implements MiddlewareHandler {
         }
 
         if (config.isBodyEnabled() && ("POST".equalsIgnoreCase(method) || "PUT".equalsIgnoreCase(method) || "PATCH".equalsIgnoreCase(method))) {
-            String body = exchange.getRequest().getBody();
-            if (body != null && !body.isEmpty()) {
-                body = body.trim();
+            LambdaBody requestBody = exchange.getRequestBody();
+            if (requestBody != null && !requestBody.isEmpty()) {
+                String body = requestBody.getText().trim();
                 // If the payload starts with '{', assume to be an object.
                 if (body.startsWith("{")) {
                     var status = this.sanitizeObjectBody(body, exchange);
@@ -124,10 +125,10 @@ public class SanitizerMiddleware implements MiddlewareHandler {
         }
         try {
             bodyEncoder.encodeNode(bodyMap);
-            exchange.getRequest().setBody(JsonMapper.toJson(bodyMap));
+            exchange.setRequestBody(JsonMapper.toJson(bodyMap));
         } catch (Exception e) {
             LOG.error("Exception while encoding the request body", e);
-            return Optional.of(new Status(GENERIC_EXCEPTION));
+            return Optional.of(ImmutableStatus.of(GENERIC_EXCEPTION));
         }
         return Optional.empty();
     }
@@ -151,10 +152,10 @@ public class SanitizerMiddleware implements MiddlewareHandler {
         }
         try {
             bodyEncoder.encodeList(bodyList);
-            exchange.getRequest().setBody(JsonMapper.toJson(bodyList));
+            exchange.setRequestBody(JsonMapper.toJson(bodyList));
         } catch (Exception e) {
             LOG.error("Exception while encoding the request body", e);
-            return Optional.of(new Status(GENERIC_EXCEPTION));
+            return Optional.of(ImmutableStatus.of(GENERIC_EXCEPTION));
         }
         return Optional.empty();
     }
@@ -166,12 +167,20 @@ public class SanitizerMiddleware implements MiddlewareHandler {
      * @return the Content-Type header value, or "unknown" if not present
      */
     private static String getContentType(LightLambdaExchange exchange) {
-        return MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.CONTENT_TYPE)
-                .orElse("unknown");
+        String contentType = exchange.getRequestHeaders().get(LambdaHeaders.CONTENT_TYPE);
+        return contentType == null ? "unknown" : contentType;
     }
 
     @Override
     public boolean isEnabled() {
         return config.isEnabled();
     }
+
+    /**
+     * Only the request headers and body are sanitized.
+     */
+    @Override
+    public boolean isStreamingSupported() {
+        return true;
+    }
 }
@@ -4,7 +4,8 @@ import com.networknt.apikey.ApiKey;
 import com.networknt.apikey.ApiKeyConfig;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
-import com.networknt.utility.MapUtil;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
 import com.networknt.config.Config;
 import com.networknt.status.Status;
 import com.networknt.utility.HashUtil;
@@ -12,17 +13,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
-public class ApiKeyMiddleware implements MiddlewareHandler {
+public class ApiKeyMiddleware implements MiddlewareHandler, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(ApiKeyMiddleware.class);
     static final String API_KEY_MISMATCH = "ERR10075";
 
     private final ApiKeyConfig config;
+    // the entries of each path prefix in the order of the config.
+    private final PathPrefixTrie<List<ApiKey>> pathPrefixAuths;
 
     public ApiKeyMiddleware() {
         this.config = ApiKeyConfig.load();
+        this.pathPrefixAuths = groupByPrefix(config.getPathPrefixAuths());
         LOG.info("ApiKeyMiddleware is constructed.");
     }
 
@@ -34,6 +39,7 @@ public class ApiKeyMiddleware implements MiddlewareHandler {
     @Deprecated
     public ApiKeyMiddleware(String configName) {
         this.config = ApiKeyConfig.load(configName);
+        this.pathPrefixAuths = groupByPrefix(config.getPathPrefixAuths());
         LOG.info("ApiKeyMiddleware is constructed.");
     }
 
@@ -46,53 +52,65 @@ public class ApiKeyMiddleware implements MiddlewareHandler {
 
     public Status handleApiKey(LightLambdaExchange exchange, String requestPath) {
         LOG.trace("requestPath = {}", requestPath);
-        if (config.getPathPrefixAuths() != null) {
-            boolean matched = false;
-            boolean found = false;
-            // iterate all the ApiKey entries to find if any of them matches the request path.
-            for (ApiKey apiKey : config.getPathPrefixAuths()) {
-                if (requestPath.startsWith(apiKey.getPathPrefix())) {
-                    found = true;
-                    // found the matched prefix, validate the apiKey by getting the header and compare.
-                    Optional<String> optionalKey = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), apiKey.getHeaderName());
-                    if (config.isHashEnabled()) {
-                        // hash the apiKey and compare with the one in the config.
-                        try {
-                            matched = HashUtil.validatePassword(optionalKey.map(String::toCharArray).orElse(null), apiKey.getApiKey());
-                            if (matched) {
-                                LOG.trace("Found valid apiKey with prefix = '{}' headerName = '{}'", apiKey.getPathPrefix(), apiKey.getHeaderName());
-                                break;
-                            }
-                        } catch (Exception e) {
-                            // there is no way to get here as the validatePassword will not throw any exception.
-                            LOG.error("Exception:", e);
-                        }
-                    } else {
-                        // if not hash enabled, then compare the apiKey directly.
-                        if (apiKey.getApiKey().equals(optionalKey.orElse(null))) {
-                            LOG.trace("Found matched apiKey with prefix = {} headerName = {}", apiKey.getPathPrefix(), apiKey.getHeaderName());
-                            matched = true;
-                            break;
-                        }
+        // only the entries of the longest prefix that matches the request path are checked.
+        final List<ApiKey> apiKeys = pathPrefixAuths.match(requestPath);
+        if (apiKeys == null) {
+            // the request path is no in the configuration, consider pass and go to the next handler.
+            return successMiddlewareStatus();
+        }
+        boolean matched = false;
+        for (ApiKey apiKey : apiKeys) {
+            // found the matched prefix, validate the apiKey by getting the header and compare.
+            String key = exchange.getRequestHeaders().get(apiKey.getHeaderName());
+            if (config.isHashEnabled()) {
+                // hash the apiKey and compare with the one in the config.
+                try {
+                    matched = HashUtil.validatePassword(key == null ? null : key.toCharArray(), apiKey.getApiKey());
+                    if (matched) {
+                        LOG.trace("Found valid apiKey with prefix = '{}' headerName = '{}'", apiKey.getPathPrefix(), apiKey.getHeaderName());
+                        break;
                     }
+                } catch (Exception e) {
+                    // there is no way to get here as the validatePassword will not throw any exception.
+                    LOG.error("Exception:", e);
+                }
+            } else {
+                // if not hash enabled, then compare the apiKey directly.
+                if (apiKey.getApiKey().equals(key)) {
+                    LOG.trace("Found matched apiKey with prefix = {} headerName = {}", apiKey.getPathPrefix(), apiKey.getHeaderName());
+                    matched = true;
+                    break;
                 }
-            }
-            if (!found) {
-                // the request path is no in the configuration, consider pass and go to the next handler.
-                return successMiddlewareStatus();
-            }
-            if (!matched) {
-                // at this moment, if not matched, then return an error message.
-                LOG.error("Could not find matched APIKEY for request path '{}'", requestPath);
-                LOG.trace("ApiKeyMiddleware.execute ends with an error.");
-                return new Status(API_KEY_MISMATCH, requestPath);
             }
         }
+        if (!matched) {
+            // at this moment, if not matched, then return an error message.
+            LOG.error("Could not find matched APIKEY for request path '{}'", requestPath);
+            LOG.trace("ApiKeyMiddleware.execute ends with an error.");
+            return new Status(API_KEY_MISMATCH, requestPath);
+        }
         return successMiddlewareStatus();
     }
 
+    private static PathPrefixTrie<List<ApiKey>> groupByPrefix(final List<ApiKey> apiKeys) {
+        final Map<String, List<ApiKey>> prefixes = new LinkedHashMap<>();
+        if (apiKeys != null) {
+            for (ApiKey apiKey : apiKeys)
+                prefixes.computeIfAbsent(apiKey.getPathPrefix(), k -> new ArrayList<>()).add(apiKey);
+        }
+        return PathPrefixTrie.of(prefixes);
+    }
+
     @Override
     public boolean isEnabled() {
         return config.isEnabled();
     }
+
+    /**
+     * The api keys are only read after the construction.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
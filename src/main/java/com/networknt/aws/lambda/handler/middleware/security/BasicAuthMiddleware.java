@@ -1,10 +1,13 @@
 package com.networknt.aws.lambda.handler.middleware.security;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
 import com.networknt.aws.lambda.utility.HeaderKey;
-import com.networknt.utility.MapUtil;
 import com.networknt.basicauth.BasicAuthConfig;
 import com.networknt.basicauth.UserAuth;
 import com.networknt.config.Config;
@@ -16,12 +19,11 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-public class BasicAuthMiddleware implements MiddlewareHandler {
+public class BasicAuthMiddleware implements MiddlewareHandler, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(BasicAuthMiddleware.class);
     static final String BEARER_PREFIX = "BEARER";
     static final String BASIC_PREFIX = "BASIC";
@@ -34,9 +36,12 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
     static final String BEARER_USER_NOT_FOUND = "ERR10072";
 
     private final BasicAuthConfig config;
+    // the authorized path prefixes of each user in the config.
+    private final Map<String, PathPrefixTrie<String>> userPaths = new HashMap<>();
 
     public BasicAuthMiddleware() {
         this.config = BasicAuthConfig.load();
+        initUserPaths();
         LOG.info("BasicAuthMiddleware is constructed.");
     }
 
@@ -48,22 +53,38 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
     @Deprecated
     public BasicAuthMiddleware(String configName) {
         this.config = BasicAuthConfig.load(configName);
+        initUserPaths();
         LOG.info("BasicAuthMiddleware is constructed.");
     }
 
+    private void initUserPaths() {
+        if (config.getUsers() != null) {
+            for (var entry : config.getUsers().entrySet())
+                userPaths.put(entry.getKey(), PathPrefixTrie.of(entry.getValue().getPaths()));
+        }
+    }
+
+    /**
+     * @param username - the key of the user in the config.
+     * @param requestPath - path for current request.
+     * @return true if the request path starts with one of the paths of the user.
+     */
+    private boolean isAuthorized(String username, String requestPath) {
+        final PathPrefixTrie<String> paths = userPaths.get(username);
+        return paths != null && paths.matches(requestPath);
+    }
 
     @Override
     public Status execute(LightLambdaExchange exchange) {
         if(LOG.isDebugEnabled()) LOG.debug("BasicAuthMiddleware.execute starts.");
-        Optional<String> optionalAuth = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.AUTHORIZATION);
+        String auth = exchange.getRequestHeaders().get(LambdaHeaders.AUTHORIZATION);
         String requestPath = exchange.getRequest().getPath();
 
-        if (optionalAuth.isEmpty()) {
+        if (auth == null) {
             /* no auth header */
             return this.handleAnonymousAuth(exchange, requestPath, config);
         } else {
             /* contains auth header */
-            String auth = optionalAuth.get();
             if(auth.trim().isEmpty()) {
                 return this.handleAnonymousAuth(exchange, requestPath, config);
             }
@@ -95,15 +116,7 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
      */
     private Status handleAnonymousAuth(LightLambdaExchange exchange, String requestPath, BasicAuthConfig config) {
         if (config.isAllowAnonymous() && config.getUsers().containsKey(BasicAuthConfig.ANONYMOUS)) {
-            List<String> paths = config.getUsers().get(BasicAuthConfig.ANONYMOUS).getPaths();
-            boolean match = false;
-            for (String path : paths) {
-                if (requestPath.startsWith(path)) {
-                    match = true;
-                    break;
-                }
-            }
-            if (!match) {
+            if (!isAuthorized(BasicAuthConfig.ANONYMOUS, requestPath)) {
                 LOG.error("Request path '{}' is not authorized for user '{}'", requestPath, BasicAuthConfig.ANONYMOUS);
                 Status status = new Status(NOT_AUTHORIZED_REQUEST_PATH, requestPath, BasicAuthConfig.ANONYMOUS);
                 // this is to handler the client with pre-emptive authentication with response code 401
@@ -120,7 +133,7 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
             }
         } else {
             LOG.error("Anonymous is not allowed and authorization header is missing.");
-            Status status = new Status(MISSING_AUTH_TOKEN);
+            Status status = ImmutableStatus.of(MISSING_AUTH_TOKEN);
             // this is to handler the client with pre-emptive authentication with response code 401
             var responseEvent = new APIGatewayProxyResponseEvent();
             var headers = new HashMap<String, String>();
@@ -162,7 +175,7 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
             if (user == null) {
                 LOG.error("User '{}' is not found in the configuration file.", username);
                 if(LOG.isDebugEnabled()) LOG.debug("BasicAuthMiddleware.execute ends with an error.");
-                return new Status(INVALID_USERNAME_OR_PASSWORD);
+                return ImmutableStatus.of(INVALID_USERNAME_OR_PASSWORD);
             }
             // At this point, we know the user is found in the config file.
             if (username.equals(user.getUsername())
@@ -172,7 +185,7 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
                 if(LOG.isTraceEnabled()) LOG.trace("Call LdapUtil with LDAP authentication and authorization for user = {}", username);
                 if (!handleLdapAuth(user, password)) {
                     if(LOG.isDebugEnabled()) LOG.debug("BasicAuthMiddleware.execute ends with an error.");
-                    return new Status(INVALID_USERNAME_OR_PASSWORD);
+                    return ImmutableStatus.of(INVALID_USERNAME_OR_PASSWORD);
                 }
             } else {
                 if(LOG.isTraceEnabled()) LOG.trace("Validate basic auth based on config username {} and password {}", user.getUsername(), StringUtils.maskHalfString(user.getPassword()));
@@ -181,19 +194,12 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
                         && password.equals(user.getPassword()))) {
                     LOG.error("Invalid username or password with authorization header = {}", StringUtils.maskHalfString(auth));
                     if (LOG.isDebugEnabled()) LOG.debug("BasicAuthMiddleware.execute ends with an error.");
-                    return new Status(INVALID_USERNAME_OR_PASSWORD);
+                    return ImmutableStatus.of(INVALID_USERNAME_OR_PASSWORD);
                 }
             }
             // Here we have passed the authentication. Let's do the authorization with the paths.
             if(LOG.isTraceEnabled()) LOG.trace("Username and password validation is done for user = {}", username);
-            boolean match = false;
-            for (String path : user.getPaths()) {
-                if (requestPath.startsWith(path)) {
-                    match = true;
-                    break;
-                }
-            }
-            if (!match) {
+            if (!isAuthorized(username, requestPath)) {
                 LOG.error("Request path '{}' is not authorized for user '{}", requestPath, user.getUsername());
                 if(LOG.isDebugEnabled()) LOG.debug("BasicAuthMiddleware.execute ends with an error.");
                 return new Status(NOT_AUTHORIZED_REQUEST_PATH, requestPath, user.getUsername());
@@ -241,15 +247,7 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
             UserAuth user = config.getUsers().get(BasicAuthConfig.BEARER);
             if (user != null) {
                 // check the path for authorization
-                List<String> paths = user.getPaths();
-                boolean match = false;
-                for (String path : paths) {
-                    if (requestPath.startsWith(path)) {
-                        match = true;
-                        break;
-                    }
-                }
-                if (!match) {
+                if (!isAuthorized(BasicAuthConfig.BEARER, requestPath)) {
                     LOG.error("Request path '{}' is not authorized for user '{}' ", requestPath, BasicAuthConfig.BEARER);
                     if(LOG.isDebugEnabled()) LOG.debug("BasicAuthMiddleware.execute ends with an error.");
                     return new Status(NOT_AUTHORIZED_REQUEST_PATH, requestPath, BasicAuthConfig.BEARER);
@@ -257,7 +255,7 @@ public class BasicAuthMiddleware implements MiddlewareHandler {
             } else {
                 LOG.error("Bearer token is allowed but missing the bearer user path definitions for authorization");
                 if(LOG.isDebugEnabled()) LOG.debug("BasicAuthMiddleware.execute ends with an error.");
-                return new Status(BEARER_USER_NOT_FOUND);
+                return ImmutableStatus.of(BEARER_USER_NOT_FOUND);
             }
         }
         return successMiddlewareStatus();
@@ -1,11 +1,14 @@
 package com.networknt.aws.lambda.handler.middleware.security;
 
+import com.networknt.aws.lambda.LambdaHeaders;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.aws.lambda.handler.middleware.specification.OpenApiMiddleware;
-import com.networknt.aws.lambda.utility.HeaderKey;
 import com.networknt.security.VerificationException;
-import com.networknt.utility.MapUtil;
 import com.networknt.config.Config;
 import com.networknt.exception.ExpiredTokenException;
 import com.networknt.oas.model.Operation;
@@ -25,9 +28,8 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 
 import static com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware.AUDIT_ATTACHMENT_KEY;
-import static com.networknt.aws.lambda.utility.HeaderKey.SCOPE_TOKEN;
 
-public class JwtVerifyMiddleware implements MiddlewareHandler {
+public class JwtVerifyMiddleware implements MiddlewareHandler, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(JwtVerifyMiddleware.class);
 
     static final String STATUS_INVALID_AUTH_TOKEN = "ERR10000";
@@ -43,10 +45,12 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
 
 
     private SecurityConfig config;
+    private PathPrefixTrie<String> skipPathPrefixes;
     private JwtVerifier jwtVerifier;
 
     public JwtVerifyMiddleware() {
         config = SecurityConfig.load();
+        skipPathPrefixes = PathPrefixTrie.of(config.getSkipPathPrefixes());
         if (config.isEnableVerifyJwt()) {
             jwtVerifier = new JwtVerifier(config);
         }
@@ -62,18 +66,30 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
     @Deprecated
     public JwtVerifyMiddleware(String configName) {
         config = SecurityConfig.load(configName);
+        skipPathPrefixes = PathPrefixTrie.of(config.getSkipPathPrefixes());
         if (config.isEnableVerifyJwt()) {
             jwtVerifier = new JwtVerifier(config);
         }
         LOG.info("JwtVerifyMiddleware is constructed");
     }
 
+    /**
+     * The JWK and JWT caches in the snapshot can be stale when the function is restored, so the verifier is rebuilt
+     * to load them again.
+     */
+    @Override
+    public void afterRestore() {
+        if (config.isEnableVerifyJwt()) {
+            jwtVerifier = new JwtVerifier(config);
+        }
+    }
+
     @Override
     public Status execute(LightLambdaExchange exchange) {
         LOG.debug("JwtVerifyMiddleware.executeMiddleware starts");
         LOG.debug("JWT Verification Time - Start: {}", System.currentTimeMillis());
         String reqPath = exchange.getRequest().getPath();
-        if (config.getSkipPathPrefixes() != null && config.getSkipPathPrefixes().stream().anyMatch(reqPath::startsWith)) {
+        if (skipPathPrefixes.matches(reqPath)) {
             LOG.trace("Skip request path base on skipPathPrefixes for {}", reqPath);
             return successMiddlewareStatus();
         }
@@ -82,28 +98,27 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
     }
 
     public Status handleJwt(LightLambdaExchange exchange, String pathPrefix, String reqPath, List<String> jwkServiceIds) {
-        Map<String, Object> auditInfo = null;
-        Map<String, String> headerMap = exchange.getRequest().getHeaders();
-        Optional<String> optionalAuth = MapUtil.getValueIgnoreCase(headerMap, HeaderKey.AUTHORIZATION);
+        AuditInfo auditInfo = null;
+        LambdaHeaders headers = exchange.getRequestHeaders();
+        String authorization = headers.get(LambdaHeaders.AUTHORIZATION);
 
         if (LOG.isTraceEnabled())
-            LOG.trace("pathPrefix = {} and reqPath = {} and headerMap = {}", pathPrefix, reqPath, headerMap.isEmpty() ? "empty" : headerMap.toString());
+            LOG.trace("pathPrefix = {} and reqPath = {} and headerMap = {}", pathPrefix, reqPath, headers.getMap().isEmpty() ? "empty" : headers.toString());
 
         // if an empty authorization header or a value length less than 6 ("Basic "), return an error
-        if (optionalAuth.isEmpty()) {
+        if (authorization == null) {
             LOG.debug("JwtVerifyMiddleware.execute ends with an error. Authorization header value is NULL.");
-            return new Status(STATUS_MISSING_AUTH_TOKEN);
+            return ImmutableStatus.of(STATUS_MISSING_AUTH_TOKEN);
         } else {
             // the authorization header is not empty
-            String authorization = optionalAuth.get();
             if (authorization.trim().length() < 6) {
                 if (LOG.isDebugEnabled()) LOG.debug("JwtVerifyMiddleware.execute ends with an error.");
-                return new Status(STATUS_INVALID_AUTH_TOKEN);
+                return ImmutableStatus.of(STATUS_INVALID_AUTH_TOKEN);
             } else {
                 if (LOG.isTraceEnabled() && authorization.length() > 10)
                     LOG.trace("Authorization header = {}", authorization.substring(0, 10));
 
-                authorization = this.getScopeToken(authorization, headerMap);
+                authorization = this.getScopeToken(authorization, headers);
 
                 boolean ignoreExpiry = config.isIgnoreJwtExpiry();
 
@@ -129,23 +144,20 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
                             userId = claims.getStringClaimValue(Constants.UID);
 
                         /* if no auditInfo has been set previously, we populate here */
-                        auditInfo = (exchange.getAttachment(AUDIT_ATTACHMENT_KEY) != null) ? (Map<String, Object>) exchange.getAttachment(AUDIT_ATTACHMENT_KEY) : new HashMap<>();
-                        auditInfo.put(Constants.USER_ID_STRING, userId);
-                        auditInfo.put(Constants.SUBJECT_CLAIMS, claims);
-                        auditInfo.put(Constants.CLIENT_ID_STRING, clientId);
-                        auditInfo.put(Constants.ISSUER_CLAIMS, issuer);
-                        Map<String, String> headers = exchange.getRequest().getHeaders();
-                        Optional<String> optionalCallerId = MapUtil.getValueIgnoreCase(headers, Constants.CALLER_ID_STRING);
-                        if (optionalCallerId.isPresent())
-                            auditInfo.put(Constants.CALLER_ID_STRING, optionalCallerId.get());
-
-                        exchange.addAttachment(AUDIT_ATTACHMENT_KEY, auditInfo);
+                        auditInfo = AuditInfo.attach(exchange);
+                        auditInfo.setUserId(userId);
+                        auditInfo.setSubjectClaims(claims);
+                        auditInfo.setClientId(clientId);
+                        auditInfo.setIssuer(issuer);
+                        String callerId = headers.get(Constants.CALLER_ID_STRING);
+                        if (callerId != null)
+                            auditInfo.setCallerId(callerId);
 
                         if (config.isEnableVerifyScope()) {
                             LOG.trace("verify scope from the primary token when enableVerifyScope is true");
 
                             /* get openapi operation */
-                            OpenApiOperation openApiOperation = (OpenApiOperation) auditInfo.get(Constants.OPENAPI_OPERATION_STRING);
+                            OpenApiOperation openApiOperation = auditInfo.getOpenApiOperation();
 
                             // here we assume that the OpenApiMiddleware has been executed before this middleware and the openApiOperation is set in the auditInfo.
                             Operation operation = openApiOperation.getOperation();
@@ -156,19 +168,19 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
                                     return successMiddlewareStatus();
                                 }
                                 LOG.debug("JwtVerifyHandler.execute ends with an error.");
-                                return new Status(STATUS_OPENAPI_OPERATION_MISSED);
+                                return ImmutableStatus.of(STATUS_OPENAPI_OPERATION_MISSED);
                             }
 
                             /* validate scope from operation */
-                            Optional<String> optionalScopeHeader = MapUtil.getValueIgnoreCase(headers, SCOPE_TOKEN);
-                            String scopeJwt = JwtVerifier.getTokenFromAuthorization(optionalScopeHeader.orElse(null));
+                            String scopeHeader = headers.get(LambdaHeaders.SCOPE_TOKEN);
+                            String scopeJwt = JwtVerifier.getTokenFromAuthorization(scopeHeader);
                             List<String> secondaryScopes = new ArrayList<>();
                             Status status = this.hasValidSecondaryScopes(scopeJwt, secondaryScopes, ignoreExpiry, pathPrefix, reqPath, jwkServiceIds, auditInfo);
                             if (status != null) {
                                 LOG.debug("JwtVerifyHandler.execute ends with an error.");
                                 return status;
                             }
-                            status = this.hasValidScope(optionalScopeHeader.orElse(null), secondaryScopes, claims, operation);
+                            status = this.hasValidScope(scopeHeader, secondaryScopes, claims, operation);
                             if (status != null) {
                                 LOG.debug("JwtVerifyHandler.execute ends with an error.");
                                 return status;
@@ -196,27 +208,27 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
                         // only log it and unauthorized is returned.
                         LOG.error("InvalidJwtException: ", e);
                         LOG.debug("JwtVerifyHandler.execute ends with an error.");
-                        return new Status(STATUS_INVALID_AUTH_TOKEN);
+                        return ImmutableStatus.of(STATUS_INVALID_AUTH_TOKEN);
 
                     } catch (ExpiredTokenException e) {
                         LOG.error("ExpiredTokenException", e);
                         LOG.debug("JwtVerifyHandler.execute ends with an error.");
-                        return new Status(STATUS_AUTH_TOKEN_EXPIRED);
+                        return ImmutableStatus.of(STATUS_AUTH_TOKEN_EXPIRED);
 
                     } catch (MalformedClaimException e) {
                         LOG.error("MalformedClaimException", e);
                         LOG.debug("JwtVerifyHandler.execute ends with an error.");
-                        return new Status(STATUS_INVALID_AUTH_TOKEN);
+                        return ImmutableStatus.of(STATUS_INVALID_AUTH_TOKEN);
 
                     } catch (VerificationException e) {
                         LOG.error("VerificationException", e);
                         LOG.debug("JwtVerifyHandler.execute ends with an error.");
-                        return new Status(STATUS_INVALID_AUTH_TOKEN);
+                        return ImmutableStatus.of(STATUS_INVALID_AUTH_TOKEN);
 
                     }
                 } else {
                     LOG.debug("JwtVerifyHandler.execute ends with an error. Cannot extract Bearer Token from Authorization header");
-                    return new Status(STATUS_MISSING_AUTH_TOKEN);
+                    return ImmutableStatus.of(STATUS_MISSING_AUTH_TOKEN);
                 }
             }
         }
@@ -227,19 +239,19 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
      * This covers situations where there is a secondary auth token.
      *
      * @param authorization - The auth token from authorization header
-     * @param headerMap     - complete header map
+     * @param headers       - request headers
      * @return - return either x-scope-token or the initial auth token
      */
-    protected String getScopeToken(String authorization, Map<String, String> headerMap) {
+    protected String getScopeToken(String authorization, LambdaHeaders headers) {
         String returnToken = authorization;
         // in the gateway case, the authorization header might be a basic header for the native API or other authentication headers.
         // this will allow the Basic authentication be wrapped up with a JWT token between proxy client and proxy server for native.
         if (returnToken != null && !returnToken.substring(0, 6).equalsIgnoreCase("Bearer")) {
 
             // get the jwt token from the X-Scope-Token header in this case and allow the verification done with the secondary token.
-            Optional<String> optionalScopeToken = MapUtil.getValueIgnoreCase(headerMap, SCOPE_TOKEN);
-            if (optionalScopeToken.isPresent()) {
-                returnToken = optionalScopeToken.get();
+            String scopeToken = headers.get(LambdaHeaders.SCOPE_TOKEN);
+            if (scopeToken != null) {
+                returnToken = scopeToken;
                 if (LOG.isTraceEnabled() && returnToken.length() > 10)
                     LOG.trace("The replaced authorization from X-Scope-Token header = {}", returnToken.substring(0, 10));
             }
@@ -256,10 +268,10 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
      * @param pathPrefix      - request path prefix
      * @param reqPath         - the request path as string
      * @param jwkServiceIds   - a list of serviceIds for jwk loading
-     * @param auditInfo       - a map of audit info properties
+     * @param auditInfo       - the audit info of the exchange
      * @return - return null if there is no error. Otherwise, return the error status.
      */
-    protected Status hasValidSecondaryScopes(String scopeJwt, List<String> secondaryScopes, boolean ignoreExpiry, String pathPrefix, String reqPath, List<String> jwkServiceIds, Map<String, Object> auditInfo) {
+    protected Status hasValidSecondaryScopes(String scopeJwt, List<String> secondaryScopes, boolean ignoreExpiry, String pathPrefix, String reqPath, List<String> jwkServiceIds, AuditInfo auditInfo) {
         if (scopeJwt != null) {
             if (LOG.isTraceEnabled()) LOG.trace("start verifying scope token = {}", scopeJwt.substring(0, 10));
 
@@ -283,17 +295,17 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
                         secondaryScopes.addAll(scopeClaims.getStringListClaimValue(Constants.SCP_STRING));
                     }
                 }
-                auditInfo.put(Constants.SCOPE_CLIENT_ID_STRING, scopeClaims.getStringClaimValue(Constants.CLIENT_ID_STRING));
-                auditInfo.put(Constants.ACCESS_CLAIMS, scopeClaims);
+                auditInfo.setScopeClientId(scopeClaims.getStringClaimValue(Constants.CLIENT_ID_STRING));
+                auditInfo.setAccessClaims(scopeClaims);
             } catch (InvalidJwtException e) {
                 LOG.error("InvalidJwtException", e);
-                return new Status(STATUS_INVALID_SCOPE_TOKEN);
+                return ImmutableStatus.of(STATUS_INVALID_SCOPE_TOKEN);
             } catch (MalformedClaimException e) {
                 LOG.error("MalformedClaimException", e);
-                return new Status(STATUS_INVALID_AUTH_TOKEN);
+                return ImmutableStatus.of(STATUS_INVALID_AUTH_TOKEN);
             } catch (ExpiredTokenException e) {
                 LOG.error("ExpiredTokenException", e);
-                return new Status(STATUS_SCOPE_TOKEN_EXPIRED);
+                return ImmutableStatus.of(STATUS_SCOPE_TOKEN_EXPIRED);
             }
         }
         return null;
@@ -358,7 +370,7 @@ public class JwtVerifyMiddleware implements MiddlewareHandler {
                     }
                 } catch (MalformedClaimException e) {
                     LOG.error("MalformedClaimException", e);
-                    return new Status(STATUS_INVALID_AUTH_TOKEN);
+                    return ImmutableStatus.of(STATUS_INVALID_AUTH_TOKEN);
                 }
                 if (!matchedScopes(primaryScopes, specScopes)) {
                     LOG.error("Authorization token scope is not matched.");
@@ -1,10 +1,13 @@
 package com.networknt.aws.lambda.handler.middleware.security;
 
+import com.networknt.aws.lambda.LambdaHeaders;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.aws.lambda.handler.middleware.specification.OpenApiMiddleware;
-import com.networknt.aws.lambda.utility.HeaderKey;
-import com.networknt.utility.MapUtil;
 import com.networknt.client.oauth.TokenInfo;
 import com.networknt.monad.Result;
 import com.networknt.oas.model.Operation;
@@ -23,9 +26,8 @@ import java.lang.reflect.Field;
 import java.util.*;
 
 import static com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware.AUDIT_ATTACHMENT_KEY;
-import static com.networknt.aws.lambda.utility.HeaderKey.SCOPE_TOKEN;
 
-public class SwtVerifyMiddleware implements MiddlewareHandler {
+public class SwtVerifyMiddleware implements MiddlewareHandler, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(SwtVerifyMiddleware.class);
 
     static final String STATUS_INVALID_AUTH_TOKEN = "ERR10000";
@@ -40,9 +42,11 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
     private volatile SwtVerifier swtVerifier;
     private volatile String configName = SecurityConfig.CONFIG_NAME;
     private final SecurityConfig config;
+    private final PathPrefixTrie<String> skipPathPrefixes;
 
     public SwtVerifyMiddleware() {
         config = SecurityConfig.load(configName);
+        skipPathPrefixes = PathPrefixTrie.of(config.getSkipPathPrefixes());
         swtVerifier = new SwtVerifier(config);
         if (LOG.isInfoEnabled()) LOG.info("SwtVerifyMiddleware is constructed");
     }
@@ -56,6 +60,7 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
     public SwtVerifyMiddleware(String configName) {
         this.configName = configName;
         config = SecurityConfig.load(configName);
+        skipPathPrefixes = PathPrefixTrie.of(config.getSkipPathPrefixes());
         swtVerifier = new SwtVerifier(config);
         if (LOG.isInfoEnabled()) LOG.info("SwtVerifyMiddleware is constructed");
     }
@@ -66,7 +71,7 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
 
         String reqPath = exchange.getRequest().getPath();
         // if request path is in the skipPathPrefixes in the config, call the next handler directly to skip the security check.
-        if (config.getSkipPathPrefixes() != null && config.getSkipPathPrefixes().stream().anyMatch(reqPath::startsWith)) {
+        if (skipPathPrefixes.matches(reqPath)) {
             LOG.trace("Skip request path base on skipPathPrefixes for " + reqPath);
             LOG.debug("SwtVerifyMiddleware.execute ends.");
             return successMiddlewareStatus();
@@ -76,35 +81,34 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
     }
 
     public Status handleSwt(LightLambdaExchange exchange, String reqPath, List<String> jwkServiceIds) {
-        Map<String, Object> auditInfo = null;
-        Map<String, String> headerMap = exchange.getRequest().getHeaders();
-        Optional<String> optionalAuth = MapUtil.getValueIgnoreCase(headerMap, HeaderKey.AUTHORIZATION);
+        AuditInfo auditInfo = null;
+        LambdaHeaders headers = exchange.getRequestHeaders();
+        String authorization = headers.get(LambdaHeaders.AUTHORIZATION);
 
-        LOG.trace("reqPath = {} and headerMap = {}", reqPath, headerMap.isEmpty() ? "empty" : headerMap.toString());
+        LOG.trace("reqPath = {} and headerMap = {}", reqPath, headers.getMap().isEmpty() ? "empty" : headers);
 
         // if an empty authorization header or a value length less than 6 ("Basic "), return an error
-        if (optionalAuth.isEmpty()) {
+        if (authorization == null) {
             LOG.debug("SwtVerifyMiddleware.execute ends with an error. Authorization header value is NULL.");
-            return new Status(STATUS_MISSING_AUTH_TOKEN);
+            return ImmutableStatus.of(STATUS_MISSING_AUTH_TOKEN);
         } else {
             // the authorization header is not empty
-            String authorization = optionalAuth.get();
             if (authorization.trim().length() < 6) {
                 LOG.debug("SwtVerifyMiddleware.execute ends with an error.");
-                return new Status(STATUS_INVALID_AUTH_TOKEN);
+                return ImmutableStatus.of(STATUS_INVALID_AUTH_TOKEN);
             } else {
                 if (LOG.isTraceEnabled() && authorization.length() > 10)
                     LOG.trace("Authorization header = " + authorization.substring(0, 10));
 
-                authorization = this.getScopeToken(authorization, headerMap);
+                authorization = this.getScopeToken(authorization, headers);
                 String swt = SwtVerifier.getTokenFromAuthorization(authorization);
                 if (swt != null) {
                     LOG.trace("parsed swt from authorization = {}", swt.substring(0, 10));
-                    Optional<String> optionalSwtClientId = MapUtil.getValueIgnoreCase(headerMap, config.getSwtClientIdHeader());
-                    Optional<String> optionalSwtClientSecret = MapUtil.getValueIgnoreCase(headerMap, config.getSwtClientSecretHeader());
+                    String swtClientId = headers.get(config.getSwtClientIdHeader());
+                    String swtClientSecret = headers.get(config.getSwtClientSecretHeader());
 
-                    LOG.trace("header swtClientId = {} header swtClientSecret = {}", optionalSwtClientId.orElse(null), StringUtils.maskHalfString(optionalSwtClientSecret.orElse(null)));
-                    Result<TokenInfo> tokenInfoResult = swtVerifier.verifySwt(swt, reqPath, jwkServiceIds, optionalSwtClientId.orElse(null), optionalSwtClientSecret.orElse(null));
+                    LOG.trace("header swtClientId = {} header swtClientSecret = {}", swtClientId, StringUtils.maskHalfString(swtClientSecret));
+                    Result<TokenInfo> tokenInfoResult = swtVerifier.verifySwt(swt, reqPath, jwkServiceIds, swtClientId, swtClientSecret);
                     if (tokenInfoResult.isFailure()) {
                         // return error status to the user.
                         if (LOG.isDebugEnabled()) LOG.debug("SwtVerifyMiddleware.execute ends with an error.");
@@ -112,22 +116,20 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
                     }
                     TokenInfo tokenInfo = tokenInfoResult.getResult();
                     /* if no auditInfo has been set previously, we populate here */
-                    auditInfo = (exchange.getAttachment(AUDIT_ATTACHMENT_KEY) != null) ? (Map<String, Object>) exchange.getAttachment(AUDIT_ATTACHMENT_KEY) : new HashMap<>();
+                    auditInfo = AuditInfo.attach(exchange);
                     String clientId = tokenInfo.getClientId();
-                    auditInfo.put(Constants.CLIENT_ID_STRING, clientId);
+                    auditInfo.setClientId(clientId);
                     String issuer = tokenInfo.getIss();
-                    auditInfo.put(Constants.ISSUER_CLAIMS, issuer);
-                    Map<String, String> headers = exchange.getRequest().getHeaders();
-                    Optional<String> optionalCallerId = MapUtil.getValueIgnoreCase(headers, Constants.CALLER_ID_STRING);
-                    if (optionalCallerId.isPresent())
-                        auditInfo.put(Constants.CALLER_ID_STRING, optionalCallerId.get());
-                    exchange.addAttachment(AUDIT_ATTACHMENT_KEY, auditInfo);
+                    auditInfo.setIssuer(issuer);
+                    String callerId = headers.get(Constants.CALLER_ID_STRING);
+                    if (callerId != null)
+                        auditInfo.setCallerId(callerId);
 
                     if (config.isEnableVerifyScope()) {
                         LOG.trace("verify scope from the primary token when enableVerifyScope is true");
 
                         /* get openapi operation */
-                        OpenApiOperation openApiOperation = (OpenApiOperation) auditInfo.get(Constants.OPENAPI_OPERATION_STRING);
+                        OpenApiOperation openApiOperation = auditInfo.getOpenApiOperation();
                         // here we assume that the OpenApiMiddleware has been executed before this middleware and the openApiOperation is set in the auditInfo.
                         Operation operation = openApiOperation.getOperation();
                         if (operation == null) {
@@ -136,20 +138,20 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
                                 return successMiddlewareStatus();
                             }
                             LOG.debug("SwtVerifyMiddleware.execute ends with an error.");
-                            return new Status(STATUS_OPENAPI_OPERATION_MISSED);
+                            return ImmutableStatus.of(STATUS_OPENAPI_OPERATION_MISSED);
                         }
 
                         /* validate scope from operation */
-                        Optional<String> optionalScopeHeader = MapUtil.getValueIgnoreCase(headerMap, SCOPE_TOKEN);
+                        String scopeHeader = headers.get(LambdaHeaders.SCOPE_TOKEN);
                         List<String> secondaryScopes = new ArrayList<>();
 
-                        Status status = hasValidSecondaryScopes(exchange, optionalScopeHeader.orElse(null), secondaryScopes, reqPath, jwkServiceIds, auditInfo);
+                        Status status = hasValidSecondaryScopes(exchange, scopeHeader, secondaryScopes, reqPath, jwkServiceIds, auditInfo);
                         if (status.getStatusCode() >= 400) {
                             LOG.debug("SwtVerifyMiddleware.execute ends with an error.");
                             return status;
                         }
 
-                        status = hasValidScope(optionalScopeHeader.orElse(null), secondaryScopes, tokenInfo, operation);
+                        status = hasValidScope(scopeHeader, secondaryScopes, tokenInfo, operation);
                         if (status.getStatusCode() >= 400) {
                             LOG.debug("SwtVerifyMiddleware.execute ends with an error.");
                             return status;
@@ -165,7 +167,7 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
                                 field.setAccessible(true);
                                 Object value = field.get(tokenInfo);
                                 LOG.trace("pass through header {} with value {}", header, value);
-                                headerMap.put(header, value.toString());
+                                headers.put(header, value.toString());
                             }
                         } catch (Exception e) {
                             LOG.error("Exception:", e);
@@ -177,7 +179,7 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
                     return successMiddlewareStatus();
                 } else {
                     LOG.debug("SwtVerifyMiddleware.execute ends with an error.");
-                    return new Status(STATUS_MISSING_AUTH_TOKEN);
+                    return ImmutableStatus.of(STATUS_MISSING_AUTH_TOKEN);
                 }
             }
 
@@ -266,20 +268,20 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
      * @param secondaryScopes - Initially an empty list that is then filled with the secondary scopes if there are any.
      * @param reqPath         - the request path as string
      * @param jwkServiceIds   - a list of serviceIds for jwk loading
-     * @param auditInfo       - a map of audit info properties
+     * @param auditInfo       - the audit info of the exchange
      * @return - return Status to indicate valid or not.
      */
-    protected Status hasValidSecondaryScopes(LightLambdaExchange exchange, String scopeSwt, List<String> secondaryScopes, String reqPath, List<String> jwkServiceIds, Map<String, Object> auditInfo) {
+    protected Status hasValidSecondaryScopes(LightLambdaExchange exchange, String scopeSwt, List<String> secondaryScopes, String reqPath, List<String> jwkServiceIds, AuditInfo auditInfo) {
         if (scopeSwt != null) {
             if (LOG.isTraceEnabled())
                 LOG.trace("start verifying scope token = " + scopeSwt.substring(0, 10));
             try {
-                Map<String, String> headerMap = exchange.getRequest().getHeaders();
-                Optional<String> optionalSwtClientId = MapUtil.getValueIgnoreCase(headerMap, config.getSwtClientIdHeader());
-                Optional<String> optionalSwtClientSecret = MapUtil.getValueIgnoreCase(headerMap, config.getSwtClientSecretHeader());
+                LambdaHeaders headers = exchange.getRequestHeaders();
+                String swtClientId = headers.get(config.getSwtClientIdHeader());
+                String swtClientSecret = headers.get(config.getSwtClientSecretHeader());
                 if (LOG.isTraceEnabled())
-                    LOG.trace("header swtClientId = " + optionalSwtClientId.orElse(null) + ", header swtClientSecret = " + StringUtils.maskHalfString(optionalSwtClientSecret.orElse(null)));
-                Result<TokenInfo> scopeTokenInfo = swtVerifier.verifySwt(scopeSwt, reqPath, jwkServiceIds, optionalSwtClientId.orElse(null), optionalSwtClientSecret.orElse(null));
+                    LOG.trace("header swtClientId = " + swtClientId + ", header swtClientSecret = " + StringUtils.maskHalfString(swtClientSecret));
+                Result<TokenInfo> scopeTokenInfo = swtVerifier.verifySwt(scopeSwt, reqPath, jwkServiceIds, swtClientId, swtClientSecret);
                 if (scopeTokenInfo.isFailure()) {
                     return scopeTokenInfo.getError();
                 }
@@ -287,7 +289,7 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
                 String scope = tokenInfo.getScope();
                 if (scope != null) {
                     secondaryScopes.addAll(Arrays.asList(scope.split(" ")));
-                    auditInfo.put(Constants.SCOPE_CLIENT_ID_STRING, tokenInfo.getClientId());
+                    auditInfo.setScopeClientId(tokenInfo.getClientId());
                 }
             } catch (Exception e) {
                 // only the ClientException is possible here.
@@ -303,19 +305,19 @@ public class SwtVerifyMiddleware implements MiddlewareHandler {
      * This covers situations where there is a secondary auth token.
      *
      * @param authorization - The auth token from authorization header
-     * @param headerMap     - complete header map
+     * @param headers       - request headers
      * @return - return either x-scope-token or the initial auth token
      */
-    protected String getScopeToken(String authorization, Map<String, String> headerMap) {
+    protected String getScopeToken(String authorization, LambdaHeaders headers) {
         String returnToken = authorization;
         // in the gateway case, the authorization header might be a basic header for the native API or other authentication headers.
         // this will allow the Basic authentication be wrapped up with a JWT or SWT token between proxy client and proxy server for native.
         if (returnToken != null && !returnToken.substring(0, 6).equalsIgnoreCase("Bearer")) {
 
             // get the jwt token from the X-Scope-Token header in this case and allow the verification done with the secondary token.
-            Optional<String> optionalScopeToken = MapUtil.getValueIgnoreCase(headerMap, SCOPE_TOKEN);
-            if (optionalScopeToken.isPresent()) {
-                returnToken = optionalScopeToken.get();
+            String scopeToken = headers.get(LambdaHeaders.SCOPE_TOKEN);
+            if (scopeToken != null) {
+                returnToken = scopeToken;
                 if (LOG.isTraceEnabled() && returnToken.length() > 10)
                     LOG.trace("The replaced authorization from X-Scope-Token header = " + returnToken.substring(0, 10));
             }
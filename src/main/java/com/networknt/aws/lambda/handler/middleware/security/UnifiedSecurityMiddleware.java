@@ -1,12 +1,16 @@
 package com.networknt.aws.lambda.handler.middleware.security;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.handler.Handler;
-import com.networknt.aws.lambda.handler.LambdaHandler;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
+import com.networknt.aws.lambda.handler.RouteAware;
+import com.networknt.aws.lambda.handler.RouteContext;
 import com.networknt.aws.lambda.LightLambdaExchange;
 import com.networknt.aws.lambda.utility.HeaderKey;
-import com.networknt.utility.MapUtil;
 import com.networknt.config.Config;
 import com.networknt.security.UnifiedPathPrefixAuth;
 import com.networknt.security.UnifiedSecurityConfig;
@@ -16,10 +20,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
 
-public class UnifiedSecurityMiddleware implements MiddlewareHandler {
+public class UnifiedSecurityMiddleware implements MiddlewareHandler, RouteAware, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(UnifiedSecurityMiddleware.class);
     static final String BEARER_PREFIX = "BEARER";
     static final String BASIC_PREFIX = "BASIC";
@@ -31,14 +33,21 @@ public class UnifiedSecurityMiddleware implements MiddlewareHandler {
     static final String HANDLER_NOT_FOUND = "ERR11200";
     static final String MISSING_PATH_PREFIX_AUTH = "ERR10078";
     private final UnifiedSecurityConfig config;
+    private final PathPrefixTrie<String> anonymousPrefixes;
+    private final PathPrefixTrie<UnifiedPathPrefixAuth> pathPrefixAuths;
 
     public UnifiedSecurityMiddleware() {
-        this.config = UnifiedSecurityConfig.load();
-        LOG.info("UnifiedSecurityMiddleware is constructed");
+        this(UnifiedSecurityConfig.load());
     }
 
     public UnifiedSecurityMiddleware(String configName) {
-        this.config = UnifiedSecurityConfig.load(configName);
+        this(UnifiedSecurityConfig.load(configName));
+    }
+
+    private UnifiedSecurityMiddleware(UnifiedSecurityConfig config) {
+        this.config = config;
+        this.anonymousPrefixes = PathPrefixTrie.of(config.getAnonymousPrefixes());
+        this.pathPrefixAuths = PathPrefixTrie.of(config.getPathPrefixAuths(), UnifiedPathPrefixAuth::getPrefix);
         LOG.info("UnifiedSecurityMiddleware is constructed");
     }
 
@@ -48,165 +57,189 @@ public class UnifiedSecurityMiddleware implements MiddlewareHandler {
 
         // need to skip this handler if the response is set by the router handler.
         String reqPath = exchange.getRequest().getPath();
-        // check if the path prefix is in the anonymousPrefixes list. If yes, skip all other check and goes to next handler.
-        if (config.getAnonymousPrefixes() != null && config.getAnonymousPrefixes().stream().anyMatch(reqPath::startsWith)) {
-            LOG.trace("Skip request path base on anonymousPrefixes for {}", reqPath);
-            return successMiddlewareStatus();
+        // the rule of the path prefix is resolved in Handler.init for most routes.
+        final RouteContext route = RouteContext.of(exchange);
+        UnifiedPathPrefixAuth pathPrefixAuth = route == null ? null : route.getPathPrefixAuth(this);
+        if (pathPrefixAuth == null) {
+            // check if the path prefix is in the anonymousPrefixes list. If yes, skip all other check and goes to next handler.
+            if ((route != null && route.isAnonymous(this)) || anonymousPrefixes.matches(reqPath)) {
+                LOG.trace("Skip request path base on anonymousPrefixes for {}", reqPath);
+                return successMiddlewareStatus();
+            }
+            if (config.getPathPrefixAuths() == null) {
+                // pathPrefixAuths is not defined in the values.yml
+                LOG.error("Cannot find pathPrefixAuths definition for {}", reqPath);
+                return new Status(MISSING_PATH_PREFIX_AUTH, reqPath);
+            }
+            // the longest prefix wins, whatever the order of the entries.
+            pathPrefixAuth = pathPrefixAuths.match(reqPath);
+            if (pathPrefixAuth == null) {
+                // cannot find the prefix auth entry for request path.
+                LOG.error("Cannot find prefix entry in pathPrefixAuths for {}", reqPath);
+                return new Status(MISSING_PATH_PREFIX_AUTH, reqPath);
+            }
+        }
+        LOG.trace("Found with requestPath = {} prefix = {}", reqPath, pathPrefixAuth.getPrefix());
+        final Status status = handlePathPrefixAuth(exchange, reqPath, pathPrefixAuth);
+        if (status != null)
+            return status;
+
+        LOG.debug("UnifiedSecurityMiddleware.execute ends.");
+        return successMiddlewareStatus();
+    }
+
+    /**
+     * Resolve the anonymous prefix or the path prefix rule of a route.
+     */
+    @Override
+    public void resolveRoute(final RouteContext context) {
+        if (!context.isResolved(anonymousPrefixes))
+            return;
+        if (context.longestPrefix(anonymousPrefixes) != null) {
+            context.setSecurityRule(this, true, null);
+            return;
         }
-        if (config.getPathPrefixAuths() != null) {
-            boolean found = false;
-            // iterate each entry to check enabled security methods.
-            for (UnifiedPathPrefixAuth pathPrefixAuth : config.getPathPrefixAuths()) {
-                LOG.trace("Check with requestPath = {} prefix = {}", reqPath, pathPrefixAuth.getPrefix());
-                if (reqPath.startsWith(pathPrefixAuth.getPrefix())) {
-                    found = true;
-                    LOG.trace("Found with requestPath = {} prefix = {}", reqPath, pathPrefixAuth.getPrefix());
-                    // check jwt and basic first with authorization header, then check the apikey if it is enabled.
-                    if (pathPrefixAuth.isBasic() || pathPrefixAuth.isJwt() || pathPrefixAuth.isSwt()) {
-                        Optional<String> optionalAuth = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.AUTHORIZATION);
-                        if (optionalAuth.isEmpty()) {
-                            LOG.error("Basic or JWT or SWT is enabled and authorization header is missing.");
-                            // set the WWW-Authenticate header to Basic realm="realm"
-                            if (pathPrefixAuth.isBasic()) {
+        if (!context.isResolved(pathPrefixAuths))
+            return;
+        final UnifiedPathPrefixAuth pathPrefixAuth = context.longestPrefix(pathPrefixAuths);
+        if (pathPrefixAuth != null)
+            context.setSecurityRule(this, false, pathPrefixAuth);
+    }
+
+    /**
+     * Verify the request with the security methods enabled for the path prefix.
+     *
+     * @return the status of the verification or null if no security method or its handler is enabled.
+     */
+    private Status handlePathPrefixAuth(final LightLambdaExchange exchange, final String reqPath, final UnifiedPathPrefixAuth pathPrefixAuth) {
+        // check jwt and basic first with authorization header, then check the apikey if it is enabled.
+        if (pathPrefixAuth.isBasic() || pathPrefixAuth.isJwt() || pathPrefixAuth.isSwt()) {
+            String authorization = exchange.getRequestHeaders().get(LambdaHeaders.AUTHORIZATION);
+            if (authorization == null) {
+                LOG.error("Basic or JWT or SWT is enabled and authorization header is missing.");
+                // set the WWW-Authenticate header to Basic realm="realm"
+                if (pathPrefixAuth.isBasic()) {
 
-                                LOG.trace("Basic is enabled and set WWW-Authenticate header to Basic realm=\"Default Realm\"");
-                                Status status = new Status(MISSING_AUTH_TOKEN);
-                                var responseEvent = new APIGatewayProxyResponseEvent();
-                                var headers = new HashMap<String, String>();
-                                headers.put(HeaderKey.WWW_AUTHENTICATE, "Basic realm=\"Default Realm\"");
-                                responseEvent.setHeaders(headers);
-                                responseEvent.setStatusCode(status.getStatusCode());
-                                responseEvent.setIsBase64Encoded(false);
-                                responseEvent.setBody(status.toString());
-                                exchange.setInitialResponse(responseEvent);
-                                if (LOG.isDebugEnabled())
-                                    LOG.debug("UnifiedSecurityMiddleware.execute ends with an error.");
-                                return status;
+                    LOG.trace("Basic is enabled and set WWW-Authenticate header to Basic realm=\"Default Realm\"");
+                    Status status = ImmutableStatus.of(MISSING_AUTH_TOKEN);
+                    var responseEvent = new APIGatewayProxyResponseEvent();
+                    var headers = new HashMap<String, String>();
+                    headers.put(HeaderKey.WWW_AUTHENTICATE, "Basic realm=\"Default Realm\"");
+                    responseEvent.setHeaders(headers);
+                    responseEvent.setStatusCode(status.getStatusCode());
+                    responseEvent.setIsBase64Encoded(false);
+                    responseEvent.setBody(status.toString());
+                    exchange.setInitialResponse(responseEvent);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("UnifiedSecurityMiddleware.execute ends with an error.");
+                    return status;
+                }
+                if (LOG.isDebugEnabled())
+                    LOG.debug("UnifiedSecurityMiddleware.execute ends with an error.");
+                return ImmutableStatus.of(MISSING_AUTH_TOKEN);
+            } else {
+                // make sure that the length is greater than 5.
+                if (authorization.trim().length() <= 5) {
+                    LOG.error("Invalid/Unsupported authorization header {}", authorization);
+                    return new Status(INVALID_AUTHORIZATION_HEADER, authorization);
+                }
+                // check if it is basic or bearer and handler it differently.
+                if (BASIC_PREFIX.equalsIgnoreCase(authorization.substring(0, 5))) {
+                    BasicAuthMiddleware handler = (BasicAuthMiddleware) Handler.getHandler(BASIC_PREFIX.toLowerCase());
+                    if (handler == null) {
+                        LOG.error("Cannot find BasicAuthMiddleware with alias name basic.");
+                        return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.BasicAuthMiddleware@basic");
+                    } else {
+                        // if the handler is not enabled in the configuration, break here to call next handler.
+                        if (!handler.isEnabled()) {
+                            return null;
+                        }
+                        return handler.handleBasicAuth(exchange, reqPath, authorization);
+                    }
+                } else if (BEARER_PREFIX.equalsIgnoreCase(authorization.substring(0, 6))) {
+                    // in the case that a bearer token is used, there are three scenarios: both jwt and swt are true, only jwt is true and only swt is true
+                    // in the first case, we need to identify if the token is jwt or swt before calling the right handler to verify it.
+                    if (pathPrefixAuth.isJwt() && pathPrefixAuth.isSwt()) {
+                        // both jwt and swt are enabled.
+                        boolean isJwt = StringUtils.isJwtToken(authorization);
+                        if (LOG.isTraceEnabled())
+                            LOG.trace("Both jwt and swt are true and check token is jwt = {}", isJwt);
+                        if (isJwt) {
+                            JwtVerifyMiddleware handler = (JwtVerifyMiddleware) Handler.getHandler(JWT);
+                            if (handler == null) {
+                                LOG.error("Cannot find JwtVerifyMiddleware with alias name jwt.");
+                                return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.JwtVerifyMiddleware@jwt");
+                            } else {
+                                // if the handler is not enabled in the configuration, break here to call next handler.
+                                if (!handler.isEnabled()) {
+                                    return null;
+                                }
+                                // get the jwkServiceIds list.
+                                return handler.handleJwt(exchange, pathPrefixAuth.getPrefix(), reqPath, pathPrefixAuth.getJwkServiceIds());
                             }
-                            if (LOG.isDebugEnabled())
-                                LOG.debug("UnifiedSecurityMiddleware.execute ends with an error.");
-                            return new Status(MISSING_AUTH_TOKEN);
                         } else {
-                            String authorization = optionalAuth.get();
-                            // make sure that the length is greater than 5.
-                            if (authorization.trim().length() <= 5) {
-                                LOG.error("Invalid/Unsupported authorization header {}", authorization);
-                                return new Status(INVALID_AUTHORIZATION_HEADER, authorization);
-                            }
-                            // check if it is basic or bearer and handler it differently.
-                            if (BASIC_PREFIX.equalsIgnoreCase(authorization.substring(0, 5))) {
-                                Map<String, LambdaHandler> handlers = Handler.getHandlers();
-                                BasicAuthMiddleware handler = (BasicAuthMiddleware) handlers.get(BASIC_PREFIX.toLowerCase());
-                                if (handler == null) {
-                                    LOG.error("Cannot find BasicAuthMiddleware with alias name basic.");
-                                    return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.BasicAuthMiddleware@basic");
-                                } else {
-                                    // if the handler is not enabled in the configuration, break here to call next handler.
-                                    if (!handler.isEnabled()) {
-                                        break;
-                                    }
-                                    return handler.handleBasicAuth(exchange, reqPath, authorization);
-                                }
-                            } else if (BEARER_PREFIX.equalsIgnoreCase(authorization.substring(0, 6))) {
-                                // in the case that a bearer token is used, there are three scenarios: both jwt and swt are true, only jwt is true and only swt is true
-                                // in the first case, we need to identify if the token is jwt or swt before calling the right handler to verify it.
-                                Map<String, LambdaHandler> handlers = Handler.getHandlers();
-                                if (pathPrefixAuth.isJwt() && pathPrefixAuth.isSwt()) {
-                                    // both jwt and swt are enabled.
-                                    boolean isJwt = StringUtils.isJwtToken(authorization);
-                                    if (LOG.isTraceEnabled())
-                                        LOG.trace("Both jwt and swt are true and check token is jwt = {}", isJwt);
-                                    if (isJwt) {
-                                        JwtVerifyMiddleware handler = (JwtVerifyMiddleware) handlers.get(JWT);
-                                        if (handler == null) {
-                                            LOG.error("Cannot find JwtVerifyMiddleware with alias name jwt.");
-                                            return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.JwtVerifyMiddleware@jwt");
-                                        } else {
-                                            // if the handler is not enabled in the configuration, break here to call next handler.
-                                            if (!handler.isEnabled()) {
-                                                break;
-                                            }
-                                            // get the jwkServiceIds list.
-                                            return handler.handleJwt(exchange, pathPrefixAuth.getPrefix(), reqPath, pathPrefixAuth.getJwkServiceIds());
-                                        }
-                                    } else {
-                                        SwtVerifyMiddleware handler = (SwtVerifyMiddleware) handlers.get(SWT);
-                                        if (handler == null) {
-                                            LOG.error("Cannot find SwtVerifyMiddleware with alias name swt.");
-                                            return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.SwtVerifyMiddleware@swt");
-                                        } else {
-                                            // if the handler is not enabled in the configuration, break here to call next handler.
-                                            if (!handler.isEnabled()) {
-                                                break;
-                                            }
-                                            // get the jwkServiceIds list.
-                                            return handler.handleSwt(exchange, reqPath, pathPrefixAuth.getSwtServiceIds());
-                                        }
-                                    }
-                                } else if (pathPrefixAuth.isJwt()) {
-                                    // only jwt is enabled
-                                    JwtVerifyMiddleware handler = (JwtVerifyMiddleware) handlers.get(JWT);
-                                    if (handler == null) {
-                                        LOG.error("Cannot find JwtVerifyMiddleware with alias name jwt.");
-                                        return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.JwtVerifyMiddleware@jwt");
-                                    } else {
-                                        // if the handler is not enabled in the configuration, break here to call next handler.
-                                        if (!handler.isEnabled()) {
-                                            break;
-                                        }
-                                        // get the jwkServiceIds list.
-                                        return handler.handleJwt(exchange, pathPrefixAuth.getPrefix(), reqPath, pathPrefixAuth.getJwkServiceIds());
-                                    }
-                                } else {
-                                    // only swt is enabled
-                                    SwtVerifyMiddleware handler = (SwtVerifyMiddleware) handlers.get(SWT);
-                                    if (handler == null) {
-                                        LOG.error("Cannot find SwtVerifyMiddleware with alias name swt.");
-                                        return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.SwtVerifyMiddleware@swt");
-                                    } else {
-                                        // if the handler is not enabled in the configuration, break here to call next handler.
-                                        if (!handler.isEnabled()) {
-                                            break;
-                                        }
-                                        // get the jwkServiceIds list.
-                                        return handler.handleSwt(exchange, reqPath, pathPrefixAuth.getSwtServiceIds());
-                                    }
-                                }
+                            SwtVerifyMiddleware handler = (SwtVerifyMiddleware) Handler.getHandler(SWT);
+                            if (handler == null) {
+                                LOG.error("Cannot find SwtVerifyMiddleware with alias name swt.");
+                                return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.SwtVerifyMiddleware@swt");
                             } else {
-                                String s = authorization.length() > 10 ? authorization.substring(0, 10) : authorization;
-                                LOG.error("Invalid/Unsupported authorization header {}", s);
-                                return new Status(INVALID_AUTHORIZATION_HEADER, s);
+                                // if the handler is not enabled in the configuration, break here to call next handler.
+                                if (!handler.isEnabled()) {
+                                    return null;
+                                }
+                                // get the jwkServiceIds list.
+                                return handler.handleSwt(exchange, reqPath, pathPrefixAuth.getSwtServiceIds());
+                            }
+                        }
+                    } else if (pathPrefixAuth.isJwt()) {
+                        // only jwt is enabled
+                        JwtVerifyMiddleware handler = (JwtVerifyMiddleware) Handler.getHandler(JWT);
+                        if (handler == null) {
+                            LOG.error("Cannot find JwtVerifyMiddleware with alias name jwt.");
+                            return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.JwtVerifyMiddleware@jwt");
+                        } else {
+                            // if the handler is not enabled in the configuration, break here to call next handler.
+                            if (!handler.isEnabled()) {
+                                return null;
                             }
+                            // get the jwkServiceIds list.
+                            return handler.handleJwt(exchange, pathPrefixAuth.getPrefix(), reqPath, pathPrefixAuth.getJwkServiceIds());
                         }
-                    } else if (pathPrefixAuth.isApikey()) {
-                        Map<String, LambdaHandler> handlers = Handler.getHandlers();
-                        ApiKeyMiddleware handler = (ApiKeyMiddleware) handlers.get(API_KEY);
+                    } else {
+                        // only swt is enabled
+                        SwtVerifyMiddleware handler = (SwtVerifyMiddleware) Handler.getHandler(SWT);
                         if (handler == null) {
-                            LOG.error("Cannot find ApiKeyMiddleware with alias name apikey.");
-                            return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.ApiKeyMiddleware@apikey");
+                            LOG.error("Cannot find SwtVerifyMiddleware with alias name swt.");
+                            return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.SwtVerifyMiddleware@swt");
                         } else {
                             // if the handler is not enabled in the configuration, break here to call next handler.
                             if (!handler.isEnabled()) {
-                                break;
+                                return null;
                             }
-                            return handler.handleApiKey(exchange, reqPath);
+                            // get the jwkServiceIds list.
+                            return handler.handleSwt(exchange, reqPath, pathPrefixAuth.getSwtServiceIds());
                         }
                     }
+                } else {
+                    String s = authorization.length() > 10 ? authorization.substring(0, 10) : authorization;
+                    LOG.error("Invalid/Unsupported authorization header {}", s);
+                    return new Status(INVALID_AUTHORIZATION_HEADER, s);
                 }
             }
-            if (!found) {
-                // cannot find the prefix auth entry for request path.
-                LOG.error("Cannot find prefix entry in pathPrefixAuths for {}", reqPath);
-                return new Status(MISSING_PATH_PREFIX_AUTH, reqPath);
+        } else if (pathPrefixAuth.isApikey()) {
+            ApiKeyMiddleware handler = (ApiKeyMiddleware) Handler.getHandler(API_KEY);
+            if (handler == null) {
+                LOG.error("Cannot find ApiKeyMiddleware with alias name apikey.");
+                return new Status(HANDLER_NOT_FOUND, "com.networknt.aws.lambda.handler.middleware.security.ApiKeyMiddleware@apikey");
+            } else {
+                // if the handler is not enabled in the configuration, break here to call next handler.
+                if (!handler.isEnabled()) {
+                    return null;
+                }
+                return handler.handleApiKey(exchange, reqPath);
             }
-        } else {
-            // pathPrefixAuths is not defined in the values.yml
-            LOG.error("Cannot find pathPrefixAuths definition for {}", reqPath);
-            return new Status(MISSING_PATH_PREFIX_AUTH, reqPath);
         }
-
-        LOG.debug("UnifiedSecurityMiddleware.execute ends.");
-        return successMiddlewareStatus();
+        return null;
     }
 
     @Override
@@ -214,4 +247,11 @@ public class UnifiedSecurityMiddleware implements MiddlewareHandler {
         return config.isEnabled();
     }
 
+    /**
+     * Only the request is verified.
+     */
+    @Override
+    public boolean isStreamingSupported() {
+        return true;
+    }
 }
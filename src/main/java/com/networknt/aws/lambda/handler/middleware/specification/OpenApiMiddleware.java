@@ -3,23 +3,27 @@ package com.networknt.aws.lambda.handler.middleware.specification;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.RouteAware;
+import com.networknt.aws.lambda.handler.RouteContext;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.config.Config;
 import com.networknt.oas.model.Operation;
 import com.networknt.oas.model.Path;
 import com.networknt.openapi.*;
 import com.networknt.service.SingletonServiceFactory;
 import com.networknt.status.Status;
-import com.networknt.utility.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware.AUDIT_ATTACHMENT_KEY;
 
-public class OpenApiMiddleware implements MiddlewareHandler {
+public class OpenApiMiddleware implements MiddlewareHandler, RouteAware {
     private static final Logger LOG = LoggerFactory.getLogger(OpenApiMiddleware.class);
     private static final String STATUS_METHOD_NOT_ALLOWED = "ERR10008";
     private static final String STATUS_INVALID_REQUEST_PATH = "ERR10007";
@@ -29,9 +33,26 @@ public class OpenApiMiddleware implements MiddlewareHandler {
     private final OpenApiHandlerConfig config;
 
     public static OpenApiHelper helper;
+    // set when the helper is built into the native image heap by the LambdaNativeFeature.
+    private static boolean prebuilt;
 
     public OpenApiMiddleware() {
         this.config = OpenApiHandlerConfig.load();
+        if (!prebuilt)
+            helper = loadHelper();
+        LOG.info("OpenApiMiddleware is constructed");
+    }
+
+    /**
+     * Parse the openapi.yaml and merge the openapi-inject once so that the constructor doesn't need to do it at cold start.
+     * It is called by the LambdaNativeFeature during the native image build.
+     */
+    public static synchronized void prebuild() {
+        helper = loadHelper();
+        prebuilt = true;
+    }
+
+    private static OpenApiHelper loadHelper() {
         Map<String, Object> inject = Config.getInstance().getJsonMapConfig(SPEC_INJECT);
         Map<String, Object> openapi = Config.getInstance().getJsonMapConfigNoCache(OPENAPI_NAME);
         validateSpec(openapi, inject, "openapi.yaml");
@@ -39,12 +60,47 @@ public class OpenApiMiddleware implements MiddlewareHandler {
         try {
             String openapiString = Config.getInstance().getMapper().writeValueAsString(openapi);
             LOG.trace("OpenApiMiddleware openapiString: {}", openapiString);
-            helper = new OpenApiHelper(openapiString);
+            return new OpenApiHelper(openapiString);
         } catch (JsonProcessingException e) {
             LOG.error("merge specification failed");
             throw new RuntimeException("merge specification failed");
         }
-        LOG.info("OpenApiMiddleware is constructed");
+    }
+
+    /**
+     * Find the operation of the specification for a route of handler.yml. It is only resolved when a single path of
+     * the specification can match the request paths of the route, and it has the path parameters at the same segments.
+     */
+    @Override
+    public void resolveRoute(final RouteContext context) {
+        if (helper == null || helper.openApi3 == null)
+            return;
+        final String template = new ApiNormalisedPath(context.getTemplate(), helper.basePath).normalised();
+        NormalisedPath match = null;
+        for (String specPath : helper.openApi3.getPaths().keySet()) {
+            final NormalisedPath apiPath = new ApiNormalisedPath(specPath, helper.basePath);
+            final int result = RouteContext.compareTemplates(template, apiPath.normalised(), true);
+            if (result == RouteContext.DISJOINT)
+                continue;
+            // the request paths of the route may match more than one path of the specification.
+            if (result == RouteContext.OVERLAP || match != null)
+                return;
+            match = apiPath;
+        }
+        if (match == null)
+            return;
+        final Path path = helper.openApi3.getPath(match.original());
+        final Operation operation = path.getOperation(context.getMethod());
+        if (operation == null)
+            return;
+        final List<String> names = new ArrayList<>();
+        for (String part : match.parts()) {
+            if (part.startsWith("{") && part.endsWith("}"))
+                names.add(part.substring(1, part.length() - 1));
+        }
+        if (names.size() != context.getRoute().getParameterNames().length)
+            return;
+        context.setOpenApiOperation(new OpenApiOperation(match, path, context.getMethod(), operation), names.toArray(new String[0]));
     }
 
     @Override
@@ -52,6 +108,12 @@ public class OpenApiMiddleware implements MiddlewareHandler {
         if (LOG.isTraceEnabled()) {
             LOG.trace("OpenApiMiddleware.execute starts with path = {} and basePath = {}.", exchange.getRequest().getPath(), helper.basePath);
         }
+        // the operation is resolved in Handler.init for most routes, so the specification is only searched for the others.
+        final RouteContext route = RouteContext.of(exchange);
+        if (route != null && route.getOpenApiOperation() != null) {
+            exchange.getRequest().setPathParameters(this.getPathParamsMap(exchange.getRequest().getPathParameters(), route));
+            return this.attachOperation(exchange, route.getOpenApiOperation());
+        }
         final NormalisedPath requestPath = new ApiNormalisedPath(exchange.getRequest().getPath(), helper.basePath);
         if (LOG.isTraceEnabled()) {
             LOG.trace("requestPath original {} and normalized {}", requestPath.original(), requestPath.normalised());
@@ -75,13 +137,14 @@ public class OpenApiMiddleware implements MiddlewareHandler {
         }
 
         // This handler can identify the openApiOperation and endpoint only. Other info will be added by JwtVerifyHandler.
-        final OpenApiOperation openApiOperation = new OpenApiOperation(openApiPathString, path, httpMethod, operation);
+        return this.attachOperation(exchange, new OpenApiOperation(openApiPathString, path, httpMethod, operation));
+    }
 
-        String endpoint = openApiPathString.normalised() + "@" + httpMethod.toLowerCase();
-        Map<String, Object> auditInfo = (exchange.getAttachment(AUDIT_ATTACHMENT_KEY) != null) ? (Map<String, Object>) exchange.getAttachment(AUDIT_ATTACHMENT_KEY) : new HashMap<>();
-        auditInfo.put(Constants.ENDPOINT_STRING, endpoint);
-        auditInfo.put(Constants.OPENAPI_OPERATION_STRING, openApiOperation);
-        exchange.addAttachment(AUDIT_ATTACHMENT_KEY, auditInfo);
+    private Status attachOperation(final LightLambdaExchange exchange, final OpenApiOperation openApiOperation) {
+        String endpoint = openApiOperation.getPathString().normalised() + "@" + openApiOperation.getMethod();
+        AuditInfo auditInfo = AuditInfo.attach(exchange);
+        auditInfo.setEndpoint(endpoint);
+        auditInfo.setOpenApiOperation(openApiOperation);
 
         if (LOG.isDebugEnabled())
             LOG.debug("OpenApiMiddleware.executeMiddleware ends.");
@@ -91,6 +154,22 @@ public class OpenApiMiddleware implements MiddlewareHandler {
         return successMiddlewareStatus();
     }
 
+    /**
+     * Renames the path parameters injected by Handler.getChain to the names of the specification.
+     *
+     * @param values - the path parameters of the request keyed by the names in handler.yml.
+     * @param route - the context of the route with the operation resolved.
+     * @return - returns a map containing the path parameter names and values.
+     */
+    private Map<String, String> getPathParamsMap(final Map<String, String> values, final RouteContext route) {
+        final String[] names = route.getRoute().getParameterNames();
+        final String[] specNames = route.getOpenApiParameterNames();
+        final var params = new HashMap<String, String>();
+        for (int i = 0; i < names.length; i++)
+            params.put(specNames[i], values.get(names[i]));
+        return params;
+    }
+
     /**
      * Grabs the path parameters from the original path based on the provided specification path.
      *
@@ -133,7 +212,7 @@ public class OpenApiMiddleware implements MiddlewareHandler {
      * @param openapiInjectMap - inject map
      * @param specName - name of the openapiSpec
      */
-    private void validateSpec(Map<String, Object> openapiMap, Map<String, Object> openapiInjectMap, String specName) {
+    private static void validateSpec(Map<String, Object> openapiMap, Map<String, Object> openapiInjectMap, String specName) {
         InjectableSpecValidator validator = SingletonServiceFactory.getBean(InjectableSpecValidator.class);
         if (validator == null) {
             validator = new DefaultInjectableSpecValidator();
@@ -163,4 +242,11 @@ public class OpenApiMiddleware implements MiddlewareHandler {
         }
     }
 
+    /**
+     * Only the request is used to find the OpenAPI operation.
+     */
+    @Override
+    public boolean isStreamingSupported() {
+        return true;
+    }
 }
@@ -1,12 +1,15 @@
 package com.networknt.aws.lambda.handler.middleware.token;
 
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.cache.DynamoDbCacheManager;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
 import com.networknt.aws.lambda.utility.HeaderKey;
 import com.networknt.client.AuthServerConfig;
 import com.networknt.client.OAuthTokenClientCredentialConfig;
 import com.networknt.client.OAuthTokenConfig;
-import com.networknt.utility.MapUtil;
 import com.networknt.cache.CacheManager;
 import com.networknt.client.ClientConfig;
 import com.networknt.client.oauth.Jwt;
@@ -22,7 +25,6 @@ import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.tokens.Token;
 
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * This middleware is used to get the jwt token for the client credential grant type and put it into the Authorization
@@ -35,16 +37,18 @@ import java.util.Optional;
  * it is going to be used to invoke the downstream API, otherwise, the downstream URL will be discovered from the config.
  *
  */
-public class TokenMiddleware implements MiddlewareHandler {
+public class TokenMiddleware implements MiddlewareHandler, ParallelSafe {
     private static final Logger LOG = LoggerFactory.getLogger(TokenMiddleware.class);
     private static final String HANDLER_DEPENDENCY_ERROR = "ERR10074";
     private static final String TOKEN = "token";
 
     private final CacheManager cacheManager;
     private final TokenConfig config;
+    private final PathPrefixTrie<String> appliedPathPrefixes;
 
     public TokenMiddleware() {
         this.config = TokenConfig.load();
+        this.appliedPathPrefixes = PathPrefixTrie.of(config.getAppliedPathPrefixes());
         this.cacheManager = CacheManager.getInstance();
         LOG.info("TokenMiddleware is constructed");
     }
@@ -56,25 +60,36 @@ public class TokenMiddleware implements MiddlewareHandler {
     @Deprecated
     public TokenMiddleware(String configName) {
         this.config = TokenConfig.load(configName);
+        this.appliedPathPrefixes = PathPrefixTrie.of(config.getAppliedPathPrefixes());
         this.cacheManager = CacheManager.getInstance();
         LOG.info("TokenMiddleware is constructed");
     }
 
+    /**
+     * The tokens cached in memory may expire while the snapshot is stored, so they are removed after restore. The
+     * DynamoDB cache is shared with the other instances and is left as it is.
+     */
+    @Override
+    public void afterRestore() {
+        if (cacheManager != null && !(cacheManager instanceof DynamoDbCacheManager))
+            cacheManager.clear(TOKEN);
+    }
+
     @Override
     public Status execute(LightLambdaExchange exchange) {
         // This handler must be put after the prefix or dict handler so that the serviceId is
         // readily available in the header resolved by the path or the endpoint from the request.
         LOG.debug("TokenMiddleware.execute starts.");
         // get the service_url from the header to determine if the request needs to be handled.
-        Optional<String> optionalServiceId = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.SERVICE_ID);
-        if(optionalServiceId.isEmpty()) {
+        final LambdaHeaders headers = exchange.getRequestHeaders();
+        String serviceId = headers.get(LambdaHeaders.SERVICE_ID);
+        if(serviceId == null) {
             LOG.debug("TokenMiddleware.execute ends. The service_id is not in the header.");
             return successMiddlewareStatus();
         }
         String requestPath = exchange.getRequest().getPath();
         // this handler will only work with a list of applied path prefixes in the token.yml config file.
-        if (config.getAppliedPathPrefixes() != null && config.getAppliedPathPrefixes().stream().anyMatch(requestPath::startsWith)) {
-            String serviceId = optionalServiceId.get();
+        if (appliedPathPrefixes.matches(requestPath)) {
             Result<Jwt> result = getJwtToken(serviceId);
             if(result.isFailure()) {
                 LOG.error("Cannot populate or renew jwt for client credential grant type: {}", result.getError().toString());
@@ -87,17 +102,16 @@ public class TokenMiddleware implements MiddlewareHandler {
                 // We will keep this token in the Authorization header but create a new token with
                 // client credentials grant type with scopes for the particular client. (Can we just
                 // assume that the subject token has the scope already?)
-                Optional<String> optionalToken = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.AUTHORIZATION);
-                if(optionalToken.isEmpty()) {
+                String token = headers.get(LambdaHeaders.AUTHORIZATION);
+                if(token == null) {
                     LOG.trace("Adding jwt token to Authorization header with Bearer {}", cachedJwt.getJwt().substring(0, 20));
-                    exchange.getRequest().getHeaders().put(HeaderKey.AUTHORIZATION, "Bearer " + cachedJwt.getJwt());
+                    headers.put(HeaderKey.AUTHORIZATION, "Bearer " + cachedJwt.getJwt());
                 } else {
-                    String token = optionalToken.get();
                     if(LOG.isTraceEnabled()) {
                         LOG.trace("Authorization header is used with {}", token.length() > 10 ? token.substring(0, 10) : token); // it could be "Basic "
                         LOG.trace("Adding jwt token to X-Scope-Token header with Bearer {}", cachedJwt.getJwt().substring(0, 20));
                     }
-                    exchange.getRequest().getHeaders().put(HeaderKey.SCOPE_TOKEN, "Bearer " + cachedJwt.getJwt());
+                    headers.put(HeaderKey.SCOPE_TOKEN, "Bearer " + cachedJwt.getJwt());
                 }
             }
         }
@@ -1,19 +1,17 @@
 package com.networknt.aws.lambda.handler.middleware.traceability;
 
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.LambdaHeaders;
 import com.networknt.aws.lambda.LightLambdaExchange;
-import com.networknt.aws.lambda.utility.HeaderKey;
 import com.networknt.aws.lambda.utility.LoggerKey;
 import com.networknt.config.Config;
 import com.networknt.status.Status;
 import com.networknt.traceability.TraceabilityConfig;
-import com.networknt.utility.MapUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import java.util.HashMap;
-import java.util.Optional;
 
 @Deprecated
 public class TraceabilityMiddleware implements MiddlewareHandler {
@@ -29,11 +27,7 @@ public class TraceabilityMiddleware implements MiddlewareHandler {
     public Status execute(final LightLambdaExchange exchange) {
         LOG.debug("TraceabilityMiddleware.executeMiddleware starts.");
 
-        String tid = null;
-        if(exchange.getRequest() != null && exchange.getRequest().getHeaders() != null) {
-            Optional<String> tidOptional = MapUtil.getValueIgnoreCase(exchange.getRequest().getHeaders(), HeaderKey.TRACEABILITY);
-            tid = tidOptional.orElse(null);
-        }
+        String tid = exchange.getRequestHeaders().get(LambdaHeaders.TRACEABILITY);
 
         if (tid != null) {
             MDC.put(LoggerKey.TRACEABILITY, tid);
@@ -48,4 +42,9 @@ public class TraceabilityMiddleware implements MiddlewareHandler {
     public boolean isEnabled() {
         return this.config.isEnabled();
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -1,7 +1,10 @@
 package com.networknt.aws.lambda.handler.middleware.transformer;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaBody;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.aws.lambda.utility.HeaderKey;
 import com.networknt.aws.lambda.utility.HeaderValue;
 import com.networknt.config.JsonMapper;
@@ -10,7 +13,6 @@ import com.networknt.rule.*;
 import com.networknt.service.SingletonServiceFactory;
 import com.networknt.status.Status;
 import com.networknt.utility.ConfigUtils;
-import com.networknt.utility.MapUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,10 +29,12 @@ public class RequestTransformerMiddleware extends AbstractTransformerMiddleware
     private static final String STATUS_SERVICE_NOT_FOUND = "ERR11406";
 
     private final RequestTransformerConfig config;
+    private final PathPrefixTrie<String> appliedPathPrefixes;
 
     public RequestTransformerMiddleware() {
         super();
         config = RequestTransformerConfig.load();
+        appliedPathPrefixes = PathPrefixTrie.of(config.getAppliedPathPrefixes());
         LOG.info("RequestTransformerMiddleware is constructed");
     }
 
@@ -42,6 +46,7 @@ public class RequestTransformerMiddleware extends AbstractTransformerMiddleware
     public RequestTransformerMiddleware(String configName) {
         super();
         config = RequestTransformerConfig.load(configName);
+        appliedPathPrefixes = PathPrefixTrie.of(config.getAppliedPathPrefixes());
         LOG.info("RequestTransformerMiddleware is constructed");
     }
 
@@ -49,9 +54,9 @@ public class RequestTransformerMiddleware extends AbstractTransformerMiddleware
     public Status execute(LightLambdaExchange exchange) {
         LOG.trace("RequestTransformerMiddleware.execute starts.");
         String requestPath = exchange.getRequest().getPath();
-        if (config.getAppliedPathPrefixes() != null && config.getAppliedPathPrefixes().stream().anyMatch(requestPath::startsWith)) {
+        if (appliedPathPrefixes.matches(requestPath)) {
             String method = exchange.getRequest().getHttpMethod();
-            Map<String, Object> auditInfo = (Map<String, Object>) exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
+            AuditInfo auditInfo = exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
             // Check the RuleExecutor to ensure it is loaded. If not, return an error to the caller.
             RuleExecutor ruleExecutor = SingletonServiceFactory.getBean(RuleExecutor.class);
             Map<String, Object> endpointRules = null;
@@ -84,7 +89,7 @@ public class RequestTransformerMiddleware extends AbstractTransformerMiddleware
                             boolean finalResult = true;
                             // call the rule engine to transform the request metadata or body. The input contains all the request elements
                             Map<String, Object> objMap = new HashMap<>();
-                            objMap.put("auditInfo", auditInfo);
+                            objMap.put("auditInfo", auditInfo == null ? null : auditInfo.asMap());
                             objMap.put("requestHeaders", exchange.getRequest().getHeaders());
                             objMap.put("queryParameters", exchange.getRequest().getQueryStringParameters());
                             objMap.put("pathParameters", exchange.getRequest().getPathParameters());
@@ -94,9 +99,9 @@ public class RequestTransformerMiddleware extends AbstractTransformerMiddleware
                                 // This object contains the reference to the request data buffer. Any modification done to this will be reflected in the request. We only want to transform the request body if
                                 // the body is json or xml which is text based. If it is binary, we will not touch it. We first try to get the injected attachment from the RequestBodyInterceptor. However, if
                                 // the RequestBodyInterceptor is not configured run first, we need to get the buffer from the exchange directly.
-                                String bodyString = exchange.getRequest().getBody();
-                                if (bodyString != null) {
-                                    objMap.put("requestBody", bodyString);
+                                LambdaBody requestBody = exchange.getRequestBody();
+                                if (requestBody != null) {
+                                    objMap.put("requestBody", requestBody.getText());
                                 }
                             }
                             Map<String, Object> result = null;
@@ -118,6 +123,8 @@ public class RequestTransformerMiddleware extends AbstractTransformerMiddleware
                                     break;
                                 }
                             }
+                            // a rule may have changed the names of the request headers map it was given.
+                            exchange.getRequestHeaders().reindex();
                             if (finalResult && result != null) {
                                 for (Map.Entry<String, Object> entry : result.entrySet()) {
                                     LOG.trace("key = {} value = {}", entry.getKey(), entry.getValue());
@@ -147,14 +154,14 @@ public class RequestTransformerMiddleware extends AbstractTransformerMiddleware
                                                 if (removeList != null) {
                                                     removeList.forEach(s -> {
                                                         LOG.trace("removing request header: {}", s);
-                                                        MapUtil.delValueIgnoreCase(exchange.getRequest().getHeaders(), s);
+                                                        exchange.getRequestHeaders().remove(s);
                                                     });
                                                 }
                                                 Map<String, Object> updateMap = (Map) requestHeaders.get("update");
                                                 if (updateMap != null) {
                                                     updateMap.forEach((k, v) -> {
                                                         LOG.trace("updating request header = {} value = {}", k, v);
-                                                        exchange.getRequest().getHeaders().put(k, (String) v);
+                                                        exchange.getRequestHeaders().put(k, (String) v);
                                                     });
                                                 }
                                             }
@@ -162,7 +169,7 @@ public class RequestTransformerMiddleware extends AbstractTransformerMiddleware
                                         case "requestBody":
                                             String requestBody = (String) result.get("requestBody");
                                             LOG.trace("requestBody = {}", requestBody);
-                                            exchange.getRequest().setBody(requestBody);
+                                            exchange.setRequestBody(requestBody);
                                             break;
                                         case "responseBody":
                                             String responseBody = (String) result.get("responseBody");
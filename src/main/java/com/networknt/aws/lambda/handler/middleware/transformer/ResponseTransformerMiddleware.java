@@ -1,14 +1,17 @@
 package com.networknt.aws.lambda.handler.middleware.transformer;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.aws.lambda.LambdaHeaders;
+import com.networknt.aws.lambda.LambdaBody;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.restrans.ResponseTransformerConfig;
 import com.networknt.rule.RuleConstants;
 import com.networknt.rule.RuleExecutor;
 import com.networknt.service.SingletonServiceFactory;
 import com.networknt.status.Status;
 import com.networknt.utility.ConfigUtils;
-import com.networknt.utility.MapUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +23,7 @@ import static com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware.
 
 public class ResponseTransformerMiddleware extends AbstractTransformerMiddleware {
     private final ResponseTransformerConfig config;
+    private final PathPrefixTrie<String> appliedPathPrefixes;
     private static final Logger LOG = LoggerFactory.getLogger(ResponseTransformerMiddleware.class);
     private static final String RESPONSE_TRANSFORM = "res-tra";
     private static final String RESPONSE_HEADERS = "responseHeaders";
@@ -42,6 +46,7 @@ public class ResponseTransformerMiddleware extends AbstractTransformerMiddleware
     public ResponseTransformerMiddleware() {
         super();
         config = ResponseTransformerConfig.load();
+        appliedPathPrefixes = PathPrefixTrie.of(config.getAppliedPathPrefixes());
         LOG.info("ResponseTransformerMiddleware is constructed");
     }
 
@@ -49,6 +54,7 @@ public class ResponseTransformerMiddleware extends AbstractTransformerMiddleware
     public ResponseTransformerMiddleware(String configName) {
         super();
         config = ResponseTransformerConfig.load(configName);
+        appliedPathPrefixes = PathPrefixTrie.of(config.getAppliedPathPrefixes());
         LOG.info("ResponseTransformerMiddleware is constructed");
     }
 
@@ -58,17 +64,24 @@ public class ResponseTransformerMiddleware extends AbstractTransformerMiddleware
         if (LOG.isDebugEnabled()) LOG.trace("ResponseTransformerMiddleware.execute starts.");
         APIGatewayProxyRequestEvent readOnlyRequest = exchange.getReadOnlyRequest();
         String requestPath = readOnlyRequest.getPath();
-        if (config.getAppliedPathPrefixes() != null && config.getAppliedPathPrefixes().stream().anyMatch(requestPath::startsWith)) {
-            String responseBody = exchange.getResponse().getBody();
+        if (appliedPathPrefixes.matches(requestPath)) {
+            LambdaBody responseBodyHolder = exchange.getResponseBody();
+            String responseBody = responseBodyHolder == null ? null : responseBodyHolder.getText();
             LOG.trace("original response body = {}", responseBody);
 
             // call the rule engine to transform the response body and response headers. The input contains all the request
             // and response elements.
             String method = readOnlyRequest.getHttpMethod();
-            Map<String, Object> auditInfo = (Map<String, Object>)exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
+            AuditInfo auditInfo = exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
             Map<String, Object> objMap = new HashMap<>();
             objMap.put(REQUEST_HEADERS,  readOnlyRequest.getHeaders());
-            objMap.put(RESPONSE_HEADERS, readOnlyRequest.getHeaders());
+            // the rules update the response headers in place, so they get the map of the response event.
+            Map<String, String> responseHeaders = exchange.getResponse().getHeaders();
+            if (responseHeaders == null) {
+                responseHeaders = new HashMap<>();
+                exchange.getResponse().setHeaders(responseHeaders);
+            }
+            objMap.put(RESPONSE_HEADERS, responseHeaders);
             objMap.put(QUERY_PARAMETERS, readOnlyRequest.getQueryStringParameters());
             objMap.put(PATH_PARAMETERS,  readOnlyRequest.getPathParameters());
             objMap.put(METHOD, method);
@@ -76,13 +89,13 @@ public class ResponseTransformerMiddleware extends AbstractTransformerMiddleware
             if (method.equalsIgnoreCase(POST)
                     || method.equalsIgnoreCase(PUT)
                     || method.equalsIgnoreCase(PATCH)) {
-                String requestBody = readOnlyRequest.getBody();
-                objMap.put(REQUEST_BODY, requestBody);
+                LambdaBody requestBody = exchange.getRequestBody();
+                objMap.put(REQUEST_BODY, requestBody == null ? null : requestBody.getText());
             }
             if (responseBody != null) {
                 objMap.put(RESPONSE_BODY, responseBody);
             }
-            objMap.put(AUDIT_INFO, auditInfo);
+            objMap.put(AUDIT_INFO, auditInfo == null ? null : auditInfo.asMap());
             objMap.put(STATUS_CODE, exchange.getStatusCode());
 
             // Check that the RuleExecutor is loaded. If it is not available, log an error and continue
@@ -142,20 +155,21 @@ public class ResponseTransformerMiddleware extends AbstractTransformerMiddleware
                                     Map<String, Object> responseHeaders = (Map) result.get(RESPONSE_HEADERS);
                                     if (responseHeaders != null) {
                                         // manipulate the response headers.
+                                        LambdaHeaders headers = LambdaHeaders.of(exchange.getResponse().getHeaders());
                                         List<String> removeList = (List) responseHeaders.get(REMOVE);
                                         if (removeList != null) {
-                                            removeList.forEach(s -> MapUtil.delValueIgnoreCase(exchange.getResponse().getHeaders(), s));
+                                            headers.removeAll(removeList);
                                         }
                                         Map<String, Object> updateMap = (Map) responseHeaders.get(UPDATE);
                                         if (updateMap != null) {
-                                            updateMap.forEach((k, v) -> exchange.getResponse().getHeaders().put(k, (String) v));
+                                            updateMap.forEach((k, v) -> headers.put(k, (String) v));
                                         }
                                     }
                                     break;
                                 case RESPONSE_BODY:
                                     responseBody = (String) result.get(RESPONSE_BODY);
                                     if (responseBody != null) {
-                                        exchange.getResponse().setBody(responseBody);
+                                        exchange.setResponseBody(responseBody);
                                     }
                                     break;
                             }
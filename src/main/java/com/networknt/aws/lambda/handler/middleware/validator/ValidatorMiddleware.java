@@ -1,7 +1,12 @@
 package com.networknt.aws.lambda.handler.middleware.validator;
 
+import com.networknt.aws.lambda.handler.DependsOn;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
 import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.ParallelSafe;
+import com.networknt.aws.lambda.handler.PathPrefixTrie;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.aws.lambda.handler.middleware.specification.OpenApiMiddleware;
 import com.networknt.aws.lambda.validator.RequestValidator;
 import com.networknt.aws.lambda.validator.SchemaValidator;
@@ -10,15 +15,14 @@ import com.networknt.openapi.NormalisedPath;
 import com.networknt.openapi.OpenApiOperation;
 import com.networknt.openapi.ValidatorConfig;
 import com.networknt.status.Status;
-import com.networknt.utility.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
 
 import static com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware.AUDIT_ATTACHMENT_KEY;
 
-public class ValidatorMiddleware implements MiddlewareHandler {
+@DependsOn(OpenApiMiddleware.class)
+public class ValidatorMiddleware implements MiddlewareHandler, ParallelSafe {
 
     private static final Logger LOG = LoggerFactory.getLogger(ValidatorMiddleware.class);
     static final String STATUS_MISSING_OPENAPI_OPERATION = "ERR10012";
@@ -26,9 +30,11 @@ public class ValidatorMiddleware implements MiddlewareHandler {
     RequestValidator requestValidator;
 
     private final ValidatorConfig config;
+    private final PathPrefixTrie<String> skipPathPrefixes;
 
     public ValidatorMiddleware() {
         config = ValidatorConfig.load();
+        skipPathPrefixes = PathPrefixTrie.of(config.getSkipPathPrefixes());
         final SchemaValidator schemaValidator = new SchemaValidator(OpenApiMiddleware.helper.openApi3);
         this.requestValidator = new RequestValidator(schemaValidator, config);
         LOG.info("ValidatorMiddleware is constructed");
@@ -39,19 +45,19 @@ public class ValidatorMiddleware implements MiddlewareHandler {
         LOG.trace("ValidatorMiddleware.execute starts.");
         String reqPath = exchange.getRequest().getPath();
         // if request path is in the skipPathPrefixes in the config, call the next handler directly to skip the validation.
-        if (config.getSkipPathPrefixes() != null && config.getSkipPathPrefixes().stream().anyMatch(s -> reqPath.startsWith(s))) {
+        if (skipPathPrefixes.matches(reqPath)) {
             LOG.debug("ValidatorMiddleware.execute ends with skipped path {}", reqPath);
             return successMiddlewareStatus();
         }
         final NormalisedPath requestPath = new ApiNormalisedPath(reqPath, OpenApiMiddleware.getBasePath());
         OpenApiOperation openApiOperation = null;
-        Map<String, Object> auditInfo = (Map<String, Object>) exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
+        AuditInfo auditInfo = exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
         if(auditInfo != null) {
-            openApiOperation = (OpenApiOperation)auditInfo.get(Constants.OPENAPI_OPERATION_STRING);
+            openApiOperation = auditInfo.getOpenApiOperation();
         }
         if(openApiOperation == null) {
             if (LOG.isDebugEnabled()) LOG.debug("ValidatorMiddleware.execute ends with an error.");
-            return new Status(STATUS_MISSING_OPENAPI_OPERATION);
+            return ImmutableStatus.of(STATUS_MISSING_OPENAPI_OPERATION);
         }
         Status status = requestValidator.validateRequest(requestPath, exchange.getRequest(), openApiOperation);
         if(status != null) {
@@ -66,4 +72,11 @@ public class ValidatorMiddleware implements MiddlewareHandler {
         return config.isEnabled();
     }
 
+    /**
+     * Only the request is validated.
+     */
+    @Override
+    public boolean isStreamingSupported() {
+        return true;
+    }
 }
@@ -0,0 +1,41 @@
+package com.networknt.aws.lambda;
+
+import com.networknt.aws.lambda.app.LambdaApp;
+import com.networknt.aws.lambda.handler.Handler;
+import com.networknt.aws.lambda.handler.LazyLambdaHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class ColdStartProfileTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInitializationIsProfiled() {
+        new LambdaApp();
+        Map<String, Object> profile = ColdStartProfile.snapshot();
+        Map<String, Long> phases = (Map<String, Long>) profile.get(ColdStartProfile.PHASES);
+        Map<String, Long> handlers = (Map<String, Long>) profile.get(ColdStartProfile.HANDLERS);
+        for (String phase : List.of("handlerConfig", "initHandlers", "initChains"))
+            Assertions.assertTrue(phases.containsKey(phase), phase);
+        Assertions.assertTrue(phases.get("initHandlers") > 0);
+        // each handler that is constructed is recorded with its name, the lazy handlers only once they are used.
+        Assertions.assertFalse(handlers.isEmpty());
+        for (var entry : Handler.getHandlers().entrySet()) {
+            if (!(entry.getValue() instanceof LazyLambdaHandler lazy) || lazy.isConstructed())
+                Assertions.assertTrue(handlers.containsKey(entry.getKey()), entry.getKey());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLazyWorkIsOnlyRecordedForFirstInvocation() {
+        ColdStartProfile.invocationComplete(System.nanoTime());
+        ColdStartProfile.lazy("afterFirstInvocation", System.nanoTime());
+        Map<String, Long> firstInvocation = (Map<String, Long>) ColdStartProfile.snapshot().get(ColdStartProfile.FIRST_INVOCATION);
+        Assertions.assertTrue(firstInvocation.containsKey("total"));
+        Assertions.assertFalse(firstInvocation.containsKey("afterFirstInvocation"));
+    }
+}
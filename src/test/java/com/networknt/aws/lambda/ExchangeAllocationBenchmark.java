@@ -0,0 +1,57 @@
+package com.networknt.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.aws.lambda.handler.chain.Chain;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Prints the bytes allocated per invocation with a new exchange and with a recycled exchange. It is not a unit test
+ * because the numbers depend on the JVM, and it is run on demand.
+ *
+ * Usage:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.networknt.aws.lambda.ExchangeAllocationBenchmark \
+ *     -Dexec.args="2000 10000"
+ * </pre>
+ *
+ * @author Steve Hu
+ */
+public class ExchangeAllocationBenchmark {
+
+    public static void main(String[] args) {
+        final int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Context context = new LambdaContext("1");
+        Chain chain = new Chain();
+        chain.addChainable(new TestExchangeCompleteListenerMiddleware());
+        chain.addChainable(new TestInvocationHandler());
+        chain.setFinalized(true);
+        APIGatewayProxyRequestEvent request = TestUtils.createTestRequestEvent();
+        long threadId = Thread.currentThread().threadId();
+
+        long[] bytes = new long[2];
+        for (int mode = 0; mode < 2; mode++) {
+            boolean recycle = mode == 1;
+            for (int i = 0; i < warmup; i++)
+                invoke(context, chain, request, recycle);
+            long start = bean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++)
+                invoke(context, chain, request, recycle);
+            bytes[mode] = (bean.getThreadAllocatedBytes(threadId) - start) / iterations;
+        }
+        System.out.println("Allocated bytes per invocation: " + bytes[0] + " with a new exchange, " + bytes[1] + " with a recycled exchange");
+    }
+
+    private static void invoke(Context context, Chain chain, APIGatewayProxyRequestEvent request, boolean recycle) {
+        LightLambdaExchange exchange = recycle ? LightLambdaExchange.obtain(context, chain) : new LightLambdaExchange(context, chain);
+        exchange.setInitialRequest(request);
+        exchange.executeChain();
+        exchange.getFinalizedResponse(false);
+        if (recycle)
+            exchange.recycle();
+    }
+}
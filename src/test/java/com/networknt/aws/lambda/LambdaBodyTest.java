@@ -0,0 +1,46 @@
+package com.networknt.aws.lambda;
+
+import com.networknt.aws.lambda.handler.chain.Chain;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+class LambdaBodyTest {
+
+    @Test
+    void conversionsAreCached() {
+        LambdaBody body = LambdaBody.ofText("{\"id\": 1}");
+        Assertions.assertSame(body.getBytes(), body.getBytes());
+        Assertions.assertSame(body.getBase64(), body.getBase64());
+        Assertions.assertEquals(Base64.getEncoder().encodeToString("{\"id\": 1}".getBytes(StandardCharsets.UTF_8)), body.getBase64());
+
+        LambdaBody decoded = LambdaBody.ofBase64(body.getBase64());
+        Assertions.assertEquals("{\"id\": 1}", decoded.getText());
+        Assertions.assertFalse(decoded.isEmpty());
+    }
+
+    @Test
+    void requestBodyIsEncodedOnFinalize() {
+        var requestEvent = TestUtils.createTestRequestEvent();
+        requestEvent.setBody("{\"id\": 1, \"name\": \"dog\"}");
+        requestEvent.setIsBase64Encoded(false);
+        Chain chain = new Chain();
+        chain.setFinalized(true);
+        LightLambdaExchange exchange = new LightLambdaExchange(new LambdaContext("1"), chain);
+        exchange.encodeRequestBodyOnFinalize();
+        exchange.setInitialRequest(requestEvent);
+
+        LambdaBody body = exchange.getRequestBody();
+        Assertions.assertEquals("{\"id\": 1, \"name\": \"dog\"}", body.getText());
+        exchange.setRequestBody("{\"id\": 2}");
+        Assertions.assertEquals("{\"id\": 2}", requestEvent.getBody());
+
+        var finalized = exchange.getFinalizedRequest(false);
+        Assertions.assertTrue(finalized.getIsBase64Encoded());
+        Assertions.assertEquals("{\"id\": 2}", new String(Base64.getDecoder().decode(finalized.getBody()), StandardCharsets.UTF_8));
+        // handlers that run after the request is finalized still read the plain body from the same holder.
+        Assertions.assertEquals("{\"id\": 2}", exchange.getRequestBody().getText());
+    }
+}
@@ -0,0 +1,83 @@
+package com.networknt.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class LambdaHeadersTest {
+
+    @Test
+    void lookupIgnoresCase() {
+        Map<String, String> map = new HashMap<>();
+        map.put("Authorization", "Bearer abc");
+        map.put("X-Correlation-Id", "cid");
+        LambdaHeaders headers = LambdaHeaders.of(map);
+        Assertions.assertEquals("Bearer abc", headers.get(LambdaHeaders.AUTHORIZATION));
+        Assertions.assertEquals("Bearer abc", headers.get("AUTHORIZATION"));
+        Assertions.assertEquals("cid", headers.get(LambdaHeaders.CORRELATION));
+        Assertions.assertNull(headers.get(LambdaHeaders.ORIGIN));
+    }
+
+    @Test
+    void updatesAreWrittenToTheEventMap() {
+        Map<String, String> map = new HashMap<>();
+        map.put("Content-Type", "text/plain");
+        map.put("service_id", "petstore");
+        LambdaHeaders headers = LambdaHeaders.of(map);
+
+        // an existing header keeps its name and a new one is added with the given name.
+        headers.put("content-type", "application/json");
+        headers.put("X-Scope-Token", "Bearer xyz");
+        Assertions.assertEquals("application/json", map.get("Content-Type"));
+        Assertions.assertFalse(map.containsKey("content-type"));
+        Assertions.assertEquals("Bearer xyz", map.get("X-Scope-Token"));
+
+        Assertions.assertEquals("petstore", headers.remove("SERVICE_ID"));
+        Assertions.assertFalse(map.containsKey("service_id"));
+        Assertions.assertNull(headers.get(LambdaHeaders.SERVICE_ID));
+    }
+
+    @Test
+    void removeDropsEveryCaseOfTheName() {
+        Map<String, String> map = new HashMap<>();
+        map.put("origin", "a");
+        map.put("Origin", "b");
+        map.put("Accept", "*/*");
+        LambdaHeaders headers = LambdaHeaders.of(map);
+        headers.removeAll(List.of("ORIGIN"));
+        Assertions.assertEquals(Map.of("Accept", "*/*"), map);
+    }
+
+    @Test
+    void directChangesToTheEventMapAreSeenAfterReindex() {
+        Map<String, String> map = new HashMap<>();
+        map.put("origin", "https://a.com");
+        LambdaHeaders headers = LambdaHeaders.of(map);
+        // the value of an existing name can be changed directly.
+        map.put("origin", "https://b.com");
+        Assertions.assertEquals("https://b.com", headers.get(LambdaHeaders.ORIGIN));
+
+        // a name replaced directly keeps the size of the map the same, the view sees it after reindex.
+        map.remove("origin");
+        map.put("Origin", "https://example.com");
+        Assertions.assertNull(headers.get(LambdaHeaders.ORIGIN));
+        headers.reindex();
+        Assertions.assertEquals("https://example.com", headers.get(LambdaHeaders.ORIGIN));
+    }
+
+    @Test
+    void exchangeCreatesTheHeaderMap() {
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent();
+        LightLambdaExchange exchange = new LightLambdaExchange(new LambdaContext("1"), null);
+        exchange.setInitialRequest(request);
+        LambdaHeaders headers = exchange.getRequestHeaders();
+        Assertions.assertNull(headers.get(LambdaHeaders.AUTHORIZATION));
+        headers.put("Authorization", "Basic abc");
+        Assertions.assertEquals("Basic abc", request.getHeaders().get("Authorization"));
+        Assertions.assertSame(headers, exchange.getRequestHeaders());
+    }
+}
@@ -0,0 +1,97 @@
+package com.networknt.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.exception.LambdaExchangeStateException;
+import com.networknt.aws.lambda.handler.chain.Chain;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static com.networknt.aws.lambda.TestExchangeCompleteListenerMiddleware.TEST_ATTACHMENT;
+
+/**
+ * Verifies a recycled exchange starts clean and a stale reference fails instead of changing the next invocation. The allocation per invocation is
+ * measured by the ExchangeAllocationBenchmark.
+ */
+class LightLambdaExchangeRecycleTest {
+
+    private static Chain createChain() {
+        Chain chain = new Chain();
+        chain.addChainable(new TestExchangeCompleteListenerMiddleware());
+        chain.addChainable(new TestInvocationHandler());
+        chain.setFinalized(true);
+        return chain;
+    }
+
+    @Test
+    void recycledExchangeStartsClean() {
+        Context context = new LambdaContext("1");
+        Chain chain = createChain();
+        LightLambdaExchange exchange = LightLambdaExchange.obtain(context, chain);
+        exchange.setInitialRequest(TestUtils.createTestRequestEvent());
+        exchange.executeChain();
+        Assertions.assertEquals(200, exchange.getFinalizedResponse(false).getStatusCode());
+        Assertions.assertNotNull(exchange.getAttachment(TEST_ATTACHMENT));
+        exchange.recycle();
+
+        // a listener that kept the exchange cannot touch it after the recycle.
+        Assertions.assertThrows(LambdaExchangeStateException.class, () -> exchange.addAttachment(TEST_ATTACHMENT, new Object()));
+        Assertions.assertThrows(LambdaExchangeStateException.class, () -> exchange.addResponseCompleteListener(e -> {}));
+
+        LightLambdaExchange reused = LightLambdaExchange.obtain(context, chain);
+        Assertions.assertNotSame(exchange, reused);
+        Assertions.assertNull(reused.getAttachment(TEST_ATTACHMENT));
+        Assertions.assertEquals(0, reused.getState());
+        Assertions.assertFalse(reused.isRequestInProgress());
+        reused.setInitialRequest(TestUtils.createTestRequestEvent());
+        reused.executeChain();
+        Assertions.assertEquals(200, reused.getFinalizedResponse(false).getStatusCode());
+        reused.recycle();
+    }
+
+    @Test
+    void staleReferenceCannotChangeTheNextInvocation() {
+        Context context = new LambdaContext("1");
+        Chain chain = createChain();
+        LightLambdaExchange exchange = LightLambdaExchange.obtain(context, chain);
+        int generation = exchange.getGeneration();
+        exchange.setInitialRequest(TestUtils.createTestRequestEvent());
+        exchange.checkGeneration(generation);
+        exchange.executeChain();
+        exchange.getFinalizedResponse(false);
+        exchange.recycle();
+
+        LightLambdaExchange reused = LightLambdaExchange.obtain(context, chain);
+        Assertions.assertNotEquals(generation, reused.getGeneration());
+        // an async callback of the previous invocation finds out that the exchange is not its own any more.
+        Assertions.assertThrows(LambdaExchangeStateException.class, () -> reused.checkGeneration(generation));
+        reused.checkGeneration(reused.getGeneration());
+        reused.reset();
+    }
+
+    @Test
+    void staleReferenceFailsAfterTheNextInvocationStarts() {
+        Context context = new LambdaContext("1");
+        Chain chain = createChain();
+        LightLambdaExchange exchange = LightLambdaExchange.obtain(context, chain);
+        exchange.setInitialRequest(TestUtils.createTestRequestEvent());
+        exchange.executeChain();
+        exchange.getFinalizedResponse(false);
+        exchange.recycle();
+
+        // the buffers of the stale exchange are in use by the next invocation.
+        LightLambdaExchange reused = LightLambdaExchange.obtain(context, chain);
+        reused.setInitialRequest(TestUtils.createTestRequestEvent());
+        Assertions.assertThrows(LambdaExchangeStateException.class, () -> exchange.addResponseCompleteListener(e -> {}));
+        Assertions.assertThrows(LambdaExchangeStateException.class, () -> exchange.addAttachment(TEST_ATTACHMENT, new Object()));
+        Assertions.assertThrows(LambdaExchangeStateException.class, () -> exchange.setInitialResponse(new APIGatewayProxyResponseEvent().withStatusCode(500)));
+        Assertions.assertThrows(LambdaExchangeStateException.class, () -> exchange.defer(() -> {}));
+        Assertions.assertThrows(LambdaExchangeStateException.class, exchange::recycle);
+
+        Assertions.assertNull(reused.getAttachment(TEST_ATTACHMENT));
+        Assertions.assertFalse(reused.hasDeferredTasks());
+        reused.executeChain();
+        Assertions.assertEquals(200, reused.getFinalizedResponse(false).getStatusCode());
+        reused.recycle();
+    }
+}
@@ -172,4 +172,24 @@ class LightLambdaExchangeTest {
         Assertions.assertTrue(exchange.isRequestComplete());
 
     }
+
+    @Test
+    void attachmentsOfTheSameClassDoNotCollide() {
+        var first = LightLambdaExchange.Attachable.createAttachable(String.class);
+        var second = LightLambdaExchange.Attachable.createAttachable(String.class);
+        Assertions.assertNotEquals(first.index(), second.index());
+
+        LightLambdaExchange exchange = new LightLambdaExchange(new LambdaContext("1"), new Chain());
+        exchange.addAttachment(first, "first");
+        exchange.addAttachment(second, "second");
+        Assertions.assertEquals("first", exchange.getAttachment(first));
+        Assertions.assertEquals("second", exchange.getAttachment(second));
+
+        // a key created after the exchange grows the attachments.
+        var late = LightLambdaExchange.Attachable.createAttachable(Integer.class);
+        Assertions.assertNull(exchange.getAttachment(late));
+        exchange.addAttachment(late, 1);
+        Assertions.assertEquals(1, exchange.getAttachment(late));
+        Assertions.assertEquals("first", exchange.getAttachment(first));
+    }
 }
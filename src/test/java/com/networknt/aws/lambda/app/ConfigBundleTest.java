@@ -0,0 +1,61 @@
+package com.networknt.aws.lambda.app;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.config.Config;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class ConfigBundleTest {
+
+    @Test
+    public void testWriteSkipsMissingConfigs() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int count = ConfigBundle.write(List.of(LambdaAppConfig.CONFIG_NAME, "handler", "not-a-config"), out);
+        Assertions.assertEquals(2, count);
+
+        JsonNode bundle = Config.getInstance().getMapper().readTree(out.toByteArray());
+        Assertions.assertTrue(bundle.has(LambdaAppConfig.CONFIG_NAME));
+        Assertions.assertFalse(bundle.has("not-a-config"));
+        // the placeholders are resolved at startup and not at build time.
+        Assertions.assertEquals("${lambda-app.lambdaAppId:com.networknt.placeholder-1.0.0}",
+                bundle.get(LambdaAppConfig.CONFIG_NAME).get(LambdaAppConfig.LAMBDA_APP_ID).asText());
+    }
+
+    @Test
+    public void testPreloadMatchesYamlLoading() throws IOException {
+        Map<String, Object> expected = Config.getInstance().getJsonMapConfigNoCache(LambdaAppConfig.CONFIG_NAME);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConfigBundle.write(List.of(LambdaAppConfig.CONFIG_NAME), out);
+
+        Config.getInstance().clear();
+        try {
+            Assertions.assertEquals(1, ConfigBundle.preload(new ByteArrayInputStream(out.toByteArray())));
+            Assertions.assertEquals(expected, Config.getInstance().getJsonMapConfig(LambdaAppConfig.CONFIG_NAME));
+            Assertions.assertEquals("lambda-petstore-0.0.1-SNAPSHOT", LambdaAppConfig.load().getLambdaAppId());
+        } finally {
+            Config.getInstance().clear();
+        }
+    }
+
+    @Test
+    public void testConfigNamesIncludeTheConfigDirectory() throws IOException {
+        List<String> names = ConfigBundle.getConfigNames();
+        Assertions.assertTrue(names.containsAll(ConfigBundle.DEFAULT_CONFIG_NAMES));
+        // limit_test.yml is only in the test config directory.
+        Assertions.assertTrue(names.contains("limit_test"));
+        Assertions.assertFalse(names.contains("values"));
+        Assertions.assertFalse(names.contains("openapi"));
+    }
+
+    @Test
+    public void testPreloadWithoutBundle() {
+        // the config-bundle profile writes the real bundle into the classes, so a resource that never exists is used.
+        Assertions.assertEquals(0, ConfigBundle.preload("config/not-a-bundle.json"));
+    }
+}
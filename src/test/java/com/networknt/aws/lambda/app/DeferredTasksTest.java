@@ -0,0 +1,132 @@
+package com.networknt.aws.lambda.app;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class DeferredTasksTest {
+
+    private static LightLambdaExchange createExchange() {
+        LightLambdaExchange exchange = new LightLambdaExchange(new LambdaContext("1"), null);
+        exchange.setInitialRequest(new APIGatewayProxyRequestEvent());
+        return exchange;
+    }
+
+    @Test
+    public void testTasksRunInOrderAfterFailure() {
+        List<String> done = new ArrayList<>();
+        LightLambdaExchange exchange = createExchange();
+        exchange.defer(() -> done.add("audit"));
+        exchange.defer(() -> {
+            throw new IllegalStateException("failed");
+        });
+        exchange.defer(() -> {
+            done.add("metrics");
+            // a task deferred by a task is run in the same drain.
+            exchange.defer(() -> done.add("cache"));
+        });
+        exchange.runDeferredTasks();
+        Assertions.assertEquals(List.of("audit", "metrics", "cache"), done);
+        Assertions.assertFalse(exchange.hasDeferredTasks());
+    }
+
+    @Test
+    public void testTasksRunInBackground() throws InterruptedException {
+        try (DeferredTasks deferredTasks = new DeferredTasks(1000)) {
+            CountDownLatch release = new CountDownLatch(1);
+            List<String> done = Collections.synchronizedList(new ArrayList<>());
+            LightLambdaExchange exchange = createExchange();
+            String requestId = exchange.getContext().getAwsRequestId();
+            exchange.defer(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.add("audit");
+            });
+            // the invocation returns while the task is blocked, and the extension keeps waiting for it.
+            deferredTasks.complete(exchange, false);
+            Assertions.assertTrue(done.isEmpty());
+            Assertions.assertFalse(deferredTasks.awaitDrained(requestId, System.currentTimeMillis() + 10));
+
+            release.countDown();
+            Assertions.assertTrue(deferredTasks.awaitDrained(requestId, System.currentTimeMillis() + 10_000));
+            Assertions.assertEquals(List.of("audit"), done);
+        }
+    }
+
+    @Test
+    public void testNextInvocationWaitsAtMostTheBudget() {
+        try (DeferredTasks deferredTasks = new DeferredTasks(50)) {
+            CountDownLatch release = new CountDownLatch(1);
+            LightLambdaExchange exchange = createExchange();
+            exchange.defer(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            deferredTasks.complete(exchange, false);
+            long start = System.nanoTime();
+            deferredTasks.awaitPrevious();
+            Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testBudgetWithoutExtensionRunsTasksBeforeReturn() {
+        // there is no Lambda runtime API in the tests, so the extension cannot be registered.
+        try (DeferredTasks deferredTasks = DeferredTasks.create(500)) {
+            List<String> done = new ArrayList<>();
+            LightLambdaExchange exchange = createExchange();
+            exchange.defer(() -> done.add("audit"));
+            deferredTasks.complete(exchange, false);
+            Assertions.assertEquals(List.of("audit"), done);
+        }
+    }
+
+    @Test
+    public void testZeroBudgetRunsTasksBeforeReturn() {
+        DeferredTasks deferredTasks = new DeferredTasks(0);
+        List<String> done = new ArrayList<>();
+        LightLambdaExchange exchange = createExchange();
+        exchange.defer(() -> done.add("audit"));
+        deferredTasks.complete(exchange, false);
+        Assertions.assertEquals(List.of("audit"), done);
+    }
+
+    @Test
+    public void testStoppedExtensionRunsTasksBeforeReturn() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            // nothing listens on the port once it is closed, so every call for the next event fails.
+            port = socket.getLocalPort();
+        }
+        DeferredTaskExtension extension = new DeferredTaskExtension(HttpClient.newHttpClient(), "http://127.0.0.1:" + port, "test", 1);
+        try (DeferredTasks deferredTasks = new DeferredTasks(1000)) {
+            Assertions.assertFalse(deferredTasks.isInline());
+            // the loop gives up after the failures in a row instead of spinning.
+            extension.run(deferredTasks);
+            Assertions.assertTrue(deferredTasks.isInline());
+
+            List<String> done = new ArrayList<>();
+            LightLambdaExchange exchange = createExchange();
+            exchange.defer(() -> done.add("audit"));
+            deferredTasks.complete(exchange, false);
+            Assertions.assertEquals(List.of("audit"), done);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.networknt.aws.lambda.app;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.LambdaHandler;
+import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.RouteContext;
+import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.config.Config;
+import com.networknt.status.Status;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LambdaBatchAppTest {
+
+    private static final String SQS_BATCH = "{\"Records\": [\n" +
+            "  {\"messageId\": \"1\", \"body\": \"{\\\"id\\\":1}\", \"attributes\": {\"MessageGroupId\": \"a\"}, \"messageAttributes\": {\"tenant\": {\"stringValue\": \"t1\", \"dataType\": \"String\"}}, \"eventSource\": \"aws:sqs\"},\n" +
+            "  {\"messageId\": \"2\", \"body\": \"{\\\"id\\\":2}\", \"attributes\": {\"MessageGroupId\": \"a\"}, \"messageAttributes\": {}, \"eventSource\": \"aws:sqs\"},\n" +
+            "  {\"messageId\": \"3\", \"body\": \"{\\\"id\\\":3}\", \"attributes\": {\"MessageGroupId\": \"b\"}, \"messageAttributes\": {}, \"eventSource\": \"aws:sqs\"}\n" +
+            "]}";
+
+    private static final String KINESIS_BATCH = "{\"Records\": [\n" +
+            "  {\"kinesis\": {\"partitionKey\": \"p1\", \"sequenceNumber\": \"100\", \"data\": \"eyJpZCI6MX0=\"}, \"eventSource\": \"aws:kinesis\"}\n" +
+            "]}";
+
+    private static final String MIXED_BATCH = "{\"Records\": [\n" +
+            "  {\"messageId\": \"1\", \"body\": \"{}\", \"attributes\": {}, \"messageAttributes\": {}, \"eventSource\": \"aws:sqs\"},\n" +
+            "  {\"eventID\": \"2\", \"eventSource\": \"aws:s3\"},\n" +
+            "  {\"messageId\": \"3\", \"body\": \"{}\", \"attributes\": {}, \"messageAttributes\": {}, \"eventSource\": \"aws:sqs\"}\n" +
+            "]}";
+
+    /**
+     * Fails the records with the given identifiers instead of running the chain for them.
+     */
+    private static class FailingBatchApp extends LambdaBatchApp {
+        private final Set<String> failures;
+        private final Set<String> executed = ConcurrentHashMap.newKeySet();
+
+        FailingBatchApp(String... failures) {
+            this.failures = Set.of(failures);
+        }
+
+        @Override
+        boolean execute(BatchRecord record, Context context) {
+            executed.add(record.itemIdentifier());
+            return !failures.contains(record.itemIdentifier()) && super.execute(record, context);
+        }
+    }
+
+    /**
+     * Keeps state between the records like the metrics and limit middleware. Each record waits for another record to
+     * enter the handler, so the records that run at the same time are counted.
+     */
+    private static class StatefulMiddleware implements MiddlewareHandler {
+        private final boolean threadSafe;
+        private final long waitMillis;
+        private final CountDownLatch entered = new CountDownLatch(2);
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+
+        StatefulMiddleware(boolean threadSafe, long waitMillis) {
+            this.threadSafe = threadSafe;
+            this.waitMillis = waitMillis;
+        }
+
+        @Override
+        public Status execute(LightLambdaExchange exchange) {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            entered.countDown();
+            try {
+                entered.await(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            exchange.setInitialResponse(new APIGatewayProxyResponseEvent().withStatusCode(200));
+            return this.successMiddlewareStatus();
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+    }
+
+    /**
+     * Runs the chain of the given handler for every record.
+     */
+    private static class ChainBatchApp extends LambdaBatchApp {
+        private final Chain chain = new Chain();
+
+        ChainBatchApp(LambdaHandler handler) {
+            chain.addChainable(handler);
+            chain.setFinalized(true);
+        }
+
+        @Override
+        Chain getChain(RouteContext route) {
+            return chain;
+        }
+    }
+
+    private static List<String> failures(JsonNode response) {
+        List<String> ids = new ArrayList<>();
+        for (JsonNode failure : response.get("batchItemFailures"))
+            ids.add(failure.get("itemIdentifier").asText());
+        return ids;
+    }
+
+    private static JsonNode invoke(String batch) throws IOException {
+        return invoke(new LambdaBatchApp(), batch);
+    }
+
+    private static JsonNode invoke(LambdaBatchApp app, String batch) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        app.handleRequest(new ByteArrayInputStream(batch.getBytes(StandardCharsets.UTF_8)), out, new LambdaContext("1"));
+        return Config.getInstance().getMapper().readTree(out.toByteArray());
+    }
+
+    @Test
+    public void testSqsBatch() throws IOException {
+        JsonNode response = invoke(SQS_BATCH);
+        Assertions.assertTrue(response.get("batchItemFailures").isArray());
+        Assertions.assertEquals(0, response.get("batchItemFailures").size());
+    }
+
+    @Test
+    public void testKinesisBatch() throws IOException {
+        JsonNode response = invoke(KINESIS_BATCH);
+        Assertions.assertEquals(0, response.get("batchItemFailures").size());
+    }
+
+    @Test
+    public void testPartialFailure() throws IOException {
+        // record 3 has its own group, so only it is reported.
+        JsonNode response = invoke(new FailingBatchApp("3"), SQS_BATCH);
+        Assertions.assertEquals(List.of("3"), failures(response));
+    }
+
+    @Test
+    public void testOrderedModeStopsAfterFailure() throws IOException {
+        // lambda-batch.yml in the test config is ordered, and records 1 and 2 share the message group a.
+        FailingBatchApp app = new FailingBatchApp("1");
+        JsonNode response = invoke(app, SQS_BATCH);
+        Assertions.assertEquals(List.of("1", "2"), failures(response));
+        Assertions.assertFalse(app.executed.contains("2"));
+        Assertions.assertTrue(app.executed.contains("3"));
+    }
+
+    @Test
+    public void testHandlerThatIsNotThreadSafeRunsOneRecordAtATime() throws IOException {
+        // lambda-batch.yml in the test config allows 2 records at the same time.
+        StatefulMiddleware handler = new StatefulMiddleware(false, 100);
+        JsonNode response = invoke(new ChainBatchApp(handler), SQS_BATCH);
+        Assertions.assertEquals(0, response.get("batchItemFailures").size());
+        Assertions.assertEquals(1, handler.maxActive.get());
+    }
+
+    @Test
+    public void testThreadSafeHandlerRunsRecordsConcurrently() throws IOException {
+        // records 1 and 3 have different message groups, so they run at the same time.
+        StatefulMiddleware handler = new StatefulMiddleware(true, 10000);
+        JsonNode response = invoke(new ChainBatchApp(handler), SQS_BATCH);
+        Assertions.assertEquals(0, response.get("batchItemFailures").size());
+        Assertions.assertEquals(2, handler.maxActive.get());
+    }
+
+    @Test
+    public void testUnsupportedEventSource() throws IOException {
+        // the record of an unknown source is reported and the other records are still processed.
+        JsonNode response = invoke(MIXED_BATCH);
+        Assertions.assertEquals(List.of("2"), failures(response));
+    }
+}
@@ -0,0 +1,33 @@
+package com.networknt.aws.lambda.app;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class LambdaNativeFeatureTest {
+
+    static class Model {
+        final Map<String, Object> paths = new HashMap<>();
+    }
+
+    static class Operation {
+        final List<Parameter> parameters = List.of(new Parameter());
+    }
+
+    static class Parameter {
+        static final Object UNREACHABLE = new Object();
+    }
+
+    @Test
+    public void testReachableClassesOnly() {
+        Model model = new Model();
+        model.paths.put("/pets", new Operation());
+        Set<Class<?>> classes = LambdaNativeFeature.getReachableClasses(model);
+        // the classes of the model objects are found through the JDK maps and lists, and the JDK classes are left out.
+        Assertions.assertEquals(Set.of(Model.class, Operation.class, Parameter.class), classes);
+    }
+}
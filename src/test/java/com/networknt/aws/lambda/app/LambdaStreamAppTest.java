@@ -0,0 +1,61 @@
+package com.networknt.aws.lambda.app;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.config.Config;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Verifies the stream entry point produces the same response as the POJO entry point for the test-event.json payload
+ * routed to a configured endpoint and to an unknown path.
+ */
+public class LambdaStreamAppTest {
+    private static byte[] loadEvent(final String path) throws IOException {
+        ObjectMapper mapper = Config.getInstance().getMapper();
+        ObjectNode node = (ObjectNode) mapper.readTree(Files.readAllBytes(Path.of("test-event.json")));
+        node.put("path", path);
+        node.put("httpMethod", "GET");
+        return mapper.writeValueAsBytes(node);
+    }
+
+    private static void assertSameResponse(final String path) throws IOException {
+        byte[] event = loadEvent(path);
+        ObjectMapper mapper = Config.getInstance().getMapper();
+        Context context = new LambdaContext("1");
+
+        LambdaApp lambdaApp = new LambdaApp();
+        APIGatewayProxyResponseEvent expected = lambdaApp.handleRequest(mapper.readValue(event, APIGatewayProxyRequestEvent.class), context);
+
+        LambdaStreamApp streamApp = new LambdaStreamApp();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamApp.handleRequest(new ByteArrayInputStream(event), out, context);
+        APIGatewayProxyResponseEvent actual = mapper.readValue(out.toByteArray(), APIGatewayProxyResponseEvent.class);
+
+        Assertions.assertEquals(expected.getStatusCode(), actual.getStatusCode(), path);
+        Assertions.assertEquals(expected.getBody(), actual.getBody(), path);
+        Assertions.assertEquals(expected.getHeaders(), actual.getHeaders(), path);
+        Assertions.assertEquals(expected.getIsBase64Encoded(), actual.getIsBase64Encoded(), path);
+    }
+
+    @Test
+    public void testStreamResponseMatchesLambdaApp() throws IOException {
+        assertSameResponse("/health");
+    }
+
+    @Test
+    public void testErrorResponseMatchesLambdaApp() throws IOException {
+        // a path that is not in handler.yml gets the same error response from both entry points.
+        assertSameResponse("/v1/unknown");
+    }
+}
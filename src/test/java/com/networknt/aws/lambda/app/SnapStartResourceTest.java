@@ -0,0 +1,40 @@
+package com.networknt.aws.lambda.app;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SnapStartResourceTest {
+
+    @Test
+    public void testPrimeDefaultEndpoint() {
+        new LambdaApp();
+        // the default priming endpoint is /health@get.
+        Assertions.assertEquals(1, SnapStartResource.prime(LambdaAppConfig.load()));
+        // the chain runs to the end with a context, so the handler produces its response.
+        Assertions.assertEquals(Map.of("/health@get", 200), SnapStartResource.prime(List.of("/health@get")));
+    }
+
+    @Test
+    public void testRequestAfterCheckpointAndRestore() {
+        LambdaApp lambdaApp = new LambdaApp();
+        SnapStartResource resource = new SnapStartResource();
+        resource.beforeCheckpoint(null);
+        resource.afterRestore(null);
+
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent();
+        request.setPath("/health");
+        request.setHttpMethod("GET");
+        request.setHeaders(new HashMap<>());
+        request.setQueryStringParameters(new HashMap<>());
+        request.setPathParameters(new HashMap<>());
+        APIGatewayProxyResponseEvent response = lambdaApp.handleRequest(request, new LambdaContext("1"));
+        Assertions.assertEquals(200, response.getStatusCode());
+    }
+}
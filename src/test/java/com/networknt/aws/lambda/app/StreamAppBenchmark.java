@@ -0,0 +1,76 @@
+package com.networknt.aws.lambda.app;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.config.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Prints the average time and the bytes allocated per invocation of LambdaApp and LambdaStreamApp for an event file,
+ * test-event.json routed to the health endpoint by default. LambdaApp gets the payload as a String and its response
+ * is serialized to a String, like the runtime does for a POJO handler. It is not a unit test because the numbers
+ * depend on the JVM, and it is run on demand.
+ *
+ * Usage:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.networknt.aws.lambda.app.StreamAppBenchmark \
+ *     -Dexec.args="200 1000 test-event.json"
+ * </pre>
+ *
+ * @author Steve Hu
+ */
+public class StreamAppBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        final int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final String file = args.length > 2 ? args[2] : "test-event.json";
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        ObjectMapper mapper = Config.getInstance().getMapper();
+        Context context = new LambdaContext("1");
+
+        ObjectNode node = (ObjectNode) mapper.readTree(Files.readAllBytes(Path.of(file)));
+        if (args.length <= 2) {
+            node.put("path", "/health");
+            node.put("httpMethod", "GET");
+        }
+        byte[] event = mapper.writeValueAsBytes(node);
+        LambdaApp lambdaApp = new LambdaApp();
+        LambdaStreamApp streamApp = new LambdaStreamApp();
+
+        String[] names = {"LambdaApp", "LambdaStreamApp"};
+        for (int mode = 0; mode < 2; mode++) {
+            for (int i = 0; i < warmup; i++)
+                invoke(mode, event, mapper, lambdaApp, streamApp, context);
+            long bytes = bean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                invoke(mode, event, mapper, lambdaApp, streamApp, context);
+            long nanos = System.nanoTime() - start;
+            bytes = bean.getThreadAllocatedBytes(threadId) - bytes;
+            System.out.println(names[mode] + ": " + nanos / iterations + " ns and " + bytes / iterations
+                    + " bytes per invocation of " + event.length + " bytes over " + iterations + " invocations");
+        }
+    }
+
+    private static void invoke(int mode, byte[] event, ObjectMapper mapper, LambdaApp lambdaApp, LambdaStreamApp streamApp, Context context) throws IOException {
+        if (mode == 0) {
+            String text = new String(event, StandardCharsets.UTF_8);
+            mapper.writeValueAsString(lambdaApp.handleRequest(mapper.readValue(text, APIGatewayProxyRequestEvent.class), context));
+        } else {
+            streamApp.handleRequest(new ByteArrayInputStream(event), new ByteArrayOutputStream(), context);
+        }
+    }
+}
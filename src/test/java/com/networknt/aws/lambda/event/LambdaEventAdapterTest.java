@@ -0,0 +1,99 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.config.Config;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class LambdaEventAdapterTest {
+
+    private static final String V2_EVENT = "{\n" +
+            "  \"version\": \"2.0\",\n" +
+            "  \"routeKey\": \"GET /v1/pets/{petId}\",\n" +
+            "  \"rawPath\": \"/v1/pets/1\",\n" +
+            "  \"rawQueryString\": \"limit=10\",\n" +
+            "  \"cookies\": [\"a=1\", \"b=2\"],\n" +
+            "  \"headers\": {\"content-type\": \"application/json\", \"x-forwarded-for\": \"127.0.0.1\"},\n" +
+            "  \"queryStringParameters\": {\"limit\": \"10\"},\n" +
+            "  \"pathParameters\": {\"petId\": \"1\"},\n" +
+            "  \"requestContext\": {\n" +
+            "    \"accountId\": \"123456789012\",\n" +
+            "    \"apiId\": \"api-id\",\n" +
+            "    \"requestId\": \"id\",\n" +
+            "    \"stage\": \"$default\",\n" +
+            "    \"http\": {\"method\": \"GET\", \"path\": \"/v1/pets/1\", \"protocol\": \"HTTP/1.1\", \"sourceIp\": \"127.0.0.1\", \"userAgent\": \"agent\"}\n" +
+            "  },\n" +
+            "  \"body\": \"{\\\"foo\\\":\\\"bar\\\"}\",\n" +
+            "  \"isBase64Encoded\": false\n" +
+            "}";
+
+    private static final String ALB_EVENT = "{\n" +
+            "  \"requestContext\": {\"elb\": {\"targetGroupArn\": \"arn:aws:elasticloadbalancing:us-east-1:123456789012:targetgroup/lambda/abc\"}},\n" +
+            "  \"httpMethod\": \"GET\",\n" +
+            "  \"path\": \"/v1/pets\",\n" +
+            "  \"multiValueQueryStringParameters\": {\"name\": [\"a%20b\"]},\n" +
+            "  \"multiValueHeaders\": {\"accept\": [\"application/json\"], \"x-forwarded-for\": [\"10.0.0.1, 10.0.0.2\"]},\n" +
+            "  \"body\": \"\",\n" +
+            "  \"isBase64Encoded\": false\n" +
+            "}";
+
+    @Test
+    public void testHttpApiV2Request() throws IOException {
+        APIGatewayProxyRequestEvent request = LambdaEventAdapter.of(EventFormat.V2).readRequest(V2_EVENT.getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals("GET", request.getHttpMethod());
+        Assertions.assertEquals("/v1/pets/1", request.getPath());
+        Assertions.assertEquals("/v1/pets/{petId}", request.getResource());
+        Assertions.assertEquals("a=1; b=2", request.getHeaders().get("cookie"));
+        Assertions.assertEquals("10", request.getQueryStringParameters().get("limit"));
+        Assertions.assertEquals("1", request.getPathParameters().get("petId"));
+        Assertions.assertEquals("127.0.0.1", request.getRequestContext().getIdentity().getSourceIp());
+        Assertions.assertFalse(request.getIsBase64Encoded());
+    }
+
+    @Test
+    public void testHttpApiV2Response() throws IOException {
+        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent()
+                .withStatusCode(201)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withMultiValueHeaders(Map.of("Set-Cookie", List.of("a=1", "b=2")))
+                .withBody("{}");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LambdaEventAdapter.of(EventFormat.V2).writeResponse(null, response, out);
+
+        JsonNode node = Config.getInstance().getMapper().readTree(out.toByteArray());
+        Assertions.assertEquals(201, node.get("statusCode").asInt());
+        Assertions.assertEquals("application/json", node.get("headers").get("Content-Type").asText());
+        Assertions.assertNull(node.get("headers").get("Set-Cookie"));
+        Assertions.assertEquals(2, node.get("cookies").size());
+        Assertions.assertEquals("{}", node.get("body").asText());
+    }
+
+    @Test
+    public void testAlbMultiValueRequestAndResponse() throws IOException {
+        LambdaEventAdapter adapter = LambdaEventAdapter.of(EventFormat.ALB);
+        APIGatewayProxyRequestEvent request = adapter.readRequest(ALB_EVENT.getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals("GET", request.getHttpMethod());
+        Assertions.assertEquals("application/json", request.getHeaders().get("accept"));
+        Assertions.assertEquals("a b", request.getQueryStringParameters().get("name"));
+        Assertions.assertEquals("10.0.0.1", request.getRequestContext().getIdentity().getSourceIp());
+
+        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withHeaders(Map.of("Content-Type", "text/plain"))
+                .withBody("OK");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        adapter.writeResponse(request, response, out);
+
+        JsonNode node = Config.getInstance().getMapper().readTree(out.toByteArray());
+        Assertions.assertEquals("text/plain", node.get("multiValueHeaders").get("Content-Type").get(0).asText());
+        Assertions.assertNull(node.get("headers"));
+    }
+}
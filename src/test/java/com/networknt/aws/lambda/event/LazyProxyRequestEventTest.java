@@ -0,0 +1,88 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.config.Config;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LazyProxyRequestEventTest {
+
+    private static byte[] loadEvent() throws IOException {
+        return Files.readAllBytes(Path.of("test-event.json"));
+    }
+
+    @Test
+    public void testRoutingFieldsAreEager() throws IOException {
+        LazyProxyRequestEvent event = LazyProxyRequestEvent.parse(loadEvent());
+        Assertions.assertEquals("/path/to/resource", event.getPath());
+        Assertions.assertEquals("POST", event.getHttpMethod());
+        Assertions.assertEquals("/{proxy+}", event.getResource());
+        Assertions.assertTrue(event.getIsBase64Encoded());
+
+        Assertions.assertFalse(event.isDecoded(LazyProxyRequestEvent.HEADERS));
+        Assertions.assertFalse(event.isDecoded(LazyProxyRequestEvent.REQUEST_CONTEXT));
+        Assertions.assertFalse(event.isDecoded(LazyProxyRequestEvent.BODY));
+    }
+
+    @Test
+    public void testSectionsMatchFullDecode() throws IOException {
+        byte[] raw = loadEvent();
+        APIGatewayProxyRequestEvent expected = Config.getInstance().getMapper().readValue(raw, APIGatewayProxyRequestEvent.class);
+        LazyProxyRequestEvent event = LazyProxyRequestEvent.parse(raw);
+
+        Assertions.assertEquals(expected.getHeaders(), event.getHeaders());
+        Assertions.assertTrue(event.isDecoded(LazyProxyRequestEvent.HEADERS));
+        Assertions.assertFalse(event.isDecoded(LazyProxyRequestEvent.MULTI_VALUE_HEADERS));
+
+        Assertions.assertEquals(expected.getMultiValueHeaders(), event.getMultiValueHeaders());
+        Assertions.assertEquals(expected.getQueryStringParameters(), event.getQueryStringParameters());
+        Assertions.assertEquals(expected.getMultiValueQueryStringParameters(), event.getMultiValueQueryStringParameters());
+        Assertions.assertEquals(expected.getPathParameters(), event.getPathParameters());
+        Assertions.assertEquals(expected.getStageVariables(), event.getStageVariables());
+        Assertions.assertEquals(expected.getBody(), event.getBody());
+        Assertions.assertEquals(expected.getRequestContext().getIdentity().getSourceIp(), event.getRequestContext().getIdentity().getSourceIp());
+        Assertions.assertEquals(expected, event);
+    }
+
+    @Test
+    public void testSetterOverridesRawSection() throws IOException {
+        LazyProxyRequestEvent event = LazyProxyRequestEvent.parse(loadEvent());
+        event.setHeaders(Map.of("X-Test", "value"));
+        Assertions.assertEquals(Map.of("X-Test", "value"), event.getHeaders());
+        event.setBody("replaced");
+        Assertions.assertEquals("replaced", event.getBody());
+    }
+
+    @Test
+    public void testConcurrentReadsDecodeOnce() throws Exception {
+        LazyProxyRequestEvent event = LazyProxyRequestEvent.parse(loadEvent());
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<String, String>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return event.getHeaders();
+                }));
+            }
+            start.countDown();
+            // every thread sees the same decoded map.
+            Map<String, String> headers = futures.get(0).get();
+            Assertions.assertNotNull(headers);
+            for (Future<Map<String, String>> future : futures)
+                Assertions.assertSame(headers, future.get());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.config.Config;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Verifies the snapshot is read-only and shared by the readers of the response phase.
+ */
+public class ReadOnlyProxyRequestEventTest {
+
+    /**
+     * The test event with 30 headers and a 50 KB body.
+     */
+    private static byte[] largeEvent() throws IOException {
+        ObjectMapper mapper = Config.getInstance().getMapper();
+        ObjectNode event = (ObjectNode) mapper.readTree(Files.readAllBytes(Path.of("test-event.json")));
+        ObjectNode headers = event.putObject("headers");
+        for (int i = 0; i < 30; i++)
+            headers.put("X-Header-" + i, "value-" + i);
+        event.put("body", "x".repeat(50 * 1024));
+        event.put("isBase64Encoded", false);
+        return mapper.writeValueAsBytes(event);
+    }
+
+    @Test
+    public void testSnapshotIsReadOnly() throws IOException {
+        LazyProxyRequestEvent event = LazyProxyRequestEvent.parse(largeEvent());
+        ReadOnlyProxyRequestEvent snapshot = new ReadOnlyProxyRequestEvent(event);
+        Assertions.assertEquals(event.getPath(), snapshot.getPath());
+        Assertions.assertEquals(event.getHeaders(), snapshot.getHeaders());
+        Assertions.assertSame(event.getBody(), snapshot.getBody());
+        Assertions.assertSame(snapshot.getHeaders(), snapshot.getHeaders());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.getHeaders().put("X-Test", "value"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.setBody("replaced"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.setPath("/replaced"));
+        Assertions.assertSame(snapshot, snapshot.clone());
+    }
+
+    @Test
+    public void testExchangeSharesSnapshotAfterFinalize() {
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent();
+        request.setPath("/v1/pets");
+        request.setHeaders(new HashMap<>(Map.of("Accept", "application/json")));
+        LightLambdaExchange exchange = new LightLambdaExchange(new LambdaContext("1"), null);
+        exchange.setInitialRequest(request);
+        Assertions.assertNotSame(exchange.getReadOnlyRequest(), exchange.getReadOnlyRequest());
+
+        exchange.getFinalizedRequest(false);
+        APIGatewayProxyRequestEvent snapshot = exchange.getReadOnlyRequest();
+        Assertions.assertSame(snapshot, exchange.getReadOnlyRequest());
+        Assertions.assertEquals("/v1/pets", snapshot.getPath());
+        Assertions.assertEquals("application/json", snapshot.getHeaders().get("Accept"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.networknt.aws.lambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.config.Config;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Prints the bytes allocated by the readers of the response phase for a request with 30 headers and a 50 KB body,
+ * with a clone() of the request for each reader and with one shared ReadOnlyProxyRequestEvent. It is not a unit test
+ * because the numbers depend on the JVM, and it is run on demand.
+ *
+ * Usage:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.networknt.aws.lambda.event.ReadOnlySnapshotBenchmark \
+ *     -Dexec.args="500 2000 2"
+ * </pre>
+ *
+ * @author Steve Hu
+ */
+public class ReadOnlySnapshotBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        final int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        final int readers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        byte[] raw = largeEvent();
+
+        long[] bytes = new long[2];
+        int checksum = 0;
+        for (int mode = 0; mode < 2; mode++) {
+            for (int i = 0; i < warmup + iterations; i++) {
+                // the request phase reads the headers and the body before the request is finalized.
+                LazyProxyRequestEvent event = LazyProxyRequestEvent.parse(raw);
+                checksum += event.getHeaders().size() + event.getBody().length();
+
+                long start = bean.getThreadAllocatedBytes(threadId);
+                if (mode == 0) {
+                    for (int r = 0; r < readers; r++)
+                        checksum += read(event.clone());
+                } else {
+                    ReadOnlyProxyRequestEvent snapshot = new ReadOnlyProxyRequestEvent(event);
+                    for (int r = 0; r < readers; r++)
+                        checksum += read(snapshot);
+                }
+                if (i >= warmup)
+                    bytes[mode] += bean.getThreadAllocatedBytes(threadId) - start;
+            }
+            bytes[mode] /= iterations;
+        }
+        System.out.println("Allocated bytes by " + readers + " response phase readers of a request with 30 headers and a 50 KB body: "
+                + bytes[0] + " with clone(), " + bytes[1] + " with the snapshot (checksum " + checksum + ")");
+    }
+
+    /**
+     * The test event with 30 headers and a 50 KB body.
+     */
+    private static byte[] largeEvent() throws IOException {
+        ObjectMapper mapper = Config.getInstance().getMapper();
+        ObjectNode event = (ObjectNode) mapper.readTree(Files.readAllBytes(Path.of("test-event.json")));
+        ObjectNode headers = event.putObject("headers");
+        for (int i = 0; i < 30; i++)
+            headers.put("X-Header-" + i, "value-" + i);
+        event.put("body", "x".repeat(50 * 1024));
+        event.put("isBase64Encoded", false);
+        return mapper.writeValueAsBytes(event);
+    }
+
+    /**
+     * What the ResponseHeaderMiddleware and the ResponseTransformerMiddleware read from the request.
+     */
+    private static int read(final APIGatewayProxyRequestEvent request) {
+        return request.getPath().length() + request.getHeaders().size() + request.getQueryStringParameters().size()
+                + request.getPathParameters().size();
+    }
+}
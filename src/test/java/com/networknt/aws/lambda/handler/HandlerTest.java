@@ -1,13 +1,160 @@
 package com.networknt.aws.lambda.handler;
 
 
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.handler.config.HandlerConfig;
+import com.networknt.status.Status;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class HandlerTest {
     @Test
     public void testInitHandler() {
         Handler.init();
         Assertions.assertEquals(27, Handler.getHandlers().size());
     }
+
+    @Test
+    public void testPrebuiltRoutesAreReused() {
+        Handler.initRoutes(HandlerConfig.load());
+        List<RouteTrie.Route> routes = List.copyOf(Handler.routes.getRoutes());
+        Handler.init();
+        // init only resolves the handlers for the routes built before.
+        Assertions.assertEquals(routes, Handler.routes.getRoutes());
+
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withPath("/health")
+                .withHttpMethod("GET")
+                .withQueryStringParameters(new HashMap<>())
+                .withPathParameters(new HashMap<>());
+        Assertions.assertNotNull(Handler.getChain(request));
+    }
+
+    @AfterEach
+    public void removeTestHandlers() {
+        Handler.handlers.keySet().removeIf(name -> name.startsWith("test"));
+    }
+
+    @Test
+    public void testDependencyIsConstructedFirst() {
+        Handler.initHandlersConcurrently(List.of(
+                DependentHandler.class.getName() + "@testDependent",
+                SlowHandler.class.getName() + "@testSlow"));
+        Assertions.assertTrue(((DependentHandler) Handler.handlers.get("testDependent")).slowConstructed);
+    }
+
+    @Test
+    public void testFirstFailureInConfigOrderIsThrown() {
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> Handler.initHandlersConcurrently(List.of(
+                SlowFailingHandler.class.getName() + "@testSlowFailing",
+                FailingHandler.class.getName() + "@testFailing")));
+        Assertions.assertTrue(e.getMessage().contains(SlowFailingHandler.class.getName()));
+    }
+
+    @Test
+    public void testCircularDependencyIsRejected() {
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> Handler.initHandlersConcurrently(List.of(
+                CircularHandler.class.getName() + "@testCircular1",
+                CircularHandler.class.getName() + "@testCircular2")));
+        Assertions.assertTrue(e.getMessage().startsWith("Circular handler dependency"));
+    }
+
+    @Test
+    public void testLazyHandlerIsConstructedOnce() throws InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        LazyLambdaHandler lazy = new LazyLambdaHandler("testLazy", () -> {
+            count.incrementAndGet();
+            return new SlowHandler();
+        });
+        Handler.handlers.put("testLazy", lazy);
+        Assertions.assertFalse(lazy.isConstructed());
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++)
+                executor.execute(lazy::isEnabled);
+        }
+        Assertions.assertEquals(1, count.get());
+        // the lookup by name unwraps the proxy so that the handler can be cast to its class.
+        Assertions.assertInstanceOf(SlowHandler.class, Handler.getHandler("testLazy"));
+    }
+
+    @Test
+    public void testParallelGroupOnlyAcceptsParallelSafeHandlers() {
+        Handler.handlers.put("testSafe", new ParallelSafeHandler());
+        Handler.handlers.put("testUnsafe", new TestHandler());
+        LazyLambdaHandler lazy = new LazyLambdaHandler("testLazySafe", ParallelSafeHandler.class, ParallelSafeHandler::new);
+        Handler.handlers.put("testLazySafe", lazy);
+
+        Assertions.assertEquals(2, Handler.getParallelGroup("testSafe|testLazySafe").getEnabledHandlers().length);
+        // the lazy handler is checked by its class.
+        Assertions.assertFalse(lazy.isConstructed());
+
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> Handler.getParallelGroup("testSafe|testUnsafe"));
+        Assertions.assertTrue(e.getMessage().contains("testUnsafe"));
+    }
+
+    public static class TestHandler implements LambdaHandler {
+        @Override
+        public Status execute(LightLambdaExchange exchange) {
+            return successMiddlewareStatus();
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        static void sleep() {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static class ParallelSafeHandler extends TestHandler implements ParallelSafe {
+    }
+
+    public static class SlowHandler extends TestHandler {
+        static volatile boolean constructed;
+
+        public SlowHandler() {
+            sleep();
+            constructed = true;
+        }
+    }
+
+    @DependsOn(SlowHandler.class)
+    public static class DependentHandler extends TestHandler {
+        final boolean slowConstructed;
+
+        public DependentHandler() {
+            slowConstructed = SlowHandler.constructed;
+        }
+    }
+
+    public static class SlowFailingHandler extends TestHandler {
+        public SlowFailingHandler() {
+            sleep();
+            throw new IllegalStateException("slow failure");
+        }
+    }
+
+    public static class FailingHandler extends TestHandler {
+        public FailingHandler() {
+            throw new IllegalStateException("failure");
+        }
+    }
+
+    @DependsOn(CircularHandler.class)
+    public static class CircularHandler extends TestHandler {
+    }
 }
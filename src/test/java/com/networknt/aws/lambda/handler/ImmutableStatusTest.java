@@ -0,0 +1,127 @@
+package com.networknt.aws.lambda.handler;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.aws.lambda.handler.chain.ChainExecutor;
+import com.networknt.status.Status;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ImmutableStatusTest {
+
+    private static MiddlewareHandler handler(final Status status) {
+        return new MiddlewareHandler() {
+            @Override
+            public Status execute(LightLambdaExchange exchange) {
+                return status == null ? this.successMiddlewareStatus() : status;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+        };
+    }
+
+    private static LightLambdaExchange createExchange() {
+        LightLambdaExchange exchange = new LightLambdaExchange(new LambdaContext("1"), null);
+        exchange.setInitialRequest(new APIGatewayProxyRequestEvent());
+        return exchange;
+    }
+
+    @Test
+    public void testStatusIsShared() {
+        MiddlewareHandler handler = handler(null);
+        Assertions.assertSame(handler.successMiddlewareStatus(), handler.successMiddlewareStatus());
+        Assertions.assertSame(ImmutableStatus.of("ERR10002"), ImmutableStatus.of("ERR10002"));
+        Assertions.assertEquals(new Status("ERR10002").getStatusCode(), ImmutableStatus.of("ERR10002").getStatusCode());
+
+        // the body is built once.
+        Status status = ImmutableStatus.of("ERR10002");
+        Assertions.assertSame(status.toString(), status.toString());
+    }
+
+    @Test
+    public void testSetStatusCodeThrows() {
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> ImmutableStatus.SUCCESS.setStatusCode(500));
+        Assertions.assertEquals(200, ImmutableStatus.SUCCESS.getStatusCode());
+    }
+
+    @Test
+    public void testSetCodeThrows() {
+        Status status = ImmutableStatus.of("ERR10002");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> status.setCode("ERR10000"));
+        Assertions.assertEquals("ERR10002", status.getCode());
+    }
+
+    @Test
+    public void testSetSeverityThrows() {
+        Status status = ImmutableStatus.of("ERR10002");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> status.setSeverity("INFO"));
+        Assertions.assertEquals(new Status("ERR10002").getSeverity(), status.getSeverity());
+    }
+
+    @Test
+    public void testSetMessageThrows() {
+        Status status = ImmutableStatus.of("ERR10002");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> status.setMessage("changed"));
+        Assertions.assertEquals(new Status("ERR10002").getMessage(), status.getMessage());
+    }
+
+    @Test
+    public void testSetDescriptionThrows() {
+        Status status = ImmutableStatus.of("ERR10002");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> status.setDescription("changed"));
+        Assertions.assertEquals(new Status("ERR10002").getDescription(), status.getDescription());
+    }
+
+    @Test
+    public void testSetMetadataThrows() {
+        Status status = ImmutableStatus.of("ERR10002");
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("field", "value");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> status.setMetadata(metadata));
+        Assertions.assertNotEquals(metadata, status.getMetadata());
+    }
+
+    @Test
+    public void testMetadataIsUnmodifiable() {
+        Status source = new Status("ERR10002");
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("field", "value");
+        source.setMetadata(metadata);
+        Status status = ImmutableStatus.copyOf(source);
+
+        // the copy doesn't follow the map it was created from.
+        metadata.put("other", "value");
+        Assertions.assertEquals(Map.of("field", "value"), status.getMetadata());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> status.getMetadata().put("other", "value"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> status.getMetadata().clear());
+        Assertions.assertEquals(Map.of("field", "value"), status.getMetadata());
+    }
+
+    @Test
+    public void testOnlyFailuresAreKept() {
+        Chain chain = new Chain();
+        for (int i = 0; i < 14; i++)
+            chain.addChainable(handler(null));
+        chain.setFinalized(true);
+        ChainExecutor executor = new ChainExecutor();
+        executor.executeChain(createExchange(), chain);
+        Assertions.assertTrue(executor.getChainResults().isEmpty());
+
+        Chain failing = new Chain();
+        failing.addChainable(handler(null));
+        failing.addChainable(handler(ImmutableStatus.of("ERR10002")));
+        failing.setFinalized(true);
+        executor.reset();
+        executor.executeChain(createExchange(), failing);
+        Assertions.assertEquals(1, executor.getChainResults().size());
+        Assertions.assertSame(ImmutableStatus.of("ERR10002"), executor.getChainResults().get(0));
+    }
+}
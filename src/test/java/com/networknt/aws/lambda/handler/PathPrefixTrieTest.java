@@ -0,0 +1,96 @@
+package com.networknt.aws.lambda.handler;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies the longest prefix match of the trie and that it finds the same prefixes as the linear scan that the
+ * handlers used before.
+ */
+public class PathPrefixTrieTest {
+
+    @Test
+    public void testMatch() {
+        Map<String, String> rules = new LinkedHashMap<>();
+        rules.put("/v1", "v1");
+        rules.put("/v1/pets", "pets");
+        rules.put("/v1/pets/count", "count");
+        PathPrefixTrie<String> trie = PathPrefixTrie.of(rules);
+        Assertions.assertEquals(3, trie.size());
+
+        Assertions.assertEquals("pets", trie.match("/v1/pets/123"));
+        Assertions.assertEquals("count", trie.match("/v1/pets/count"));
+        Assertions.assertEquals("v1", trie.match("/v1/owners"));
+        // the prefixes are matched by characters like String.startsWith.
+        Assertions.assertEquals("pets", trie.match("/v1/petstore"));
+        Assertions.assertNull(trie.match("/v2/pets"));
+        Assertions.assertNull(trie.match("/v"));
+        Assertions.assertNull(trie.match(null));
+
+        Assertions.assertTrue(trie.matches("/v1/owners"));
+        Assertions.assertFalse(trie.matches("/v2"));
+
+        Assertions.assertTrue(trie.hasLongerPrefix("/v1/pets/"));
+        Assertions.assertFalse(trie.hasLongerPrefix("/v1/pets/count"));
+        Assertions.assertFalse(trie.hasLongerPrefix("/v2/"));
+    }
+
+    @Test
+    public void testForEachMatch() {
+        Map<String, String> rules = new LinkedHashMap<>();
+        rules.put("/v1/pets", "pets");
+        rules.put("/v1", "v1");
+        rules.put("/v1/pets/count", "count");
+        PathPrefixTrie<String> trie = PathPrefixTrie.of(rules);
+
+        // every matching prefix is passed from the shortest to the longest, whatever the order in the config.
+        List<String> matched = new ArrayList<>();
+        trie.forEachMatch("/v1/pets/count", matched::add);
+        Assertions.assertEquals(List.of("v1", "pets", "count"), matched);
+
+        matched.clear();
+        trie.forEachMatch("/v1/owners", matched::add);
+        Assertions.assertEquals(List.of("v1"), matched);
+
+        matched.clear();
+        trie.forEachMatch("/v2/pets", matched::add);
+        trie.forEachMatch(null, matched::add);
+        Assertions.assertTrue(matched.isEmpty());
+    }
+
+    @Test
+    public void testFirstValueIsKept() {
+        PathPrefixTrie<String> trie = PathPrefixTrie.of(List.of("/v1", "/v1", "/"));
+        Assertions.assertEquals(2, trie.size());
+        trie.put("/v1", "second");
+        Assertions.assertEquals("/v1", trie.match("/v1/pets"));
+        Assertions.assertEquals("/", trie.match("/v2/pets"));
+
+        Assertions.assertTrue(PathPrefixTrie.of((List<String>) null).isEmpty());
+        Assertions.assertFalse(PathPrefixTrie.of((List<String>) null).matches("/v1"));
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            prefixes.add("/v1/service" + i);
+        PathPrefixTrie<String> trie = PathPrefixTrie.of(prefixes);
+
+        for (int i = 0; i < 1000; i++) {
+            String path = "/v1/service" + i + "/items/" + i;
+            // the longest prefix that the handlers found with startsWith before.
+            String expected = null;
+            for (String prefix : prefixes) {
+                if (path.startsWith(prefix) && (expected == null || prefix.length() > expected.length()))
+                    expected = prefix;
+            }
+            Assertions.assertEquals(expected, trie.match(path), path);
+        }
+    }
+}
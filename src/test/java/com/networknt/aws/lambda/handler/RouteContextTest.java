@@ -0,0 +1,73 @@
+package com.networknt.aws.lambda.handler;
+
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class RouteContextTest {
+
+    private static RouteContext context(final String method, final String template) {
+        return new RouteContext(new RouteTrie().add(method, template, List.of()));
+    }
+
+    @Test
+    public void testCompareTemplate() {
+        RouteContext context = context("get", "/v1/pets/{petId}/");
+        Assertions.assertEquals("/v1/pets/{petId}", context.getTemplate());
+        Assertions.assertEquals(RouteContext.SAME, context.compareTemplate("/v1/pets/{id}", false));
+        Assertions.assertEquals(RouteContext.OVERLAP, context.compareTemplate("/v1/pets/count", false));
+        Assertions.assertEquals(RouteContext.OVERLAP, context.compareTemplate("/v1/{type}/{id}", false));
+        Assertions.assertEquals(RouteContext.DISJOINT, context.compareTemplate("/v1/pets", false));
+        Assertions.assertEquals(RouteContext.DISJOINT, context.compareTemplate("/v1/Pets/{id}", false));
+        Assertions.assertEquals(RouteContext.SAME, context.compareTemplate("/v1/Pets/{id}", true));
+        // a template that is not in the canonical form is never resolved.
+        Assertions.assertEquals(RouteContext.OVERLAP, context.compareTemplate("/v1/pets/{id}/", false));
+    }
+
+    @Test
+    public void testLongestPrefix() {
+        RouteContext context = context("get", "/v1/pets/{petId}");
+        PathPrefixTrie<String> prefixes = PathPrefixTrie.of(List.of("/v2", "/v1", "/v1/pets"));
+        Assertions.assertTrue(context.isResolved(prefixes));
+        Assertions.assertEquals("/v1/pets", context.longestPrefix(prefixes));
+        prefixes = PathPrefixTrie.of(List.of("/v2", "/v11"));
+        Assertions.assertTrue(context.isResolved(prefixes));
+        Assertions.assertNull(context.longestPrefix(prefixes));
+        // the prefix depends on the value of petId.
+        Assertions.assertFalse(context.isResolved(PathPrefixTrie.of(List.of("/v1/pets/1", "/v1"))));
+
+        RouteContext literal = context("get", "/v1/pets");
+        prefixes = PathPrefixTrie.of(List.of("/v1/pets/", "/v1/pets/count", "/v1/pets"));
+        Assertions.assertTrue(literal.isResolved(prefixes));
+        Assertions.assertEquals("/v1/pets", literal.longestPrefix(prefixes));
+    }
+
+    @Test
+    public void testAttach() {
+        RouteContext context = context("get", "/v1/pets/{petId}");
+        context.setFunctionName(this, "PetsGetFunction");
+        Assertions.assertEquals("PetsGetFunction", context.getFunctionName(this));
+        Assertions.assertNull(context.getFunctionName(new Object()));
+
+        var request = TestUtils.createTestRequestEvent();
+        request.setPath("/v1/pets/1");
+        var exchange = new LightLambdaExchange(new LambdaContext("1"), null);
+        exchange.setInitialRequest(request);
+        context.attach(exchange);
+        Assertions.assertSame(context, RouteContext.of(exchange));
+        // the context is ignored once the path is changed.
+        exchange.getRequest().setPath("/v1/pets/2");
+        Assertions.assertNull(RouteContext.of(exchange));
+
+        request = TestUtils.createTestRequestEvent();
+        request.setPath("/v1/pets//1/");
+        exchange = new LightLambdaExchange(new LambdaContext("2"), null);
+        exchange.setInitialRequest(request);
+        context.attach(exchange);
+        Assertions.assertNull(RouteContext.of(exchange));
+    }
+}
@@ -0,0 +1,65 @@
+package com.networknt.aws.lambda.handler;
+
+import com.networknt.utility.PathTemplateMatcher;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints the time per lookup of the trie and of the path template matcher it replaces for 10, 100 and 1000 routes
+ * shaped like the paths in handler.yml. RouteTrieTest verifies that both find the same routes. It is not a unit test
+ * because the numbers depend on the JVM, and it is run on demand.
+ *
+ * Usage:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.networknt.aws.lambda.handler.RouteTrieBenchmark \
+ *     -Dexec.args="20000 100000"
+ * </pre>
+ *
+ * @author Steve Hu
+ */
+public class RouteTrieBenchmark {
+
+    public static void main(String[] args) {
+        final int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        for (int size : new int[]{10, 100, 1000}) {
+            RouteTrie trie = new RouteTrie();
+            PathTemplateMatcher<String> matcher = new PathTemplateMatcher<>();
+            String[] paths = new String[size];
+            for (int i = 0; i < size; i++) {
+                // half of the endpoints have a path parameter like a typical API.
+                String template = i % 2 == 0 ? "/v1/service" + i + "/items" : "/v1/service" + i + "/items/{itemId}";
+                trie.add("get", template, List.of(Integer.toString(i)));
+                matcher.add(template, Integer.toString(i));
+                paths[i] = i % 2 == 0 ? "/v1/service" + i + "/items" : "/v1/service" + i + "/items/" + i;
+            }
+            long checksum = 0;
+            long[] nanos = new long[2];
+            for (int mode = 0; mode < 2; mode++) {
+                long start = 0;
+                for (int i = 0; i < warmup + iterations; i++) {
+                    if (i == warmup)
+                        start = System.nanoTime();
+                    String path = paths[i % size];
+                    if (mode == 0) {
+                        var result = matcher.match(path);
+                        for (Map.Entry<String, String> entry : result.getParameters().entrySet())
+                            checksum += entry.getValue().length();
+                        checksum += result.getValue().length();
+                    } else {
+                        String[] values = new String[trie.getMaxParameters()];
+                        RouteTrie.Route route = trie.match("GET", path, values);
+                        for (int p = 0; p < route.getParameterNames().length; p++)
+                            checksum += values[p].length();
+                        checksum += route.getExecs().size();
+                    }
+                }
+                nanos[mode] = (System.nanoTime() - start) / iterations;
+            }
+            System.out.println("Lookup time with " + size + " routes: " + nanos[0] + " ns with the path template matcher, "
+                    + nanos[1] + " ns with the trie (checksum " + checksum + ")");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.networknt.aws.lambda.handler;
+
+import com.networknt.utility.PathTemplateMatcher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Verifies the routing of the trie and that it finds the same routes and path parameters as the path template matchers
+ * it replaces for 1000 routes shaped like the paths in handler.yml.
+ */
+public class RouteTrieTest {
+
+    @Test
+    public void testMatch() {
+        RouteTrie trie = new RouteTrie();
+        trie.add("get", "/v1/pets", List.of("list"));
+        trie.add("get", "/v1/pets/{petId}", List.of("get"));
+        trie.add("get", "/v1/pets/count", List.of("count"));
+        trie.add("get", "/v1/pets/{petId}/owners/{ownerId}", List.of("owner"));
+        trie.add("post", "/v1/pets", List.of("create"));
+        trie.add("get", "/", List.of("root"));
+        String[] values = new String[trie.getMaxParameters()];
+        Assertions.assertEquals(2, values.length);
+
+        Assertions.assertEquals(List.of("list"), trie.match("GET", "/v1/pets", values).getExecs());
+        Assertions.assertEquals(List.of("list"), trie.match("get", "/v1/pets/", values).getExecs());
+        Assertions.assertEquals(List.of("create"), trie.match("POST", "/v1/pets", values).getExecs());
+        Assertions.assertEquals(List.of("root"), trie.match("GET", "/", values).getExecs());
+        // the literal segment wins over the parameter.
+        Assertions.assertEquals(List.of("count"), trie.match("GET", "/v1/pets/count", values).getExecs());
+
+        RouteTrie.Route route = trie.match("GET", "/v1/pets/123", values);
+        Assertions.assertEquals(List.of("get"), route.getExecs());
+        Assertions.assertArrayEquals(new String[]{"petId"}, route.getParameterNames());
+        Assertions.assertEquals("123", values[0]);
+
+        // a literal dead end falls back to the parameter.
+        route = trie.match("GET", "/v1/pets/count/owners/7", values);
+        Assertions.assertEquals(List.of("owner"), route.getExecs());
+        Assertions.assertEquals("count", values[0]);
+        Assertions.assertEquals("7", values[1]);
+
+        Assertions.assertNull(trie.match("DELETE", "/v1/pets", values));
+        Assertions.assertNull(trie.match("GET", "/v1/pets/123/owners", values));
+        Assertions.assertNull(trie.match("GET", "/v2/pets", values));
+    }
+
+    @Test
+    public void testFirstEquivalentRouteIsKept() {
+        RouteTrie trie = new RouteTrie();
+        Assertions.assertNotNull(trie.add("get", "/v1/pets/{petId}", List.of("first")));
+        Assertions.assertNull(trie.add("GET", "/v1/pets/{id}", List.of("second")));
+        Assertions.assertEquals(1, trie.getRoutes().size());
+        Assertions.assertEquals(List.of("first"), trie.match("GET", "/v1/pets/1", new String[1]).getExecs());
+    }
+
+    @Test
+    public void testMatchesPathTemplateMatcher() {
+        RouteTrie trie = new RouteTrie();
+        PathTemplateMatcher<String> matcher = new PathTemplateMatcher<>();
+        String[] paths = new String[1000];
+        for (int i = 0; i < paths.length; i++) {
+            // half of the endpoints have a path parameter like a typical API.
+            String template = i % 2 == 0 ? "/v1/service" + i + "/items" : "/v1/service" + i + "/items/{itemId}";
+            trie.add("get", template, List.of(Integer.toString(i)));
+            matcher.add(template, Integer.toString(i));
+            paths[i] = i % 2 == 0 ? "/v1/service" + i + "/items" : "/v1/service" + i + "/items/" + i;
+        }
+
+        String[] values = new String[trie.getMaxParameters()];
+        for (String path : paths) {
+            var expected = matcher.match(path);
+            RouteTrie.Route route = trie.match("GET", path, values);
+            Assertions.assertEquals(List.of(expected.getValue()), route.getExecs(), path);
+            Assertions.assertEquals(expected.getParameters().size(), route.getParameterNames().length, path);
+            for (int p = 0; p < route.getParameterNames().length; p++)
+                Assertions.assertEquals(expected.getParameters().get(route.getParameterNames()[p]), values[p], path);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.networknt.aws.lambda.middleware.audit;
+
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
+import com.networknt.utility.Constants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware.AUDIT_ATTACHMENT_KEY;
+
+public class AuditInfoTest {
+    @Test
+    public void testNamedAccessMatchesFields() {
+        AuditInfo auditInfo = new AuditInfo();
+        Assertions.assertTrue(auditInfo.isEmpty());
+        auditInfo.setClientId("client1");
+        auditInfo.put(Constants.ENDPOINT_STRING, "/pets@get");
+        auditInfo.put("custom", 1);
+
+        Assertions.assertEquals("/pets@get", auditInfo.getEndpoint());
+        Assertions.assertEquals("client1", auditInfo.get(Constants.CLIENT_ID_STRING));
+        Assertions.assertEquals(1, auditInfo.get("custom"));
+        Assertions.assertNull(auditInfo.get(Constants.USER_ID_STRING));
+        Assertions.assertEquals(Map.of(Constants.ENDPOINT_STRING, "/pets@get", Constants.CLIENT_ID_STRING, "client1", "custom", 1), auditInfo.toMap());
+        Assertions.assertFalse(auditInfo.isEmpty());
+    }
+
+    @Test
+    public void testAttachReusesTheExchangeAuditInfo() {
+        LightLambdaExchange exchange = new LightLambdaExchange(new LambdaContext("1"), null);
+        Assertions.assertNull(exchange.getAttachment(AUDIT_ATTACHMENT_KEY));
+        AuditInfo auditInfo = AuditInfo.attach(exchange);
+        Assertions.assertSame(auditInfo, exchange.getAttachment(AUDIT_ATTACHMENT_KEY));
+        Assertions.assertSame(auditInfo, AuditInfo.attach(exchange));
+    }
+
+    @Test
+    public void testMapViewWritesThrough() {
+        AuditInfo auditInfo = new AuditInfo();
+        auditInfo.setClientId("client1");
+        Map<String, Object> view = auditInfo.asMap();
+        // a rule updates the audit info through the map it is given.
+        Assertions.assertEquals("client1", view.put(Constants.CLIENT_ID_STRING, "client2"));
+        view.put("custom", 1);
+        Assertions.assertEquals("client2", auditInfo.getClientId());
+        Assertions.assertEquals(1, auditInfo.get("custom"));
+        Assertions.assertEquals(auditInfo.toMap(), view);
+
+        view.remove(Constants.CLIENT_ID_STRING);
+        view.entrySet().removeIf(e -> e.getKey().equals("custom"));
+        Assertions.assertTrue(auditInfo.isEmpty());
+        Assertions.assertTrue(view.isEmpty());
+    }
+}
@@ -2,7 +2,9 @@ package com.networknt.aws.lambda.middleware.chain;
 
 import com.networknt.aws.lambda.TestAsynchronousMiddleware;
 import com.networknt.aws.lambda.TestSynchronousMiddleware;
+import com.networknt.aws.lambda.handler.LazyLambdaHandler;
 import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.aws.lambda.handler.middleware.header.RequestHeaderMiddleware;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -60,4 +62,73 @@ class ChainTest {
         Assertions.assertEquals(5, chain.getChainSize());
     }
 
+    @Test
+    void testStreamingSupportedAfter() {
+        var producer = new TestSynchronousMiddleware();
+        var headerOnly = new TestSynchronousMiddleware() {
+            @Override
+            public boolean isStreamingSupported() {
+                return true;
+            }
+        };
+        var chain = new Chain();
+        chain.addChainable(new TestAsynchronousMiddleware());
+        chain.addChainable(producer);
+        chain.addChainable(headerOnly);
+        chain.setFinalized(true);
+        Assertions.assertTrue(chain.isStreamingSupportedAfter(producer));
+        Assertions.assertFalse(chain.isStreamingSupportedAfter(new TestSynchronousMiddleware()));
+
+        var bufferedChain = new Chain();
+        bufferedChain.addChainable(producer);
+        bufferedChain.addChainable(new TestSynchronousMiddleware());
+        bufferedChain.setFinalized(true);
+        Assertions.assertFalse(bufferedChain.isStreamingSupportedAfter(producer));
+    }
+
+    @Test
+    void testStreamingSupportedAfterLazyProducer() {
+        var producer = new TestSynchronousMiddleware();
+        var lazy = new LazyLambdaHandler("router", () -> producer);
+        var chain = new Chain();
+        chain.addChainable(lazy);
+        chain.setFinalized(true);
+        // the chain holds the lazy handler and the producer passes itself once it is constructed.
+        lazy.getDelegate();
+        Assertions.assertTrue(chain.isStreamingSupportedAfter(producer));
+    }
+
+    @Test
+    void testStreamingCheckDoesNotConstructLazyHandlers() {
+        var producer = new TestSynchronousMiddleware();
+        var lazy = new LazyLambdaHandler("responseHeader", () -> new TestSynchronousMiddleware() {
+            @Override
+            public boolean isStreamingSupported() {
+                return true;
+            }
+        });
+        var chain = new Chain();
+        chain.addChainable(producer);
+        chain.addChainable(lazy);
+        chain.setFinalized(true);
+        // the response is buffered until the lazy handler has been constructed by its first execution.
+        Assertions.assertFalse(chain.isStreamingSupportedAfter(producer));
+        Assertions.assertFalse(lazy.isConstructed());
+        lazy.getDelegate();
+        Assertions.assertTrue(chain.isStreamingSupportedAfter(producer));
+    }
+
+    @Test
+    void testDisabledHandlersRemoved() {
+        var testSynchronousMiddleware = new TestSynchronousMiddleware();
+        var chain = new Chain();
+        chain.addChainable(testSynchronousMiddleware);
+        chain.addChainable(new RequestHeaderMiddleware("header_disabled_test"));
+        chain.addChainable(testSynchronousMiddleware);
+        Assertions.assertEquals(0, chain.getEnabledHandlers().length);
+        chain.setFinalized(true);
+        Assertions.assertEquals(3, chain.getChainSize());
+        Assertions.assertArrayEquals(new Object[]{testSynchronousMiddleware, testSynchronousMiddleware}, chain.getEnabledHandlers());
+    }
+
 }
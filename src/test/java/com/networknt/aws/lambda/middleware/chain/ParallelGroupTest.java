@@ -0,0 +1,246 @@
+package com.networknt.aws.lambda.middleware.chain;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.exception.LambdaExchangeStateException;
+import com.networknt.aws.lambda.handler.ImmutableStatus;
+import com.networknt.aws.lambda.handler.LambdaHandler;
+import com.networknt.aws.lambda.handler.MiddlewareHandler;
+import com.networknt.aws.lambda.handler.chain.Chain;
+import com.networknt.aws.lambda.handler.chain.ChainExecutor;
+import com.networknt.aws.lambda.handler.chain.ParallelGroup;
+import com.networknt.status.Status;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class ParallelGroupTest {
+
+    private static MiddlewareHandler handler(final Status status, final boolean enabled) {
+        return handler(() -> { }, status, enabled);
+    }
+
+    private static MiddlewareHandler handler(final Runnable before, final Status status, final boolean enabled) {
+        return new MiddlewareHandler() {
+            @Override
+            public Status execute(LightLambdaExchange exchange) {
+                before.run();
+                return status == null ? this.successMiddlewareStatus() : status;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return enabled;
+            }
+        };
+    }
+
+    private static LightLambdaExchange createExchange() {
+        LightLambdaExchange exchange = new LightLambdaExchange(new LambdaContext("1"), null);
+        exchange.setInitialRequest(new APIGatewayProxyRequestEvent());
+        return exchange;
+    }
+
+    @Test
+    void testGroupNames() {
+        Assertions.assertTrue(ParallelGroup.isGroup("limit|apikey"));
+        Assertions.assertFalse(ParallelGroup.isGroup("limit"));
+        Assertions.assertEquals(List.of("limit", "apikey", "token"), ParallelGroup.getHandlerNames("limit | apikey|token"));
+    }
+
+    @Test
+    void testHandlersRunAtTheSameTime() {
+        // each handler waits until all of them have started, which only succeeds if they run at the same time.
+        final CountDownLatch started = new CountDownLatch(3);
+        final MiddlewareHandler handler = new MiddlewareHandler() {
+            @Override
+            public Status execute(LightLambdaExchange exchange) {
+                started.countDown();
+                try {
+                    return started.await(10, TimeUnit.SECONDS) ? this.successMiddlewareStatus() : ImmutableStatus.of("ERR10000");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return ImmutableStatus.of("ERR10000");
+                }
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+        };
+        var group = new ParallelGroup("a|b|c", List.of(handler, handler, handler));
+        var chain = new Chain();
+        chain.addChainable(group);
+        chain.setFinalized(true);
+
+        ChainExecutor executor = new ChainExecutor();
+        executor.executeChain(createExchange(), chain);
+        Assertions.assertTrue(executor.getChainResults().isEmpty());
+    }
+
+    private static MiddlewareHandler member(final String name, final CountDownLatch before, final CountDownLatch after, final Status status) {
+        return new MiddlewareHandler() {
+            @Override
+            public Status execute(LightLambdaExchange exchange) {
+                try {
+                    before.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.getRequestHeaders().put("x-member", name);
+                exchange.getRequestHeaders().put("x-" + name, name);
+                exchange.getRequestHeaders().remove("x-removed");
+                // a handler reads its own changes, but not the changes of the others.
+                Assertions.assertEquals(name, exchange.getRequestHeaders().get("x-member"));
+                Assertions.assertNull(exchange.getRequestHeaders().get("x-removed"));
+                exchange.setInitialResponse(new APIGatewayProxyResponseEvent().withStatusCode(name.equals("a") ? 401 : 429));
+                exchange.addResponseCompleteListener(e -> { });
+                exchange.defer(() -> { });
+                after.countDown();
+                return status == null ? this.successMiddlewareStatus() : status;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+        };
+    }
+
+    private static LightLambdaExchange createExchangeWithHeader() {
+        LightLambdaExchange exchange = createExchange();
+        exchange.getRequestHeaders().put("x-removed", "value");
+        return exchange;
+    }
+
+    @Test
+    void testChangesAreAppliedInTheDeclaredOrder() {
+        // the second handler finishes first, but the changes are applied as if the handlers ran one after the other.
+        final CountDownLatch secondDone = new CountDownLatch(1);
+        final CountDownLatch firstDone = new CountDownLatch(1);
+        var chain = new Chain();
+        chain.addChainable(new ParallelGroup("a|b", List.of(
+                member("a", secondDone, firstDone, null),
+                member("b", new CountDownLatch(0), secondDone, null))));
+        chain.setFinalized(true);
+
+        LightLambdaExchange exchange = createExchangeWithHeader();
+        ChainExecutor executor = new ChainExecutor();
+        executor.executeChain(exchange, chain);
+        Assertions.assertTrue(executor.getChainResults().isEmpty());
+        Assertions.assertEquals("b", exchange.getRequestHeaders().get("x-member"));
+        Assertions.assertEquals("a", exchange.getRequestHeaders().get("x-a"));
+        Assertions.assertEquals("b", exchange.getRequestHeaders().get("x-b"));
+        Assertions.assertNull(exchange.getRequestHeaders().get("x-removed"));
+        Assertions.assertEquals("b", exchange.getRequest().getHeaders().get("x-member"));
+        // the response of the first handler in the declared order is kept.
+        Assertions.assertEquals(401, exchange.getResponse().getStatusCode());
+        Assertions.assertTrue(exchange.hasDeferredTasks());
+
+        // the exchange is updated directly again after the group.
+        exchange.getRequestHeaders().put("x-after", "value");
+        Assertions.assertEquals("value", exchange.getRequest().getHeaders().get("x-after"));
+    }
+
+    @Test
+    void testChangesAfterTheFirstFailureAreDropped() {
+        final CountDownLatch done = new CountDownLatch(2);
+        var chain = new Chain();
+        chain.addChainable(new ParallelGroup("a|b", List.of(
+                member("a", new CountDownLatch(0), done, ImmutableStatus.of("ERR10000")),
+                member("b", new CountDownLatch(0), done, null))));
+        chain.setFinalized(true);
+
+        LightLambdaExchange exchange = createExchangeWithHeader();
+        ChainExecutor executor = new ChainExecutor();
+        executor.executeChain(exchange, chain);
+        Assertions.assertEquals("ERR10000", executor.getChainResults().get(0).getCode());
+        Assertions.assertEquals("a", exchange.getRequestHeaders().get("x-member"));
+        Assertions.assertNull(exchange.getRequestHeaders().get("x-b"));
+        Assertions.assertEquals(401, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testOnlyTheHandlersOfTheGroupChangeTheExchange() {
+        final List<Class<?>> failures = new CopyOnWriteArrayList<>();
+        final MiddlewareHandler handler = new MiddlewareHandler() {
+            @Override
+            public Status execute(LightLambdaExchange exchange) {
+                // a thread that is not a handler of the group, like a callback, cannot change the exchange.
+                Thread thread = Thread.ofVirtual().start(() -> {
+                    try {
+                        exchange.getRequestHeaders().put("x-other", "value");
+                    } catch (RuntimeException e) {
+                        failures.add(e.getClass());
+                    }
+                    try {
+                        exchange.addResponseCompleteListener(e -> { });
+                    } catch (RuntimeException e) {
+                        failures.add(e.getClass());
+                    }
+                });
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return this.successMiddlewareStatus();
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+        };
+        var chain = new Chain();
+        chain.addChainable(new ParallelGroup("a|b", List.of(handler, handler(null, true))));
+        chain.setFinalized(true);
+
+        LightLambdaExchange exchange = createExchange();
+        new ChainExecutor().executeChain(exchange, chain);
+        Assertions.assertEquals(List.of(IllegalStateException.class, LambdaExchangeStateException.class), failures);
+        Assertions.assertNull(exchange.getRequestHeaders().get("x-other"));
+    }
+
+    @Test
+    void testFirstDeclaredFailureWins() {
+        // the second failure finishes first, but the first declared failure is reported.
+        final CountDownLatch laterFailed = new CountDownLatch(1);
+        var group = new ParallelGroup("a|b|c", List.of(
+                handler(null, true),
+                handler(() -> {
+                    try {
+                        laterFailed.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, ImmutableStatus.of("ERR10000"), true),
+                handler(laterFailed::countDown, ImmutableStatus.of("ERR10002"), true)));
+        var chain = new Chain();
+        chain.addChainable(group);
+        chain.setFinalized(true);
+
+        ChainExecutor executor = new ChainExecutor();
+        executor.executeChain(createExchange(), chain);
+        Assertions.assertEquals(1, executor.getChainResults().size());
+        Assertions.assertEquals("ERR10000", executor.getChainResults().get(0).getCode());
+    }
+
+    @Test
+    void testDisabledHandlersRemoved() {
+        LambdaHandler enabled = handler(null, true);
+        var chain = new Chain();
+        chain.addChainable(new ParallelGroup("a|b", List.of(enabled, handler(null, false))));
+        chain.addChainable(new ParallelGroup("c|d", List.of(handler(null, false), handler(null, false))));
+        chain.setFinalized(true);
+        // a group with a single enabled handler is replaced by it.
+        Assertions.assertArrayEquals(new Object[]{enabled}, chain.getEnabledHandlers());
+    }
+}
@@ -7,6 +7,7 @@ import com.networknt.aws.lambda.LambdaContext;
 import com.networknt.aws.lambda.TestUtils;
 import com.networknt.aws.lambda.handler.chain.Chain;
 import com.networknt.aws.lambda.LightLambdaExchange;
+import com.networknt.aws.lambda.handler.middleware.audit.AuditInfo;
 import com.networknt.aws.lambda.handler.middleware.specification.OpenApiMiddleware;
 import com.networknt.utility.Constants;
 import org.junit.jupiter.api.Assertions;
@@ -14,9 +15,6 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import static com.networknt.aws.lambda.handler.middleware.audit.AuditMiddleware.AUDIT_ATTACHMENT_KEY;
 
 
@@ -49,11 +47,12 @@ public class OpenApiMiddlewareTest {
         Assertions.assertNotNull(requestEvent);
         // make sure that the auditInfo attachment is in the exchange and there are two keys.
 
-        Map<String, Object> auditInfo = (Map<String, Object>)exchange.getAttachment(AUDIT_ATTACHMENT_KEY);;
+        AuditInfo auditInfo = exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
         Assertions.assertNotNull(auditInfo);
         String endpoint = (String)auditInfo.get(Constants.ENDPOINT_STRING);
         Assertions.assertNotNull(endpoint);
         Assertions.assertEquals("/pets@post", endpoint);
+        Assertions.assertEquals(endpoint, auditInfo.getEndpoint());
         Object openApiOperation = auditInfo.get(Constants.OPENAPI_OPERATION_STRING);
         Assertions.assertNotNull(openApiOperation);
 
@@ -78,7 +77,7 @@ public class OpenApiMiddlewareTest {
         requestEvent = exchange.getRequest();
         Assertions.assertNotNull(requestEvent);
 
-        Map<String, Object> auditInfo = (Map<String, Object>)exchange.getAttachment(AUDIT_ATTACHMENT_KEY);;
+        AuditInfo auditInfo = exchange.getAttachment(AUDIT_ATTACHMENT_KEY);
         Assertions.assertNotNull(auditInfo);
         String endpoint = (String)auditInfo.get(Constants.ENDPOINT_STRING);
         Assertions.assertNotNull(endpoint);
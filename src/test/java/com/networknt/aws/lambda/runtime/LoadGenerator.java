@@ -0,0 +1,212 @@
+package com.networknt.aws.lambda.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays events against the bootstrap binary or the jar through the LocalRuntimeApi and reports the latency
+ * percentiles, the init duration and the resident memory of the function. The backend Lambda and DynamoDB are replaced
+ * by the LocalAwsFakes, so only the cost of the middleware function is measured.
+ *
+ * Each runtime process handles one invocation at a time like a Lambda execution environment, so the concurrency is the
+ * number of processes started. The events are read from a file with one JSON event per line, or the test-event.json is
+ * replayed when no file is given.
+ *
+ * Usage:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.networknt.aws.lambda.runtime.LoadGenerator \
+ *     -Dexec.args="--command target/custom-runtime/lambda-native --events events.jsonl --rate 100 --count 2000"
+ * </pre>
+ *
+ * @author Steve Hu
+ */
+public class LoadGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+    static final String DEFAULT_EVENT = "test-event.json";
+    static final String DEFAULT_HANDLER = "com.networknt.aws.lambda.app.LambdaApp::handleRequest";
+
+    private List<String> command = List.of();
+    private Path events;
+    private String configDir;
+    private double rate;
+    private int concurrency = 1;
+    private int count = 1000;
+    private int warmup = 100;
+    private long backendDelayMillis;
+
+    public static void main(String[] args) throws Exception {
+        final LoadGenerator generator = parse(args);
+        if (generator.command.isEmpty()) {
+            System.err.println("Usage: LoadGenerator --command <bootstrap binary or 'java -jar lambda-native.jar'> [--events <jsonl file>]\n" +
+                    "    [--config-dir <dir>] [--rate <events per second, 0 for unlimited>] [--concurrency <processes>]\n" +
+                    "    [--count <events>] [--warmup <events>] [--backend-delay <ms>]");
+            System.exit(1);
+        }
+        System.out.println(generator.run());
+    }
+
+    static LoadGenerator parse(final String[] args) {
+        final LoadGenerator generator = new LoadGenerator();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            final String value = args[i + 1];
+            switch (args[i]) {
+                case "--command" -> generator.command = Arrays.asList(value.trim().split("\\s+"));
+                case "--events" -> generator.events = Path.of(value);
+                case "--config-dir" -> generator.configDir = value;
+                case "--rate" -> generator.rate = Double.parseDouble(value);
+                case "--concurrency" -> generator.concurrency = Integer.parseInt(value);
+                case "--count" -> generator.count = Integer.parseInt(value);
+                case "--warmup" -> generator.warmup = Integer.parseInt(value);
+                case "--backend-delay" -> generator.backendDelayMillis = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        return generator;
+    }
+
+    /**
+     * Start the emulator, the fakes and the runtime processes, replay the events and return the report.
+     *
+     * @return the report.
+     * @throws IOException when the events cannot be read or a process cannot be started.
+     * @throws InterruptedException when interrupted while waiting for the invocations.
+     */
+    public String run() throws IOException, InterruptedException {
+        final List<String> payloads = loadEvents(this.events);
+        final List<Process> processes = new ArrayList<>();
+        try (LocalRuntimeApi runtimeApi = new LocalRuntimeApi(0);
+             LocalAwsFakes fakes = new LocalAwsFakes(0, this.backendDelayMillis, null)) {
+            for (int i = 0; i < this.concurrency; i++)
+                processes.add(start(runtimeApi, fakes));
+
+            // the first invocation is the cold start of the first process, so it is reported apart from the others.
+            final long firstInvocation = runtimeApi.invoke(payloads.get(0)).join().latencyNanos();
+            final long initNanos = runtimeApi.getInitNanos();
+            if (runtimeApi.getInitError() != null)
+                throw new IllegalStateException("The function failed to initialize: " + runtimeApi.getInitError());
+
+            replay(runtimeApi, payloads, this.warmup);
+            final List<LocalRuntimeApi.Result> results = replay(runtimeApi, payloads, this.count);
+            final Map<String, Long> rss = new HashMap<>();
+            for (Process process : processes)
+                rss.putAll(readRss(process.toHandle()));
+            return report(initNanos, firstInvocation, results, rss);
+        } finally {
+            for (Process process : processes) {
+                process.descendants().forEach(ProcessHandle::destroy);
+                process.destroy();
+                process.waitFor(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private Process start(final LocalRuntimeApi runtimeApi, final LocalAwsFakes fakes) throws IOException {
+        final List<String> cmd = new ArrayList<>(this.command);
+        if (this.configDir != null)
+            cmd.add(1, "-Dlight-4j-config-dir=" + this.configDir);
+        final ProcessBuilder builder = new ProcessBuilder(cmd).inheritIO();
+        final Map<String, String> env = builder.environment();
+        env.put("AWS_LAMBDA_RUNTIME_API", runtimeApi.getAddress());
+        env.put("_HANDLER", DEFAULT_HANDLER);
+        env.put("AWS_REGION", "ca-central-1");
+        env.put("AWS_LAMBDA_FUNCTION_NAME", "lambda-native");
+        env.put("AWS_LAMBDA_FUNCTION_VERSION", "$LATEST");
+        env.put("AWS_LAMBDA_FUNCTION_MEMORY_SIZE", "512");
+        env.putAll(fakes.environment());
+        return builder.start();
+    }
+
+    private List<LocalRuntimeApi.Result> replay(final LocalRuntimeApi runtimeApi, final List<String> payloads, final int total) {
+        final List<CompletableFuture<LocalRuntimeApi.Result>> futures = new ArrayList<>(total);
+        final long intervalNanos = this.rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / this.rate) : 0;
+        long next = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            if (intervalNanos > 0) {
+                next += intervalNanos;
+                final long wait = next - System.nanoTime();
+                if (wait > 0)
+                    LockSupport.parkNanos(wait);
+            }
+            futures.add(runtimeApi.invoke(payloads.get(i % payloads.size())));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    static List<String> loadEvents(final Path file) throws IOException {
+        if (file == null)
+            return List.of(Files.readString(Path.of(DEFAULT_EVENT)));
+        final List<String> payloads = Files.readAllLines(file).stream().map(String::trim).filter(l -> !l.isEmpty()).toList();
+        if (payloads.isEmpty())
+            throw new IllegalArgumentException("No events in " + file);
+        return payloads;
+    }
+
+    /**
+     * Read the peak resident memory of the process and its descendants from /proc. The bootstrap script starts the
+     * binary as a child process, so the descendants are included.
+     *
+     * @param handle the process handle.
+     * @return the VmHWM in KB keyed by the pid, empty on a system without /proc.
+     */
+    static Map<String, Long> readRss(final ProcessHandle handle) {
+        final Map<String, Long> rss = new HashMap<>();
+        final List<ProcessHandle> handles = new ArrayList<>();
+        handles.add(handle);
+        handle.descendants().forEach(handles::add);
+        for (ProcessHandle h : handles) {
+            final Path status = Path.of("/proc", String.valueOf(h.pid()), "status");
+            try {
+                for (String line : Files.readAllLines(status)) {
+                    if (line.startsWith("VmHWM:"))
+                        rss.put(String.valueOf(h.pid()), Long.parseLong(line.replaceAll("\\D", "")));
+                }
+            } catch (IOException | NumberFormatException e) {
+                LOG.debug("Cannot read the memory of process {}", h.pid());
+            }
+        }
+        return rss;
+    }
+
+    /**
+     * @param sorted the sorted latencies.
+     * @param percentile the percentile between 0 and 100.
+     * @return the latency at the percentile with the nearest-rank method.
+     */
+    static long percentile(final long[] sorted, final double percentile) {
+        if (sorted.length == 0)
+            return 0;
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    static String report(final long initNanos, final long firstInvocationNanos, final List<LocalRuntimeApi.Result> results,
+                         final Map<String, Long> rss) {
+        final long[] latencies = results.stream().mapToLong(LocalRuntimeApi.Result::latencyNanos).sorted().toArray();
+        final long errors = results.stream().filter(LocalRuntimeApi.Result::error).count();
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "init duration:        %10.2f ms%n", initNanos / 1e6));
+        sb.append(String.format(Locale.ROOT, "first invocation:     %10.2f ms%n", firstInvocationNanos / 1e6));
+        sb.append(String.format(Locale.ROOT, "invocations:          %10d (%d errors)%n", latencies.length, errors));
+        sb.append(String.format(Locale.ROOT, "p50:                  %10.3f ms%n", percentile(latencies, 50) / 1e6));
+        sb.append(String.format(Locale.ROOT, "p90:                  %10.3f ms%n", percentile(latencies, 90) / 1e6));
+        sb.append(String.format(Locale.ROOT, "p99:                  %10.3f ms%n", percentile(latencies, 99) / 1e6));
+        sb.append(String.format(Locale.ROOT, "max:                  %10.3f ms%n", percentile(latencies, 100) / 1e6));
+        for (var entry : rss.entrySet())
+            sb.append(String.format(Locale.ROOT, "peak RSS (pid %s): %10.1f MB%n", entry.getKey(), entry.getValue() / 1024.0));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.networknt.aws.lambda.runtime;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Local fakes of the AWS services called by the function. The Lambda Invoke API returns a canned backend response after
+ * a fixed delay, and the DynamoDB JSON API keeps the created tables and answers the item calls as cache misses. The
+ * function reaches them through the AWS_ENDPOINT_URL_LAMBDA and AWS_ENDPOINT_URL_DYNAMODB environment variables that
+ * the SDK clients pick up.
+ *
+ * @author Steve Hu
+ */
+public class LocalAwsFakes implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalAwsFakes.class);
+    static final String INVOKE_PREFIX = "/2015-03-31/functions/";
+    static final String DEFAULT_BACKEND_RESPONSE =
+            "{\"statusCode\":200,\"headers\":{\"Content-Type\":\"application/json\"},\"body\":\"{\\\"id\\\":1,\\\"name\\\":\\\"doggie\\\"}\"}";
+
+    private final HttpServer server;
+    private final long backendDelayMillis;
+    private final String backendResponse;
+    private final Set<String> tables = ConcurrentHashMap.newKeySet();
+
+    public LocalAwsFakes(final int port, final long backendDelayMillis, final String backendResponse) throws IOException {
+        this.backendDelayMillis = backendDelayMillis;
+        this.backendResponse = backendResponse == null ? DEFAULT_BACKEND_RESPONSE : backendResponse;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/", this::handle);
+        this.server.start();
+        LOG.info("Local AWS fakes are listening on {}", getEndpoint());
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    /**
+     * @return the environment variables that point the SDK clients of the function to the fakes.
+     */
+    public Map<String, String> environment() {
+        return Map.of(
+                "AWS_ENDPOINT_URL_LAMBDA", getEndpoint(),
+                "AWS_ENDPOINT_URL_DYNAMODB", getEndpoint(),
+                "AWS_ACCESS_KEY_ID", "local",
+                "AWS_SECRET_ACCESS_KEY", "local",
+                "AWS_SESSION_TOKEN", "local");
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final String path = exchange.getRequestURI().getPath();
+            final String target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+            final String body = new String(exchange.getRequestBody().readAllBytes());
+            if (path.startsWith(INVOKE_PREFIX) && path.endsWith("/invocations")) {
+                invoke(exchange);
+            } else if (target != null && target.startsWith("DynamoDB_")) {
+                dynamoDb(exchange, target.substring(target.indexOf('.') + 1), body);
+            } else {
+                LocalRuntimeApi.send(exchange, 404, "{\"message\":\"Unknown path " + path + "\"}");
+            }
+        }
+    }
+
+    private void invoke(final HttpExchange exchange) throws IOException {
+        if (this.backendDelayMillis > 0) {
+            try {
+                Thread.sleep(this.backendDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        exchange.getResponseHeaders().add("X-Amz-Executed-Version", "$LATEST");
+        LocalRuntimeApi.send(exchange, 200, this.backendResponse);
+    }
+
+    private void dynamoDb(final HttpExchange exchange, final String operation, final String body) throws IOException {
+        final String tableName = tableName(body);
+        final String response = switch (operation) {
+            case "ListTables" -> "{\"TableNames\":[" + String.join(",", this.tables.stream().map(t -> "\"" + t + "\"").toList()) + "]}";
+            case "CreateTable" -> {
+                this.tables.add(tableName);
+                yield "{\"TableDescription\":" + table(tableName) + "}";
+            }
+            case "DescribeTable" -> "{\"Table\":" + table(tableName) + "}";
+            case "DeleteTable" -> {
+                this.tables.remove(tableName);
+                yield "{\"TableDescription\":" + table(tableName) + "}";
+            }
+            // every item call is a cache miss, so the function always takes the same path.
+            default -> "{}";
+        };
+        exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+        LocalRuntimeApi.send(exchange, 200, response);
+    }
+
+    private static String table(final String tableName) {
+        return "{\"TableName\":\"" + tableName + "\",\"TableStatus\":\"ACTIVE\"}";
+    }
+
+    private static String tableName(final String body) {
+        final String key = "\"TableName\":\"";
+        final int start = body.indexOf(key);
+        if (start < 0)
+            return "";
+        final int end = body.indexOf('"', start + key.length());
+        return body.substring(start + key.length(), end);
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+}
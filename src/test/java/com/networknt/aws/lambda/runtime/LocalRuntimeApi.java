@@ -0,0 +1,188 @@
+package com.networknt.aws.lambda.runtime;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An emulator of the Lambda Runtime API on localhost. The bootstrap binary or the jar started with
+ * AWS_LAMBDA_RUNTIME_API pointing to this server polls the next invocation and posts the response the same way as
+ * in the Lambda service, so the whole function including the runtime client can be measured locally.
+ *
+ * The time between the start of the emulator and the first poll of the next invocation is the init duration. The
+ * latency of an invocation is measured from the moment the event is handed to the runtime until its response is
+ * posted, so the queueing in the load generator is not included.
+ *
+ * @author Steve Hu
+ */
+public class LocalRuntimeApi implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalRuntimeApi.class);
+    static final String VERSION = "/2018-06-01/runtime";
+    static final String NEXT = VERSION + "/invocation/next";
+    static final String INIT_ERROR = VERSION + "/init/error";
+    static final String INVOCATION = VERSION + "/invocation/";
+    static final String REQUEST_ID = "Lambda-Runtime-Aws-Request-Id";
+    static final String DEADLINE = "Lambda-Runtime-Deadline-Ms";
+    static final String FUNCTION_ARN = "Lambda-Runtime-Invoked-Function-Arn";
+    static final String TRACE_ID = "Lambda-Runtime-Trace-Id";
+    private static final long TIMEOUT_MILLIS = 30000;
+
+    private final HttpServer server;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong firstPollNanos = new AtomicLong();
+    private final BlockingQueue<Invocation> queue = new LinkedBlockingQueue<>();
+    private final Map<String, Invocation> inFlight = new ConcurrentHashMap<>();
+    private volatile String initError;
+
+    /**
+     * The result of one invocation.
+     *
+     * @param requestId the request id given to the runtime.
+     * @param body the response or the error posted by the runtime.
+     * @param error true if the runtime posted an error.
+     * @param latencyNanos the nanoseconds between handing the event to the runtime and receiving its response.
+     */
+    public record Result(String requestId, String body, boolean error, long latencyNanos) {
+    }
+
+    private static final class Invocation {
+        private final String requestId = UUID.randomUUID().toString();
+        private final byte[] event;
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+        private volatile long dispatchedNanos;
+
+        private Invocation(final byte[] event) {
+            this.event = event;
+        }
+    }
+
+    public LocalRuntimeApi(final int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // each runtime process blocks a thread on the next invocation.
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext(VERSION, this::handle);
+        this.server.start();
+        LOG.info("Local Runtime API is listening on {}", getAddress());
+    }
+
+    /**
+     * @return the host:port to put into AWS_LAMBDA_RUNTIME_API.
+     */
+    public String getAddress() {
+        return "127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    /**
+     * Queue an event for the next runtime that polls.
+     *
+     * @param event the JSON event.
+     * @return the future completed when the runtime posts the response or the error.
+     */
+    public CompletableFuture<Result> invoke(final String event) {
+        final var invocation = new Invocation(event.getBytes(StandardCharsets.UTF_8));
+        this.queue.add(invocation);
+        return invocation.future;
+    }
+
+    /**
+     * @return the nanoseconds from the start of the emulator to the first poll, or -1 if no runtime has polled yet.
+     */
+    public long getInitNanos() {
+        final long first = this.firstPollNanos.get();
+        return first == 0 ? -1 : first - this.startNanos;
+    }
+
+    /**
+     * @return the error posted to the init error endpoint, or null if the init succeeded.
+     */
+    public String getInitError() {
+        return this.initError;
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getPath();
+        try (exchange) {
+            if (path.equals(NEXT) && "GET".equals(exchange.getRequestMethod())) {
+                next(exchange);
+            } else if (path.equals(INIT_ERROR)) {
+                this.initError = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                LOG.error("Runtime init error: {}", this.initError);
+                send(exchange, 202, "{\"status\":\"OK\"}");
+            } else if (path.startsWith(INVOCATION) && (path.endsWith("/response") || path.endsWith("/error"))) {
+                complete(exchange, path);
+            } else {
+                send(exchange, 404, "{\"errorMessage\":\"Unknown path " + path + "\"}");
+            }
+        }
+    }
+
+    private void next(final HttpExchange exchange) throws IOException {
+        this.firstPollNanos.compareAndSet(0, System.nanoTime());
+        final Invocation invocation;
+        try {
+            invocation = this.queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        this.inFlight.put(invocation.requestId, invocation);
+        final var headers = exchange.getResponseHeaders();
+        headers.add(REQUEST_ID, invocation.requestId);
+        headers.add(DEADLINE, String.valueOf(System.currentTimeMillis() + TIMEOUT_MILLIS));
+        headers.add(FUNCTION_ARN, "arn:aws:lambda:ca-central-1:000000000000:function:lambda-native");
+        headers.add(TRACE_ID, "Root=1-00000000-000000000000000000000000;Sampled=0");
+        headers.add("Content-Type", "application/json");
+        invocation.dispatchedNanos = System.nanoTime();
+        exchange.sendResponseHeaders(200, invocation.event.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(invocation.event);
+        }
+    }
+
+    private void complete(final HttpExchange exchange, final String path) throws IOException {
+        final long received = System.nanoTime();
+        final String requestId = path.substring(INVOCATION.length(), path.lastIndexOf('/'));
+        final String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        final Invocation invocation = this.inFlight.remove(requestId);
+        if (invocation == null) {
+            send(exchange, 400, "{\"errorMessage\":\"Unknown request id " + requestId + "\"}");
+            return;
+        }
+        send(exchange, 202, "{\"status\":\"OK\"}");
+        invocation.future.complete(new Result(requestId, body, path.endsWith("/error"), received - invocation.dispatchedNanos));
+    }
+
+    static void send(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (!exchange.getResponseHeaders().containsKey("Content-Type"))
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        for (Invocation invocation : this.queue)
+            invocation.future.cancel(false);
+        for (Invocation invocation : this.inFlight.values())
+            invocation.future.cancel(false);
+    }
+}
@@ -0,0 +1,79 @@
+package com.networknt.aws.lambda.runtime;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.aws.lambda.LambdaContext;
+import com.networknt.aws.lambda.app.LambdaApp;
+import com.networknt.config.Config;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+public class LocalRuntimeApiTest {
+
+    /**
+     * A minimal runtime client that serves one invocation with the LambdaApp in this JVM.
+     */
+    private static void serveOne(final HttpClient client, final String address) throws Exception {
+        ObjectMapper mapper = Config.getInstance().getMapper();
+        HttpResponse<String> next = client.send(HttpRequest.newBuilder(URI.create("http://" + address + LocalRuntimeApi.NEXT)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        String requestId = next.headers().firstValue(LocalRuntimeApi.REQUEST_ID).orElseThrow();
+        APIGatewayProxyResponseEvent response = new LambdaApp().handleRequest(mapper.readValue(next.body(), APIGatewayProxyRequestEvent.class),
+                new LambdaContext(requestId));
+        client.send(HttpRequest.newBuilder(URI.create("http://" + address + LocalRuntimeApi.INVOCATION + requestId + "/response"))
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(response))).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testInvocationRoundTrip() throws Exception {
+        ObjectMapper mapper = Config.getInstance().getMapper();
+        ObjectNode event = (ObjectNode) mapper.readTree(Files.readAllBytes(Path.of(LoadGenerator.DEFAULT_EVENT)));
+        event.put("path", "/health");
+        event.put("httpMethod", "GET");
+
+        try (LocalRuntimeApi runtimeApi = new LocalRuntimeApi(0)) {
+            Assertions.assertEquals(-1, runtimeApi.getInitNanos());
+            var future = runtimeApi.invoke(mapper.writeValueAsString(event));
+            serveOne(HttpClient.newHttpClient(), runtimeApi.getAddress());
+
+            LocalRuntimeApi.Result result = future.get(10, TimeUnit.SECONDS);
+            Assertions.assertFalse(result.error());
+            Assertions.assertTrue(result.latencyNanos() > 0);
+            Assertions.assertTrue(runtimeApi.getInitNanos() > 0);
+            Assertions.assertEquals(200, mapper.readTree(result.body()).get("statusCode").asInt());
+        }
+    }
+
+    @Test
+    public void testFakeBackendInvoke() throws Exception {
+        try (LocalAwsFakes fakes = new LocalAwsFakes(0, 0, null)) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create(fakes.getEndpoint() + LocalAwsFakes.INVOKE_PREFIX + "PetsGetFunction/invocations"))
+                            .POST(HttpRequest.BodyPublishers.ofString("{}")).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode());
+            Assertions.assertEquals(LocalAwsFakes.DEFAULT_BACKEND_RESPONSE, response.body());
+        }
+    }
+
+    @Test
+    public void testPercentile() {
+        long[] sorted = new long[100];
+        for (int i = 0; i < sorted.length; i++)
+            sorted[i] = i + 1;
+        Assertions.assertEquals(50, LoadGenerator.percentile(sorted, 50));
+        Assertions.assertEquals(90, LoadGenerator.percentile(sorted, 90));
+        Assertions.assertEquals(99, LoadGenerator.percentile(sorted, 99));
+        Assertions.assertEquals(100, LoadGenerator.percentile(sorted, 100));
+        Assertions.assertEquals(0, LoadGenerator.percentile(new long[0], 50));
+    }
+}